@@ -0,0 +1,80 @@
+package com.himanshu.departmentalStore.config;
+
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.List;
+
+/**
+ * Configuration class for the second-level cache of Hibernate.
+ *
+ * <p>
+ * The regions are JCache caches held by Caffeine, declared with their size bound in the file named by
+ * hibernate.cache.config (see hibernate-cache.conf). Caffeine evicts with W-TinyLFU, which keeps the frequently read
+ * rows in a bounded region. A region missing from the file fails the startup, so none can grow unbounded.
+ * </p>
+ *
+ * <p>
+ * A native update does not tell Hibernate which tables it writes, so by default Hibernate empties every region after it.
+ * The native updates of the repositories therefore declare their table with {@code HibernateHints.HINT_NATIVE_SPACES}.
+ * </p>
+ */
+@Configuration
+public class SecondLevelCacheConfig {
+
+    /**
+     * The regions named by the @Cache of the entities, each declared in the cache configuration file.
+     */
+    public static final List<String> REGIONS = List.of("customer", "discount");
+
+    /**
+     * Creates the cache manager holding the regions, shared by Hibernate and the cache metrics.
+     * @param configuration The classpath resource declaring the regions.
+     * @return The Caffeine JCache cache manager.
+     * @throws URISyntaxException If the resource name is not a valid URI.
+     */
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager(@Value("${hibernate.cache.config:classpath:hibernate-cache.conf}")
+                                              final String configuration) throws URISyntaxException {
+        return Caching.getCachingProvider("com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider")
+                .getCacheManager(new URI(configuration), getClass().getClassLoader());
+    }
+
+    /**
+     * Turns the second-level cache on (unless spring.jpa.properties.hibernate.cache.use_second_level_cache=false),
+     * with the regions of the cache manager.
+     * @param hibernateCacheManager The cache manager holding the regions.
+     * @return The customizer of the Hibernate properties.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(final CacheManager hibernateCacheManager) {
+        return properties -> {
+            properties.putIfAbsent(AvailableSettings.USE_SECOND_LEVEL_CACHE, "true");
+            properties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+            properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+            properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+        };
+    }
+
+    /**
+     * Publishes the hits, misses, puts and evictions of each region as the cache.* meters of actuator,
+     * tagged with the region name.
+     * @param hibernateCacheManager The cache manager holding the regions.
+     * @return The binder of the region meters.
+     */
+    @Bean
+    public MeterBinder secondLevelCacheMetrics(final CacheManager hibernateCacheManager) {
+        return registry -> REGIONS.forEach(region -> JCacheMetrics.monitor(registry,
+                hibernateCacheManager.getCache(region), Tags.of("cacheManager", "hibernate")));
+    }
+}
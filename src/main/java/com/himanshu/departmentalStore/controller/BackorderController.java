@@ -1,15 +1,21 @@
 package com.himanshu.departmentalStore.controller;
 
 import com.himanshu.departmentalStore.dto.BackOrderRequestBody;
+import com.himanshu.departmentalStore.dto.CursorPage;
 import com.himanshu.departmentalStore.model.Backorder;
+import com.himanshu.departmentalStore.service.ExportService;
 import com.himanshu.departmentalStore.service.BackorderService;
+import com.himanshu.departmentalStore.filter.IdempotencyFilter;
+import com.himanshu.departmentalStore.util.ExportFormat;
 import io.swagger.v3.oas.annotations.Operation;
-import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.enums.ParameterIn;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import org.modelmapper.ModelMapper;
+import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -18,12 +24,13 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.DeleteMapping;
-import java.util.List;
+import java.io.IOException;
 
 /**
  * Controller class for handling HTTP requests related to backorders.
@@ -44,6 +51,11 @@ public class BackorderController {
      */
     @Autowired
     private BackorderService backorderService;
+    /**
+     * The ExportService responsible for streaming whole tables out.
+     */
+    @Autowired
+    private ExportService exportService;
 
     /**
      * The ModelMapper responsible for converting BackorderRequestBody (dto) to Backorder.
@@ -52,19 +64,50 @@ public class BackorderController {
     private ModelMapper modelMapper;
 
     /**
-     * Retrieves all backorders.
-     * @return ResponseEntity containing a list of all backorders and HTTP status 200 (OK)
+     * Retrieves a page of backorders, in id order.
+     * @param after The nextCursor of the previous page, absent for the first page
+     * @param limit The page size (capped at pagination.max-limit)
+     * @param customerId Only the backorders of this customer, if given
+     * @param productId Only the backorders of this product, if given
+     * @return ResponseEntity containing the page of backorders with the cursor of the next page and HTTP status 200 (OK)
      */
-    @Operation(summary = "Get all backorders", description = "Retrieves a list of all backorders.")
+    @Operation(summary = "Get all backorders", description = "Retrieves the backorders page by page : pass the nextCursor of a page as after to get the next one.")
     @ApiResponse(responseCode = "200", description = "Backorders found", content = {
-            @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = Backorder.class)))
+            @Content(mediaType = "application/json", schema = @Schema(implementation = CursorPage.class))
     })
     @GetMapping
-    public ResponseEntity<List<Backorder>> getAllBackorders() {
-        LOGGER.info("Received request to fetch all backorders");
-        List<Backorder> backorders = backorderService.getAllBackorders();
-        LOGGER.info("Fetched backorders");
-        return ResponseEntity.ok(backorders);
+    public ResponseEntity<CursorPage<Backorder>> getAllBackorders(
+            @RequestParam(value = "after", required = false) final Long after,
+            @RequestParam(value = "limit", required = false) final Integer limit,
+            @RequestParam(value = "customerId", required = false) final Long customerId,
+            @RequestParam(value = "productId", required = false) final Long productId) {
+        LOGGER.info("Received request to fetch backorders after Id : {}", after);
+        CursorPage<Backorder> page = backorderService.getAllBackorders(after, limit, customerId, productId);
+        LOGGER.info("Fetched {} backorders", page.getItems().size());
+        return ResponseEntity.ok(page);
+    }
+
+    /**
+     * Exports all the backorders, in id order, streamed as NDJSON or CSV.
+     * @param format   The format of the export : ndjson (default) or csv
+     * @param response The response, whose body is written as a stream
+     * @throws IOException If the response can not be written
+     */
+    @Operation(summary = "Export all backorders", description = "Streams every backorder as NDJSON or CSV, without loading the table in memory.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "One line per backorder"),
+            @ApiResponse(responseCode = "400", description = "Unsupported export format", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = com.himanshu.departmentalStore.exception.ApiResponse.class))
+            })
+    })
+    @GetMapping("/export")
+    public void exportBackorders(@RequestParam(value = "format", defaultValue = "ndjson") final String format,
+                                 final HttpServletResponse response) throws IOException {
+        ExportFormat exportFormat = ExportFormat.fromParameter(format);
+        LOGGER.info("Received request to export backorders as {}", exportFormat);
+        exportFormat.prepare(response, "backorders");
+        long exported = exportService.exportBackorders(exportFormat, response.getOutputStream());
+        LOGGER.info("Exported {} backorders", exported);
     }
 
     /**
@@ -94,7 +137,9 @@ public class BackorderController {
      * @param backOrderRequestBody The request body containing backorder details
      * @return ResponseEntity containing the created backorder and HTTP status 201 (Created)
      */
-    @Operation(summary = "Create new backorder", description = "Creates a new backorder.")
+    @Operation(summary = "Create new backorder", description = "Creates a new backorder.",
+            parameters = @Parameter(in = ParameterIn.HEADER, name = IdempotencyFilter.IDEMPOTENCY_KEY_HEADER,
+                    description = "Optional key making retries of this request return the first response"))
     @ApiResponses(value = {
             @ApiResponse(responseCode = "201", description = "Backorder created", content = {
                     @Content(mediaType = "application/json", schema = @Schema(implementation = Backorder.class))
@@ -135,9 +180,8 @@ public class BackorderController {
     @PutMapping("/{id}")
     public ResponseEntity<Backorder> updateBackorder(@PathVariable("id") final Long id, @RequestBody final BackOrderRequestBody backOrderRequestBody) {
         LOGGER.info("Received request to update backorder with ID {}: {}", id, backOrderRequestBody);
-        LOGGER.info("Converting RequestBody to backorder");
-        Backorder backorder = backorderDtoToBackorder(backOrderRequestBody);
-        LOGGER.info("RequestBody converted to backorder");
+        // product and customer are loaded (and checked) by BackorderService.updateBackorder
+        Backorder backorder = this.modelMapper.map(backOrderRequestBody, Backorder.class);
         Backorder updatedBackorder = backorderService.updateBackorder(id, backorder);
         LOGGER.info("Backorder updated with ID : {}", updatedBackorder.getId());
         return ResponseEntity.ok(updatedBackorder);
@@ -1,28 +1,36 @@
 package com.himanshu.departmentalStore.controller;
 
 import com.himanshu.departmentalStore.model.Customer;
+import com.himanshu.departmentalStore.dto.CursorPage;
+import com.himanshu.departmentalStore.dto.OrderHistoryPage;
 import com.himanshu.departmentalStore.service.CustomerService;
+import com.himanshu.departmentalStore.service.ExportService;
+import com.himanshu.departmentalStore.service.OrderService;
+import com.himanshu.departmentalStore.util.ExportFormat;
 import io.swagger.v3.oas.annotations.Operation;
-import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.DeleteMapping;
+import java.io.IOException;
+import java.time.LocalDateTime;
 
-import java.util.List;
 
 /**
  * Controller class for managing Customer entities.
@@ -43,24 +51,61 @@ public class CustomerController {
      */
     @Autowired
     private CustomerService customerService;
+    /**
+     * The ExportService responsible for streaming whole tables out.
+     */
+    @Autowired
+    private ExportService exportService;
+    /**
+     * The OrderService responsible for the order history of a customer.
+     */
+    @Autowired
+    private OrderService orderService;
 
     /**
-     * Retrieves all customers.
-     * @return A list of all customers.
+     * Retrieves a page of customers, in id order.
+     * @param after The nextCursor of the previous page, absent for the first page
+     * @param limit The page size (capped at pagination.max-limit)
+     * @return ResponseEntity containing the page of customers with the cursor of the next page and HTTP status 200 (OK)
      */
-    @Operation(summary = "Get all customers", description = "Retrieves a list of all customers.")
+    @Operation(summary = "Get all customers", description = "Retrieves the customers page by page : pass the nextCursor of a page as after to get the next one.")
     @ApiResponse(responseCode = "200", description = "Customers found", content = {
-            @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = Customer.class)))
+            @Content(mediaType = "application/json", schema = @Schema(implementation = CursorPage.class))
     })
     @GetMapping
-    public ResponseEntity<List<Customer>> getAllCustomers() {
-        LOGGER.info("Received request to retrieve all customers.");
-        List<Customer> customers = customerService.getAllCustomers();
-        LOGGER.info("Retrieved {} customers.", customers.size());
-        return ResponseEntity.status(HttpStatus.OK).body(customers);
+    public ResponseEntity<CursorPage<Customer>> getAllCustomers(
+            @RequestParam(value = "after", required = false) final Long after,
+            @RequestParam(value = "limit", required = false) final Integer limit) {
+        LOGGER.info("Received request to fetch customers after Id : {}", after);
+        CursorPage<Customer> page = customerService.getAllCustomers(after, limit);
+        LOGGER.info("Fetched {} customers", page.getItems().size());
+        return ResponseEntity.ok(page);
     }
 
 
+    /**
+     * Exports all the customers, in id order, streamed as NDJSON or CSV.
+     * @param format   The format of the export : ndjson (default) or csv
+     * @param response The response, whose body is written as a stream
+     * @throws IOException If the response can not be written
+     */
+    @Operation(summary = "Export all customers", description = "Streams every customer as NDJSON or CSV, without loading the table in memory.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "One line per customer"),
+            @ApiResponse(responseCode = "400", description = "Unsupported export format", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = com.himanshu.departmentalStore.exception.ApiResponse.class))
+            })
+    })
+    @GetMapping("/export")
+    public void exportCustomers(@RequestParam(value = "format", defaultValue = "ndjson") final String format,
+                                final HttpServletResponse response) throws IOException {
+        ExportFormat exportFormat = ExportFormat.fromParameter(format);
+        LOGGER.info("Received request to export customers as {}", exportFormat);
+        exportFormat.prepare(response, "customers");
+        long exported = exportService.exportCustomers(exportFormat, response.getOutputStream());
+        LOGGER.info("Exported {} customers", exported);
+    }
+
     /**
      * Retrieves a customer by their ID.
      * @param id The ID of the customer to retrieve.
@@ -83,6 +128,40 @@ public class CustomerController {
         return ResponseEntity.ok(customer);    }
 
 
+    /**
+     * Retrieves the order history of a customer, newest orders first, one page at a time.
+     * @param id     The ID of the customer
+     * @param from   Only the orders placed at or after this date and time, if given
+     * @param to     Only the orders placed before this date and time, if given
+     * @param cursor The nextCursor of the previous page, absent for the first page
+     * @param limit  The page size (capped at pagination.max-limit)
+     * @return ResponseEntity containing the page of order summaries and HTTP status 200 (OK)
+     */
+    @Operation(summary = "Get the orders of a customer", description = "Retrieves the order history of a customer, newest first : pass the nextCursor of a page as cursor to get the next one.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Orders found", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = OrderHistoryPage.class))
+            }),
+            @ApiResponse(responseCode = "400", description = "from is not before to, or the cursor is invalid", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = com.himanshu.departmentalStore.exception.ApiResponse.class))
+            }),
+            @ApiResponse(responseCode = "404", description = "Customer not found with given ID", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = com.himanshu.departmentalStore.exception.ApiResponse.class))
+            })
+    })
+    @GetMapping("/{id}/orders")
+    public ResponseEntity<OrderHistoryPage> getCustomerOrders(
+            @PathVariable("id") final Long id,
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) final LocalDateTime from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) final LocalDateTime to,
+            @RequestParam(value = "cursor", required = false) final String cursor,
+            @RequestParam(value = "limit", required = false) final Integer limit) {
+        LOGGER.info("Received request to fetch orders of customer with ID {}", id);
+        OrderHistoryPage page = orderService.getCustomerOrders(id, from, to, cursor, limit);
+        LOGGER.info("Fetched {} orders of customer with ID {}", page.getItems().size(), id);
+        return ResponseEntity.ok(page);
+    }
+
     /**
      * Saves a new customer.
      * @param customer The customer to save.
@@ -1,6 +1,7 @@
 package com.himanshu.departmentalStore.controller;
 
 import com.himanshu.departmentalStore.model.Discount;
+import com.himanshu.departmentalStore.dto.CursorPage;
 import com.himanshu.departmentalStore.service.DiscountService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.ArraySchema;
@@ -16,6 +17,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
@@ -61,19 +63,23 @@ public class DiscountController {
     }
 
     /**
-     * Retrieves all discounts.
-     * @return List of discounts
+     * Retrieves a page of discounts, in id order.
+     * @param after The nextCursor of the previous page, absent for the first page
+     * @param limit The page size (capped at pagination.max-limit)
+     * @return ResponseEntity containing the page of discounts with the cursor of the next page and HTTP status 200 (OK)
      */
-    @Operation(summary = "Get all discounts", description = "Retrieves a list of all discounts.")
+    @Operation(summary = "Get all discounts", description = "Retrieves the discounts page by page : pass the nextCursor of a page as after to get the next one.")
     @ApiResponse(responseCode = "200", description = "Discounts found", content = {
-            @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = Discount.class)))
+            @Content(mediaType = "application/json", schema = @Schema(implementation = CursorPage.class))
     })
     @GetMapping
-    public ResponseEntity<List<Discount>> getAllDiscounts() {
-        LOGGER.info("Received request to Fetch all discounts");
-        List<Discount> discountList = discountService.getAllDiscounts();
-        LOGGER.info("Fetched all discounts : {}", discountList);
-        return ResponseEntity.ok(discountList);
+    public ResponseEntity<CursorPage<Discount>> getAllDiscounts(
+            @RequestParam(value = "after", required = false) final Long after,
+            @RequestParam(value = "limit", required = false) final Integer limit) {
+        LOGGER.info("Received request to fetch discounts after Id : {}", after);
+        CursorPage<Discount> page = discountService.getAllDiscounts(after, limit);
+        LOGGER.info("Fetched {} discounts", page.getItems().size());
+        return ResponseEntity.ok(page);
     }
 
     /**
@@ -98,6 +104,27 @@ public class DiscountController {
         return ResponseEntity.ok(discount);
     }
 
+    /**
+     * Retrieves a discount by its coupon code, e.g. to resolve the coupon given at the till.
+     * @param code The coupon code, in any case
+     * @return The discount with the coupon code
+     */
+    @Operation(summary = "Get discount by coupon code", description = "Retrieves the discount of a coupon code.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Discount found", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = Discount.class))
+            }),
+            @ApiResponse(responseCode = "404", description = "Discount not found with given coupon code", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = com.himanshu.departmentalStore.exception.ApiResponse.class))
+            })
+    })
+    @GetMapping("/coupon/{code}")
+    public ResponseEntity<Discount> getDiscountByCouponCode(@PathVariable("code") final String code) {
+        LOGGER.info("Received request to Fetch discount by coupon code : {}", code);
+        Discount discount = discountService.getDiscountByCouponCode(code);
+        return ResponseEntity.ok(discount);
+    }
+
     /**
      * Creates a new discount.
      * @param discount The discount to create
@@ -108,7 +135,10 @@ public class DiscountController {
             @ApiResponse(responseCode = "201", description = "Discount created", content = {
                     @Content(mediaType = "application/json", schema = @Schema(implementation = Discount.class))
             }),
-            @ApiResponse(responseCode = "400", description = "Customer is null")
+            @ApiResponse(responseCode = "400", description = "Customer is null"),
+            @ApiResponse(responseCode = "409", description = "Coupon code already used by another discount", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = com.himanshu.departmentalStore.exception.ApiResponse.class))
+            })
     })
     @PostMapping
     public ResponseEntity<Discount> createDiscount(@RequestBody final Discount discount) {
@@ -132,6 +162,9 @@ public class DiscountController {
             }),
             @ApiResponse(responseCode = "404", description = "Discount not found with given ID", content = {
                     @Content(mediaType = "application/json", schema = @Schema(implementation = com.himanshu.departmentalStore.exception.ApiResponse.class))
+            }),
+            @ApiResponse(responseCode = "409", description = "Coupon code already used by another discount", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = com.himanshu.departmentalStore.exception.ApiResponse.class))
             })
     })
     @PutMapping("/{id}")
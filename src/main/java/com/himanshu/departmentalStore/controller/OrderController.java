@@ -1,29 +1,49 @@
 package com.himanshu.departmentalStore.controller;
 
+import com.himanshu.departmentalStore.dto.BatchOrderSummary;
+import com.himanshu.departmentalStore.dto.CursorPage;
+import com.himanshu.departmentalStore.dto.CartRequestBody;
 import com.himanshu.departmentalStore.dto.OrderRequestBody;
+import com.himanshu.departmentalStore.dto.OrderTicket;
+import com.himanshu.departmentalStore.exception.CustomException;
+import com.himanshu.departmentalStore.model.Cart;
 import com.himanshu.departmentalStore.model.Order;
+import com.himanshu.departmentalStore.service.ExportService;
+import com.himanshu.departmentalStore.service.CartService;
+import com.himanshu.departmentalStore.service.DiscountService;
+import com.himanshu.departmentalStore.service.OrderBatchService;
+import com.himanshu.departmentalStore.service.OrderPipeline;
 import com.himanshu.departmentalStore.service.OrderService;
+import com.himanshu.departmentalStore.filter.IdempotencyFilter;
+import com.himanshu.departmentalStore.util.ExportFormat;
+import com.himanshu.departmentalStore.util.OptimisticRetry;
 import io.swagger.v3.oas.annotations.Operation;
-import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.enums.ParameterIn;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.modelmapper.ModelMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.DeleteMapping;
-import java.util.List;
+import java.io.IOException;
 
 /**
  * Controller class for handling HTTP requests related to orders.
@@ -44,6 +64,37 @@ public class OrderController {
      */
     @Autowired
     private OrderService orderService;
+    /**
+     * The ExportService responsible for streaming whole tables out.
+     */
+    @Autowired
+    private ExportService exportService;
+    /**
+     * The CartService responsible for placing multi-line orders.
+     */
+    @Autowired
+    private CartService cartService;
+    /**
+     * The OrderBatchService responsible for ingesting large batches of orders.
+     */
+    @Autowired
+    private OrderBatchService orderBatchService;
+    /**
+     * Retry policy of the order operations which conflict with a concurrent change of the same rows.
+     * Each attempt maps the request body again, since a failed attempt may have changed its order.
+     */
+    @Autowired
+    private OptimisticRetry optimisticRetry;
+    /**
+     * The OrderPipeline responsible for placing the orders accepted asynchronously.
+     */
+    @Autowired
+    private OrderPipeline orderPipeline;
+    /**
+     * The DiscountService resolving the coupon codes given instead of a discount ID.
+     */
+    @Autowired
+    private DiscountService discountService;
     /**
      * The ModelMapper responsible for converting OrderRequestBody (dto) to Order.
      */
@@ -51,17 +102,50 @@ public class OrderController {
     private ModelMapper modelMapper;
 
     /**
-     * Retrieves all orders.
-     * @return ResponseEntity containing a list of all orders and HTTP status 200 (OK)
+     * Retrieves a page of orders, in id order.
+     * @param after The nextCursor of the previous page, absent for the first page
+     * @param limit The page size (capped at pagination.max-limit)
+     * @param customerId Only the orders of this customer, if given
+     * @param productId Only the orders of this product, if given
+     * @return ResponseEntity containing the page of orders with the cursor of the next page and HTTP status 200 (OK)
      */
-    @Operation(summary = "Get all orders", description = "Retrieves a list of all orders.")
+    @Operation(summary = "Get all orders", description = "Retrieves the orders page by page : pass the nextCursor of a page as after to get the next one.")
     @ApiResponse(responseCode = "200", description = "Orders found", content = {
-            @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = Order.class)))
+            @Content(mediaType = "application/json", schema = @Schema(implementation = CursorPage.class))
     })
     @GetMapping
-    public ResponseEntity<List<Order>> getAllOrders() {
-        LOGGER.info("Received request to fetch all orders.");
-        return ResponseEntity.ok(orderService.getAllOrders());
+    public ResponseEntity<CursorPage<Order>> getAllOrders(
+            @RequestParam(value = "after", required = false) final Long after,
+            @RequestParam(value = "limit", required = false) final Integer limit,
+            @RequestParam(value = "customerId", required = false) final Long customerId,
+            @RequestParam(value = "productId", required = false) final Long productId) {
+        LOGGER.info("Received request to fetch orders after Id : {}", after);
+        CursorPage<Order> page = orderService.getAllOrders(after, limit, customerId, productId);
+        LOGGER.info("Fetched {} orders", page.getItems().size());
+        return ResponseEntity.ok(page);
+    }
+
+    /**
+     * Exports all the orders, in id order, streamed as NDJSON or CSV.
+     * @param format   The format of the export : ndjson (default) or csv
+     * @param response The response, whose body is written as a stream
+     * @throws IOException If the response can not be written
+     */
+    @Operation(summary = "Export all orders", description = "Streams every order as NDJSON or CSV, without loading the table in memory.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "One line per order"),
+            @ApiResponse(responseCode = "400", description = "Unsupported export format", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = com.himanshu.departmentalStore.exception.ApiResponse.class))
+            })
+    })
+    @GetMapping("/export")
+    public void exportOrders(@RequestParam(value = "format", defaultValue = "ndjson") final String format,
+                             final HttpServletResponse response) throws IOException {
+        ExportFormat exportFormat = ExportFormat.fromParameter(format);
+        LOGGER.info("Received request to export orders as {}", exportFormat);
+        exportFormat.prepare(response, "orders");
+        long exported = exportService.exportOrders(exportFormat, response.getOutputStream());
+        LOGGER.info("Exported {} orders", exported);
     }
 
     /**
@@ -90,13 +174,15 @@ public class OrderController {
      * @param orderRequestBody The request body containing order details
      * @return ResponseEntity containing the created order and HTTP status 201 (Created)
      */
-    @Operation(summary = "Create new order", description = "Creates a new order.")
+    @Operation(summary = "Create new order", description = "Creates a new order.",
+            parameters = @Parameter(in = ParameterIn.HEADER, name = IdempotencyFilter.IDEMPOTENCY_KEY_HEADER,
+                    description = "Optional key making retries of this request return the first response"))
     @ApiResponses(value = {
             @ApiResponse(responseCode = "201", description = "Order created", content = {
                     @Content(mediaType = "application/json", schema = @Schema(implementation = Order.class))
             }),
             @ApiResponse(responseCode = "400", description = "Customer is null or This Discount can not be applied : amount is less than minimum price"),
-            @ApiResponse(responseCode = "404", description = "Product or Customer or Discount or all not found with given ID", content = {
+            @ApiResponse(responseCode = "404", description = "Product or Customer or Discount or all not found with given ID (or coupon code)", content = {
                     @Content(mediaType = "application/json", schema = @Schema(implementation = com.himanshu.departmentalStore.exception.ApiResponse.class))
             }),
             @ApiResponse(responseCode = "202", description = "Ordered quantity is more then the quantity left in the stock : Request Accepted : Backorder Created", content = {
@@ -106,16 +192,111 @@ public class OrderController {
     @PostMapping
     public ResponseEntity<Order> createOrder(@RequestBody final OrderRequestBody orderRequestBody) {
         LOGGER.info("Received request to create order.");
-        LOGGER.info("Converting OrderRequestBody to Order.");
-        Order order = orderDtoToOrder(orderRequestBody);
-        LOGGER.info("OrderRequestBody converted to Order");
-        Order createdOrder = orderService.createOrder(order);
+        // product, customer and discount are loaded (and checked) once by OrderService.createOrder
+        applyCouponCode(orderRequestBody);
+        Order createdOrder = optimisticRetry.run("create",
+                () -> orderService.createOrder(this.modelMapper.map(orderRequestBody, Order.class)));
         LOGGER.info("Order Placed.");
         return ResponseEntity
                 .status(HttpStatus.CREATED)
                 .body(createdOrder);
     }
 
+    /**
+     * Accepts a new order without waiting for it to be placed : the order is queued and its ticket is returned.
+     * @param orderRequestBody The request body containing order details
+     * @return ResponseEntity containing the ticket of the order, its Location, and HTTP status 202 (Accepted)
+     */
+    @Operation(summary = "Create new order asynchronously", description = "Queues an order and returns a ticket to poll with GET /orders/tickets/{id}.",
+            parameters = @Parameter(in = ParameterIn.HEADER, name = IdempotencyFilter.IDEMPOTENCY_KEY_HEADER,
+                    description = "Optional key making retries of this request return the first ticket"))
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Order queued", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = OrderTicket.class))
+            }),
+            @ApiResponse(responseCode = "503", description = "Order pipeline is full : retry later", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = com.himanshu.departmentalStore.exception.ApiResponse.class))
+            })
+    })
+    @PostMapping("/async")
+    public ResponseEntity<OrderTicket> createOrderAsync(@RequestBody final OrderRequestBody orderRequestBody) {
+        LOGGER.info("Received request to create order asynchronously.");
+        OrderTicket ticket = orderPipeline.submit(orderRequestBody);
+        return ResponseEntity
+                .status(HttpStatus.ACCEPTED)
+                .header(HttpHeaders.LOCATION, "/orders/tickets/" + ticket.getId())
+                .body(ticket);
+    }
+
+    /**
+     * Retrieves the ticket of an order accepted asynchronously.
+     * @param id The ID of the ticket
+     * @return ResponseEntity containing the ticket (QUEUED, then the outcome of the order) and HTTP status 200 (OK)
+     */
+    @Operation(summary = "Get order ticket by ID", description = "Retrieves the state of an order accepted by POST /orders/async.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Ticket found", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = OrderTicket.class))
+            }),
+            @ApiResponse(responseCode = "404", description = "Ticket not found with given ID, or expired", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = com.himanshu.departmentalStore.exception.ApiResponse.class))
+            })
+    })
+    @GetMapping("/tickets/{id}")
+    public ResponseEntity<OrderTicket> getTicket(@PathVariable("id") final String id) {
+        LOGGER.info("Received request to fetch ticket with Id : {}", id);
+        return ResponseEntity.ok(orderPipeline.getTicket(id));
+    }
+
+    /**
+     * Creates a new cart : one order with several lines, placed in a single transaction.
+     * @param cartRequestBody The request body containing the customer, the discount and the lines of the cart
+     * @return ResponseEntity containing the created cart and HTTP status 201 (Created)
+     */
+    @Operation(summary = "Create new cart", description = "Creates a multi-line order in one transaction.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "Cart created, lines out of stock are returned as backorders", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = Cart.class))
+            }),
+            @ApiResponse(responseCode = "400", description = "Cart has no lines or This Discount can not be applied : amount is less than minimum price"),
+            @ApiResponse(responseCode = "404", description = "Product or Customer or Discount not found with given ID", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = com.himanshu.departmentalStore.exception.ApiResponse.class))
+            }),
+            @ApiResponse(responseCode = "202", description = "No line is in stock : Request Accepted : Backorders Created", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = com.himanshu.departmentalStore.exception.ApiResponse.class))
+            })
+    })
+    @PostMapping("/cart")
+    public ResponseEntity<Cart> createCart(@RequestBody final CartRequestBody cartRequestBody) {
+        LOGGER.info("Received request to create cart.");
+        Cart createdCart = cartService.createCart(cartRequestBody);
+        LOGGER.info("Cart placed with Id : {}", createdCart.getId());
+        return ResponseEntity
+                .status(HttpStatus.CREATED)
+                .body(createdCart);
+    }
+
+    /**
+     * Creates orders in bulk, from a JSON array or a NDJSON stream of order request bodies.
+     * The response is streamed as NDJSON : one result per input line (placed, backordered or rejected),
+     * then the summary of the batch with the achieved rows per second.
+     * @param request  The request, whose body is read as a stream
+     * @param response The response, whose body is written as a stream
+     * @throws IOException If the request can not be read or the response can not be written
+     */
+    @Operation(summary = "Create orders in bulk", description = "Places a JSON array or NDJSON stream of orders chunk by chunk.")
+    @ApiResponse(responseCode = "200", description = "One result per line, then the summary of the batch", content = {
+            @Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE, schema = @Schema(implementation = BatchOrderSummary.class))
+    })
+    @PostMapping(value = "/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public void createOrdersBatch(final HttpServletRequest request, final HttpServletResponse response) throws IOException {
+        LOGGER.info("Received request to create orders in bulk.");
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        BatchOrderSummary summary = orderBatchService.ingestOrders(request.getInputStream(), response.getOutputStream());
+        LOGGER.info("Batch of {} orders processed.", summary.getTotal());
+    }
+
     /**
      * Updates an existing order.
      * @param id               The ID of the order to update
@@ -133,17 +314,17 @@ public class OrderController {
             @ApiResponse(responseCode = "400", description = "Customer or Product or Discount is not same : Only Quantity can be updated : or no change in quantity", content = {
                     @Content(mediaType = "application/json", schema = @Schema(implementation = com.himanshu.departmentalStore.exception.ApiResponse.class))
             }),
-            @ApiResponse(responseCode = "409", description = "Ordered quantity is more then quantity left in stock", content = {
+            @ApiResponse(responseCode = "409", description = "Ordered quantity is more then quantity left in stock, or order still changed concurrently after the retries", content = {
                     @Content(mediaType = "application/json", schema = @Schema(implementation = com.himanshu.departmentalStore.exception.ApiResponse.class))
             }),
     })
     @PutMapping("/{id}")
     public ResponseEntity<Order> updateOrder(@PathVariable("id") final Long id, @RequestBody final OrderRequestBody orderRequestBody) {
         LOGGER.info("Received request to update the order with Id : {}.", id);
-        LOGGER.info("Converting OrderRequestBody to Order.");
-        Order order = orderDtoToOrder(orderRequestBody);
-        LOGGER.info("OrderRequestBody converted to Order");
-        Order updatedOrder = orderService.updateOrder(id, order);
+        // product and customer must be the ones of the order, the discount is loaded by OrderService.updateOrder
+        applyCouponCode(orderRequestBody);
+        Order updatedOrder = optimisticRetry.run("update",
+                () -> orderService.updateOrder(id, this.modelMapper.map(orderRequestBody, Order.class)));
         LOGGER.info("Order placed");
         return ResponseEntity.ok(updatedOrder);
     }
@@ -158,12 +339,15 @@ public class OrderController {
             @ApiResponse(responseCode = "200", description = "Order deleted"),
             @ApiResponse(responseCode = "404", description = "Order not found with given ID", content = {
                     @Content(mediaType = "application/json", schema = @Schema(implementation = com.himanshu.departmentalStore.exception.ApiResponse.class))
+            }),
+            @ApiResponse(responseCode = "409", description = "Order still changed concurrently after the retries", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = com.himanshu.departmentalStore.exception.ApiResponse.class))
             })
     })
     @DeleteMapping("/{id}")
     public ResponseEntity<String> deleteOrder(@PathVariable("id") final Long id) {
         LOGGER.info("Received request to delete order with ID: {}", id);
-        orderService.deleteOrder(id);
+        optimisticRetry.run("delete", () -> orderService.deleteOrder(id));
         LOGGER.info("Order deleted with ID: {}", id);
         return ResponseEntity
                 .status(HttpStatus.OK)
@@ -171,13 +355,18 @@ public class OrderController {
     }
 
     /**
-     * Converts an OrderRequestBody object to an Order object.
+     * Replaces the coupon code of an order, if given, by the ID of its discount.
      * @param orderRequestBody The request body containing order details
-     * @return The converted Order object
+     * @throws CustomException With status 400 if both a discount ID and a coupon code are given,
+     *         404 if no discount has the coupon code
      */
-    private Order orderDtoToOrder(final OrderRequestBody orderRequestBody) {
-        LOGGER.info("Checking that Product, customer and discount exist with requested Id or not.");
-        orderService.checkExistence(orderRequestBody);
-        LOGGER.info("Product, Customer and discount exist with requested Id.");
-        return this.modelMapper.map(orderRequestBody, Order.class);    }
+    private void applyCouponCode(final OrderRequestBody orderRequestBody) {
+        if (orderRequestBody.getCouponCode() == null) {
+            return;
+        }
+        if (orderRequestBody.getDiscountId() != null) {
+            throw new CustomException("Give either a discount id or a coupon code", orderRequestBody, HttpStatus.BAD_REQUEST);
+        }
+        orderRequestBody.setDiscountId(discountService.getDiscountByCouponCode(orderRequestBody.getCouponCode()).getId());
+    }
 }
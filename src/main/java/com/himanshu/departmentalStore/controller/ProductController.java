@@ -1,27 +1,33 @@
 package com.himanshu.departmentalStore.controller;
 
 import com.himanshu.departmentalStore.model.Product;
+import com.himanshu.departmentalStore.dto.CursorPage;
+import com.himanshu.departmentalStore.service.ExportService;
 import com.himanshu.departmentalStore.service.ProductService;
+import com.himanshu.departmentalStore.util.ExportFormat;
 import io.swagger.v3.oas.annotations.Operation;
-import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.DeleteMapping;
-import java.util.List;
+import java.io.IOException;
 
 /**
  * Controller class for handling HTTP requests related to products.
@@ -43,43 +49,89 @@ public class ProductController {
      */
     @Autowired
     private ProductService productService;
+    /**
+     * The ExportService responsible for streaming whole tables out.
+     */
+    @Autowired
+    private ExportService exportService;
 
     /**
-     * Retrieves all products.
-     * @return ResponseEntity with a list of products and HTTP status 200 (OK)
+     * Retrieves a page of products, in id order.
+     * @param after The nextCursor of the previous page, absent for the first page
+     * @param limit The page size (capped at pagination.max-limit)
+     * @param availability Only the products with this availability, if given
+     * @return ResponseEntity containing the page of products with the cursor of the next page and HTTP status 200 (OK)
      */
-    @Operation(summary = "Get all products", description = "Retrieves a list of all products.")
+    @Operation(summary = "Get all products", description = "Retrieves the products page by page : pass the nextCursor of a page as after to get the next one.")
     @ApiResponse(responseCode = "200", description = "Products found", content = {
-            @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = Product.class)))
+            @Content(mediaType = "application/json", schema = @Schema(implementation = CursorPage.class))
     })
     @GetMapping
-    public ResponseEntity<List<Product>> getAllProducts() {
-        LOGGER.info("Request received to fetch all products");
-        List<Product> products = productService.getAllProducts();
-        LOGGER.info("Returning {} products", products.size());
-        return ResponseEntity.ok(products);
+    public ResponseEntity<CursorPage<Product>> getAllProducts(
+            @RequestParam(value = "after", required = false) final Long after,
+            @RequestParam(value = "limit", required = false) final Integer limit,
+            @RequestParam(value = "availability", required = false) final Boolean availability) {
+        LOGGER.info("Received request to fetch products after Id : {}", after);
+        CursorPage<Product> page = productService.getAllProducts(after, limit, availability);
+        LOGGER.info("Fetched {} products", page.getItems().size());
+        return ResponseEntity.ok(page);
+    }
+
+    /**
+     * Exports all the products, in id order, streamed as NDJSON or CSV.
+     * @param format   The format of the export : ndjson (default) or csv
+     * @param response The response, whose body is written as a stream
+     * @throws IOException If the response can not be written
+     */
+    @Operation(summary = "Export all products", description = "Streams every product as NDJSON or CSV, without loading the table in memory.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "One line per product"),
+            @ApiResponse(responseCode = "400", description = "Unsupported export format", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = com.himanshu.departmentalStore.exception.ApiResponse.class))
+            })
+    })
+    @GetMapping("/export")
+    public void exportProducts(@RequestParam(value = "format", defaultValue = "ndjson") final String format,
+                               final HttpServletResponse response) throws IOException {
+        ExportFormat exportFormat = ExportFormat.fromParameter(format);
+        LOGGER.info("Received request to export products as {}", exportFormat);
+        exportFormat.prepare(response, "products");
+        long exported = exportService.exportProducts(exportFormat, response.getOutputStream());
+        LOGGER.info("Exported {} products", exported);
     }
 
     /**
      * Retrieves a product by its ID.
+     * The ETag of the response is the version of the product catalog : while it is unchanged, so is the product.
      * @param id The ID of the product to retrieve
-     * @return ResponseEntity with the product and HTTP status 200 (OK)
+     * @param ifNoneMatch The ETag of the copy held by the client, if any
+     * @return ResponseEntity with the product and HTTP status 200 (OK), or 304 (Not Modified) if the client copy is current
      */
-    @Operation(summary = "Get product by ID", description = "Retrieves a product by its ID.")
+    @Operation(summary = "Get product by ID", description = "Retrieves a product by its ID. "
+            + "Send the ETag of a previous response as If-None-Match to get a 304 while the catalog is unchanged.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Product found", content = {
                     @Content(mediaType = "application/json", schema = @Schema(implementation = Product.class))
             }),
+            @ApiResponse(responseCode = "304", description = "Catalog unchanged since the given ETag"),
             @ApiResponse(responseCode = "404", description = "Product not found with given ID", content = {
                     @Content(mediaType = "application/json", schema = @Schema(implementation = com.himanshu.departmentalStore.exception.ApiResponse.class))
             })
     })
     @GetMapping("/{id}")
-    public ResponseEntity<Product> getProductById(@PathVariable("id") final Long id) {
+    public ResponseEntity<Product> getProductById(@PathVariable("id") final Long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) final String ifNoneMatch) {
         LOGGER.info("Request received to fetch product with ID {}", id);
+        // read before the product, so a change in between makes the ETag older than the product, never newer
+        String eTag = "\"" + productService.getCatalogVersion() + "\"";
+        if (eTag.equals(ifNoneMatch)) {
+            LOGGER.info("Product with ID {} not modified", id);
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
         Product product = productService.getProductById(id);
-        LOGGER.info("Returning product with ID {}: {}", id, product);
-        return ResponseEntity.ok(product);    }
+        LOGGER.info("Returning product with ID {}", id);
+        return ResponseEntity.ok().eTag(eTag).body(product);
+    }
 
     /**
      * Saves a new product.
@@ -114,6 +166,9 @@ public class ProductController {
             }),
             @ApiResponse(responseCode = "404", description = "Product not found with given ID", content = {
                     @Content(mediaType = "application/json", schema = @Schema(implementation = com.himanshu.departmentalStore.exception.ApiResponse.class))
+            }),
+            @ApiResponse(responseCode = "409", description = "Product given with a version it no longer has, or still changed concurrently after the retries", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = com.himanshu.departmentalStore.exception.ApiResponse.class))
             })
     })
     @PutMapping("/{id}")
@@ -0,0 +1,149 @@
+package com.himanshu.departmentalStore.controller;
+
+import com.himanshu.departmentalStore.dto.BackfillSummary;
+import com.himanshu.departmentalStore.model.DiscountDailySales;
+import com.himanshu.departmentalStore.model.ProductDailySales;
+import com.himanshu.departmentalStore.model.ProductHourlySales;
+import com.himanshu.departmentalStore.service.SalesRollupService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Controller class for the sales reports, read from the sales rollups only.
+ */
+@RestController
+@RequestMapping("/reports")
+public class ReportController {
+
+    /**
+     * Logger for logging messages related to ReportController class.
+     * This logger is used to log various messages, such as debug, info, error, etc.,
+     * related to the operations performed within the ReportController class.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReportController.class);
+
+    /**
+     * The SalesRollupService responsible for maintaining and reading the sales rollups.
+     */
+    @Autowired
+    private SalesRollupService salesRollupService;
+
+    /**
+     * Retrieves the sales per product and day.
+     * @param from      The first day, included
+     * @param to        The last day, included
+     * @param productId Only the sales of this product, if given
+     * @return ResponseEntity containing the daily totals and HTTP status 200 (OK)
+     */
+    @Operation(summary = "Get the daily sales of the products", description = "Retrieves the units, revenue and number of orders per product and day, for at most 366 days.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Sales found", content = {
+                    @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = ProductDailySales.class)))
+            }),
+            @ApiResponse(responseCode = "400", description = "from is after to, or the range is too long", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = com.himanshu.departmentalStore.exception.ApiResponse.class))
+            })
+    })
+    @GetMapping("/products/daily")
+    public ResponseEntity<List<ProductDailySales>> getProductDailySales(
+            @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) final LocalDate from,
+            @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) final LocalDate to,
+            @RequestParam(value = "productId", required = false) final Long productId) {
+        LOGGER.info("Received request to fetch daily product sales from {} to {}", from, to);
+        List<ProductDailySales> sales = salesRollupService.getProductDailySales(from, to, productId);
+        LOGGER.info("Fetched {} daily product sales", sales.size());
+        return ResponseEntity.ok(sales);
+    }
+
+    /**
+     * Retrieves the sales per product and hour.
+     * @param from      The start of the range, included
+     * @param to        The end of the range, excluded
+     * @param productId Only the sales of this product, if given
+     * @return ResponseEntity containing the hourly totals and HTTP status 200 (OK)
+     */
+    @Operation(summary = "Get the hourly sales of the products", description = "Retrieves the units, revenue and number of orders per product and hour, for at most 31 days.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Sales found", content = {
+                    @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = ProductHourlySales.class)))
+            }),
+            @ApiResponse(responseCode = "400", description = "from is not before to, or the range is too long", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = com.himanshu.departmentalStore.exception.ApiResponse.class))
+            })
+    })
+    @GetMapping("/products/hourly")
+    public ResponseEntity<List<ProductHourlySales>> getProductHourlySales(
+            @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) final LocalDateTime from,
+            @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) final LocalDateTime to,
+            @RequestParam(value = "productId", required = false) final Long productId) {
+        LOGGER.info("Received request to fetch hourly product sales from {} to {}", from, to);
+        List<ProductHourlySales> sales = salesRollupService.getProductHourlySales(from, to, productId);
+        LOGGER.info("Fetched {} hourly product sales", sales.size());
+        return ResponseEntity.ok(sales);
+    }
+
+    /**
+     * Retrieves the sales per discount and day.
+     * @param from       The first day, included
+     * @param to         The last day, included
+     * @param discountId Only the sales of this discount, if given
+     * @return ResponseEntity containing the daily totals and HTTP status 200 (OK)
+     */
+    @Operation(summary = "Get the daily sales of the discounts", description = "Retrieves the units, revenue and number of orders per discount and day, for at most 366 days.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Sales found", content = {
+                    @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = DiscountDailySales.class)))
+            }),
+            @ApiResponse(responseCode = "400", description = "from is after to, or the range is too long", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = com.himanshu.departmentalStore.exception.ApiResponse.class))
+            })
+    })
+    @GetMapping("/discounts/daily")
+    public ResponseEntity<List<DiscountDailySales>> getDiscountDailySales(
+            @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) final LocalDate from,
+            @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) final LocalDate to,
+            @RequestParam(value = "discountId", required = false) final Long discountId) {
+        LOGGER.info("Received request to fetch daily discount sales from {} to {}", from, to);
+        List<DiscountDailySales> sales = salesRollupService.getDiscountDailySales(from, to, discountId);
+        LOGGER.info("Fetched {} daily discount sales", sales.size());
+        return ResponseEntity.ok(sales);
+    }
+
+    /**
+     * Rebuilds the sales rollups from the orders.
+     * @return ResponseEntity containing the summary of the rebuild and HTTP status 200 (OK)
+     */
+    @Operation(summary = "Rebuild the sales rollups", description = "Recomputes every rollup from the orders, in parallel chunks of product and discount IDs.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Rollups rebuilt", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = BackfillSummary.class))
+            }),
+            @ApiResponse(responseCode = "500", description = "A chunk could not be rebuilt", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = com.himanshu.departmentalStore.exception.ApiResponse.class))
+            })
+    })
+    @PostMapping("/backfill")
+    public ResponseEntity<BackfillSummary> backfill() {
+        LOGGER.info("Received request to rebuild the sales rollups");
+        BackfillSummary summary = salesRollupService.backfill();
+        LOGGER.info("Sales rollups rebuilt");
+        return ResponseEntity.ok(summary);
+    }
+}
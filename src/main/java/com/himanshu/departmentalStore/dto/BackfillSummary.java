@@ -0,0 +1,27 @@
+package com.himanshu.departmentalStore.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * DTO (Data Transfer Object) class representing the outcome of a rebuild of the sales rollups.
+ */
+@Getter
+@Setter
+public class BackfillSummary {
+
+    /**
+     * The number of ID ranges rebuilt.
+     */
+    private int chunks;
+
+    /**
+     * The number of rollup rows written.
+     */
+    private long rows;
+
+    /**
+     * The time taken by the whole backfill, in milliseconds.
+     */
+    private long elapsedMillis;
+}
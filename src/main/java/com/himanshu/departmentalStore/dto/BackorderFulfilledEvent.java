@@ -0,0 +1,44 @@
+package com.himanshu.departmentalStore.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Notification of a fulfilled backorder, so that its customer can be told of the order placed for it.
+ * Stored in the notification outbox with the fulfillment, and handed to a NotificationChannel by the dispatcher.
+ * Carries ids only : it is delivered on another thread, after the transaction which fulfilled the backorder.
+ */
+@Getter
+@AllArgsConstructor
+public class BackorderFulfilledEvent {
+
+    /**
+     * The ID of the fulfilled backorder.
+     */
+    private Long backorderId;
+
+    /**
+     * The ID of the customer to notify.
+     */
+    private Long customerId;
+
+    /**
+     * The ID of the product now available.
+     */
+    private Long productId;
+
+    /**
+     * The quantity delivered by the order.
+     */
+    private int quantity;
+
+    /**
+     * The quantity still backordered : 0 once the backorder is fulfilled, more after a partial fill.
+     */
+    private int remaining;
+
+    /**
+     * The ID of the order placed for the backorder.
+     */
+    private Long orderId;
+}
@@ -0,0 +1,20 @@
+package com.himanshu.departmentalStore.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+import java.time.LocalDateTime;
+
+/**
+ * DTO (Data Transfer Object) class representing one line of a batch of orders (POST /orders/batch).
+ * Same as {@link OrderRequestBody}, with the time the sale was rung up at the POS terminal.
+ */
+@Getter
+@Setter
+public class BatchOrderRequestBody extends OrderRequestBody {
+
+    /**
+     * When the order was placed at the POS terminal, e.g. "2024-05-01T18:42:10".
+     * Optional : a line without it is timestamped when it is read.
+     */
+    private LocalDateTime timestamp;
+}
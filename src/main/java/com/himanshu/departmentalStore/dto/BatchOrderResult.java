@@ -0,0 +1,47 @@
+package com.himanshu.departmentalStore.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * DTO (Data Transfer Object) class representing the outcome of one line of a batch of orders.
+ * One result is written back per line of the input, in input order.
+ */
+@Getter
+@AllArgsConstructor
+public class BatchOrderResult {
+
+    /**
+     * The possible outcomes of a line.
+     */
+    public enum Status {
+        /**
+         * The order is saved and the stock is decreased.
+         */
+        PLACED,
+        /**
+         * Not enough stock : a backorder is saved instead.
+         */
+        BACKORDERED,
+        /**
+         * The line is invalid (unknown product, customer or discount, bad quantity, discount not applicable),
+         * nothing is saved.
+         */
+        REJECTED
+    }
+
+    /**
+     * The position of the line in the input, starting at 1.
+     */
+    private int line;
+
+    /**
+     * The outcome of the line.
+     */
+    private Status status;
+
+    /**
+     * The reason why a line is rejected, null otherwise.
+     */
+    private String message;
+}
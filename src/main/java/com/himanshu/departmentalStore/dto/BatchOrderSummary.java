@@ -0,0 +1,56 @@
+package com.himanshu.departmentalStore.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * DTO (Data Transfer Object) class representing the totals of a batch of orders.
+ * Written as the last line of the batch response.
+ */
+@Getter
+@Setter
+public class BatchOrderSummary {
+
+    /**
+     * The number of lines read from the input.
+     */
+    private int total;
+
+    /**
+     * The number of lines saved as orders.
+     */
+    private int placed;
+
+    /**
+     * The number of lines saved as backorders.
+     */
+    private int backordered;
+
+    /**
+     * The number of lines rejected.
+     */
+    private int rejected;
+
+    /**
+     * The time taken by the whole batch, in milliseconds.
+     */
+    private long elapsedMillis;
+
+    /**
+     * The achieved throughput : lines processed per second.
+     */
+    private double rowsPerSecond;
+
+    /**
+     * Counts the outcome of one line.
+     * @param status The outcome of the line.
+     */
+    public void count(final BatchOrderResult.Status status) {
+        total++;
+        switch (status) {
+            case PLACED -> placed++;
+            case BACKORDERED -> backordered++;
+            default -> rejected++;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.himanshu.departmentalStore.dto;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * DTO (Data Transfer Object) class representing one line of the request body for creating a cart.
+ * Contains information about the product ID and quantity.
+ */
+@Getter
+@Setter
+public class CartLineRequestBody {
+
+    /**
+     * The ID of the product ordered in this line.
+     * Cannot be null.
+     */
+    @NotNull
+    private Long productId;
+
+    /**
+     * The quantity of the product ordered in this line.
+     * Cannot be null.
+     */
+    @NotNull
+    private int quantity;
+}
@@ -0,0 +1,37 @@
+package com.himanshu.departmentalStore.dto;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+import lombok.Setter;
+import java.util.List;
+
+/**
+ * DTO (Data Transfer Object) class representing the request body for creating a cart (multi-line order).
+ * Contains information about the customer ID, discount ID and the lines of the cart.
+ */
+@Getter
+@Setter
+@SuppressFBWarnings(value = {"EI_EXPOSE_REP", "EI_EXPOSE_REP2"})
+public class CartRequestBody {
+
+    /**
+     * The ID of the customer placing the cart.
+     * Cannot be null.
+     */
+    @NotNull
+    private Long customerId;
+
+    /**
+     * The ID of the discount applied to the whole cart.
+     */
+    private Long discountId;
+
+    /**
+     * The lines of the cart.
+     * Cannot be empty.
+     */
+    @NotEmpty
+    private List<CartLineRequestBody> lines;
+}
@@ -0,0 +1,61 @@
+package com.himanshu.departmentalStore.dto;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import lombok.Getter;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * DTO (Data Transfer Object) class representing one page of a collection endpoint.
+ * Pages are read by key (id greater than the cursor) rather than by offset : the next page is requested with
+ * {@code after=<nextCursor>}, and costs the same index range scan whatever its depth.
+ * @param <T> The type of the items.
+ */
+@Getter
+@SuppressFBWarnings(value = {"EI_EXPOSE_REP"})
+public final class CursorPage<T> {
+
+    /**
+     * The items of the page, in ascending id order.
+     */
+    private final List<T> items;
+
+    /**
+     * The cursor of the next page (the id of the last item), or null if this is the last page.
+     */
+    private final Long nextCursor;
+
+    /**
+     * The page size used for this page.
+     */
+    private final int limit;
+
+    /**
+     * Creates a page.
+     * @param pageItems The items of the page.
+     * @param cursor The cursor of the next page, or null.
+     * @param pageSize The page size.
+     */
+    private CursorPage(final List<T> pageItems, final Long cursor, final int pageSize) {
+        this.items = pageItems;
+        this.nextCursor = cursor;
+        this.limit = pageSize;
+    }
+
+    /**
+     * Builds a page from the rows of a keyset query, which reads one row more than the page size
+     * to know whether there is a next page.
+     * @param rows The rows read, at most pageSize + 1, in ascending id order.
+     * @param pageSize The page size.
+     * @param idOf Function returning the id of an item.
+     * @param <T> The type of the items.
+     * @return The page, with a next cursor if more rows than the page size were read.
+     */
+    public static <T> CursorPage<T> of(final List<T> rows, final int pageSize, final Function<T, Long> idOf) {
+        if (rows.size() <= pageSize) {
+            return new CursorPage<>(rows, null, pageSize);
+        }
+        List<T> pageItems = rows.subList(0, pageSize);
+        return new CursorPage<>(pageItems, idOf.apply(pageItems.get(pageSize - 1)), pageSize);
+    }
+}
@@ -0,0 +1,115 @@
+package com.himanshu.departmentalStore.dto;
+
+import com.himanshu.departmentalStore.exception.CustomException;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+/**
+ * DTO (Data Transfer Object) class representing one page of a customer's order history, newest orders first.
+ * The history is ordered by (timestamp, id), so its cursor holds both : the next page is requested with
+ * {@code cursor=<nextCursor>}, and is read from the index right after the last order of this page.
+ */
+@Getter
+@SuppressFBWarnings(value = {"EI_EXPOSE_REP"})
+public final class OrderHistoryPage {
+
+    /**
+     * Separator between the timestamp and the id in a cursor.
+     */
+    private static final char SEPARATOR = '_';
+
+    /**
+     * The orders of the page, newest first.
+     */
+    private final List<OrderSummary> items;
+
+    /**
+     * The cursor of the next page (timestamp_id of the last order), or null if this is the last page.
+     */
+    private final String nextCursor;
+
+    /**
+     * The page size used for this page.
+     */
+    private final int limit;
+
+    /**
+     * Creates a page.
+     * @param pageItems The orders of the page.
+     * @param cursor The cursor of the next page, or null.
+     * @param pageSize The page size.
+     */
+    private OrderHistoryPage(final List<OrderSummary> pageItems, final String cursor, final int pageSize) {
+        this.items = pageItems;
+        this.nextCursor = cursor;
+        this.limit = pageSize;
+    }
+
+    /**
+     * Builds a page from the rows of the history query, which reads one row more than the page size.
+     * @param rows The rows read, at most pageSize + 1, newest first.
+     * @param pageSize The page size.
+     * @return The page, with a next cursor if more rows than the page size were read.
+     */
+    public static OrderHistoryPage of(final List<OrderSummary> rows, final int pageSize) {
+        if (rows.size() <= pageSize) {
+            return new OrderHistoryPage(rows, null, pageSize);
+        }
+        List<OrderSummary> pageItems = rows.subList(0, pageSize);
+        OrderSummary last = pageItems.get(pageSize - 1);
+        return new OrderHistoryPage(pageItems, last.getTimestamp().toString() + SEPARATOR + last.getId(), pageSize);
+    }
+
+    /**
+     * Reads the timestamp of a cursor.
+     * @param cursor A cursor returned as nextCursor.
+     * @return The timestamp of the last order of the previous page.
+     * @throws CustomException If the cursor is malformed.
+     */
+    public static LocalDateTime cursorTimestamp(final String cursor) {
+        try {
+            return LocalDateTime.parse(cursor.substring(0, separatorIndex(cursor)));
+        } catch (DateTimeParseException e) {
+            throw invalidCursor(cursor);
+        }
+    }
+
+    /**
+     * Reads the order id of a cursor.
+     * @param cursor A cursor returned as nextCursor.
+     * @return The id of the last order of the previous page.
+     * @throws CustomException If the cursor is malformed.
+     */
+    public static long cursorId(final String cursor) {
+        try {
+            return Long.parseLong(cursor.substring(separatorIndex(cursor) + 1));
+        } catch (NumberFormatException e) {
+            throw invalidCursor(cursor);
+        }
+    }
+
+    /**
+     * @param cursor A cursor.
+     * @return The position of the separator in the cursor.
+     * @throws CustomException If the cursor has no separator.
+     */
+    private static int separatorIndex(final String cursor) {
+        int index = cursor.lastIndexOf(SEPARATOR);
+        if (index < 0) {
+            throw invalidCursor(cursor);
+        }
+        return index;
+    }
+
+    /**
+     * @param cursor The malformed cursor.
+     * @return The exception to throw for it.
+     */
+    private static CustomException invalidCursor(final String cursor) {
+        return new CustomException("Invalid cursor : pass the nextCursor of the previous page", cursor, HttpStatus.BAD_REQUEST);
+    }
+}
@@ -6,7 +6,7 @@ import lombok.Setter;
 
 /**
  * DTO (Data Transfer Object) class representing the request body for creating an order.
- * Contains information about the product ID, customer ID, quantity, and discount ID.
+ * Contains information about the product ID, customer ID, quantity, and discount ID (or coupon code).
  */
 @Getter
 @Setter
@@ -37,5 +37,10 @@ public class OrderRequestBody {
      * The ID of the discount applied to the order.
      */
     private Long discountId;
+
+    /**
+     * The coupon code of the discount applied to the order, instead of its ID.
+     */
+    private String couponCode;
 }
 
@@ -0,0 +1,63 @@
+package com.himanshu.departmentalStore.dto;
+
+import com.himanshu.departmentalStore.util.Money;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * DTO (Data Transfer Object) class representing one line of a customer's order history.
+ * It holds the columns of the order only (the product and discount by id), so the history query
+ * is answered from the (customer_id, timestamp, ...) index without reading the table rows.
+ */
+@Getter
+@AllArgsConstructor
+public class OrderSummary {
+
+    /**
+     * The ID of the order.
+     */
+    private Long id;
+
+    /**
+     * The date and time when the order was placed.
+     */
+    private LocalDateTime timestamp;
+
+    /**
+     * The ID of the product ordered.
+     */
+    private Long productId;
+
+    /**
+     * The quantity of the product ordered.
+     */
+    private int quantity;
+
+    /**
+     * The total amount of the order.
+     */
+    private BigDecimal amount;
+
+    /**
+     * The ID of the discount applied to the order, or null.
+     */
+    private Long discountId;
+
+    /**
+     * Creates a line of the history from the columns read by the history query,
+     * where the amount is in cents like in the Order entity.
+     * @param orderId The ID of the order.
+     * @param placedAt The date and time when the order was placed.
+     * @param orderedProductId The ID of the product ordered.
+     * @param orderedQuantity The quantity of the product ordered.
+     * @param amountMinor The total amount of the order in cents, or null.
+     * @param appliedDiscountId The ID of the discount applied to the order, or null.
+     */
+    public OrderSummary(final Long orderId, final LocalDateTime placedAt, final Long orderedProductId,
+                        final int orderedQuantity, final Long amountMinor, final Long appliedDiscountId) {
+        this(orderId, placedAt, orderedProductId, orderedQuantity,
+                amountMinor == null ? null : Money.toDecimal(amountMinor), appliedDiscountId);
+    }
+}
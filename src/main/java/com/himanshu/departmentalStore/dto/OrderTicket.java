@@ -0,0 +1,83 @@
+package com.himanshu.departmentalStore.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * DTO (Data Transfer Object) class representing an order accepted by POST /orders/async.
+ * Returned with 202 when the order is queued, and by GET /orders/tickets/{id} until it expires.
+ * A ticket never changes : each step of the order replaces it with a new one.
+ */
+@Getter
+@AllArgsConstructor
+public class OrderTicket {
+
+    /**
+     * The possible states of a ticket.
+     */
+    public enum Status {
+        /**
+         * Accepted, waiting in the pipeline.
+         */
+        QUEUED,
+        /**
+         * The order is saved and the stock is decreased.
+         */
+        PLACED,
+        /**
+         * Not enough stock : a backorder is saved instead.
+         */
+        BACKORDERED,
+        /**
+         * The order is invalid (unknown product, customer or discount, bad quantity, discount not applicable),
+         * nothing is saved.
+         */
+        REJECTED,
+        /**
+         * The order could not be saved (e.g. the database was unavailable), nothing is saved : it can be sent again.
+         */
+        FAILED
+    }
+
+    /**
+     * The id of the ticket.
+     */
+    private String id;
+
+    /**
+     * The state of the order.
+     */
+    private Status status;
+
+    /**
+     * The id of the saved order, when PLACED.
+     */
+    private Long orderId;
+
+    /**
+     * The id of the saved backorder, when BACKORDERED.
+     */
+    private Long backorderId;
+
+    /**
+     * The amount of the order after discount, when PLACED.
+     */
+    private BigDecimal amount;
+
+    /**
+     * The reason of a rejection or a failure, null otherwise.
+     */
+    private String message;
+
+    /**
+     * When the order was accepted, also used as the order timestamp.
+     */
+    private LocalDateTime acceptedAt;
+
+    /**
+     * When the order left the pipeline, null while QUEUED.
+     */
+    private LocalDateTime completedAt;
+}
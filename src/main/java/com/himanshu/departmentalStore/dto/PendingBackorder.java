@@ -0,0 +1,58 @@
+package com.himanshu.departmentalStore.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import java.time.LocalDateTime;
+
+/**
+ * DTO (Data Transfer Object) class representing a backorder waiting for its product, as held by the backorder queues.
+ */
+@Getter
+@AllArgsConstructor
+public class PendingBackorder {
+
+    /**
+     * The ID of the backorder.
+     */
+    private Long id;
+
+    /**
+     * The ID of the awaited product.
+     */
+    private Long productId;
+
+    /**
+     * When the backorder was placed.
+     */
+    private LocalDateTime timestamp;
+
+    /**
+     * The quantity awaited.
+     */
+    private int quantity;
+
+    /**
+     * The units allocated to the backorder by the stock it was popped for : the quantity, or less for a partial fill.
+     */
+    private int allocated;
+
+    /**
+     * Creates a pending backorder, as queued or read from the table.
+     * @param backorderId The ID of the backorder.
+     * @param awaitedProductId The ID of the awaited product.
+     * @param placedAt When the backorder was placed.
+     * @param awaitedQuantity The quantity awaited.
+     */
+    public PendingBackorder(final Long backorderId, final Long awaitedProductId, final LocalDateTime placedAt,
+                            final int awaitedQuantity) {
+        this(backorderId, awaitedProductId, placedAt, awaitedQuantity, awaitedQuantity);
+    }
+
+    /**
+     * Tells whether the backorder is only partly fulfilled by its allocation.
+     * @return True if fewer units than awaited were allocated.
+     */
+    public boolean isPartial() {
+        return allocated < quantity;
+    }
+}
@@ -0,0 +1,27 @@
+package com.himanshu.departmentalStore.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * DTO (Data Transfer Object) class representing the stock of a product, as loaded by the inventory engine.
+ */
+@Getter
+@AllArgsConstructor
+public class ProductStock {
+
+    /**
+     * The ID of the product.
+     */
+    private Long id;
+
+    /**
+     * The quantity in stock.
+     */
+    private int count;
+
+    /**
+     * Whether the product can be ordered.
+     */
+    private boolean availability;
+}
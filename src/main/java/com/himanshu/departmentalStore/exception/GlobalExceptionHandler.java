@@ -3,6 +3,7 @@ package com.himanshu.departmentalStore.exception;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -35,6 +36,20 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(apiResponse, HttpStatus.NOT_FOUND);
     }
 
+    /**
+     * Handles OptimisticLockingFailureException and returns an appropriate API response with HTTP status 409 Conflict.
+     * Thrown when a row given with its version (such as a product updated with the version read by the client)
+     * was changed since that version.
+     * @param ex The OptimisticLockingFailureException thrown
+     * @return ResponseEntity containing an ApiResponse with the error message and status
+     */
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ApiResponse> optimisticLockingFailureHandler(final OptimisticLockingFailureException ex) {
+        LOGGER.error("OptimisticLockingFailureException: {}", ex.getMessage());
+        ApiResponse apiResponse = new ApiResponse("Changed by another request since it was read : read it again", false, null);
+        return new ResponseEntity<>(apiResponse, HttpStatus.CONFLICT);
+    }
+
     /**
      * Handles general exceptions and returns an appropriate API response with HTTP status 500 Internal Server Error.
      * @param ex The exception thrown
@@ -0,0 +1,248 @@
+package com.himanshu.departmentalStore.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.himanshu.departmentalStore.exception.ApiResponse;
+import com.himanshu.departmentalStore.model.IdempotencyRecord;
+import com.himanshu.departmentalStore.service.IdempotencyService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Filter making POST /orders, POST /orders/async and POST /backorders idempotent when the client sends an Idempotency-Key header.
+ *
+ * <p>
+ * The first request with a key is processed normally, and its response is stored if it is a success (2xx, this includes
+ * the 202 of an order turned into a backorder). Retries with the same key get the stored response back, with the
+ * Idempotent-Replayed header, and never reach the controller : stock is not decremented twice. A retry arriving
+ * while the first request is still running gets 409, a failed request releases its key so that it can be sent again.
+ * The key is stored with a hash of the request body : the same key sent with another body is a client bug
+ * (a reused receipt number for instance) and gets 422 rather than the response of a different order.
+ * </p>
+ */
+@Component
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    /**
+     * Logger for logging messages related to IdempotencyFilter class.
+     * This logger is used to log various messages, such as debug, info, error, etc.,
+     * related to the operations performed within the IdempotencyFilter class.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(IdempotencyFilter.class);
+
+    /**
+     * Request header carrying the key chosen by the client.
+     */
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
+    /**
+     * Response header set on replayed responses.
+     */
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    /**
+     * Maximum length of a key, a UUID fits easily.
+     */
+    private static final int MAX_KEY_LENGTH = 64;
+
+    /**
+     * The endpoints accepting an Idempotency-Key (POST only).
+     */
+    private static final Set<String> IDEMPOTENT_PATHS = Set.of("/orders", "/orders/async", "/backorders");
+
+    /**
+     * Service storing and looking up the keys.
+     */
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    /**
+     * ObjectMapper used to write the error responses of the filter.
+     */
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Skips every request which is not a POST on an idempotent endpoint with an Idempotency-Key header.
+     * @param request The current request.
+     * @return true if the request is not handled by this filter.
+     */
+    @Override
+    protected boolean shouldNotFilter(final HttpServletRequest request) {
+        return !HttpMethod.POST.matches(request.getMethod())
+                || !IDEMPOTENT_PATHS.contains(request.getRequestURI().substring(request.getContextPath().length()))
+                || request.getHeader(IDEMPOTENCY_KEY_HEADER) == null;
+    }
+
+    /**
+     * Replays the stored response of the key, or processes the request and stores its response.
+     * @param request The current request.
+     * @param response The current response.
+     * @param filterChain The rest of the chain.
+     * @throws ServletException If the request fails.
+     * @throws IOException If the response can not be written.
+     */
+    @Override
+    protected void doFilterInternal(final HttpServletRequest request, final HttpServletResponse response,
+                                    final FilterChain filterChain) throws ServletException, IOException {
+        String idempotencyKey = request.getHeader(IDEMPOTENCY_KEY_HEADER).trim();
+        if (idempotencyKey.isEmpty() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            LOGGER.error("Invalid Idempotency-Key : {}", idempotencyKey);
+            writeError(response, HttpStatus.BAD_REQUEST, "Idempotency-Key must have 1 to " + MAX_KEY_LENGTH + " characters");
+            return;
+        }
+        String key = request.getRequestURI().substring(request.getContextPath().length()) + ":" + idempotencyKey;
+        byte[] requestBody = StreamUtils.copyToByteArray(request.getInputStream());
+        String requestHash = sha256(requestBody);
+        String claimToken = UUID.randomUUID().toString();
+        Optional<IdempotencyRecord> existing = idempotencyService.claim(key, claimToken, requestHash);
+        if (existing.isPresent() && !existing.get().matches(requestHash)) {
+            LOGGER.error("Idempotency-Key {} was already used with another request body", key);
+            writeError(response, HttpStatus.UNPROCESSABLE_ENTITY, "This Idempotency-Key was already used with another request body");
+            return;
+        }
+        if (existing.isPresent() && existing.get().isInProgress()) {
+            LOGGER.error("Request with Idempotency-Key {} is still being processed", key);
+            writeError(response, HttpStatus.CONFLICT, "A request with this Idempotency-Key is still being processed");
+            return;
+        }
+        if (existing.isPresent()) {
+            LOGGER.info("Replaying response of Idempotency-Key : {}", key);
+            response.setStatus(existing.get().getStatusCode());
+            response.setHeader(REPLAYED_HEADER, "true");
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+            response.getWriter().write(existing.get().getResponseBody());
+            return;
+        }
+
+        ContentCachingResponseWrapper responseWrapper = new ContentCachingResponseWrapper(response);
+        boolean stored = false;
+        try {
+            filterChain.doFilter(new CachedBodyRequest(request, requestBody), responseWrapper);
+            if (HttpStatus.valueOf(responseWrapper.getStatus()).is2xxSuccessful()) {
+                idempotencyService.complete(key, claimToken, requestHash, responseWrapper.getStatus(),
+                        new String(responseWrapper.getContentAsByteArray(), StandardCharsets.UTF_8));
+                stored = true;
+            }
+        } finally {
+            if (!stored) {
+                idempotencyService.release(key, claimToken);
+            }
+            responseWrapper.copyBodyToResponse();
+        }
+    }
+
+    /**
+     * Writes an error response in the format of the GlobalExceptionHandler.
+     * @param response The current response.
+     * @param status The HTTP status of the error.
+     * @param message The error message.
+     * @throws IOException If the response can not be written.
+     */
+    private void writeError(final HttpServletResponse response, final HttpStatus status, final String message) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), new ApiResponse(message, false, null));
+    }
+
+    /**
+     * Hashes a request body.
+     * @param body The body of the request.
+     * @return The SHA-256 of the body, in hex.
+     */
+    private String sha256(final byte[] body) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(body));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * A request whose body was already read by the filter, and is read again from memory by the controller.
+     */
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        /**
+         * The body of the request.
+         */
+        private final byte[] body;
+
+        /**
+         * Wraps a request.
+         * @param request The request whose body was read.
+         * @param requestBody The body read.
+         */
+        private CachedBodyRequest(final HttpServletRequest request, final byte[] requestBody) {
+            super(request);
+            this.body = requestBody;
+        }
+
+        /**
+         * Gets the body as a stream.
+         * @return A stream over the body read.
+         */
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream input = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return input.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(final ReadListener readListener) {
+                    throw new UnsupportedOperationException("The body is already read");
+                }
+
+                @Override
+                public int read() {
+                    return input.read();
+                }
+            };
+        }
+
+        /**
+         * Gets the body as characters.
+         * @return A reader over the body read, in the encoding of the request (UTF-8 by default).
+         */
+        @Override
+        public BufferedReader getReader() {
+            Charset charset = getCharacterEncoding() == null ? StandardCharsets.UTF_8 : Charset.forName(getCharacterEncoding());
+            return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+        }
+    }
+}
@@ -2,11 +2,15 @@ package com.himanshu.departmentalStore.model;
 
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.NamedAttributeNode;
+import jakarta.persistence.NamedEntityGraph;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.TableGenerator;
 import jakarta.validation.constraints.NotNull;
 import lombok.Getter;
 import lombok.Setter;
@@ -15,8 +19,11 @@ import java.time.LocalDateTime;
 /**
  * Represents a backorder entity,
  * which indicates an order for a product that cannot be immediately fulfilled.
+ * <p>The associations are lazy : the reads which return them to the client fetch them in the same query
+ * through the "Backorder.details" entity graph.
  */
 @Entity
+@NamedEntityGraph(name = "Backorder.details", attributeNodes = {@NamedAttributeNode("product"), @NamedAttributeNode("customer")})
 @Getter
 @Setter
 @SuppressFBWarnings(value = {"EI_EXPOSE_REP", "EI_EXPOSE_REP2"})
@@ -27,14 +34,16 @@ public class Backorder {
      * primary key
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "backorder_id")
+    @TableGenerator(name = "backorder_id", table = "id_sequence", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "backorder", allocationSize = 50)
     private Long id;
 
     /**
      * The product associated with the backorder.
      */
     @NotNull(message = "Product_id can not be null")
-    @ManyToOne(optional = false)
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
     @JoinColumn(name = "product_id")
     private Product product;
 
@@ -42,7 +51,7 @@ public class Backorder {
      * The customer who placed the backorder.
      */
     @NotNull(message = "Customer_Id can not be null")
-    @ManyToOne(optional = false)
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
     @JoinColumn(name = "customer_id")
     private Customer customer;
 
@@ -0,0 +1,129 @@
+package com.himanshu.departmentalStore.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.himanshu.departmentalStore.util.Money;
+import com.himanshu.departmentalStore.util.MoneyConverter;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import jakarta.persistence.Convert;
+import jakarta.persistence.CascadeType;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.TableGenerator;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.OneToMany;
+import jakarta.persistence.Transient;
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+import lombok.Setter;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Represents a multi-line order (a basket) in the departmental store system.
+ * <p>A cart is placed by one customer, may carry one discount for the whole basket,
+ * and holds one {@link OrderLine} per product.
+ */
+@Entity
+@Getter
+@Setter
+@SuppressFBWarnings(value = {"EI_EXPOSE_REP", "EI_EXPOSE_REP2"})
+public class Cart {
+
+    /**
+     * The unique identifier for the cart.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "cart_id")
+    @TableGenerator(name = "cart_id", table = "id_sequence", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "cart", allocationSize = 50)
+    private Long id;
+
+    /**
+     * The customer who placed the cart.
+     */
+    @NotNull(message = "Give the customer_id")
+    @ManyToOne(optional = false)
+    @JoinColumn(name = "customer_id")
+    private Customer customer;
+
+    /**
+     * The timestamp indicating when the cart was placed.
+     */
+    private LocalDateTime timestamp;
+
+    /**
+     * The discount applied on the total of the cart (if any).
+     */
+    @ManyToOne
+    @JoinColumn(name = "discount_id")
+    private Discount discount;
+
+    /**
+     * The total price of all the lines of the cart.
+     * After adding discount if applicable, in cents.
+     */
+    @Convert(converter = MoneyConverter.class)
+    private Long amount;
+
+    /**
+     * The lines of the cart, one per product.
+     * Saved and deleted together with the cart.
+     */
+    @OneToMany(mappedBy = "cart", cascade = CascadeType.ALL, orphanRemoval = true)
+    private List<OrderLine> lines = new ArrayList<>();
+
+    /**
+     * Backorders created for the lines which could not be fulfilled from stock.
+     * Not stored with the cart, only returned to the caller.
+     */
+    @Transient
+    private List<Backorder> backorders = new ArrayList<>();
+
+    /**
+     * Adds a line to the cart and links the line back to this cart.
+     * @param line The line to add.
+     */
+    public void addLine(final OrderLine line) {
+        line.setCart(this);
+        lines.add(line);
+    }
+
+    /**
+     * Gets the amount of the cart.
+     * @return The amount with two decimals, or null.
+     */
+    public BigDecimal getAmount() {
+        return amount == null ? null : Money.toDecimal(amount);
+    }
+
+    /**
+     * Sets the amount of the cart.
+     * @param total The amount, rounded HALF_UP to the cent, or null.
+     */
+    public void setAmount(final BigDecimal total) {
+        this.amount = total == null ? null : Money.toMinor(total);
+    }
+
+    /**
+     * Gets the amount of the cart, in cents.
+     * @return The amount in cents, or null.
+     */
+    @JsonIgnore
+    public Long getAmountMinor() {
+        return amount;
+    }
+
+    /**
+     * Sets the amount of the cart, in cents.
+     * @param total The amount in cents, or null.
+     */
+    @JsonIgnore
+    public void setAmountMinor(final Long total) {
+        this.amount = total;
+    }
+}
@@ -1,19 +1,26 @@
 package com.himanshu.departmentalStore.model;
 
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
+import jakarta.persistence.TableGenerator;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.validation.constraints.NotNull;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import lombok.Getter;
 import lombok.Setter;
 
 /**
  * Represents a Customer entity in the departmental store system.
  * This entity stores information about customers including their name, address, and contact number.
+ * Cached in the "customer" region of the second-level cache, read-write.
  */
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "customer")
 @Getter
 @Setter
 public class Customer {
@@ -22,7 +29,9 @@ public class Customer {
      * The unique identifier for the customer.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "customer_id")
+    @TableGenerator(name = "customer_id", table = "id_sequence", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "customer", allocationSize = 50)
     private Long id;
 
     /**
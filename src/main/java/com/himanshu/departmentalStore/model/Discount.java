@@ -1,11 +1,19 @@
 package com.himanshu.departmentalStore.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.himanshu.departmentalStore.util.Money;
+import com.himanshu.departmentalStore.util.MoneyConverter;
+import jakarta.persistence.Cacheable;
+import jakarta.persistence.Convert;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.Id;
+import jakarta.persistence.TableGenerator;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Column;
 import jakarta.validation.constraints.NotNull;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import lombok.Getter;
 import lombok.Setter;
 import java.math.BigDecimal;
@@ -14,8 +22,12 @@ import java.time.LocalDateTime;
 /**
  * Represents a discount entity in the departmental store system.
  * This entity stores information about discounts including their name, value, duration, and conditions.
+ * Cached in the "discount" region of the second-level cache : read-mostly, so nonstrict read-write
+ * (no soft lock while a change commits, the entry is evicted once it has).
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE, region = "discount")
 @Getter
 @Setter
 public class Discount {
@@ -24,7 +36,9 @@ public class Discount {
      * The unique identifier for the discount.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "discount_id")
+    @TableGenerator(name = "discount_id", table = "id_sequence", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "discount", allocationSize = 50)
     private Long id;
 
     /**
@@ -35,11 +49,12 @@ public class Discount {
 
     /**
      * The value of the discount.
-     * (in percentage)
+     * (in percentage, kept in basis points : 12.5 % is 1250, see {@link Money})
      */
     @NotNull(message = "Value must not be null")
     @Column(name = "discount_value")
-    private BigDecimal value;
+    @Convert(converter = MoneyConverter.class)
+    private Long value;
 
     /**
      * The start date of the discount.
@@ -59,14 +74,83 @@ public class Discount {
     private String description;
 
     /**
-     * The minimum price required for the discount to be applicable.
+     * The minimum price required for the discount to be applicable, in cents.
      */
     @NotNull(message = "Give minimum price for the discount")
-    private BigDecimal minPrice;
+    @Convert(converter = MoneyConverter.class)
+    private Long minPrice;
 
     /**
      * The coupon code associated with the discount.
      */
     @NotNull(message = "Provide coupon code for the discount.")
     private String couponCode;
+
+    /**
+     * Gets the value of the discount.
+     * @return The percentage with two decimals, or null.
+     */
+    public BigDecimal getValue() {
+        return value == null ? null : Money.toDecimal(value);
+    }
+
+    /**
+     * Sets the value of the discount.
+     * @param percent The percentage, rounded HALF_UP to two decimals, or null.
+     */
+    public void setValue(final BigDecimal percent) {
+        this.value = percent == null ? null : Money.toMinor(percent);
+    }
+
+    /**
+     * Gets the value of the discount, as used for pricing.
+     * @return The percentage in basis points, or null.
+     */
+    @JsonIgnore
+    public Long getValueBasisPoints() {
+        return value;
+    }
+
+    /**
+     * Sets the value of the discount, in basis points.
+     * @param basisPoints The percentage in basis points, or null.
+     */
+    @JsonIgnore
+    public void setValueBasisPoints(final Long basisPoints) {
+        this.value = basisPoints;
+    }
+
+    /**
+     * Gets the minimum price required for the discount to be applicable.
+     * @return The minimum price with two decimals, or null.
+     */
+    public BigDecimal getMinPrice() {
+        return minPrice == null ? null : Money.toDecimal(minPrice);
+    }
+
+    /**
+     * Sets the minimum price required for the discount to be applicable.
+     * @param price The minimum price, rounded HALF_UP to the cent, or null.
+     */
+    public void setMinPrice(final BigDecimal price) {
+        this.minPrice = price == null ? null : Money.toMinor(price);
+    }
+
+    /**
+     * Gets the minimum price required for the discount to be applicable, as used for pricing.
+     * @return The minimum price in cents, or null.
+     */
+    @JsonIgnore
+    public Long getMinPriceMinor() {
+        return minPrice;
+    }
+
+    /**
+     * Sets the minimum price required for the discount to be applicable, in cents.
+     * @param price The minimum price in cents, or null.
+     */
+    @JsonIgnore
+    public void setMinPriceMinor(final Long price) {
+        this.minPrice = price;
+    }
 }
@@ -0,0 +1,59 @@
+package com.himanshu.departmentalStore.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * Totals of the orders per discount and day.
+ */
+@Entity
+@Table(name = "sales_discount_day")
+@IdClass(DiscountDailySales.Key.class)
+@Getter
+@Setter
+public class DiscountDailySales extends SalesRollup {
+
+    /**
+     * The ID of the discount.
+     */
+    @Id
+    @Column(name = "discount_id")
+    private Long discountId;
+
+    /**
+     * The day of the orders.
+     */
+    @Id
+    @Column(name = "sales_day")
+    private LocalDate day;
+
+    /**
+     * Primary key of the rollup.
+     */
+    @Getter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+
+        /**
+         * The ID of the discount.
+         */
+        private Long discountId;
+
+        /**
+         * The day of the orders.
+         */
+        private LocalDate day;
+    }
+}
@@ -0,0 +1,78 @@
+package com.himanshu.departmentalStore.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+import java.time.LocalDateTime;
+
+/**
+ * Represents the stored result of a request sent with an Idempotency-Key header.
+ * <p>The row is inserted when the first request claims the key, and completed with the status and the body
+ * of its response, which are replayed to every retry carrying the same key until the record expires.
+ */
+@Entity
+@Table(name = "idempotency_record")
+@Getter
+@Setter
+public class IdempotencyRecord {
+
+    /**
+     * Status code of a record whose request is still being processed.
+     */
+    public static final int IN_PROGRESS = 0;
+
+    /**
+     * The key : path of the endpoint and Idempotency-Key header, e.g. "/orders:3f9c...".
+     * primary key
+     */
+    @Id
+    @Column(name = "idempotency_key")
+    private String key;
+
+    /**
+     * SHA-256 (hex) of the body of the request which claimed the key, null for records stored before it was kept.
+     */
+    private String requestHash;
+
+    /**
+     * Random token of the request which holds the key, so that only that request completes or releases it.
+     */
+    private String claimToken;
+
+    /**
+     * The HTTP status of the stored response, or {@link #IN_PROGRESS}.
+     */
+    private int statusCode;
+
+    /**
+     * The JSON body of the stored response.
+     */
+    @Column(columnDefinition = "TEXT")
+    private String responseBody;
+
+    /**
+     * The time after which the record is purged and the key can be used again : the end of the lease of a request
+     * in progress, the end of the retention of a stored response.
+     */
+    private LocalDateTime expiresAt;
+
+    /**
+     * Checks whether the request holding this key has not completed yet.
+     * @return true if no response is stored yet.
+     */
+    public boolean isInProgress() {
+        return statusCode == IN_PROGRESS;
+    }
+
+    /**
+     * Checks whether a request sent with this key carries the same body as the request which claimed it.
+     * @param hash SHA-256 (hex) of the body of the request.
+     * @return true if the bodies match, or if no hash was stored.
+     */
+    public boolean matches(final String hash) {
+        return requestHash == null || requestHash.equals(hash);
+    }
+}
@@ -1,13 +1,22 @@
 package com.himanshu.departmentalStore.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.himanshu.departmentalStore.util.Money;
+import com.himanshu.departmentalStore.util.MoneyConverter;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import jakarta.persistence.Convert;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.NamedAttributeNode;
+import jakarta.persistence.NamedEntityGraph;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.TableGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import jakarta.validation.constraints.NotNull;
@@ -18,8 +27,12 @@ import lombok.Setter;
  * Represents an order entity in the departmental store system.
  * <p>This entity stores information about orders.
  * It includes the product, customer, timestamp, quantity, and associated discount.
+ * <p>The associations are lazy : the reads which return them to the client fetch them in the same query
+ * through the "Order.details" entity graph.
  */
 @Entity
+@NamedEntityGraph(name = "Order.details", attributeNodes = {
+        @NamedAttributeNode("product"), @NamedAttributeNode("customer"), @NamedAttributeNode("discount")})
 @Getter
 @Setter
 @Table(name = "customer_order")
@@ -28,16 +41,20 @@ public class Order {
 
     /**
      * The unique identifier for the order.
+     * Ids are reserved 50 at a time from the id_sequence table (like every other entity),
+     * so hibernate can batch the inserts instead of waiting for an AUTO_INCREMENT value per row.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "customer_order_id")
+    @TableGenerator(name = "customer_order_id", table = "id_sequence", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "customer_order", allocationSize = 50)
     private Long id;
 
     /**
      * The product associated with the order.
      */
     @NotNull(message = "Give the product id")
-    @ManyToOne(optional = false)
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
     @JoinColumn(name = "product_id")
     private Product product;
 
@@ -45,7 +62,7 @@ public class Order {
      * The customer who placed the order.
      */
     @NotNull(message = "Give the customer_id")
-    @ManyToOne(optional = false)
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
     @JoinColumn(name = "customer_id")
     private Customer customer;
 
@@ -64,13 +81,55 @@ public class Order {
      * The discount associated with the order (if any).
      * optional so that we can set discount to null if not applicable.
      */
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "discount_id")
     private Discount discount;
 
     /**
      * The total price associated with the order.
-     * After adding discount if applicable.
+     * After adding discount if applicable, in cents.
      */
-    private BigDecimal amount;
+    @Convert(converter = MoneyConverter.class)
+    private Long amount;
+
+    /**
+     * The version of the row, incremented by every update of the order.
+     * Two updates of the same order can not both apply their change of quantity : the later one fails and is retried.
+     */
+    @Version
+    private Long version;
+
+    /**
+     * Gets the amount of the order.
+     * @return The amount with two decimals, or null.
+     */
+    public BigDecimal getAmount() {
+        return amount == null ? null : Money.toDecimal(amount);
+    }
+
+    /**
+     * Sets the amount of the order.
+     * @param total The amount, rounded HALF_UP to the cent, or null.
+     */
+    public void setAmount(final BigDecimal total) {
+        this.amount = total == null ? null : Money.toMinor(total);
+    }
+
+    /**
+     * Gets the amount of the order, in cents.
+     * @return The amount in cents, or null.
+     */
+    @JsonIgnore
+    public Long getAmountMinor() {
+        return amount;
+    }
+
+    /**
+     * Sets the amount of the order, in cents.
+     * @param total The amount in cents, or null.
+     */
+    @JsonIgnore
+    public void setAmountMinor(final Long total) {
+        this.amount = total;
+    }
 }
@@ -0,0 +1,101 @@
+package com.himanshu.departmentalStore.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.himanshu.departmentalStore.util.Money;
+import com.himanshu.departmentalStore.util.MoneyConverter;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import jakarta.persistence.Convert;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.TableGenerator;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+import lombok.Setter;
+import java.math.BigDecimal;
+
+/**
+ * Represents one line of a {@link Cart} : a product and the quantity ordered of it.
+ */
+@Entity
+@Getter
+@Setter
+@Table(name = "order_line")
+@SuppressFBWarnings(value = {"EI_EXPOSE_REP", "EI_EXPOSE_REP2"})
+public class OrderLine {
+
+    /**
+     * The unique identifier for the order line.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "order_line_id")
+    @TableGenerator(name = "order_line_id", table = "id_sequence", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "order_line", allocationSize = 50)
+    private Long id;
+
+    /**
+     * The cart this line belongs to.
+     * Ignored in json to avoid a cycle between cart and its lines.
+     */
+    @JsonIgnore
+    @ManyToOne(optional = false)
+    @JoinColumn(name = "cart_id")
+    private Cart cart;
+
+    /**
+     * The product ordered in this line.
+     */
+    @NotNull(message = "Give the product id")
+    @ManyToOne(optional = false)
+    @JoinColumn(name = "product_id")
+    private Product product;
+
+    /**
+     * The quantity of the product ordered.
+     */
+    private int quantity;
+
+    /**
+     * The price of this line (product price * quantity), before the cart discount, in cents.
+     */
+    @Convert(converter = MoneyConverter.class)
+    private Long amount;
+
+    /**
+     * Gets the amount of the line.
+     * @return The amount with two decimals, or null.
+     */
+    public BigDecimal getAmount() {
+        return amount == null ? null : Money.toDecimal(amount);
+    }
+
+    /**
+     * Sets the amount of the line.
+     * @param total The amount, rounded HALF_UP to the cent, or null.
+     */
+    public void setAmount(final BigDecimal total) {
+        this.amount = total == null ? null : Money.toMinor(total);
+    }
+
+    /**
+     * Gets the amount of the line, in cents.
+     * @return The amount in cents, or null.
+     */
+    @JsonIgnore
+    public Long getAmountMinor() {
+        return amount;
+    }
+
+    /**
+     * Sets the amount of the line, in cents.
+     * @param total The amount in cents, or null.
+     */
+    @JsonIgnore
+    public void setAmountMinor(final Long total) {
+        this.amount = total;
+    }
+}
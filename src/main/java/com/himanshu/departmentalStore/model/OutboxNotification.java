@@ -0,0 +1,136 @@
+package com.himanshu.departmentalStore.model;
+
+import com.himanshu.departmentalStore.dto.BackorderFulfilledEvent;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.TableGenerator;
+import lombok.Getter;
+import lombok.Setter;
+import java.time.LocalDateTime;
+
+/**
+ * Represents a customer notification waiting in the outbox.
+ * <p>The row is inserted in the transaction which fulfills the backorder, so the notification exists if and only if
+ * the fulfillment committed, and is deleted once a channel delivered it.
+ */
+@Entity
+@Table(name = "notification_outbox")
+@Getter
+@Setter
+public class OutboxNotification {
+
+    /**
+     * The state of a notification in the outbox.
+     */
+    public enum Status {
+        /**
+         * Waiting for its next delivery attempt.
+         */
+        PENDING,
+        /**
+         * Given up after its last attempt, kept for inspection.
+         */
+        FAILED
+    }
+
+    /**
+     * The unique identifier for the notification.
+     * primary key
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "notification_outbox_id")
+    @TableGenerator(name = "notification_outbox_id", table = "id_sequence", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "notification_outbox", allocationSize = 500)
+    private Long id;
+
+    /**
+     * The ID of the fulfilled backorder.
+     */
+    private Long backorderId;
+
+    /**
+     * The ID of the customer to notify.
+     */
+    private Long customerId;
+
+    /**
+     * The ID of the product now available.
+     */
+    private Long productId;
+
+    /**
+     * The ID of the order placed for the backorder.
+     */
+    private Long orderId;
+
+    /**
+     * The quantity delivered by the order.
+     */
+    private int quantity;
+
+    /**
+     * The quantity still backordered.
+     */
+    private int remaining;
+
+    /**
+     * Whether the notification still waits for a delivery.
+     */
+    @Enumerated(EnumType.STRING)
+    private Status status;
+
+    /**
+     * The number of failed delivery attempts.
+     */
+    private int attempts;
+
+    /**
+     * When the notification was written, with the fulfillment.
+     */
+    private LocalDateTime createdAt;
+
+    /**
+     * The earliest time of the next delivery attempt.
+     */
+    private LocalDateTime nextAttemptAt;
+
+    /**
+     * The error of the last failed attempt.
+     */
+    @Column(length = 255)
+    private String lastError;
+
+    /**
+     * Creates the outbox row of a fulfilled backorder, due at once.
+     * @param event The fulfilled backorder.
+     * @param now The time of the fulfillment.
+     * @return The notification, to be saved.
+     */
+    public static OutboxNotification of(final BackorderFulfilledEvent event, final LocalDateTime now) {
+        OutboxNotification notification = new OutboxNotification();
+        notification.setBackorderId(event.getBackorderId());
+        notification.setCustomerId(event.getCustomerId());
+        notification.setProductId(event.getProductId());
+        notification.setOrderId(event.getOrderId());
+        notification.setQuantity(event.getQuantity());
+        notification.setRemaining(event.getRemaining());
+        notification.setStatus(Status.PENDING);
+        notification.setCreatedAt(now);
+        notification.setNextAttemptAt(now);
+        return notification;
+    }
+
+    /**
+     * Gets the message handed to the channels.
+     * @return The fulfilled backorder.
+     */
+    public BackorderFulfilledEvent toEvent() {
+        return new BackorderFulfilledEvent(backorderId, customerId, productId, quantity, remaining, orderId);
+    }
+}
@@ -1,9 +1,15 @@
 package com.himanshu.departmentalStore.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.himanshu.departmentalStore.util.Money;
+import com.himanshu.departmentalStore.util.MoneyConverter;
+import jakarta.persistence.Convert;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.TableGenerator;
+import jakarta.persistence.Version;
 import jakarta.validation.constraints.NotNull;
 import lombok.Getter;
 import lombok.Setter;
@@ -13,6 +19,8 @@ import java.time.LocalDate;
 /**
  * Represents a product entity in the departmental store system.
  * This entity stores information about products including their name, description, price, expiry date, availability, and count in stock.
+ * Not in the second-level cache : every stock change is a bulk update which would empty its region,
+ * and lookups by id are served by the catalog (see ProductCatalogService).
  */
 @Entity
 @Getter
@@ -23,7 +31,9 @@ public class Product {
      * The unique identifier for the product.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "product_id")
+    @TableGenerator(name = "product_id", table = "id_sequence", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "product", allocationSize = 50)
     private Long id;
 
     /**
@@ -38,10 +48,11 @@ public class Product {
     private String description;
 
     /**
-     * The price of the product.
+     * The price of the product, in cents (see {@link Money}).
      */
     @NotNull(message = "Price Can not be null")
-    private BigDecimal price;
+    @Convert(converter = MoneyConverter.class)
+    private Long price;
 
     /**
      * The expiry date of the product.
@@ -57,4 +68,45 @@ public class Product {
      * The availability status of the product.
      */
     private boolean availability;
+
+    /**
+     * The version of the row, incremented by every update of the product (the stock updates included).
+     * An update read from an older version fails instead of overwriting the newer row.
+     */
+    @Version
+    private Long version;
+
+    /**
+     * Gets the price of the product.
+     * @return The price with two decimals, or null.
+     */
+    public BigDecimal getPrice() {
+        return price == null ? null : Money.toDecimal(price);
+    }
+
+    /**
+     * Sets the price of the product.
+     * @param newPrice The price, rounded HALF_UP to the cent, or null.
+     */
+    public void setPrice(final BigDecimal newPrice) {
+        this.price = newPrice == null ? null : Money.toMinor(newPrice);
+    }
+
+    /**
+     * Gets the price of the product, as used for pricing.
+     * @return The price in cents, or null.
+     */
+    @JsonIgnore
+    public Long getPriceMinor() {
+        return price;
+    }
+
+    /**
+     * Sets the price of the product, in cents.
+     * @param newPrice The price in cents, or null.
+     */
+    @JsonIgnore
+    public void setPriceMinor(final Long newPrice) {
+        this.price = newPrice;
+    }
 }
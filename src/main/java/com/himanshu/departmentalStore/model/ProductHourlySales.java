@@ -0,0 +1,59 @@
+package com.himanshu.departmentalStore.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Totals of the orders per product and hour (start of the hour).
+ */
+@Entity
+@Table(name = "sales_product_hour")
+@IdClass(ProductHourlySales.Key.class)
+@Getter
+@Setter
+public class ProductHourlySales extends SalesRollup {
+
+    /**
+     * The ID of the product.
+     */
+    @Id
+    @Column(name = "product_id")
+    private Long productId;
+
+    /**
+     * The hour of the orders (truncated to the hour).
+     */
+    @Id
+    @Column(name = "sales_hour")
+    private LocalDateTime hour;
+
+    /**
+     * Primary key of the rollup.
+     */
+    @Getter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+
+        /**
+         * The ID of the product.
+         */
+        private Long productId;
+
+        /**
+         * The hour of the orders (truncated to the hour).
+         */
+        private LocalDateTime hour;
+    }
+}
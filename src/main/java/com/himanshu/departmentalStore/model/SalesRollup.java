@@ -0,0 +1,34 @@
+package com.himanshu.departmentalStore.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.MappedSuperclass;
+import lombok.Getter;
+import lombok.Setter;
+import java.math.BigDecimal;
+
+/**
+ * Totals of the orders of one rollup bucket (a product or a discount, over a day or an hour).
+ * <p>Rollup rows are never written through the entity manager : they are incremented in place by the order writes
+ * and rebuilt by the backfill, with native statements (see {@link com.himanshu.departmentalStore.service.SalesRollupService}).
+ */
+@MappedSuperclass
+@Getter
+@Setter
+public abstract class SalesRollup {
+
+    /**
+     * The quantity sold.
+     */
+    private long units;
+
+    /**
+     * The amount of the orders, discounts applied.
+     */
+    private BigDecimal revenue;
+
+    /**
+     * The number of orders.
+     */
+    @Column(name = "order_count")
+    private long orders;
+}
@@ -0,0 +1,64 @@
+package com.himanshu.departmentalStore.notification;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.himanshu.departmentalStore.dto.BackorderFulfilledEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Channel appending the notifications to a local file, one JSON object per line, for tests and local runs.
+ * Enabled with notifications.channel=file; the file is notifications.file.
+ */
+@Component
+@ConditionalOnProperty(name = "notifications.channel", havingValue = "file")
+public class FileNotificationChannel implements NotificationChannel {
+
+    /**
+     * The file the notifications are appended to.
+     */
+    private final Path file;
+
+    /**
+     * Writes the notifications as JSON.
+     */
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Creates the channel.
+     * @param path The file the notifications are appended to, created if missing.
+     * @param mapper Writes the notifications as JSON.
+     */
+    public FileNotificationChannel(@Value("${notifications.file:notifications.jsonl}") final Path path,
+                                   final ObjectMapper mapper) {
+        this.file = path;
+        this.objectMapper = mapper;
+    }
+
+    /**
+     * Appends the batch to the file, with one write.
+     * @param notifications The fulfilled backorders.
+     */
+    @Override
+    public void deliver(final List<BackorderFulfilledEvent> notifications) {
+        StringBuilder lines = new StringBuilder();
+        try {
+            for (BackorderFulfilledEvent event : notifications) {
+                lines.append(objectMapper.writeValueAsString(event)).append('\n');
+            }
+            Files.writeString(file, lines, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Notification not serializable", e);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Notifications not written to " + file, e);
+        }
+    }
+}
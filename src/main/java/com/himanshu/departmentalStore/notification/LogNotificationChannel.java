@@ -0,0 +1,41 @@
+package com.himanshu.departmentalStore.notification;
+
+import com.himanshu.departmentalStore.dto.BackorderFulfilledEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import java.util.List;
+
+/**
+ * Channel writing the notifications to the application log, until a real channel is plugged in.
+ * The default, with notifications.channel=log.
+ */
+@Component
+@ConditionalOnProperty(name = "notifications.channel", havingValue = "log", matchIfMissing = true)
+public class LogNotificationChannel implements NotificationChannel {
+
+    /**
+     * Logger for logging messages related to LogNotificationChannel class.
+     * This logger is used to log various messages, such as debug, info, error, etc.,
+     * related to the operations performed within the LogNotificationChannel class.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(LogNotificationChannel.class);
+
+    /**
+     * Logs each notification of the batch.
+     * @param notifications The fulfilled backorders.
+     */
+    @Override
+    public void deliver(final List<BackorderFulfilledEvent> notifications) {
+        for (BackorderFulfilledEvent event : notifications) {
+            if (event.getRemaining() > 0) {
+                LOGGER.info("Backorder {} partly fulfilled ({} delivered, {} still awaited), notification send to customer {} for product {}",
+                        event.getBackorderId(), event.getQuantity(), event.getRemaining(), event.getCustomerId(), event.getProductId());
+            } else {
+                LOGGER.info("Backorder {} fulfilled, notification send to customer {} for product {}",
+                        event.getBackorderId(), event.getCustomerId(), event.getProductId());
+            }
+        }
+    }
+}
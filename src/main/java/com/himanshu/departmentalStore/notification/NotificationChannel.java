@@ -0,0 +1,23 @@
+package com.himanshu.departmentalStore.notification;
+
+import com.himanshu.departmentalStore.dto.BackorderFulfilledEvent;
+import java.util.List;
+
+/**
+ * A way of telling the customers that their backorders were fulfilled (mail, SMS, message broker...).
+ * The channel in use is chosen with the notifications.channel property.
+ *
+ * <p>
+ * Delivery is at least once : a batch which failed is delivered again as a whole, later, so a channel should
+ * recognize a notification it already sent by its backorder and order ids.
+ * </p>
+ */
+public interface NotificationChannel {
+
+    /**
+     * Delivers a batch of notifications.
+     * @param notifications The fulfilled backorders, oldest notification first.
+     * @throws RuntimeException If the batch, or part of it, was not delivered : the whole batch is retried.
+     */
+    void deliver(List<BackorderFulfilledEvent> notifications);
+}
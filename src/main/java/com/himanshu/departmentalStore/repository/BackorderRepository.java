@@ -1,13 +1,46 @@
 package com.himanshu.departmentalStore.repository;
 
+import com.himanshu.departmentalStore.dto.PendingBackorder;
 import com.himanshu.departmentalStore.model.Backorder;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repository interface for performing CRUD operations on Backorder entities in the database.
  */
 public interface BackorderRepository extends JpaRepository<Backorder, Long> {
+
+    /**
+     * Retrieves all backorders, with their product and customer fetched in the same query.
+     * @return A list of all backorders
+     */
+    @Override
+    @EntityGraph("Backorder.details")
+    List<Backorder> findAll();
+
+    /**
+     * Retrieves a backorder by its ID, with its product and customer fetched in the same query.
+     * @param id The ID of the backorder
+     * @return The backorder, or empty if it does not exist
+     */
+    @Override
+    @EntityGraph("Backorder.details")
+    Optional<Backorder> findById(Long id);
+
     /**
      * Retrieves a list of backorders by product ID.
      * @param productId The ID of the product to retrieve backorders for
@@ -15,4 +48,71 @@ public interface BackorderRepository extends JpaRepository<Backorder, Long> {
      */
     List<Backorder> findByProductId(Long productId);
 
+    /**
+     * Retrieves a page of backorders after a cursor, in id order, optionally filtered by customer and product.
+     * @param after The id after which the page starts (0 for the first page)
+     * @param customerId The customer to filter on, or null
+     * @param productId The product to filter on, or null
+     * @param limit The number of rows to read
+     * @return The backorders of the page, with their product and customer
+     */
+    @EntityGraph("Backorder.details")
+    @Query("SELECT b FROM Backorder b WHERE b.id > :after"
+            + " AND (:customerId IS NULL OR b.customer.id = :customerId)"
+            + " AND (:productId IS NULL OR b.product.id = :productId)"
+            + " ORDER BY b.id")
+    List<Backorder> findPage(@Param("after") long after, @Param("customerId") Long customerId,
+                             @Param("productId") Long productId, Limit limit);
+
+    /**
+     * Streams all the backorders, in id order, without holding the result set in memory.
+     * Must be consumed, and closed, within a transaction. The associations are not fetched : only their ids can be read.
+     * @return The backorders
+     */
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = StreamingQuery.MYSQL_FETCH_SIZE))
+    @Query("SELECT b FROM Backorder b ORDER BY b.id")
+    Stream<Backorder> streamAll();
+
+    /**
+     * Streams the pending backorders, as loaded in the backorder queues, without holding the result set in memory.
+     * Must be consumed, and closed, within a transaction.
+     * @return The id, product id, timestamp and quantity of every backorder
+     */
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = StreamingQuery.MYSQL_FETCH_SIZE))
+    @Query("SELECT new com.himanshu.departmentalStore.dto.PendingBackorder(b.id, b.product.id, b.timestamp, b.quantity)"
+            + " FROM Backorder b")
+    Stream<PendingBackorder> streamPending();
+
+    /**
+     * Reads and locks backorders by id, so that no other transaction fulfills, updates or deletes them meanwhile.
+     * The associations are not fetched : only their ids can be read without a query.
+     * @param ids The IDs of the backorders
+     * @return The backorders which still exist, in no particular order
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM Backorder b WHERE b.id IN :ids")
+    List<Backorder> lockAllById(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Overwrites a backorder in a single UPDATE statement, without reading it first.
+     * Its product and customer are set by id : the foreign keys reject an id which does not exist.
+     * @param id The ID of the backorder to update
+     * @param backorder The new values, with the ids of its product and customer
+     * @return The number of rows updated : 0 if there is no backorder with the ID
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Backorder b SET b.product.id = :#{#backorder.product.id}, b.customer.id = :#{#backorder.customer.id},"
+            + " b.timestamp = :#{#backorder.timestamp}, b.quantity = :#{#backorder.quantity} WHERE b.id = :id")
+    int updateById(@Param("id") Long id, @Param("backorder") Backorder backorder);
+
+    /**
+     * Deletes a backorder in a single DELETE statement, without loading it first.
+     * @param id The ID of the backorder to delete
+     * @return The number of rows deleted : 0 if there is no backorder with the ID
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM Backorder b WHERE b.id = :id")
+    int deleteOneById(@Param("id") Long id);
 }
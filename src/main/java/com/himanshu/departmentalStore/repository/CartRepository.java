@@ -0,0 +1,10 @@
+package com.himanshu.departmentalStore.repository;
+
+import com.himanshu.departmentalStore.model.Cart;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+/**
+ * Repository interface for performing CRUD operations on Cart entities (and their lines) in the database.
+ */
+public interface CartRepository extends JpaRepository<Cart, Long> {
+}
@@ -1,10 +1,34 @@
 package com.himanshu.departmentalStore.repository;
 
 import com.himanshu.departmentalStore.model.Customer;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Repository interface for performing CRUD operations on Customer entities in the database.
  */
 public interface CustomerRepository extends JpaRepository<Customer, Long> {
+
+    /**
+     * Retrieves a page of customers after a cursor, in id order.
+     * @param id The id after which the page starts (0 for the first page)
+     * @param limit The number of rows to read
+     * @return The customers of the page
+     */
+    List<Customer> findByIdGreaterThanOrderByIdAsc(long id, Limit limit);
+
+    /**
+     * Streams all the customers, in id order, without holding the result set in memory.
+     * Must be consumed, and closed, within a transaction.
+     * @return The customers
+     */
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = StreamingQuery.MYSQL_FETCH_SIZE))
+    @Query("SELECT c FROM Customer c ORDER BY c.id")
+    Stream<Customer> streamAll();
 }
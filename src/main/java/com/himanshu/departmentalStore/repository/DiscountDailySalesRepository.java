@@ -0,0 +1,81 @@
+package com.himanshu.departmentalStore.repository;
+
+import com.himanshu.departmentalStore.model.DiscountDailySales;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Repository interface for the sales per discount and day.
+ */
+public interface DiscountDailySalesRepository extends JpaRepository<DiscountDailySales, DiscountDailySales.Key> {
+
+    /**
+     * Adds a delta to the totals of a discount and day, creating the row if needed, in a single statement.
+     * @param discountId The ID of the discount
+     * @param day The day of the orders
+     * @param units The quantity to add (negative to remove)
+     * @param revenue The amount to add (negative to remove)
+     * @param orders The number of orders to add (negative to remove)
+     * @return The number of rows affected
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "sales_discount_day"))
+    @Query(nativeQuery = true, value = "INSERT INTO sales_discount_day (discount_id, sales_day, units, revenue, order_count)"
+            + " VALUES (:discountId, :day, :units, :revenue, :orders) AS delta"
+            + " ON DUPLICATE KEY UPDATE units = sales_discount_day.units + delta.units,"
+            + " revenue = sales_discount_day.revenue + delta.revenue,"
+            + " order_count = sales_discount_day.order_count + delta.order_count")
+    int add(@Param("discountId") Long discountId, @Param("day") LocalDate day, @Param("units") long units,
+            @Param("revenue") BigDecimal revenue, @Param("orders") long orders);
+
+    /**
+     * Retrieves the totals of the days of a range, optionally of a single discount.
+     * @param from The first day, included
+     * @param to The last day, included
+     * @param discountId The discount to report on, or null for all of them
+     * @return The totals, by day then discount
+     */
+    @Query("SELECT s FROM DiscountDailySales s WHERE s.day BETWEEN :from AND :to"
+            + " AND (:discountId IS NULL OR s.discountId = :discountId)"
+            + " ORDER BY s.day, s.discountId")
+    List<DiscountDailySales> findReport(@Param("from") LocalDate from, @Param("to") LocalDate to,
+                                        @Param("discountId") Long discountId);
+
+    /**
+     * Deletes the totals of a range of discounts, before they are rebuilt.
+     * @param first The first discount ID, included
+     * @param last The last discount ID, included
+     * @return The number of rows deleted
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "sales_discount_day"))
+    @Query(nativeQuery = true, value = "DELETE FROM sales_discount_day WHERE discount_id BETWEEN :first AND :last")
+    int deleteDiscounts(@Param("first") long first, @Param("last") long last);
+
+    /**
+     * Recomputes the totals of a range of discounts from the orders and the carts : a cart counts as one order,
+     * with the units of all its lines.
+     * @param first The first discount ID, included
+     * @param last The last discount ID, included
+     * @return The number of rows inserted
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "sales_discount_day"))
+    @Query(nativeQuery = true, value = "INSERT INTO sales_discount_day (discount_id, sales_day, units, revenue, order_count)"
+            + " SELECT discount_id, DATE(timestamp), SUM(quantity), COALESCE(SUM(amount), 0), COUNT(*)"
+            + " FROM (SELECT discount_id, timestamp, quantity, amount FROM customer_order"
+            + " WHERE discount_id BETWEEN :first AND :last AND timestamp IS NOT NULL"
+            + " UNION ALL SELECT c.discount_id, c.timestamp,"
+            + " (SELECT COALESCE(SUM(quantity), 0) FROM order_line WHERE cart_id = c.id), c.amount"
+            + " FROM cart c WHERE c.discount_id BETWEEN :first AND :last AND c.timestamp IS NOT NULL) sale"
+            + " GROUP BY discount_id, DATE(timestamp)")
+    int rebuildDiscounts(@Param("first") long first, @Param("last") long last);
+}
@@ -1,10 +1,84 @@
 package com.himanshu.departmentalStore.repository;
 
 import com.himanshu.departmentalStore.model.Discount;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
 
 /**
  * Repository interface for performing CRUD operations on Discount entities in the database.
  */
 public interface DiscountRepository extends JpaRepository<Discount, Long> {
+
+    /**
+     * Retrieves a page of discounts after a cursor, in id order.
+     * @param id The id after which the page starts (0 for the first page)
+     * @param limit The number of rows to read
+     * @return The discounts of the page
+     */
+    List<Discount> findByIdGreaterThanOrderByIdAsc(long id, Limit limit);
+
+    /**
+     * Retrieves the largest discount ID, used to split the discounts into ID ranges.
+     * @return The largest ID, or null if there is no discount
+     */
+    @Query("SELECT MAX(d.id) FROM Discount d")
+    Long findMaxId();
+
+    /**
+     * Retrieves the discounts active at a time (start &lt;= at &lt;= end), in id order.
+     * A range scan of the (start_date_time, end_date_time) index : used when the in-memory index is not loaded yet.
+     * @param at The time
+     * @return The active discounts
+     */
+    @Query("SELECT d FROM Discount d WHERE d.startDateTime <= :at AND d.endDateTime >= :at ORDER BY d.id")
+    List<Discount> findActiveAt(@Param("at") LocalDateTime at);
+
+    /**
+     * Retrieves the discounts which have not ended at a time (active then, or starting later), to build the in-memory index.
+     * @param at The time
+     * @return The discounts ending at or after the time
+     */
+    @Query("SELECT d FROM Discount d WHERE d.endDateTime >= :at")
+    List<Discount> findNotEndedAt(@Param("at") LocalDateTime at);
+
+    /**
+     * Retrieves the discount with a coupon code, through the unique index on coupon_code.
+     * @param couponCode The coupon code
+     * @return The discount, or empty if no discount has the coupon code
+     */
+    Optional<Discount> findByCouponCode(String couponCode);
+
+    /**
+     * Overwrites a discount in a single UPDATE statement, without reading it first.
+     * The unique index on coupon_code still rejects a coupon code used by another discount.
+     * The value and the minimum price are bound in hundredths, the type of their attributes, which MoneyConverter
+     * writes to the DECIMAL columns : their BigDecimal getters would be coerced to a Long, dropping the scale.
+     * @param id The ID of the discount to update
+     * @param discount The new values
+     * @return The number of rows updated : 0 if there is no discount with the ID
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Discount d SET d.name = :#{#discount.name}, d.value = :#{#discount.valueBasisPoints},"
+            + " d.startDateTime = :#{#discount.startDateTime}, d.endDateTime = :#{#discount.endDateTime},"
+            + " d.description = :#{#discount.description}, d.minPrice = :#{#discount.minPriceMinor},"
+            + " d.couponCode = :#{#discount.couponCode} WHERE d.id = :id")
+    int updateById(@Param("id") Long id, @Param("discount") Discount discount);
+
+    /**
+     * Deletes a discount in a single DELETE statement, without loading it first.
+     * @param id The ID of the discount to delete
+     * @return The number of rows deleted : 0 if there is no discount with the ID
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM Discount d WHERE d.id = :id")
+    int deleteOneById(@Param("id") Long id);
 }
@@ -0,0 +1,93 @@
+package com.himanshu.departmentalStore.repository;
+
+import com.himanshu.departmentalStore.model.IdempotencyRecord;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDateTime;
+
+/**
+ * Repository interface for the stored results of idempotent requests.
+ * Every statement is a single primary key (or expires_at index) access, committed on its own
+ * so that a claimed key is visible to concurrent retries straight away.
+ */
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    /**
+     * Claims a key by inserting an in progress record, unless a record already exists for it.
+     * @param key The key to claim.
+     * @param claimToken Random token of the request.
+     * @param requestHash SHA-256 (hex) of the body of the request.
+     * @param expiresAt The end of the lease of the request.
+     * @return 1 if the key was claimed by this call, 0 if it was already taken.
+     */
+    @Modifying
+    @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "idempotency_record"))
+    @Query(value = "INSERT IGNORE INTO idempotency_record (idempotency_key, claim_token, request_hash, status_code, expires_at) "
+            + "VALUES (:key, :claimToken, :requestHash, " + IdempotencyRecord.IN_PROGRESS + ", :expiresAt)", nativeQuery = true)
+    int claim(@Param("key") String key, @Param("claimToken") String claimToken, @Param("requestHash") String requestHash,
+              @Param("expiresAt") LocalDateTime expiresAt);
+
+    /**
+     * Claims a key whose record has expired (a lease which is over, or a response kept long enough), by turning it
+     * into an in progress record of the current request. The row lock of the UPDATE lets a single request take it over.
+     * @param key The key to claim.
+     * @param claimToken Random token of the request.
+     * @param requestHash SHA-256 (hex) of the body of the request.
+     * @param now The current time.
+     * @param expiresAt The end of the lease of the request.
+     * @return 1 if the key was claimed by this call, 0 if it is not expired (anymore) or does not exist.
+     */
+    @Modifying
+    @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "idempotency_record"))
+    @Query(value = "UPDATE idempotency_record SET claim_token = :claimToken, request_hash = :requestHash, status_code = "
+            + IdempotencyRecord.IN_PROGRESS + ", response_body = NULL, expires_at = :expiresAt "
+            + "WHERE idempotency_key = :key AND expires_at < :now", nativeQuery = true)
+    int takeOver(@Param("key") String key, @Param("claimToken") String claimToken, @Param("requestHash") String requestHash,
+                 @Param("now") LocalDateTime now, @Param("expiresAt") LocalDateTime expiresAt);
+
+    /**
+     * Stores the response of the request which claimed a key, if it still holds it.
+     * @param key The claimed key.
+     * @param claimToken Random token of the request.
+     * @param statusCode The HTTP status of the response.
+     * @param responseBody The body of the response.
+     * @param expiresAt The end of the retention of the response.
+     * @return the number of records updated, 0 if the key was taken over by another request.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE IdempotencyRecord r SET r.statusCode = :statusCode, r.responseBody = :responseBody, r.expiresAt = :expiresAt "
+            + "WHERE r.key = :key AND r.claimToken = :claimToken AND r.statusCode = " + IdempotencyRecord.IN_PROGRESS)
+    int complete(@Param("key") String key, @Param("claimToken") String claimToken, @Param("statusCode") int statusCode,
+                 @Param("responseBody") String responseBody, @Param("expiresAt") LocalDateTime expiresAt);
+
+    /**
+     * Deletes the record of a key, so that the request can be sent again with the same key, if the request still holds it.
+     * @param key The key to release.
+     * @param claimToken Random token of the request.
+     * @return the number of records deleted, 0 if the key was taken over by another request.
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.key = :key AND r.claimToken = :claimToken AND r.statusCode = "
+            + IdempotencyRecord.IN_PROGRESS)
+    int release(@Param("key") String key, @Param("claimToken") String claimToken);
+
+    /**
+     * Deletes the records expired before the given time.
+     * @param now The current time.
+     * @return the number of records deleted.
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
@@ -0,0 +1,43 @@
+package com.himanshu.departmentalStore.repository;
+
+import com.himanshu.departmentalStore.model.OutboxNotification;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repository interface for the notifications of the outbox.
+ */
+public interface NotificationOutboxRepository extends JpaRepository<OutboxNotification, Long> {
+
+    /**
+     * Claims the notifications due for delivery, oldest first, from the (status, next_attempt_at) index.
+     * The rows are locked until the end of the transaction; the rows locked by another dispatcher are skipped
+     * (SELECT ... FOR UPDATE SKIP LOCKED), so that several instances drain the outbox side by side.
+     * @param status The status of the notifications to deliver
+     * @param now The current time
+     * @param limit The size of the batch
+     * @return The notifications claimed
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_SPEC_LOCK_TIMEOUT, value = "-2"))
+    @Query("SELECT n FROM OutboxNotification n WHERE n.status = :status AND n.nextAttemptAt <= :now"
+            + " ORDER BY n.nextAttemptAt, n.id")
+    List<OutboxNotification> claimDue(@Param("status") OutboxNotification.Status status, @Param("now") LocalDateTime now,
+                                      Limit limit);
+
+    /**
+     * Counts the notifications in a status.
+     * @param status The status
+     * @return The number of notifications, read from the (status, next_attempt_at) index
+     */
+    long countByStatus(OutboxNotification.Status status);
+}
@@ -1,10 +1,88 @@
 package com.himanshu.departmentalStore.repository;
 
+import com.himanshu.departmentalStore.dto.OrderSummary;
 import com.himanshu.departmentalStore.model.Order;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repository interface for performing CRUD operations on Order entities in the database.
  */
 public interface OrderRepository extends JpaRepository<Order, Long> {
+
+    /**
+     * Retrieves all orders, with their product, customer and discount fetched in the same query.
+     * @return A list of all orders
+     */
+    @Override
+    @EntityGraph("Order.details")
+    List<Order> findAll();
+
+    /**
+     * Retrieves an order by its ID, with its product, customer and discount fetched in the same query.
+     * @param id The ID of the order
+     * @return The order, or empty if it does not exist
+     */
+    @Override
+    @EntityGraph("Order.details")
+    Optional<Order> findById(Long id);
+
+    /**
+     * Retrieves a page of orders after a cursor, in id order, optionally filtered by customer and product.
+     * Each page is a range scan on the primary key, or on the (customer_id, id) / (product_id, id) index when filtered.
+     * @param after The id after which the page starts (0 for the first page)
+     * @param customerId The customer to filter on, or null
+     * @param productId The product to filter on, or null
+     * @param limit The number of rows to read
+     * @return The orders of the page, with their product, customer and discount
+     */
+    @EntityGraph("Order.details")
+    @Query("SELECT o FROM Order o WHERE o.id > :after"
+            + " AND (:customerId IS NULL OR o.customer.id = :customerId)"
+            + " AND (:productId IS NULL OR o.product.id = :productId)"
+            + " ORDER BY o.id")
+    List<Order> findPage(@Param("after") long after, @Param("customerId") Long customerId,
+                         @Param("productId") Long productId, Limit limit);
+
+    /**
+     * Retrieves a page of the history of a customer, newest orders first, as summaries.
+     * Answered from the (customer_id, timestamp, ...) index alone : the range scan starts right after the cursor
+     * and stops after the limit, whatever the number of orders of the customer.
+     * @param customerId The customer
+     * @param from Only the orders placed at or after this time
+     * @param to Only the orders placed before this time
+     * @param beforeTimestamp The timestamp of the last order of the previous page (or to, for the first page)
+     * @param beforeId The id of the last order of the previous page (or Long.MAX_VALUE, for the first page)
+     * @param limit The number of rows to read
+     * @return The orders of the page
+     */
+    @Query("SELECT new com.himanshu.departmentalStore.dto.OrderSummary("
+            + "o.id, o.timestamp, o.product.id, o.quantity, o.amount, o.discount.id)"
+            + " FROM Order o WHERE o.customer.id = :customerId"
+            + " AND o.timestamp >= :from AND o.timestamp < :to"
+            + " AND (o.timestamp < :beforeTimestamp OR (o.timestamp = :beforeTimestamp AND o.id < :beforeId))"
+            + " ORDER BY o.timestamp DESC, o.id DESC")
+    List<OrderSummary> findHistory(@Param("customerId") Long customerId,
+                                   @Param("from") LocalDateTime from, @Param("to") LocalDateTime to,
+                                   @Param("beforeTimestamp") LocalDateTime beforeTimestamp,
+                                   @Param("beforeId") long beforeId, Limit limit);
+
+    /**
+     * Streams all the orders, in id order, without holding the result set in memory.
+     * Must be consumed, and closed, within a transaction. The associations are not fetched : only their ids can be read.
+     * @return The orders
+     */
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = StreamingQuery.MYSQL_FETCH_SIZE))
+    @Query("SELECT o FROM Order o ORDER BY o.id")
+    Stream<Order> streamAll();
 }
@@ -0,0 +1,83 @@
+package com.himanshu.departmentalStore.repository;
+
+import com.himanshu.departmentalStore.model.ProductHourlySales;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repository interface for the sales per product and hour.
+ */
+public interface ProductHourlySalesRepository extends JpaRepository<ProductHourlySales, ProductHourlySales.Key> {
+
+    /**
+     * Adds a delta to the totals of a product and hour, creating the row if needed, in a single statement.
+     * @param productId The ID of the product
+     * @param hour The start of the hour of the orders
+     * @param units The quantity to add (negative to remove)
+     * @param revenue The amount to add (negative to remove)
+     * @param orders The number of orders to add (negative to remove)
+     * @return The number of rows affected
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "sales_product_hour"))
+    @Query(nativeQuery = true, value = "INSERT INTO sales_product_hour (product_id, sales_hour, units, revenue, order_count)"
+            + " VALUES (:productId, :hour, :units, :revenue, :orders) AS delta"
+            + " ON DUPLICATE KEY UPDATE units = sales_product_hour.units + delta.units,"
+            + " revenue = sales_product_hour.revenue + delta.revenue,"
+            + " order_count = sales_product_hour.order_count + delta.order_count")
+    int add(@Param("productId") Long productId, @Param("hour") LocalDateTime hour, @Param("units") long units,
+            @Param("revenue") BigDecimal revenue, @Param("orders") long orders);
+
+    /**
+     * Retrieves the totals of the hours of a range, optionally of a single product.
+     * @param from The first hour, included
+     * @param to The end of the range, excluded
+     * @param productId The product to report on, or null for all of them
+     * @return The totals, by hour then product
+     */
+    @Query("SELECT s FROM ProductHourlySales s WHERE s.hour >= :from AND s.hour < :to"
+            + " AND (:productId IS NULL OR s.productId = :productId)"
+            + " ORDER BY s.hour, s.productId")
+    List<ProductHourlySales> findReport(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to,
+                                        @Param("productId") Long productId);
+
+    /**
+     * Deletes the totals of a range of products, before they are rebuilt.
+     * @param first The first product ID, included
+     * @param last The last product ID, included
+     * @return The number of rows deleted
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "sales_product_hour"))
+    @Query(nativeQuery = true, value = "DELETE FROM sales_product_hour WHERE product_id BETWEEN :first AND :last")
+    int deleteProducts(@Param("first") long first, @Param("last") long last);
+
+    /**
+     * Recomputes the totals of a range of products from the orders and the cart lines.
+     * A cart line earns its share of the amount paid for its cart, rounded HALF_UP to the cent as by SalesRollupService.
+     * @param first The first product ID, included
+     * @param last The last product ID, included
+     * @return The number of rows inserted
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "sales_product_hour"))
+    @Query(nativeQuery = true, value = "INSERT INTO sales_product_hour (product_id, sales_hour, units, revenue, order_count)"
+            + " SELECT product_id, DATE(timestamp) + INTERVAL HOUR(timestamp) HOUR,"
+            + " SUM(quantity), COALESCE(SUM(amount), 0), COUNT(*)"
+            + " FROM (SELECT product_id, timestamp, quantity, amount FROM customer_order"
+            + " WHERE product_id BETWEEN :first AND :last AND timestamp IS NOT NULL"
+            + " UNION ALL SELECT l.product_id, c.timestamp, l.quantity,"
+            + " COALESCE(ROUND(l.amount * c.amount / NULLIF((SELECT SUM(amount) FROM order_line WHERE cart_id = c.id), 0), 2), l.amount)"
+            + " FROM order_line l JOIN cart c ON c.id = l.cart_id"
+            + " WHERE l.product_id BETWEEN :first AND :last AND c.timestamp IS NOT NULL) sale"
+            + " GROUP BY product_id, DATE(timestamp) + INTERVAL HOUR(timestamp) HOUR")
+    int rebuildProducts(@Param("first") long first, @Param("last") long last);
+}
@@ -1,11 +1,121 @@
 package com.himanshu.departmentalStore.repository;
 
+import com.himanshu.departmentalStore.dto.ProductStock;
 import com.himanshu.departmentalStore.model.Product;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repository interface for performing CRUD operations on Product entities in the database.
  */
 
 public interface ProductRepository extends JpaRepository<Product, Long> {
+
+    /**
+     * Retrieves all the products with the given IDs in one IN query, ordered by ID.
+     * Used to validate every line of a cart at once.
+     * @param ids The IDs of the products to retrieve
+     * @return The products found, ordered by ID (missing IDs are simply absent)
+     */
+    List<Product> findByIdInOrderByIdAsc(Collection<Long> ids);
+
+    /**
+     * Decreases the stock of a product in a single guarded UPDATE statement.
+     * The row is only updated when the product is available and has at least the requested quantity,
+     * so concurrent orders can never take the count below zero.
+     * The version of the row is incremented, so an update of the product read before the reservation fails.
+     * @param productId The ID of the product whose stock is decreased
+     * @param quantity The quantity to take out of stock
+     * @return The number of rows updated : 1 if the stock was reserved, 0 if the product can not fulfill the quantity
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Product p SET p.count = p.count - :quantity, p.version = p.version + 1 "
+            + "WHERE p.id = :productId AND p.availability = true AND p.count >= :quantity")
+    int decrementStock(@Param("productId") Long productId, @Param("quantity") int quantity);
+
+    /**
+     * Puts a quantity back in stock in a single UPDATE statement, without reading the product first.
+     * The version of the row is incremented, as by decrementStock.
+     * @param productId The ID of the product whose stock is increased
+     * @param quantity The quantity to put back in stock
+     * @return The number of rows updated : 0 if the product does not exist
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Product p SET p.count = p.count + :quantity, p.version = p.version + 1 WHERE p.id = :productId")
+    int incrementStock(@Param("productId") Long productId, @Param("quantity") int quantity);
+
+    /**
+     * Reads the stock of a product from the database, bypassing the copy held by the persistence context.
+     * @param productId The ID of the product
+     * @return The stock, or null if the product does not exist
+     */
+    @Query("SELECT p.count FROM Product p WHERE p.id = :productId")
+    Integer findCountById(@Param("productId") Long productId);
+
+    /**
+     * Retrieves the stock of a product, to load it in the inventory engine.
+     * @param productId The ID of the product
+     * @return The stock, if the product exists
+     */
+    @Query("SELECT new com.himanshu.departmentalStore.dto.ProductStock(p.id, p.count, p.availability)"
+            + " FROM Product p WHERE p.id = :productId")
+    Optional<ProductStock> findStockById(@Param("productId") Long productId);
+
+    /**
+     * Retrieves the stock of all the products, to load them in the inventory engine at startup.
+     * @return The stock of every product
+     */
+    @Query("SELECT new com.himanshu.departmentalStore.dto.ProductStock(p.id, p.count, p.availability) FROM Product p")
+    List<ProductStock> findAllStock();
+
+    /**
+     * Retrieves a page of products after a cursor, in id order, optionally filtered by availability.
+     * @param after The id after which the page starts (0 for the first page)
+     * @param availability The availability to filter on, or null
+     * @param limit The number of rows to read
+     * @return The products of the page
+     */
+    @Query("SELECT p FROM Product p WHERE p.id > :after"
+            + " AND (:availability IS NULL OR p.availability = :availability)"
+            + " ORDER BY p.id")
+    List<Product> findPage(@Param("after") long after, @Param("availability") Boolean availability, Limit limit);
+
+    /**
+     * Streams all the products, in id order, without holding the result set in memory.
+     * Must be consumed, and closed, within a transaction.
+     * @return The products
+     */
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = StreamingQuery.MYSQL_FETCH_SIZE))
+    @Query("SELECT p FROM Product p ORDER BY p.id")
+    Stream<Product> streamAll();
+
+    /**
+     * Retrieves the largest product ID, used to split the products into ID ranges.
+     * @return The largest ID, or null if there is no product
+     */
+    @Query("SELECT MAX(p.id) FROM Product p")
+    Long findMaxId();
+
+    /**
+     * Deletes a product in a single DELETE statement, without loading it first.
+     * @param id The ID of the product to delete
+     * @return The number of rows deleted : 0 if there is no product with the ID
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM Product p WHERE p.id = :id")
+    int deleteOneById(@Param("id") Long id);
 }
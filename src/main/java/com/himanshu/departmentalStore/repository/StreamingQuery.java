@@ -0,0 +1,16 @@
+package com.himanshu.departmentalStore.repository;
+
+/**
+ * Query hint values for the repository methods returning a Stream.
+ */
+public final class StreamingQuery {
+
+    /**
+     * Fetch size which makes MySQL Connector/J stream the result set row by row instead of reading it whole into memory.
+     * The connection can not run another statement until the stream is closed, so nothing may be lazy loaded while reading it.
+     */
+    public static final String MYSQL_FETCH_SIZE = "" + Integer.MIN_VALUE;
+
+    private StreamingQuery() {
+    }
+}
@@ -0,0 +1,418 @@
+package com.himanshu.departmentalStore.service;
+
+import com.himanshu.departmentalStore.dto.BackorderFulfilledEvent;
+import com.himanshu.departmentalStore.dto.PendingBackorder;
+import com.himanshu.departmentalStore.model.Backorder;
+import com.himanshu.departmentalStore.model.Order;
+import com.himanshu.departmentalStore.model.Product;
+import com.himanshu.departmentalStore.repository.BackorderRepository;
+import com.himanshu.departmentalStore.repository.OrderRepository;
+import com.himanshu.departmentalStore.repository.ProductRepository;
+import com.himanshu.departmentalStore.util.BackorderQueues;
+import com.himanshu.departmentalStore.util.Money;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Turns the backorders of a product into orders when its stock goes up.
+ *
+ * <p>
+ * The pending backorders are held in memory, in one queue per product ordered by timestamp (see {@link BackorderQueues}),
+ * built from the Backorder table at startup and rebuilt every backorders.queue.refresh-interval for the changes of
+ * other instances. A stock increase of a product without backorders does not touch the database; otherwise only the
+ * backorders which get units are popped, oldest first. A backorder larger than the stock left is partly filled if that
+ * stock is at least backorders.partial-fill.min-fraction of it : an order is placed for the units in stock and the
+ * backorder keeps the rest, in its row and its place in line. Otherwise it stays queued while the next ones can still
+ * be fulfilled. The popped backorders are locked (and dropped if another instance already took them),
+ * their stock reserved with a single guarded update, their orders inserted in JDBC batches and their rows deleted with
+ * one statement, in the transaction of the stock change, with the notifications of their customers (see
+ * {@link NotificationService}). They are queued again if that transaction does not commit.
+ * </p>
+ */
+@Service
+public class BackorderFulfillmentEngine {
+
+    /**
+     * Logger for logging messages related to BackorderFulfillmentEngine class.
+     * This logger is used to log various messages, such as debug, info, error, etc.,
+     * related to the operations performed within the BackorderFulfillmentEngine class.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(BackorderFulfillmentEngine.class);
+
+    /**
+     * Number of allocations tried when orders keep taking the stock between the allocation and its reservation,
+     * or when the popped backorders keep being fulfilled, updated or deleted elsewhere.
+     * The backorders left are fulfilled by the next stock change.
+     */
+    private static final int MAX_ALLOCATIONS = 3;
+
+    /**
+     * This repository is used for database operations related to Backorder entities.
+     */
+    @Autowired
+    private BackorderRepository backorderRepository;
+
+    /**
+     * This repository is used for database operations related to Order entities.
+     */
+    @Autowired
+    private OrderRepository orderRepository;
+
+    /**
+     * This repository is used for database operations related to Product entities.
+     */
+    @Autowired
+    private ProductRepository productRepository;
+
+    /**
+     * Service holding the stock, from which the fulfilled backorders are reserved.
+     */
+    @Autowired
+    private InventoryService inventoryService;
+
+    /**
+     * Service maintaining the sales rollups, which count the orders of the fulfilled backorders.
+     */
+    @Autowired
+    private SalesRollupService salesRollupService;
+
+    /**
+     * Service writing the notifications of the fulfilled backorders to the outbox.
+     */
+    @Autowired
+    private NotificationService notificationService;
+
+    /**
+     * The smallest fraction of a backorder delivered by a partial fill, when the stock left is short of its quantity.
+     * 1 fulfills whole backorders only.
+     */
+    @Value("${backorders.partial-fill.min-fraction:0.5}")
+    private double minFill;
+
+    /**
+     * The pending backorders by product, replaced as a whole by each rebuild.
+     */
+    private BackorderQueues queues = new BackorderQueues();
+
+    /**
+     * Guards the queues, and the changes recorded during a rebuild.
+     */
+    private final ReentrantLock queueLock = new ReentrantLock();
+
+    /**
+     * The changes of the queues since the rebuild in progress started, replayed on the rebuilt queues; null between rebuilds.
+     */
+    private List<Consumer<BackorderQueues>> changesDuringRebuild;
+
+    /**
+     * Rebuilds the queues from the Backorder table, streamed outside of the lock.
+     * Runs at startup, then every backorders.queue.refresh-interval.
+     */
+    @Scheduled(fixedDelayString = "${backorders.queue.refresh-interval:PT5M}")
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        queueLock.lock();
+        try {
+            changesDuringRebuild = new ArrayList<>();
+        } finally {
+            queueLock.unlock();
+        }
+        BackorderQueues rebuilt = new BackorderQueues();
+        try (Stream<PendingBackorder> pending = backorderRepository.streamPending()) {
+            pending.forEach(rebuilt::add);
+        } catch (RuntimeException e) {
+            queueLock.lock();
+            try {
+                changesDuringRebuild = null;
+            } finally {
+                queueLock.unlock();
+            }
+            throw e;
+        }
+        queueLock.lock();
+        try {
+            // the backorders saved or deleted while the table was read, possibly after the rows were read
+            changesDuringRebuild.forEach(change -> change.accept(rebuilt));
+            changesDuringRebuild = null;
+            queues = rebuilt;
+        } finally {
+            queueLock.unlock();
+        }
+        LOGGER.info("Backorder queues rebuilt : {} backorders of {} products, about {} bytes",
+                rebuilt.size(), rebuilt.productCount(), rebuilt.footprintBytes());
+    }
+
+    /**
+     * Queues saved backorders, once the transaction which saved them commits.
+     * @param backorders The saved backorders, with their ids.
+     */
+    public void backordersSaved(final Collection<Backorder> backorders) {
+        List<PendingBackorder> pending = backorders.stream().map(BackorderFulfillmentEngine::pending).toList();
+        afterCommit(queue -> pending.forEach(queue::add));
+    }
+
+    /**
+     * Moves an updated backorder in the queues, once the transaction which updated it commits.
+     * @param backorder The updated backorder, maybe of another product than before.
+     */
+    public void backorderUpdated(final Backorder backorder) {
+        PendingBackorder pending = pending(backorder);
+        afterCommit(queue -> {
+            queue.remove(pending.getId());
+            queue.add(pending);
+        });
+    }
+
+    /**
+     * Removes a deleted backorder from the queues, once the transaction which deleted it commits.
+     * @param backorderId The ID of the backorder.
+     */
+    public void backorderDeleted(final Long backorderId) {
+        afterCommit(queue -> queue.remove(backorderId));
+    }
+
+    /**
+     * Fulfills the backorders of a product which fit in its stock, oldest first.
+     * @param productId The ID of the product whose stock went up.
+     * @param available The stock of the product after the change, read again if orders took some of it meanwhile.
+     * @return The orders placed for the fulfilled backorders, oldest backorder first.
+     */
+    @Transactional
+    public List<Order> fulfill(final Long productId, final int available) {
+        if (available <= 0 || !hasPending(productId)) {
+            return List.of();
+        }
+        Product product = productRepository.findById(productId).orElse(null);
+        if (product == null || !product.isAvailability()) {
+            return List.of();
+        }
+        // the backorders out of the queues, queued again if the transaction does not commit
+        List<PendingBackorder> taken = new ArrayList<>();
+        onRollback(() -> requeue(taken));
+        int stock = available;
+        int attempt = 1;
+        while (attempt <= MAX_ALLOCATIONS && stock > 0) {
+            List<PendingBackorder> candidates = poll(productId, stock);
+            if (candidates.isEmpty()) {
+                return List.of();
+            }
+            taken.addAll(candidates);
+            List<Backorder> allocated = lock(candidates);
+            if (allocated.size() < candidates.size()) {
+                // some were fulfilled, updated or deleted elsewhere : allocate again without them, as one more attempt
+                requeue(allocated.stream().map(BackorderFulfillmentEngine::pending).toList());
+                taken.clear();
+                attempt++;
+                continue;
+            }
+            int quantity = candidates.stream().mapToInt(PendingBackorder::getAllocated).sum();
+            if (inventoryService.reserve(productId, quantity)) {
+                return placeOrders(product, allocated, candidates);
+            }
+            LOGGER.info("Stock of product {} taken during the allocation of its backorders, allocating again", productId);
+            requeue(candidates);
+            taken.clear();
+            stock = inventoryService.currentCount(productId);
+            attempt++;
+        }
+        return List.of();
+    }
+
+    /**
+     * Locks the popped backorders and keeps those still pending as they were queued.
+     * A backorder changed meanwhile is queued again as it is now; a backorder gone, or popped twice, is dropped.
+     * @param candidates The popped backorders, oldest first.
+     * @return The locked backorders, in the order of the candidates.
+     */
+    private List<Backorder> lock(final List<PendingBackorder> candidates) {
+        Map<Long, Backorder> locked = new HashMap<>();
+        for (Backorder backorder : backorderRepository.lockAllById(candidates.stream().map(PendingBackorder::getId).toList())) {
+            locked.put(backorder.getId(), backorder);
+        }
+        List<Backorder> allocated = new ArrayList<>(candidates.size());
+        List<PendingBackorder> changed = new ArrayList<>();
+        for (PendingBackorder candidate : candidates) {
+            Backorder backorder = locked.remove(candidate.getId());
+            if (backorder == null) {
+                continue;
+            }
+            if (backorder.getQuantity() == candidate.getQuantity()
+                    && backorder.getProduct().getId().equals(candidate.getProductId())) {
+                allocated.add(backorder);
+            } else {
+                changed.add(pending(backorder));
+            }
+        }
+        requeue(changed);
+        return allocated;
+    }
+
+    /**
+     * Places the orders of the allocated backorders, deletes the fulfilled ones and notifies their customers.
+     * A partly filled backorder keeps the units not delivered, in its row and, once committed, in its queue.
+     * @param product The product of the backorders.
+     * @param locked The allocated backorders, locked.
+     * @param allocations Their allocations, in the same order, the stock reserved.
+     * @return The orders placed, in the order of the backorders.
+     */
+    private List<Order> placeOrders(final Product product, final List<Backorder> locked, final List<PendingBackorder> allocations) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Order> orders = new ArrayList<>(locked.size());
+        List<Long> fulfilledIds = new ArrayList<>(locked.size());
+        List<PendingBackorder> remainders = new ArrayList<>();
+        for (int i = 0; i < locked.size(); i++) {
+            Backorder backorder = locked.get(i);
+            PendingBackorder allocation = allocations.get(i);
+            Order order = new Order();
+            order.setProduct(product);
+            order.setCustomer(backorder.getCustomer());
+            order.setQuantity(allocation.getAllocated());
+            order.setTimestamp(now);
+            order.setAmountMinor(Money.lineTotal(product.getPriceMinor(), allocation.getAllocated()));
+            orders.add(order);
+            if (allocation.isPartial()) {
+                // updated in place by the flush : the row is locked, and keeps its place in line
+                backorder.setQuantity(allocation.getQuantity() - allocation.getAllocated());
+                remainders.add(new PendingBackorder(backorder.getId(), product.getId(), backorder.getTimestamp(),
+                        backorder.getQuantity()));
+            } else {
+                fulfilledIds.add(backorder.getId());
+            }
+        }
+        orderRepository.saveAll(orders);
+        salesRollupService.addOrders(orders);
+        if (!fulfilledIds.isEmpty()) {
+            backorderRepository.deleteAllByIdInBatch(fulfilledIds);
+        }
+        afterCommit(queue -> remainders.forEach(queue::add));
+        List<BackorderFulfilledEvent> notifications = new ArrayList<>(locked.size());
+        for (int i = 0; i < locked.size(); i++) {
+            Backorder backorder = locked.get(i);
+            PendingBackorder allocation = allocations.get(i);
+            notifications.add(new BackorderFulfilledEvent(backorder.getId(), backorder.getCustomer().getId(),
+                    product.getId(), allocation.getAllocated(), allocation.getQuantity() - allocation.getAllocated(),
+                    orders.get(i).getId()));
+        }
+        // in the outbox with the orders, delivered by NotificationDispatcher once committed
+        notificationService.enqueue(notifications);
+        LOGGER.info("{} backorders of product {} fulfilled, {} partly", fulfilledIds.size(), product.getId(), remainders.size());
+        return orders;
+    }
+
+    /**
+     * Tells whether a product has queued backorders.
+     * @param productId The ID of the product.
+     * @return True if at least one backorder waits for the product.
+     */
+    private boolean hasPending(final Long productId) {
+        queueLock.lock();
+        try {
+            return queues.hasPending(productId);
+        } finally {
+            queueLock.unlock();
+        }
+    }
+
+    /**
+     * Pops the queued backorders of a product which a stock fulfills.
+     * @param productId The ID of the product.
+     * @param stock The stock to allocate.
+     * @return The backorders popped, oldest first.
+     */
+    private List<PendingBackorder> poll(final Long productId, final int stock) {
+        queueLock.lock();
+        try {
+            return queues.poll(productId, stock, minFill);
+        } finally {
+            queueLock.unlock();
+        }
+    }
+
+    /**
+     * Puts popped backorders back in their queues.
+     * @param backorders The backorders.
+     */
+    private void requeue(final List<PendingBackorder> backorders) {
+        if (!backorders.isEmpty()) {
+            List<PendingBackorder> copy = List.copyOf(backorders);
+            apply(queue -> copy.forEach(queue::add));
+        }
+    }
+
+    /**
+     * Applies a change to the queues, and records it for the rebuild in progress if any.
+     * @param change The change.
+     */
+    private void apply(final Consumer<BackorderQueues> change) {
+        queueLock.lock();
+        try {
+            change.accept(queues);
+            if (changesDuringRebuild != null) {
+                changesDuringRebuild.add(change);
+            }
+        } finally {
+            queueLock.unlock();
+        }
+    }
+
+    /**
+     * Applies a change to the queues once the current transaction commits, or at once outside of a transaction.
+     * @param change The change.
+     */
+    private void afterCommit(final Consumer<BackorderQueues> change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(change);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                apply(change);
+            }
+        });
+    }
+
+    /**
+     * Runs a compensation if the current transaction does not commit.
+     * @param compensation Queues the popped backorders again.
+     */
+    private static void onRollback(final Runnable compensation) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(final int status) {
+                if (status != STATUS_COMMITTED) {
+                    compensation.run();
+                }
+            }
+        });
+    }
+
+    /**
+     * Describes a backorder as queued.
+     * @param backorder The backorder, with its id.
+     * @return Its id, product id, timestamp and quantity.
+     */
+    private static PendingBackorder pending(final Backorder backorder) {
+        return new PendingBackorder(backorder.getId(), backorder.getProduct().getId(), backorder.getTimestamp(),
+                backorder.getQuantity());
+    }
+}
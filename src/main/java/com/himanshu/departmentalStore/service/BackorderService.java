@@ -3,15 +3,20 @@ package com.himanshu.departmentalStore.service;
 import com.himanshu.departmentalStore.dto.BackOrderRequestBody;
 import com.himanshu.departmentalStore.exception.ResourceNotFoundException;
 import com.himanshu.departmentalStore.model.Backorder;
+import com.himanshu.departmentalStore.model.Customer;
+import com.himanshu.departmentalStore.model.Product;
 import com.himanshu.departmentalStore.repository.BackorderRepository;
 import com.himanshu.departmentalStore.repository.CustomerRepository;
 import com.himanshu.departmentalStore.repository.ProductRepository;
+import com.himanshu.departmentalStore.dto.CursorPage;
+import com.himanshu.departmentalStore.util.Pagination;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Service class for managing Backorder entities.
@@ -38,24 +43,47 @@ public class BackorderService {
      */
     @Autowired
     private BackorderRepository backorderRepository;
+
+    /**
+     * Page size rules of the collection endpoints.
+     */
+    @Autowired
+    private Pagination pagination;
     /**
      * This repository is used for database operations related to Product entities.
      */
     @Autowired
     private ProductRepository productRepository;
+    /**
+     * Catalog serving the products by id without a query.
+     */
+    @Autowired
+    private ProductCatalogService productCatalogService;
     /**
      * This repository is used for database operations related to Customer entities.
      */
     @Autowired
     private CustomerRepository customerRepository;
+    /**
+     * Engine holding the queues of the pending backorders, told of each saved, updated or deleted backorder.
+     */
+    @Autowired
+    private BackorderFulfillmentEngine backorderFulfillmentEngine;
 
     /**
-     * Retrieves all backorders.
-     * @return A list of all backorders.
+     * Retrieves a page of backorders, in id order.
+     * @param after The id of the last backorder of the previous page, or null for the first page.
+     * @param limit The page size, or null for the default one.
+     * @param customerId Only the backorders of this customer, if not null.
+     * @param productId Only the backorders of this product, if not null.
+     * @return The page of backorders, with the cursor of the next page.
      */
-    public List<Backorder> getAllBackorders() {
-        LOGGER.info("Fetching all backorders");
-        return backorderRepository.findAll();
+    public CursorPage<Backorder> getAllBackorders(final Long after, final Integer limit, final Long customerId, final Long productId) {
+        LOGGER.info("Fetching backorders after Id : {}", after);
+        int pageSize = pagination.pageSize(limit);
+        List<Backorder> backorders = backorderRepository
+                .findPage(pagination.cursor(after), customerId, productId, pagination.rowsToRead(pageSize));
+        return CursorPage.of(backorders, pageSize, Backorder::getId);
     }
 
     /**
@@ -77,7 +105,6 @@ public class BackorderService {
      * @return A list of all backorders associated with the specified product ID.
      *
      * here no need to through exception for this
-     * it is used in order class. to delete backorder and send notification
      */
     public List<Backorder> getAllBackordersByProductId(final Long productId) {
         LOGGER.info("Fetching all backorder having productId: {}", productId);
@@ -94,62 +121,83 @@ public class BackorderService {
             throw new NullPointerException();
         }
         LOGGER.info("Saving backorder");
-        return backorderRepository.save(backorder);
+        Backorder savedBackorder = backorderRepository.save(backorder);
+        backorderFulfillmentEngine.backordersSaved(List.of(savedBackorder));
+        return savedBackorder;
     }
 
     /**
-     * Updates an existing backorder.
+     * Updates an existing backorder, with a single UPDATE statement.
+     * The product and the customer are checked by the foreign keys of the row, and read for the response
+     * from the catalog and the second-level cache.
      * @param id       The ID of the backorder to update.
      * @param backorder The updated backorder object.
-     * @return The updated backorder.
-     * @throws ResourceNotFoundException If the backorder with the given ID is not found.
+     * @return The updated backorder, with its product and customer loaded in the same transaction.
+     * @throws ResourceNotFoundException If the backorder, the product or the customer with the given ID is not found.
      */
+    @Transactional
     public Backorder updateBackorder(final Long id, final Backorder backorder) {
         LOGGER.info("Updating backorder");
-        boolean isBackorderExist = backorderRepository.existsById(id);
-        if (isBackorderExist) {
-            backorder.setId(id);
-            return backorderRepository.save(backorder);
-        } else {
+        int updated;
+        try {
+            updated = backorderRepository.updateById(id, backorder);
+        } catch (DataIntegrityViolationException e) {
+            // a foreign key rejected the product or the customer : report which one is missing
+            findProduct(backorder.getProduct().getId());
+            findCustomer(backorder.getCustomer().getId());
+            throw e;
+        }
+        if (updated == 0) {
             throw new ResourceNotFoundException(BACKORDERCONSTANT, "Id", id);
         }
+        backorder.setId(id);
+        backorder.setProduct(findProduct(backorder.getProduct().getId()));
+        backorder.setCustomer(findCustomer(backorder.getCustomer().getId()));
+        backorderFulfillmentEngine.backorderUpdated(backorder);
+        return backorder;
     }
 
     /**
-     * Deletes a backorder by its ID.
+     * Deletes a backorder by its ID, with a single DELETE statement.
      * @param id The ID of the backorder to delete.
      * @return True if the backorder was deleted successfully, otherwise false.
      * @throws ResourceNotFoundException If the backorder with the given ID is not found.
      */
     public Boolean deleteBackorder(final Long id) {
         LOGGER.info("Deleting backorder");
-        backorderRepository
-                .findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException(BACKORDERCONSTANT, "Id", id));
-        backorderRepository.deleteById(id);
+        if (backorderRepository.deleteOneById(id) == 0) {
+            throw new ResourceNotFoundException(BACKORDERCONSTANT, "Id", id);
+        }
+        backorderFulfillmentEngine.backorderDeleted(id);
         return true;
     }
+
     /**
-     * Removes fulfilled backorders associated with the updated product quantity.
-     * This method retrieves all backorders associated with the updated product.
-     * It then iterates through the list of backorders, checking if each backorder can be fulfilled with the updated product quantity.
-     * If a backorder can be fulfilled, it sends a notification or mail and deletes the backorder from the database.
-     * @param productId The productId which quantity is updated.
-     * @param quantity The updated quantity of the product.
-     */
-    public void removeFromBackOrder(final Long productId, final int quantity) {
-        AtomicInteger productQuantity = new AtomicInteger(quantity);
-        LOGGER.info("Fetching all backorder associated with Ordered product");
-        List<Backorder> backorderList = getAllBackordersByProductId(productId);
-        LOGGER.info("performing operation on backorder.");
-        backorderList.forEach(backorder -> {
-            if (backorder.getQuantity() <= productQuantity.get()) {
-                sendNotification(backorder); // send notification or mail that the product is available now.
-                deleteBackorder(backorder.getId()); // Delete backorder
-                LOGGER.info("Backorder with Id : {} is fulfilled, Backorder : {}", backorder.getId(), backorder);
-                productQuantity.addAndGet(-backorder.getQuantity()); // Reduce product quantity
-            }
-        });
+     * Reads the product of a backorder, from the catalog, or from the database if it is not in the catalog yet.
+     * @param productId The ID of the product.
+     * @return The product.
+     * @throws ResourceNotFoundException If the product is not found.
+     */
+    private Product findProduct(final Long productId) {
+        Product product = productCatalogService.find(productId);
+        if (product != null) {
+            return product;
+        }
+        return productRepository
+                .findById(productId)
+                .orElseThrow(() -> new ResourceNotFoundException("Product", "Id", productId));
+    }
+
+    /**
+     * Reads the customer of a backorder.
+     * @param customerId The ID of the customer.
+     * @return The customer.
+     * @throws ResourceNotFoundException If the customer is not found.
+     */
+    private Customer findCustomer(final Long customerId) {
+        return customerRepository
+                .findById(customerId)
+                .orElseThrow(() -> new ResourceNotFoundException("Customer", "Id", customerId));
     }
 
     /**
@@ -166,14 +214,5 @@ public class BackorderService {
                 .findById(backOrderRequestBody.getCustomerId())
                 .orElseThrow(() -> new ResourceNotFoundException("Customer", "Id", backOrderRequestBody.getCustomerId()));
     }
-    /**
-     * Sends a notification or mail to inform the customer that the product associated with the backorder is now available.
-     * This method is responsible for sending notifications to customers when their backorders can be fulfilled.
-     * @param backorder The backorder for which the notification is being sent.
-     */
-    private void sendNotification(final Backorder backorder) {
-        LOGGER.info("Backorder fulfilled, notification send to respective customer");
-        /** implement method not yet implemented. */
-    }
 
 }
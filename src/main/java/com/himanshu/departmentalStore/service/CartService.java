@@ -0,0 +1,244 @@
+package com.himanshu.departmentalStore.service;
+
+import com.himanshu.departmentalStore.dto.CartLineRequestBody;
+import com.himanshu.departmentalStore.dto.CartRequestBody;
+import com.himanshu.departmentalStore.exception.CustomException;
+import com.himanshu.departmentalStore.exception.ResourceNotFoundException;
+import com.himanshu.departmentalStore.model.Backorder;
+import com.himanshu.departmentalStore.model.Cart;
+import com.himanshu.departmentalStore.model.Customer;
+import com.himanshu.departmentalStore.model.Discount;
+import com.himanshu.departmentalStore.model.OrderLine;
+import com.himanshu.departmentalStore.model.Product;
+import com.himanshu.departmentalStore.repository.CartRepository;
+import com.himanshu.departmentalStore.repository.CustomerRepository;
+import com.himanshu.departmentalStore.repository.DiscountRepository;
+import com.himanshu.departmentalStore.repository.ProductRepository;
+import com.himanshu.departmentalStore.util.Money;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Service class for placing carts (multi-line orders) in the departmental store system.
+ * A whole basket is validated, priced and reserved in a single transaction,
+ * instead of one order request per product.
+ */
+@Service
+public class CartService {
+
+    /**
+     * Logger for logging messages related to CartService class.
+     * This logger is used to log various messages, such as debug, info, error, etc.,
+     * related to the operations performed within the CartService class.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(CartService.class);
+
+    /**
+     * Repository for accessing cart data.
+     */
+    @Autowired
+    private CartRepository cartRepository;
+
+    /**
+     * This repository is used for database operations related to Product entities.
+     */
+    @Autowired
+    private ProductRepository productRepository;
+
+    /**
+     * This repository is used for database operations related to Customer entities.
+     */
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    /**
+     * This repository is used for database operations related to Discount entities.
+     */
+    @Autowired
+    private DiscountRepository discountRepository;
+
+    /**
+     * Service for managing backorders.
+     */
+    @Autowired
+    private BackorderService backorderService;
+
+    /**
+     * Service reserving the stock of the products.
+     */
+    @Autowired
+    private InventoryService inventoryService;
+
+    /**
+     * Service maintaining the sales rollups, which count the lines of the carts.
+     */
+    @Autowired
+    private SalesRollupService salesRollupService;
+
+    /**
+     * Creates a new cart.
+     *
+     * <p>
+     * Lines ordering the same product are merged. The customer, the discount and all the products are loaded once
+     * (products in a single IN query), then the discount is validated against the total of the lines which are in stock,
+     * before anything is written.
+     * </p>
+     *
+     * <p>
+     * Stock is then reserved line by line with {@link InventoryService#reserve(Long, int)} (a guarded update, or the in-memory engine),
+     * always in ascending product id order so two carts sharing products lock the rows in the same order and can not deadlock.
+     * A line which can not be reserved becomes a backorder, the other lines are saved with the cart and added to the
+     * sales rollups, all in one transaction.
+     * </p>
+     * @param cartRequestBody The request body containing the cart details.
+     * @return The created cart, with the backorders created for the lines out of stock (if any).
+     * @throws ResourceNotFoundException If the customer, the discount or any product does not exist.
+     * @throws CustomException If the discount can not be applied, or if no line is in stock (all lines are backordered).
+     */
+    @Transactional(noRollbackFor = CustomException.class)
+    public Cart createCart(final CartRequestBody cartRequestBody) {
+        LOGGER.info("Placing cart.");
+        Map<Long, Integer> quantities = mergeLines(cartRequestBody.getLines());
+        Customer customer = customerRepository
+                .findById(cartRequestBody.getCustomerId())
+                .orElseThrow(() -> new ResourceNotFoundException("Customer", "Id", cartRequestBody.getCustomerId()));
+        Discount discount = null;
+        if (cartRequestBody.getDiscountId() != null) {
+            discount = discountRepository
+                    .findById(cartRequestBody.getDiscountId())
+                    .orElseThrow(() -> new ResourceNotFoundException("Discount", "Id", cartRequestBody.getDiscountId()));
+        }
+        List<Product> products = productRepository.findByIdInOrderByIdAsc(quantities.keySet());
+        checkAllProductsFound(quantities, products);
+
+        LOGGER.info("Checking discount against the lines in stock");
+        long expectedTotal = 0;
+        for (Product product : products) {
+            int quantity = quantities.get(product.getId());
+            if (isProductAvailable(product, quantity)) {
+                expectedTotal = Math.addExact(expectedTotal, linePrice(product, quantity));
+            }
+        }
+        if (discount != null && !isDiscountApplicable(discount, expectedTotal)) {
+            LOGGER.error("This discount can not be applied.");
+            throw new CustomException("This Discount can not be applied : amount is less than minimum price", discount, HttpStatus.BAD_REQUEST);
+        }
+
+        Cart cart = new Cart();
+        cart.setCustomer(customer);
+        cart.setDiscount(discount);
+        cart.setTimestamp(LocalDateTime.now());
+        long total = 0;
+        LOGGER.info("Reserving stock in product id order");
+        for (Product product : products) {
+            int quantity = quantities.get(product.getId());
+            if (isProductAvailable(product, quantity)
+                    && inventoryService.reserve(product.getId(), quantity)) {
+                OrderLine line = new OrderLine();
+                line.setProduct(product);
+                line.setQuantity(quantity);
+                line.setAmountMinor(linePrice(product, quantity));
+                total = Math.addExact(total, line.getAmountMinor());
+                cart.addLine(line);
+            } else {
+                LOGGER.info("Creating Backorder for product with Id : {}", product.getId());
+                Backorder backorder = new Backorder();
+                backorder.setCustomer(customer);
+                backorder.setProduct(product);
+                backorder.setQuantity(quantity);
+                backorder.setTimestamp(cart.getTimestamp());
+                cart.getBackorders().add(backorderService.saveBackorder(backorder));
+            }
+        }
+        if (cart.getLines().isEmpty()) {
+            LOGGER.error("No line of the cart is in stock");
+            throw new CustomException("Ordered quantity is more then quantity left in stock : Backorder created", cart.getBackorders(), HttpStatus.ACCEPTED);
+        }
+        if (discount != null && isDiscountApplicable(discount, total)) {
+            total = Money.percentOff(total, discount.getValueBasisPoints());
+        } else if (discount != null) {
+            // some lines were sold out by concurrent orders and the rest is below the minimum price
+            LOGGER.info("Discount not applied : placed lines are below the minimum price");
+            cart.setDiscount(null);
+        }
+        cart.setAmountMinor(total);
+        LOGGER.info("Saving cart with {} lines", cart.getLines().size());
+        Cart savedCart = cartRepository.save(cart);
+        salesRollupService.addCart(savedCart);
+        return savedCart;
+    }
+
+    /**
+     * Merges the lines of a cart by product, sorted by product id.
+     * @param lines The lines of the request.
+     * @return The total quantity requested per product id, in ascending product id order.
+     */
+    private Map<Long, Integer> mergeLines(final List<CartLineRequestBody> lines) {
+        if (lines == null || lines.isEmpty()) {
+            throw new CustomException("Cart has no lines", null, HttpStatus.BAD_REQUEST);
+        }
+        Map<Long, Integer> quantities = new TreeMap<>();
+        for (CartLineRequestBody line : lines) {
+            if (line.getProductId() == null || line.getQuantity() <= 0) {
+                throw new CustomException("Every line needs a product id and a positive quantity", line, HttpStatus.BAD_REQUEST);
+            }
+            quantities.merge(line.getProductId(), line.getQuantity(), Integer::sum);
+        }
+        return quantities;
+    }
+
+    /**
+     * Checks that every requested product id was found.
+     * @param quantities The quantities requested per product id.
+     * @param products The products found.
+     * @throws ResourceNotFoundException For the first product id which does not exist.
+     */
+    private void checkAllProductsFound(final Map<Long, Integer> quantities, final List<Product> products) {
+        if (products.size() == quantities.size()) {
+            return;
+        }
+        for (Long productId : quantities.keySet()) {
+            if (products.stream().noneMatch(product -> product.getId().equals(productId))) {
+                throw new ResourceNotFoundException("Product", "Id", productId);
+            }
+        }
+    }
+
+    /**
+     * Checks if a product is available and has sufficient quantity for a line.
+     * @param product The product to be checked.
+     * @param quantity The quantity required by the line.
+     * @return true if the product is available and has sufficient quantity, otherwise false.
+     */
+    private boolean isProductAvailable(final Product product, final int quantity) {
+        return product.isAvailability() && inventoryService.count(product) >= quantity;
+    }
+
+    /**
+     * Checks that the total reaches the minimum price of the discount.
+     * @param discount The discount to apply.
+     * @param total The total of the cart, in cents.
+     * @return true if the discount can be applied on the total.
+     */
+    private boolean isDiscountApplicable(final Discount discount, final long total) {
+        return discount.getMinPriceMinor() != null && discount.getMinPriceMinor() <= total;
+    }
+
+    /**
+     * Calculates the price of a line.
+     * @param product The product of the line.
+     * @param quantity The quantity of the line.
+     * @return product price * quantity, in cents.
+     */
+    private long linePrice(final Product product, final int quantity) {
+        return Money.lineTotal(product.getPriceMinor(), quantity);
+    }
+}
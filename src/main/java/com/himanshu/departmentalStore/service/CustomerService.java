@@ -3,10 +3,13 @@ package com.himanshu.departmentalStore.service;
 import com.himanshu.departmentalStore.exception.ResourceNotFoundException;
 import com.himanshu.departmentalStore.model.Customer;
 import com.himanshu.departmentalStore.repository.CustomerRepository;
+import com.himanshu.departmentalStore.dto.CursorPage;
+import com.himanshu.departmentalStore.util.Pagination;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import java.util.List;
 
 /**
@@ -36,14 +39,24 @@ public class CustomerService {
     private CustomerRepository customerRepository;
 
     /**
-     * Retrieves all customers from the database.
-     * @return A list of all customers.
+     * Page size rules of the collection endpoints.
      */
-    public List<Customer> getAllCustomers() {
-        LOGGER.info("Fetching all customers from the database");
-        List<Customer> customers = customerRepository.findAll();
+    @Autowired
+    private Pagination pagination;
+
+    /**
+     * Retrieves a page of customers, in id order.
+     * @param after The id of the last customer of the previous page, or null for the first page.
+     * @param limit The page size, or null for the default one.
+     * @return The page of customers, with the cursor of the next page.
+     */
+    public CursorPage<Customer> getAllCustomers(final Long after, final Integer limit) {
+        LOGGER.info("Fetching customers after Id : {}", after);
+        int pageSize = pagination.pageSize(limit);
+        List<Customer> customers = customerRepository
+                .findByIdGreaterThanOrderByIdAsc(pagination.cursor(after), pagination.rowsToRead(pageSize));
         LOGGER.info("Fetched {} customers", customers.size());
-        return customers;
+        return CursorPage.of(customers, pageSize, Customer::getId);
     }
 
     /**
@@ -77,36 +90,51 @@ public class CustomerService {
 
     /**
      * Updates an existing customer.
+     * The customer is read (from the second-level cache when it is there) and changed as an entity, so that
+     * the UPDATE replaces only its own cache entry : a bulk UPDATE would empty the whole customer region,
+     * which every order reads.
      * @param id       The ID of the customer to update.
      * @param customer The updated customer object.
      * @return The updated customer.
      * @throws ResourceNotFoundException If the customer with the given ID is not found.
      */
+    @Transactional
     public Customer updateCustomer(final Long id, final Customer customer) {
         LOGGER.info("Updating customer with ID {}: {}", id, customer);
-        boolean isCustomerExist = customerRepository.existsById(id);
-        if (isCustomerExist) {
-            customer.setId(id);
-            return customerRepository.save(customer);
-        } else {
-            LOGGER.error("Customer with ID {} not found", id);
-            throw new ResourceNotFoundException(CUSTOMERCONSTANT, "Id", id);
-        }
+        Customer existing = findCustomer(id);
+        existing.setFullName(customer.getFullName());
+        existing.setAddress(customer.getAddress());
+        existing.setContactNumber(customer.getContactNumber());
+        return existing;
     }
 
 
     /**
      * Deletes a customer by their ID.
+     * As for the update, the customer is deleted as an entity so that only its own cache entry is evicted.
      * @param id The ID of the customer to delete.
      * @return True if the customer was deleted successfully, otherwise false.
      * @throws ResourceNotFoundException If the customer with the given ID is not found.
      */
+    @Transactional
     public Boolean deleteCustomer(final Long id) {
         LOGGER.info("Deleting customer with ID {}", id);
-        customerRepository
-                .findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException(CUSTOMERCONSTANT, "Id", id));
-        customerRepository.deleteById(id);
+        customerRepository.delete(findCustomer(id));
         return true;
     }
+
+    /**
+     * Reads a customer, from the second-level cache when it is there.
+     * @param id The ID of the customer.
+     * @return The customer.
+     * @throws ResourceNotFoundException If the customer with the given ID is not found.
+     */
+    private Customer findCustomer(final Long id) {
+        return customerRepository
+                .findById(id)
+                .orElseThrow(() -> {
+                    LOGGER.error("Customer with ID {} not found", id);
+                    return new ResourceNotFoundException(CUSTOMERCONSTANT, "Id", id);
+                });
+    }
 }
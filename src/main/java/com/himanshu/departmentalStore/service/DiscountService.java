@@ -1,14 +1,30 @@
 package com.himanshu.departmentalStore.service;
 
+import com.himanshu.departmentalStore.dto.OrderRequestBody;
+import com.himanshu.departmentalStore.exception.CustomException;
 import com.himanshu.departmentalStore.exception.ResourceNotFoundException;
 import com.himanshu.departmentalStore.model.Discount;
 import com.himanshu.departmentalStore.repository.DiscountRepository;
+import com.himanshu.departmentalStore.dto.CursorPage;
+import com.himanshu.departmentalStore.util.ActiveDiscountIndex;
+import com.himanshu.departmentalStore.util.Pagination;
+import org.hibernate.exception.ConstraintViolationException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Service class for managing Discount entities.
@@ -30,6 +46,11 @@ public class DiscountService {
      */
     private static final String DISCOUNTCONSTANT = "Discount";
 
+    /**
+     * The unique index on coupon_code (see V13__createDiscountCouponCodeIndex.sql).
+     */
+    private static final String COUPON_CODE_INDEX = "uk_discount_coupon_code";
+
     /**
      * Autowired field for accessing the DiscountRepository.
      * This repository is used for database operations related to Discount entities.
@@ -37,34 +58,93 @@ public class DiscountService {
     @Autowired
     private DiscountRepository discountRepository;
 
+    /**
+     * Page size rules of the collection endpoints.
+     */
+    @Autowired
+    private Pagination pagination;
+
+    /**
+     * Runs the rebuild of the active discount index at the next boundary time.
+     */
+    @Autowired
+    private TaskScheduler taskScheduler;
+
+    /**
+     * In-memory index of the discounts active now or later, null until it is first loaded.
+     */
+    private volatile ActiveDiscountIndex activeIndex;
+
+    /**
+     * The discounts by coupon code (in upper case, as MySQL compares them without case), null until first loaded.
+     * Updated by the writes of this service, and reloaded every discounts.index.refresh-interval.
+     */
+    private volatile Map<String, Discount> coupons;
+
+    /**
+     * One rebuild of the index (or reload of the coupon codes) at a time, so that the last one to finish
+     * has read the last change.
+     */
+    private final ReentrantLock indexLock = new ReentrantLock();
+
+    /**
+     * The rebuild scheduled at the next boundary time, guarded by indexLock.
+     */
+    private ScheduledFuture<?> nextRebuild;
+
 
     /**
      * Retrieves all active discounts.
      * Active discounts are those whose start date and end date are within the current date and time.
-     * @return A list of all active discounts.
+     * They are read from the in-memory index (a binary search), or from the database until the index is loaded.
+     * @return A list of all active discounts, in id order.
      */
     public List<Discount> getAllActiveDiscounts() {
         LOGGER.info("Fetching all active discounts");
         LocalDateTime currentDateTime = LocalDateTime.now();
-        List<Discount> discountList = discountRepository.findAll();
-        return discountList.stream()
-            .filter(discount -> {
-                LocalDateTime startDateTime = discount.getStartDateTime();
-                LocalDateTime endDateTime = discount.getEndDateTime();
-                return currentDateTime.isEqual(startDateTime)  // If current date is equal to start date
-                        || currentDateTime.isEqual(endDateTime)  // or equal to end date
-                        || (currentDateTime.isAfter(startDateTime) && currentDateTime.isBefore(endDateTime)); // or between start and end dates
-            })
-            .toList();
+        ActiveDiscountIndex index = activeIndex;
+        if (index != null && index.covers(currentDateTime)) {
+            return index.activeAt(currentDateTime);
+        }
+        LOGGER.info("Active discount index not loaded, reading the active discounts from the database");
+        return discountRepository.findActiveAt(currentDateTime);
     }
+
     /**
-     * Retrieves all discounts.
-     * active/inactive all.
-     * @return A list of all discounts.
+     * Rebuilds the in-memory index of the active discounts from the discounts which have not ended yet.
+     * Runs at startup, after each change of a discount, at the next time a discount starts or ends,
+     * and every discounts.index.refresh-interval to pick up the changes made by other instances.
      */
-    public List<Discount> getAllDiscounts() {
-        LOGGER.info("Fetching all discounts");
-        return discountRepository.findAll();
+    @Scheduled(fixedDelayString = "${discounts.index.refresh-interval:PT5M}")
+    public void rebuildActiveIndex() {
+        indexLock.lock();
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            ActiveDiscountIndex index = ActiveDiscountIndex.build(discountRepository.findNotEndedAt(now), now);
+            activeIndex = index;
+            if (nextRebuild != null) {
+                nextRebuild.cancel(false);
+            }
+            LocalDateTime boundary = index.nextBoundaryAfter(now);
+            nextRebuild = boundary == null ? null
+                    : taskScheduler.schedule(this::rebuildActiveIndex, boundary.atZone(ZoneId.systemDefault()).toInstant());
+            LOGGER.info("Active discount index rebuilt with {} discounts, next boundary at {}", index.size(), boundary);
+        } finally {
+            indexLock.unlock();
+        }
+    }
+    /**
+     * Retrieves a page of discounts (active and inactive), in id order.
+     * @param after The id of the last discount of the previous page, or null for the first page.
+     * @param limit The page size, or null for the default one.
+     * @return The page of discounts, with the cursor of the next page.
+     */
+    public CursorPage<Discount> getAllDiscounts(final Long after, final Integer limit) {
+        LOGGER.info("Fetching discounts after Id : {}", after);
+        int pageSize = pagination.pageSize(limit);
+        List<Discount> discounts = discountRepository
+                .findByIdGreaterThanOrderByIdAsc(pagination.cursor(after), pagination.rowsToRead(pageSize));
+        return CursorPage.of(discounts, pageSize, Discount::getId);
     }
 
     /**
@@ -79,6 +159,80 @@ public class DiscountService {
                 .findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException(DISCOUNTCONSTANT, "Id", id));
     }
+    /**
+     * Retrieves a discount by its coupon code.
+     * @param couponCode The coupon code, in any case.
+     * @return The discount with the coupon code.
+     * @throws CustomException With status 404 if no discount has the coupon code.
+     */
+    public Discount getDiscountByCouponCode(final String couponCode) {
+        LOGGER.info("Fetching discount by coupon code: {}", couponCode);
+        Discount discount = findDiscountByCouponCode(couponCode);
+        if (discount == null) {
+            throw new CustomException("Discount not found with coupon code : " + couponCode, couponCode, HttpStatus.NOT_FOUND);
+        }
+        return discount;
+    }
+
+    /**
+     * Resolves a coupon code, as given with an order.
+     * The discount is read from memory : the database is only read if the code is unknown there
+     * (coupon codes not loaded yet, or created by another instance since the last reload).
+     * @param couponCode The coupon code, in any case.
+     * @return The discount with the coupon code, or null if there is none.
+     */
+    public Discount findDiscountByCouponCode(final String couponCode) {
+        Map<String, Discount> loaded = coupons;
+        Discount discount = loaded == null ? null : loaded.get(couponKey(couponCode));
+        if (discount != null) {
+            return discount;
+        }
+        discount = discountRepository.findByCouponCode(couponCode).orElse(null);
+        if (discount != null && loaded != null) {
+            indexLock.lock();
+            try {
+                coupons.putIfAbsent(couponKey(discount.getCouponCode()), discount);
+            } finally {
+                indexLock.unlock();
+            }
+        }
+        return discount;
+    }
+
+    /**
+     * Replaces the coupon code given with an order by the ID of its discount.
+     * @param body The order, with a coupon code.
+     * @return null if the discount ID was set, otherwise the reason the order can not be placed.
+     */
+    public String applyCouponCode(final OrderRequestBody body) {
+        if (body.getDiscountId() != null) {
+            return "Give either a discount id or a coupon code";
+        }
+        Discount discount = findDiscountByCouponCode(body.getCouponCode());
+        if (discount == null) {
+            return "Discount not found with coupon code : " + body.getCouponCode();
+        }
+        body.setDiscountId(discount.getId());
+        return null;
+    }
+
+    /**
+     * Reloads the coupon codes of all the discounts.
+     * Runs at startup, then every discounts.index.refresh-interval to pick up the changes made by other instances.
+     */
+    @Scheduled(fixedDelayString = "${discounts.index.refresh-interval:PT5M}")
+    public void reloadCouponCodes() {
+        indexLock.lock();
+        try {
+            Map<String, Discount> loaded = new ConcurrentHashMap<>();
+            discountRepository.findAll().forEach(discount -> loaded.put(couponKey(discount.getCouponCode()), discount));
+            coupons = loaded;
+            LOGGER.info("Loaded the coupon codes of {} discounts", loaded.size());
+        } finally {
+            indexLock.unlock();
+        }
+    }
+
     /**
      * Retrieves a discount by its ID.
      * @param id The ID of the discount to retrieve.
@@ -102,45 +256,132 @@ public class DiscountService {
      * Saves a new discount.
      * @param discount The discount to save.
      * @return The saved discount.
+     * @throws CustomException With status 409 if another discount has the same coupon code.
      */
     public Discount saveDiscount(final Discount discount) {
         if (discount == null) {
             throw new NullPointerException();
         }
         LOGGER.info("Saving discount: {}", discount);
-        return discountRepository.save(discount);
+        Discount savedDiscount = save(discount);
+        discountChanged(savedDiscount.getId(), savedDiscount);
+        return savedDiscount;
     }
 
     /**
-     * Updates an existing discount.
+     * Updates an existing discount, with a single UPDATE statement.
      * @param id       The ID of the discount to update.
      * @param discount The updated discount object.
      * @return The updated discount.
      * @throws ResourceNotFoundException If the discount with the given ID is not found.
+     * @throws CustomException With status 409 if another discount has the same coupon code.
+     * @throws DataIntegrityViolationException If another constraint rejects the discount.
      */
     public Discount updateDiscount(final Long id, final Discount discount) {
         LOGGER.info("Updating discount with ID {}: {}", id, discount);
-        boolean isDiscountExist = discountRepository.existsById(id);
-        if (isDiscountExist) {
-            discount.setId(id);
-            return discountRepository.save(discount);
-        } else {
+        int updated;
+        try {
+            updated = discountRepository.updateById(id, discount);
+        } catch (DataIntegrityViolationException e) {
+            if (isCouponCodeIndex(e)) {
+                throw couponCodeUsed(discount);
+            }
+            throw e;
+        }
+        if (updated == 0) {
             throw new ResourceNotFoundException(DISCOUNTCONSTANT, "Id", id);
         }
-
+        discount.setId(id);
+        discountChanged(id, discount);
+        return discount;
     }
+
     /**
-     * Deletes a discount by its ID.
+     * Deletes a discount by its ID, with a single DELETE statement.
      * @param id The ID of the discount to delete.
      * @return True if the discount was deleted successfully, otherwise false.
      * @throws ResourceNotFoundException If the discount with the given ID is not found.
      */
     public Boolean deleteDiscount(final Long id) {
         LOGGER.info("Deleting discount with ID: {}", id);
-        discountRepository
-                .findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException(DISCOUNTCONSTANT, "Id", id));
-        discountRepository.deleteById(id);
+        if (discountRepository.deleteOneById(id) == 0) {
+            throw new ResourceNotFoundException(DISCOUNTCONSTANT, "Id", id);
+        }
+        discountChanged(id, null);
         return true;
     }
+
+    /**
+     * Saves a discount, reporting a coupon code already used as a conflict.
+     * @param discount The discount to save.
+     * @return The saved discount.
+     * @throws CustomException With status 409 if the unique index on coupon_code rejects the discount.
+     * @throws DataIntegrityViolationException If another constraint rejects the discount.
+     */
+    private Discount save(final Discount discount) {
+        try {
+            return discountRepository.save(discount);
+        } catch (DataIntegrityViolationException e) {
+            if (isCouponCodeIndex(e)) {
+                throw couponCodeUsed(discount);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Reports a discount rejected by the unique index on coupon_code.
+     * @param discount The discount rejected.
+     * @return The exception to throw, with status 409.
+     */
+    private static CustomException couponCodeUsed(final Discount discount) {
+        LOGGER.error("Coupon code {} already used", discount.getCouponCode());
+        return new CustomException("Coupon code already used by another discount", discount.getCouponCode(), HttpStatus.CONFLICT);
+    }
+
+    /**
+     * Checks whether a violation comes from the unique index on coupon_code, and not from another constraint
+     * (a missing column, a value too long...), by the constraint name Hibernate extracted or else by the driver message
+     * ("Duplicate entry 'FLAT50' for key 'discount.uk_discount_coupon_code'").
+     * @param e The violation.
+     * @return true if the coupon code is already used by another discount.
+     */
+    private static boolean isCouponCodeIndex(final DataIntegrityViolationException e) {
+        if (e.getCause() instanceof ConstraintViolationException violation && violation.getConstraintName() != null) {
+            return violation.getConstraintName().toLowerCase(Locale.ROOT).contains(COUPON_CODE_INDEX);
+        }
+        String message = e.getMostSpecificCause().getMessage();
+        return message != null && message.toLowerCase(Locale.ROOT).contains(COUPON_CODE_INDEX);
+    }
+
+    /**
+     * Brings the coupon codes and the active discount index in step with a saved or deleted discount.
+     * @param id The ID of the discount.
+     * @param discount The saved discount, or null if it was deleted.
+     */
+    private void discountChanged(final Long id, final Discount discount) {
+        indexLock.lock();
+        try {
+            Map<String, Discount> loaded = coupons;
+            if (loaded != null) {
+                // the coupon code may have changed : forget the previous one
+                loaded.values().removeIf(previous -> id.equals(previous.getId()));
+                if (discount != null) {
+                    loaded.put(couponKey(discount.getCouponCode()), discount);
+                }
+            }
+            rebuildActiveIndex();
+        } finally {
+            indexLock.unlock();
+        }
+    }
+
+    /**
+     * The key of a coupon code in memory : MySQL compares coupon_code without case.
+     * @param couponCode The coupon code.
+     * @return The coupon code in upper case.
+     */
+    private static String couponKey(final String couponCode) {
+        return couponCode.toUpperCase(Locale.ROOT);
+    }
 }
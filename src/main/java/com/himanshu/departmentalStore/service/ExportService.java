@@ -0,0 +1,264 @@
+package com.himanshu.departmentalStore.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.himanshu.departmentalStore.model.Backorder;
+import com.himanshu.departmentalStore.model.Customer;
+import com.himanshu.departmentalStore.model.Order;
+import com.himanshu.departmentalStore.model.Product;
+import com.himanshu.departmentalStore.repository.BackorderRepository;
+import com.himanshu.departmentalStore.repository.CustomerRepository;
+import com.himanshu.departmentalStore.repository.OrderRepository;
+import com.himanshu.departmentalStore.repository.ProductRepository;
+import com.himanshu.departmentalStore.util.ExportFormat;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Service class for exporting whole tables (nightly analytics pulls) as NDJSON or CSV.
+ *
+ * <p>
+ * Rows are read from a streaming repository query and written to the output one by one,
+ * and the persistence context is cleared every {@value #CLEAR_INTERVAL} rows,
+ * so the heap used by an export does not depend on the size of the table.
+ * </p>
+ */
+@Service
+public class ExportService {
+
+    /**
+     * Logger for logging messages related to ExportService class.
+     * This logger is used to log various messages, such as debug, info, error, etc.,
+     * related to the operations performed within the ExportService class.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(ExportService.class);
+
+    /**
+     * Number of rows after which the exported entities are evicted from the persistence context.
+     */
+    private static final int CLEAR_INTERVAL = 1_000;
+
+    /**
+     * Columns of the order export.
+     */
+    private static final String[] ORDER_COLUMNS = {"id", "productId", "customerId", "discountId", "timestamp", "quantity", "amount"};
+
+    /**
+     * Columns of the backorder export.
+     */
+    private static final String[] BACKORDER_COLUMNS = {"id", "productId", "customerId", "timestamp", "quantity"};
+
+    /**
+     * Columns of the product export.
+     */
+    private static final String[] PRODUCT_COLUMNS = {"id", "name", "description", "price", "expiry", "count", "availability"};
+
+    /**
+     * Columns of the customer export.
+     */
+    private static final String[] CUSTOMER_COLUMNS = {"id", "fullName", "address", "contactNumber"};
+
+    /**
+     * The persistence context the streamed entities are attached to.
+     */
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Mapper providing the JSON generator (and the serialization of dates and amounts).
+     */
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * This repository is used for database operations related to Order entities.
+     */
+    @Autowired
+    private OrderRepository orderRepository;
+
+    /**
+     * This repository is used for database operations related to Backorder entities.
+     */
+    @Autowired
+    private BackorderRepository backorderRepository;
+
+    /**
+     * This repository is used for database operations related to Product entities.
+     */
+    @Autowired
+    private ProductRepository productRepository;
+
+    /**
+     * This repository is used for database operations related to Customer entities.
+     */
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    /**
+     * Writes all the orders, with the ids of their product, customer and discount.
+     * @param format The format of the export.
+     * @param output Where the orders are written.
+     * @return The number of orders exported.
+     * @throws IOException If the output can not be written.
+     */
+    @Transactional(readOnly = true)
+    public long exportOrders(final ExportFormat format, final OutputStream output) throws IOException {
+        try (Stream<Order> orders = orderRepository.streamAll()) {
+            return export(orders, ORDER_COLUMNS, order -> new Object[]{
+                order.getId(), order.getProduct().getId(), order.getCustomer().getId(),
+                order.getDiscount() == null ? null : order.getDiscount().getId(),
+                order.getTimestamp(), order.getQuantity(), order.getAmount()
+            }, format, output);
+        }
+    }
+
+    /**
+     * Writes all the backorders, with the ids of their product and customer.
+     * @param format The format of the export.
+     * @param output Where the backorders are written.
+     * @return The number of backorders exported.
+     * @throws IOException If the output can not be written.
+     */
+    @Transactional(readOnly = true)
+    public long exportBackorders(final ExportFormat format, final OutputStream output) throws IOException {
+        try (Stream<Backorder> backorders = backorderRepository.streamAll()) {
+            return export(backorders, BACKORDER_COLUMNS, backorder -> new Object[]{
+                backorder.getId(), backorder.getProduct().getId(), backorder.getCustomer().getId(),
+                backorder.getTimestamp(), backorder.getQuantity()
+            }, format, output);
+        }
+    }
+
+    /**
+     * Writes the whole catalog.
+     * @param format The format of the export.
+     * @param output Where the products are written.
+     * @return The number of products exported.
+     * @throws IOException If the output can not be written.
+     */
+    @Transactional(readOnly = true)
+    public long exportProducts(final ExportFormat format, final OutputStream output) throws IOException {
+        try (Stream<Product> products = productRepository.streamAll()) {
+            return export(products, PRODUCT_COLUMNS, product -> new Object[]{
+                product.getId(), product.getName(), product.getDescription(), product.getPrice(),
+                product.getExpiry(), product.getCount(), product.isAvailability()
+            }, format, output);
+        }
+    }
+
+    /**
+     * Writes all the customers.
+     * @param format The format of the export.
+     * @param output Where the customers are written.
+     * @return The number of customers exported.
+     * @throws IOException If the output can not be written.
+     */
+    @Transactional(readOnly = true)
+    public long exportCustomers(final ExportFormat format, final OutputStream output) throws IOException {
+        try (Stream<Customer> customers = customerRepository.streamAll()) {
+            return export(customers, CUSTOMER_COLUMNS, customer -> new Object[]{
+                customer.getId(), customer.getFullName(), customer.getAddress(), customer.getContactNumber()
+            }, format, output);
+        }
+    }
+
+    /**
+     * Writes the rows of a stream, one line per row, flushing only what the buffers hold.
+     * @param rows The rows, read from a streaming query.
+     * @param columns The names of the columns.
+     * @param values Function returning the values of a row, in the order of the columns.
+     * @param format The format of the export.
+     * @param output Where the rows are written.
+     * @param <T> The type of the rows.
+     * @return The number of rows written.
+     * @throws IOException If the output can not be written.
+     */
+    private <T> long export(final Stream<T> rows, final String[] columns, final Function<T, Object[]> values,
+                            final ExportFormat format, final OutputStream output) throws IOException {
+        long count = 0;
+        Iterator<T> iterator = rows.iterator();
+        if (format == ExportFormat.CSV) {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+            writeCsvLine(writer, columns);
+            while (iterator.hasNext()) {
+                writeCsvLine(writer, values.apply(iterator.next()));
+                count++;
+                evictIfNeeded(count);
+            }
+            writer.flush();
+        } else {
+            JsonGenerator generator = objectMapper.getFactory().createGenerator(output);
+            while (iterator.hasNext()) {
+                Object[] row = values.apply(iterator.next());
+                generator.writeStartObject();
+                for (int i = 0; i < columns.length; i++) {
+                    generator.writeObjectField(columns[i], row[i]);
+                }
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+                count++;
+                evictIfNeeded(count);
+            }
+            generator.flush();
+        }
+        LOGGER.info("Exported {} rows as {}", count, format);
+        return count;
+    }
+
+    /**
+     * Clears the persistence context every {@value #CLEAR_INTERVAL} rows, so exported entities can be collected.
+     * @param count The number of rows written so far.
+     */
+    private void evictIfNeeded(final long count) {
+        if (count % CLEAR_INTERVAL == 0) {
+            entityManager.clear();
+        }
+    }
+
+    /**
+     * Writes a CSV line, quoting the values which contain a separator, a quote or a line break.
+     * @param writer Where the line is written.
+     * @param values The values of the line; null values are written as empty fields.
+     * @throws IOException If the line can not be written.
+     */
+    private static void writeCsvLine(final Writer writer, final Object[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(toCsvField(values[i]));
+        }
+        writer.write("\r\n");
+    }
+
+    /**
+     * Formats a value as a CSV field.
+     * @param value The value, possibly null.
+     * @return The field, quoted if needed.
+     */
+    static String toCsvField(final Object value) {
+        if (value == null) {
+            return "";
+        }
+        String field = value instanceof BigDecimal ? ((BigDecimal) value).toPlainString() : value.toString();
+        if (field.indexOf(',') < 0 && field.indexOf('"') < 0 && field.indexOf('\n') < 0 && field.indexOf('\r') < 0) {
+            return field;
+        }
+        return '"' + field.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,237 @@
+package com.himanshu.departmentalStore.service;
+
+import com.himanshu.departmentalStore.model.IdempotencyRecord;
+import com.himanshu.departmentalStore.repository.IdempotencyRecordRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Service class for the Idempotency-Key of POST /orders and POST /backorders.
+ *
+ * <p>
+ * Keys are claimed in the idempotency_record table with a single INSERT IGNORE on the primary key, so that two copies
+ * of the same request racing each other can not both be processed. A claim is only a short lease : if the instance
+ * processing the request dies, the key can be taken over once the lease is over, while a stored response is kept
+ * for the full retention. Completed responses are also kept in a small
+ * in-memory LRU cache : a retry sent shortly after the first request (the usual case of a POS terminal timing out)
+ * is answered without any database access.
+ * </p>
+ */
+@Service
+public class IdempotencyService {
+
+    /**
+     * Logger for logging messages related to IdempotencyService class.
+     * This logger is used to log various messages, such as debug, info, error, etc.,
+     * related to the operations performed within the IdempotencyService class.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(IdempotencyService.class);
+
+    /**
+     * Repository for the stored results of idempotent requests.
+     */
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    /**
+     * How long a completed response is kept.
+     */
+    @Value("${idempotency.ttl:24h}")
+    private Duration ttl;
+
+    /**
+     * How long a key stays claimed by a request in progress, longer than any request takes.
+     */
+    @Value("${idempotency.lease:1m}")
+    private Duration lease;
+
+    /**
+     * How long a completed response stays in the in-memory cache.
+     */
+    @Value("${idempotency.cache-ttl:10m}")
+    private Duration cacheTtl;
+
+    /**
+     * Maximum number of responses in the in-memory cache, the least recently used ones are dropped first.
+     */
+    @Value("${idempotency.cache-size:10000}")
+    private int cacheSize;
+
+    /**
+     * Completed responses by key, in access order.
+     */
+    private final Map<String, CachedRecord> cache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<String, CachedRecord> eldest) {
+            return size() > cacheSize;
+        }
+    };
+
+    /**
+     * Guards the cache (even a get reorders an access-ordered map).
+     * A lock rather than synchronized, so a virtual thread waiting for it does not pin its carrier thread.
+     */
+    private final Lock cacheLock = new ReentrantLock();
+
+    /**
+     * Claims a key for the current request.
+     * @param key The key of the request.
+     * @param claimToken Random token of the request, which it passes to {@link #complete} or {@link #release}.
+     * @param requestHash SHA-256 (hex) of the body of the request, stored with the claim.
+     * @return empty if the key was claimed, the current request must be processed and then completed or released.
+     *         Otherwise the record of the request which holds the key : in progress, or completed with its response.
+     */
+    public Optional<IdempotencyRecord> claim(final String key, final String claimToken, final String requestHash) {
+        CachedRecord cached = cached(key);
+        LocalDateTime now = LocalDateTime.now();
+        if (cached != null && cached.cachedUntil.isAfter(now)) {
+            LOGGER.info("Replaying cached response for Idempotency-Key : {}", key);
+            return Optional.of(cached.completed);
+        }
+        // one retry : the key may be released, purged or taken over by another request between the failed claim and the lookup
+        for (int attempt = 0; attempt < 2; attempt++) {
+            if (idempotencyRecordRepository.claim(key, claimToken, requestHash, now.plus(lease)) == 1) {
+                return Optional.empty();
+            }
+            Optional<IdempotencyRecord> existing = idempotencyRecordRepository.findById(key);
+            if (existing.isPresent() && existing.get().getExpiresAt().isBefore(now)) {
+                LOGGER.info("Idempotency-Key {} expired or its lease is over, taking it over", key);
+                if (idempotencyRecordRepository.takeOver(key, claimToken, requestHash, now, now.plus(lease)) == 1) {
+                    return Optional.empty();
+                }
+            } else if (existing.isPresent()) {
+                if (!existing.get().isInProgress()) {
+                    cache(existing.get(), now);
+                }
+                return existing;
+            }
+        }
+        LOGGER.error("Idempotency-Key {} could not be claimed", key);
+        throw new IllegalStateException("Idempotency-Key could not be claimed : " + key);
+    }
+
+    /**
+     * Stores the response of the request which claimed a key.
+     * The key is then kept for the full retention instead of the lease. Nothing is stored if the lease of the request
+     * is over and another request took the key over : the response of that request is the one kept.
+     * @param key The claimed key.
+     * @param claimToken Random token of the request.
+     * @param requestHash SHA-256 (hex) of the body of the request.
+     * @param statusCode The HTTP status of the response.
+     * @param responseBody The body of the response.
+     */
+    public void complete(final String key, final String claimToken, final String requestHash,
+                         final int statusCode, final String responseBody) {
+        LOGGER.info("Storing response {} for Idempotency-Key : {}", statusCode, key);
+        LocalDateTime now = LocalDateTime.now();
+        if (idempotencyRecordRepository.complete(key, claimToken, statusCode, responseBody, now.plus(ttl)) == 0) {
+            LOGGER.warn("Lease of Idempotency-Key {} was over and the key was taken over, response not stored", key);
+            return;
+        }
+        IdempotencyRecord idempotencyRecord = new IdempotencyRecord();
+        idempotencyRecord.setKey(key);
+        idempotencyRecord.setRequestHash(requestHash);
+        idempotencyRecord.setStatusCode(statusCode);
+        idempotencyRecord.setResponseBody(responseBody);
+        idempotencyRecord.setExpiresAt(now.plus(ttl));
+        cache(idempotencyRecord, now);
+    }
+
+    /**
+     * Releases a key whose request failed, so that it can be retried with the same key.
+     * A key taken over by another request after the lease is over is left to that request.
+     * @param key The claimed key.
+     * @param claimToken Random token of the request.
+     */
+    public void release(final String key, final String claimToken) {
+        LOGGER.info("Releasing Idempotency-Key : {}", key);
+        if (idempotencyRecordRepository.release(key, claimToken) == 0) {
+            LOGGER.warn("Lease of Idempotency-Key {} was over and the key was taken over, not released", key);
+        }
+    }
+
+    /**
+     * Deletes the expired records, and drops the cached responses which are too old.
+     */
+    @Scheduled(fixedDelayString = "${idempotency.purge-interval:PT5M}")
+    public void purgeExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        int deleted = idempotencyRecordRepository.deleteExpired(now);
+        cacheLock.lock();
+        try {
+            cache.values().removeIf(cached -> !cached.cachedUntil.isAfter(now));
+        } finally {
+            cacheLock.unlock();
+        }
+        LOGGER.info("Purged {} expired idempotency records", deleted);
+    }
+
+    /**
+     * Caches a completed record.
+     * @param idempotencyRecord The record to cache.
+     * @param now The current time.
+     */
+    private void cache(final IdempotencyRecord idempotencyRecord, final LocalDateTime now) {
+        LocalDateTime cachedUntil = now.plus(cacheTtl);
+        if (idempotencyRecord.getExpiresAt().isBefore(cachedUntil)) {
+            cachedUntil = idempotencyRecord.getExpiresAt();
+        }
+        cacheLock.lock();
+        try {
+            cache.put(idempotencyRecord.getKey(), new CachedRecord(idempotencyRecord, cachedUntil));
+        } finally {
+            cacheLock.unlock();
+        }
+    }
+
+    /**
+     * Looks up a completed record in the cache.
+     * @param key The key of the request.
+     * @return The cache entry, or null.
+     */
+    private CachedRecord cached(final String key) {
+        cacheLock.lock();
+        try {
+            return cache.get(key);
+        } finally {
+            cacheLock.unlock();
+        }
+    }
+
+    /**
+     * A completed record and the time until which it can be served from the cache.
+     */
+    private static final class CachedRecord {
+
+        /**
+         * The completed record.
+         */
+        private final IdempotencyRecord completed;
+
+        /**
+         * The time until which the record is served from the cache.
+         */
+        private final LocalDateTime cachedUntil;
+
+        /**
+         * Creates a cache entry.
+         * @param idempotencyRecord The completed record.
+         * @param until The time until which the record is served from the cache.
+         */
+        private CachedRecord(final IdempotencyRecord idempotencyRecord, final LocalDateTime until) {
+            this.completed = idempotencyRecord;
+            this.cachedUntil = until;
+        }
+    }
+}
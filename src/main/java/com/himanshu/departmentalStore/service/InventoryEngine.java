@@ -0,0 +1,293 @@
+package com.himanshu.departmentalStore.service;
+
+import com.himanshu.departmentalStore.dto.ProductStock;
+import com.himanshu.departmentalStore.repository.ProductRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-memory, authoritative stock of the products, enabled with {@code inventory.engine.enabled=true}.
+ *
+ * <p>
+ * Each product has a lock-free counter : a reservation is a compare-and-set loop which never takes the count
+ * below zero, so orders of the same product no longer queue on the lock of its row.
+ * Changed counts are written to the product table by {@link #flush()} every {@code inventory.engine.flush-interval},
+ * one JDBC batch per flush whatever the number of orders in between, and once more when the application stops.
+ * </p>
+ *
+ * <p>
+ * The counters are loaded from the product table at startup, and a product missing from memory
+ * (e.g. created by another path) is loaded on first use : after a restart the engine starts again from the database.
+ * The orders of the last flush interval are lost from the stock if the JVM crashes, and the engine must only run
+ * on a single instance : other instances would not see its reservations.
+ * </p>
+ */
+@Component
+@ConditionalOnProperty(name = "inventory.engine.enabled", havingValue = "true")
+public class InventoryEngine {
+
+    /**
+     * Logger for logging messages related to InventoryEngine class.
+     * This logger is used to log various messages, such as debug, info, error, etc.,
+     * related to the operations performed within the InventoryEngine class.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(InventoryEngine.class);
+
+    /**
+     * The stock of the products loaded so far, by product id.
+     */
+    private final ConcurrentMap<Long, Stock> stocks = new ConcurrentHashMap<>();
+
+    /**
+     * This repository is used to load the stock of the products.
+     */
+    @Autowired
+    private ProductRepository productRepository;
+
+    /**
+     * Writes the changed counts as one JDBC batch.
+     */
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Loads the stock of all the products, once the application is started.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        List<ProductStock> products = productRepository.findAllStock();
+        products.forEach(product -> stocks.putIfAbsent(product.getId(), new Stock(product.getCount(), product.isAvailability())));
+        LOGGER.info("Inventory engine loaded the stock of {} products", products.size());
+    }
+
+    /**
+     * Takes a quantity out of the stock of a product, if the product is available and has enough stock.
+     * Within a transaction, the quantity is put back if the transaction does not commit.
+     * @param productId The ID of the product.
+     * @param quantity The quantity to reserve.
+     * @return true if the stock was reserved, false if the product can not fulfill the quantity (or does not exist).
+     */
+    public boolean reserve(final Long productId, final int quantity) {
+        Stock stock = stock(productId);
+        if (stock == null || !stock.reserve(quantity)) {
+            return false;
+        }
+        onRollback(() -> stock.add(quantity));
+        return true;
+    }
+
+    /**
+     * Puts a quantity back in the stock of a product.
+     * Within a transaction, the quantity is taken out again if the transaction does not commit.
+     * @param productId The ID of the product.
+     * @param quantity The quantity to put back.
+     * @return The stock after the release, 0 if the product does not exist.
+     */
+    public int release(final Long productId, final int quantity) {
+        Stock stock = stock(productId);
+        if (stock == null) {
+            return 0;
+        }
+        onRollback(() -> stock.add(-quantity));
+        return stock.add(quantity);
+    }
+
+    /**
+     * Reads the stock of a product.
+     * @param productId The ID of the product.
+     * @return The quantity in stock, 0 if the product does not exist.
+     */
+    public int count(final Long productId) {
+        Stock stock = stock(productId);
+        return stock == null ? 0 : stock.count.get();
+    }
+
+    /**
+     * Replaces the stock of a product after it was saved (created, or updated by an administrator).
+     * Within a transaction, the change is undone if the transaction does not commit : the count by the difference set,
+     * so the reservations made meanwhile are kept.
+     * @param productId The ID of the product.
+     * @param count The quantity in stock.
+     * @param availability Whether the product can be ordered.
+     */
+    public void set(final Long productId, final int count, final boolean availability) {
+        Stock stock = stocks.computeIfAbsent(productId, id -> new Stock(count, availability));
+        boolean previousAvailability = stock.available;
+        int previousCount = stock.count.getAndSet(count);
+        stock.available = availability;
+        stock.dirty.set(true);
+        onRollback(() -> {
+            stock.available = previousAvailability;
+            stock.add(previousCount - count);
+        });
+    }
+
+    /**
+     * Forgets a deleted product.
+     * @param productId The ID of the product.
+     */
+    public void remove(final Long productId) {
+        stocks.remove(productId);
+    }
+
+    /**
+     * Writes the counts changed since the last flush to the product table, in one JDBC batch.
+     * The version of each row is incremented, like the stock updates of the repository.
+     * A count changed during the flush is written by the next one; if the batch fails, the counts are kept for the next one.
+     * @return The number of products written.
+     */
+    @Scheduled(fixedDelayString = "${inventory.engine.flush-interval:PT0.1S}")
+    public int flush() {
+        List<Long> productIds = new ArrayList<>();
+        List<Object[]> updates = new ArrayList<>();
+        stocks.forEach((productId, stock) -> {
+            // cleared before the count is read : a reservation made after the read marks the product again
+            if (stock.dirty.getAndSet(false)) {
+                productIds.add(productId);
+                updates.add(new Object[]{stock.count.get(), productId});
+            }
+        });
+        if (updates.isEmpty()) {
+            return 0;
+        }
+        try {
+            jdbcTemplate.batchUpdate("UPDATE product SET count = ?, version = version + 1 WHERE id = ?", updates);
+        } catch (RuntimeException e) {
+            LOGGER.error("Inventory flush of {} products failed, retrying with the next flush", updates.size(), e);
+            productIds.forEach(productId -> {
+                Stock stock = stocks.get(productId);
+                if (stock != null) {
+                    stock.dirty.set(true);
+                }
+            });
+            return 0;
+        }
+        LOGGER.debug("Inventory flushed {} products", updates.size());
+        return updates.size();
+    }
+
+    /**
+     * Writes the last changes before the application stops.
+     */
+    @PreDestroy
+    public void close() {
+        LOGGER.info("Inventory engine stopping, {} products flushed", flush());
+    }
+
+    /**
+     * Gets the stock of a product, loading it from the database on first use.
+     * @param productId The ID of the product.
+     * @return The stock, or null if the product does not exist.
+     */
+    private Stock stock(final Long productId) {
+        Stock stock = stocks.get(productId);
+        if (stock != null) {
+            return stock;
+        }
+        // loaded outside of computeIfAbsent : the map would hold a lock (and pin a virtual thread) during the query
+        Stock loaded = productRepository.findStockById(productId)
+                .map(product -> new Stock(product.getCount(), product.isAvailability()))
+                .orElse(null);
+        if (loaded == null) {
+            return null;
+        }
+        Stock existing = stocks.putIfAbsent(productId, loaded);
+        return existing == null ? loaded : existing;
+    }
+
+    /**
+     * Runs a compensation if the current transaction does not commit.
+     * @param compensation Undoes a change of the stock.
+     */
+    private static void onRollback(final Runnable compensation) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(final int status) {
+                if (status != STATUS_COMMITTED) {
+                    compensation.run();
+                }
+            }
+        });
+    }
+
+    /**
+     * The stock of one product.
+     */
+    private static final class Stock {
+
+        /**
+         * The quantity in stock.
+         */
+        private final AtomicInteger count;
+
+        /**
+         * Whether the product can be ordered.
+         */
+        private volatile boolean available;
+
+        /**
+         * Whether the count changed since the last flush.
+         */
+        private final AtomicBoolean dirty = new AtomicBoolean();
+
+        /**
+         * Creates the stock of a product.
+         * @param initialCount The quantity in stock.
+         * @param availability Whether the product can be ordered.
+         */
+        Stock(final int initialCount, final boolean availability) {
+            this.count = new AtomicInteger(initialCount);
+            this.available = availability;
+        }
+
+        /**
+         * Takes a quantity out of stock, without ever going below zero.
+         * @param quantity The quantity to reserve.
+         * @return true if the quantity was reserved.
+         */
+        boolean reserve(final int quantity) {
+            if (!available) {
+                return false;
+            }
+            int current;
+            do {
+                current = count.get();
+                if (current < quantity) {
+                    return false;
+                }
+            } while (!count.compareAndSet(current, current - quantity));
+            dirty.set(true);
+            return true;
+        }
+
+        /**
+         * Adds a quantity to the stock (negative to take it out unconditionally).
+         * @param quantity The quantity to add.
+         * @return The quantity in stock after the change.
+         */
+        int add(final int quantity) {
+            int updated = count.addAndGet(quantity);
+            dirty.set(true);
+            return updated;
+        }
+    }
+}
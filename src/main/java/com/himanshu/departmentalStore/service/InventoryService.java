@@ -0,0 +1,114 @@
+package com.himanshu.departmentalStore.service;
+
+import com.himanshu.departmentalStore.model.Product;
+import com.himanshu.departmentalStore.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * Service class through which every order path reserves and releases stock.
+ *
+ * <p>
+ * By default the product table holds the stock, changed with single guarded UPDATE statements.
+ * When {@code inventory.engine.enabled=true}, the {@link InventoryEngine} holds it in memory instead
+ * and writes it behind to the product table.
+ * </p>
+ */
+@Service
+public class InventoryService {
+
+    /**
+     * This repository is used for database operations related to Product entities.
+     */
+    @Autowired
+    private ProductRepository productRepository;
+
+    /**
+     * The in-memory stock, null unless the engine is enabled.
+     */
+    @Autowired(required = false)
+    private InventoryEngine inventoryEngine;
+
+    /**
+     * The product catalog, told about the products whose stock moved.
+     */
+    @Autowired
+    private ProductCatalogService productCatalogService;
+
+    /**
+     * Takes a quantity out of the stock of a product, only if the product is available and has enough stock.
+     * @param productId The ID of the product.
+     * @param quantity The quantity to reserve.
+     * @return true if the stock was reserved, false if the product can not fulfill the quantity.
+     */
+    public boolean reserve(final Long productId, final int quantity) {
+        boolean reserved = inventoryEngine != null
+                ? inventoryEngine.reserve(productId, quantity)
+                : productRepository.decrementStock(productId, quantity) == 1;
+        if (reserved) {
+            productCatalogService.stockChanged(productId);
+        }
+        return reserved;
+    }
+
+    /**
+     * Puts a quantity back in the stock of a product (order deleted or reduced).
+     * @param productId The ID of the product.
+     * @param quantity The quantity to put back.
+     * @return The stock after the release.
+     */
+    public int release(final Long productId, final int quantity) {
+        int count;
+        if (inventoryEngine != null) {
+            count = inventoryEngine.release(productId, quantity);
+        } else {
+            productRepository.incrementStock(productId, quantity);
+            Integer loaded = productRepository.findCountById(productId);
+            count = loaded == null ? 0 : loaded;
+        }
+        productCatalogService.stockChanged(productId);
+        return count;
+    }
+
+    /**
+     * Reads the stock of a product.
+     * @param product The product, as loaded from the database.
+     * @return The quantity in stock : the loaded count, or the in-memory one when the engine is enabled.
+     */
+    public int count(final Product product) {
+        return inventoryEngine != null ? inventoryEngine.count(product.getId()) : product.getCount();
+    }
+
+    /**
+     * Reads the stock of a product from where it is held, for a product whose count may be out of date.
+     * @param productId The ID of the product.
+     * @return The quantity in stock : read from the product table, or the in-memory one when the engine is enabled.
+     */
+    public int currentCount(final Long productId) {
+        if (inventoryEngine != null) {
+            return inventoryEngine.count(productId);
+        }
+        Integer count = productRepository.findCountById(productId);
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * Takes the stock of a product saved by an administrator as the new stock.
+     * @param product The saved product.
+     */
+    public void productSaved(final Product product) {
+        if (inventoryEngine != null) {
+            inventoryEngine.set(product.getId(), product.getCount(), product.isAvailability());
+        }
+    }
+
+    /**
+     * Forgets the stock of a deleted product.
+     * @param productId The ID of the product.
+     */
+    public void productDeleted(final Long productId) {
+        if (inventoryEngine != null) {
+            inventoryEngine.remove(productId);
+        }
+    }
+}
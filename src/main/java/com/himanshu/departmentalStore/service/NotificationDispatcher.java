@@ -0,0 +1,249 @@
+package com.himanshu.departmentalStore.service;
+
+import com.himanshu.departmentalStore.model.OutboxNotification;
+import com.himanshu.departmentalStore.notification.NotificationChannel;
+import com.himanshu.departmentalStore.repository.NotificationOutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Service delivering the notifications of the outbox (see {@link NotificationService}) to the configured
+ * {@link NotificationChannel}.
+ *
+ * <p>
+ * Every notifications.dispatch.interval, the due notifications are claimed in batches of
+ * notifications.dispatch.batch-size, oldest first, each batch in its own transaction : delivered batches are deleted,
+ * failed ones are retried after an exponential backoff with jitter, and given up (status FAILED) after
+ * notifications.dispatch.max-attempts. A run stops after a short batch, after a failure, or after
+ * notifications.dispatch.max-batches-per-run batches : a slow or failing channel is called at its own pace while the
+ * notifications wait in the table, and the fulfillments writing them never block. Several instances drain the outbox
+ * side by side, the rows claimed by one being skipped by the others.
+ * </p>
+ *
+ * <p>
+ * Metrics : notifications.outbox.backlog (pending notifications), notifications.delivery.latency (from the fulfillment
+ * to the delivery), and the notifications.delivered, notifications.retried and notifications.failed counters.
+ * </p>
+ */
+@Service
+public class NotificationDispatcher {
+
+    /**
+     * Logger for logging messages related to NotificationDispatcher class.
+     * This logger is used to log various messages, such as debug, info, error, etc.,
+     * related to the operations performed within the NotificationDispatcher class.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(NotificationDispatcher.class);
+
+    /**
+     * The longest error message stored with a notification, the size of its column.
+     */
+    private static final int MAX_ERROR_LENGTH = 255;
+
+    /**
+     * This repository is used for database operations related to the notification outbox.
+     */
+    @Autowired
+    private NotificationOutboxRepository notificationOutboxRepository;
+
+    /**
+     * The channel the notifications are delivered to.
+     */
+    @Autowired
+    private NotificationChannel notificationChannel;
+
+    /**
+     * Runs each batch in its own transaction.
+     */
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    /**
+     * Registry the notification metrics are published to.
+     */
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * The number of notifications claimed and delivered at once.
+     */
+    @Value("${notifications.dispatch.batch-size:100}")
+    private int batchSize;
+
+    /**
+     * The most batches delivered by a run.
+     */
+    @Value("${notifications.dispatch.max-batches-per-run:10}")
+    private int maxBatchesPerRun;
+
+    /**
+     * Number of delivery attempts of a notification, the first one included.
+     */
+    @Value("${notifications.dispatch.max-attempts:8}")
+    private int maxAttempts;
+
+    /**
+     * The delay before the first retry, doubled for each next retry.
+     */
+    @Value("${notifications.dispatch.initial-backoff:PT1S}")
+    private Duration initialBackoff;
+
+    /**
+     * The longest delay before a retry.
+     */
+    @Value("${notifications.dispatch.max-backoff:PT5M}")
+    private Duration maxBackoff;
+
+    /**
+     * The number of pending notifications, counted at the end of each run.
+     */
+    private final AtomicLong backlog = new AtomicLong();
+
+    /**
+     * The time from the fulfillment to the delivery of a notification.
+     */
+    private Timer latency;
+
+    /**
+     * Notifications delivered.
+     */
+    private Counter delivered;
+
+    /**
+     * Delivery attempts which failed and will be retried.
+     */
+    private Counter retried;
+
+    /**
+     * Notifications given up after their last attempt.
+     */
+    private Counter failed;
+
+    /**
+     * Registers the metrics.
+     */
+    @PostConstruct
+    public void registerMetrics() {
+        Gauge.builder("notifications.outbox.backlog", backlog, AtomicLong::get)
+                .description("Notifications waiting in the outbox")
+                .register(meterRegistry);
+        latency = Timer.builder("notifications.delivery.latency")
+                .description("Time from the fulfillment of a backorder to the delivery of its notification")
+                .register(meterRegistry);
+        delivered = Counter.builder("notifications.delivered")
+                .description("Notifications delivered")
+                .register(meterRegistry);
+        retried = Counter.builder("notifications.retried")
+                .description("Notifications whose delivery failed and will be retried")
+                .register(meterRegistry);
+        failed = Counter.builder("notifications.failed")
+                .description("Notifications given up after their last attempt")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Delivers the due notifications, batch after batch, until the outbox is drained, a batch fails
+     * or the batches of a run are used up.
+     */
+    @Scheduled(fixedDelayString = "${notifications.dispatch.interval:PT0.5S}")
+    public void dispatch() {
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            if (!Boolean.TRUE.equals(transactionTemplate.execute(status -> dispatchBatch()))) {
+                break;
+            }
+        }
+        backlog.set(notificationOutboxRepository.countByStatus(OutboxNotification.Status.PENDING));
+    }
+
+    /**
+     * Gets the number of pending notifications, as of the end of the last run.
+     * @return The backlog of the outbox.
+     */
+    public long getBacklog() {
+        return backlog.get();
+    }
+
+    /**
+     * Claims a batch of due notifications and delivers it, in the current transaction.
+     * @return True if a whole batch was delivered, so that more notifications may be due.
+     */
+    private boolean dispatchBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        List<OutboxNotification> batch = notificationOutboxRepository.claimDue(OutboxNotification.Status.PENDING, now,
+                Limit.of(batchSize));
+        if (batch.isEmpty()) {
+            return false;
+        }
+        try {
+            notificationChannel.deliver(batch.stream().map(OutboxNotification::toEvent).toList());
+        } catch (RuntimeException e) {
+            reschedule(batch, now, e);
+            return false;
+        }
+        notificationOutboxRepository.deleteAllByIdInBatch(batch.stream().map(OutboxNotification::getId).toList());
+        for (OutboxNotification notification : batch) {
+            latency.record(Duration.between(notification.getCreatedAt(), now));
+        }
+        delivered.increment(batch.size());
+        return batch.size() == batchSize;
+    }
+
+    /**
+     * Records a failed delivery of a batch : its notifications are retried later, or given up after their last attempt.
+     * The changes are flushed with the transaction.
+     * @param batch The notifications not delivered.
+     * @param now The time of the attempt.
+     * @param error The error of the channel.
+     */
+    private void reschedule(final List<OutboxNotification> batch, final LocalDateTime now, final RuntimeException error) {
+        String message = String.valueOf(error);
+        if (message.length() > MAX_ERROR_LENGTH) {
+            message = message.substring(0, MAX_ERROR_LENGTH);
+        }
+        int givenUp = 0;
+        for (OutboxNotification notification : batch) {
+            notification.setAttempts(notification.getAttempts() + 1);
+            notification.setLastError(message);
+            if (notification.getAttempts() >= maxAttempts) {
+                notification.setStatus(OutboxNotification.Status.FAILED);
+                givenUp++;
+            } else {
+                notification.setNextAttemptAt(now.plus(backoff(notification.getAttempts())));
+            }
+        }
+        retried.increment(batch.size() - givenUp);
+        failed.increment(givenUp);
+        LOGGER.warn("Delivery of {} notifications failed, {} given up : {}", batch.size(), givenUp, message);
+    }
+
+    /**
+     * Draws the delay before a retry.
+     * @param attempt The number of failed attempts, from 1.
+     * @return Between half and all of the initial backoff doubled (attempt - 1) times, at most the max backoff :
+     * the notifications of a batch which failed together are spread over the next attempts.
+     */
+    Duration backoff(final int attempt) {
+        long bound = maxBackoff.toMillis();
+        if (attempt - 1 < Long.numberOfLeadingZeros(initialBackoff.toMillis()) - 1) {
+            bound = Math.min(bound, initialBackoff.toMillis() << (attempt - 1));
+        }
+        long half = bound / 2;
+        return Duration.ofMillis(half + ThreadLocalRandom.current().nextLong(bound - half + 1));
+    }
+}
@@ -0,0 +1,45 @@
+package com.himanshu.departmentalStore.service;
+
+import com.himanshu.departmentalStore.dto.BackorderFulfilledEvent;
+import com.himanshu.departmentalStore.model.OutboxNotification;
+import com.himanshu.departmentalStore.repository.NotificationOutboxRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Service queuing the notifications (mail, SMS) of the customers.
+ *
+ * <p>
+ * Notifications are written to the notification_outbox table in the transaction which triggered them : they are kept
+ * if and only if it commits, and survive a restart. {@link NotificationDispatcher} delivers them in batches, in the
+ * background : the request which fulfilled a backorder does not wait for the mail server.
+ * </p>
+ */
+@Service
+public class NotificationService {
+
+    /**
+     * This repository is used for database operations related to the notification outbox.
+     */
+    @Autowired
+    private NotificationOutboxRepository notificationOutboxRepository;
+
+    /**
+     * Queues the notifications of fulfilled backorders, in the transaction which fulfilled them.
+     * @param notifications The fulfilled backorders.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(final List<BackorderFulfilledEvent> notifications) {
+        if (notifications.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        notificationOutboxRepository.saveAll(notifications.stream()
+                .map(notification -> OutboxNotification.of(notification, now))
+                .toList());
+    }
+}
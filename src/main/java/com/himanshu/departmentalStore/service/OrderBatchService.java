@@ -0,0 +1,271 @@
+package com.himanshu.departmentalStore.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.himanshu.departmentalStore.dto.BatchOrderRequestBody;
+import com.himanshu.departmentalStore.dto.BatchOrderResult;
+import com.himanshu.departmentalStore.dto.BatchOrderSummary;
+import com.himanshu.departmentalStore.model.Backorder;
+import com.himanshu.departmentalStore.model.Order;
+import com.himanshu.departmentalStore.repository.BackorderRepository;
+import com.himanshu.departmentalStore.repository.OrderRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Service class for ingesting large batches of orders (end of day POS files).
+ *
+ * <p>
+ * The input is read as a stream and processed in chunks of {@code orders.batch.chunk-size} lines,
+ * so memory stays bounded whatever the size of the file. Each chunk is validated, priced and reserved by {@link OrderPreparation}
+ * (one IN query per entity type, one guarded update per product), and is saved with saveAll in its own transaction
+ * (inserts are sent as JDBC batches when hibernate.jdbc.batch_size is set, see application-prod.properties).
+ * The outcome of every line is streamed back as soon as its chunk is committed.
+ * </p>
+ */
+@Service
+public class OrderBatchService {
+
+    /**
+     * Logger for logging messages related to OrderBatchService class.
+     * This logger is used to log various messages, such as debug, info, error, etc.,
+     * related to the operations performed within the OrderBatchService class.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(OrderBatchService.class);
+
+    /**
+     * The number of lines processed (and committed) together.
+     */
+    @Value("${orders.batch.chunk-size:500}")
+    private int chunkSize;
+
+    /**
+     * Mapper used to read the orders and write the results.
+     */
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Repository for saving the placed orders.
+     */
+    @Autowired
+    private OrderRepository orderRepository;
+
+    /**
+     * Repository for saving the backorders.
+     */
+    @Autowired
+    private BackorderRepository backorderRepository;
+
+    /**
+     * Engine queuing the saved backorders until their product is back in stock.
+     */
+    @Autowired
+    private BackorderFulfillmentEngine backorderFulfillmentEngine;
+
+    /**
+     * Runs each chunk in its own transaction.
+     */
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    /**
+     * Validates, prices and reserves the stock of the orders of each chunk.
+     */
+    @Autowired
+    private OrderPreparation orderPreparation;
+
+    /**
+     * Service keeping the sales rollups in step with the orders.
+     */
+    @Autowired
+    private SalesRollupService salesRollupService;
+
+    /**
+     * Reads orders from the input, places them chunk by chunk and writes one result per line to the output,
+     * followed by the summary of the whole batch.
+     * @param input A JSON array or a NDJSON stream of {@link BatchOrderRequestBody}.
+     * @param output Where the results are written, as NDJSON.
+     * @return The summary of the batch.
+     * @throws IOException If the input can not be read or the output can not be written.
+     */
+    public BatchOrderSummary ingestOrders(final InputStream input, final OutputStream output) throws IOException {
+        long start = System.nanoTime();
+        BatchOrderSummary summary = new BatchOrderSummary();
+        try (MappingIterator<BatchOrderRequestBody> values = objectMapper.readerFor(BatchOrderRequestBody.class).readValues(input);
+             SequenceWriter writer = objectMapper.writer().withRootValueSeparator("\n").writeValues(output)) {
+            List<BatchLine> chunk = new ArrayList<>(chunkSize);
+            int lineNumber = 0;
+            boolean more = true;
+            while (more) {
+                lineNumber++;
+                try {
+                    more = values.hasNextValue();
+                    if (more) {
+                        chunk.add(new BatchLine(lineNumber, values.nextValue()));
+                    }
+                } catch (JsonMappingException e) {
+                    // a line with wrong field values : reject it and go on with the next one
+                    chunk.add(BatchLine.rejected(lineNumber, "Invalid order : " + e.getOriginalMessage()));
+                } catch (JsonProcessingException e) {
+                    // malformed input : nothing after this point can be read
+                    LOGGER.error("Malformed batch input at line {}", lineNumber);
+                    chunk.add(BatchLine.rejected(lineNumber, "Malformed input : " + e.getOriginalMessage()));
+                    more = false;
+                }
+                if (chunk.size() >= chunkSize || (!more && !chunk.isEmpty())) {
+                    writeResults(processChunk(chunk), writer, summary);
+                    chunk.clear();
+                }
+            }
+            long elapsedNanos = System.nanoTime() - start;
+            summary.setElapsedMillis(elapsedNanos / 1_000_000);
+            summary.setRowsPerSecond(elapsedNanos == 0 ? 0 : summary.getTotal() * 1_000_000_000.0 / elapsedNanos);
+            writer.write(summary);
+        }
+        LOGGER.info("Batch done : {} lines, {} placed, {} backordered, {} rejected, {} rows/sec",
+                summary.getTotal(), summary.getPlaced(), summary.getBackordered(), summary.getRejected(),
+                Math.round(summary.getRowsPerSecond()));
+        return summary;
+    }
+
+    /**
+     * Places the lines of one chunk in a single transaction.
+     * @param chunk The lines of the chunk, some of them may already be rejected.
+     * @return The same lines, with their outcome.
+     */
+    private List<BatchLine> processChunk(final List<BatchLine> chunk) {
+        transactionTemplate.executeWithoutResult(transactionStatus -> {
+            orderPreparation.validate(chunk);
+            orderPreparation.price(chunk);
+            orderPreparation.reserve(chunk);
+            saveOrders(chunk);
+            saveBackorders(chunk);
+        });
+        return chunk;
+    }
+
+    /**
+     * Saves all the placed lines of a chunk at once, and adds them to the sales rollups (one upsert per rollup row).
+     * @param chunk The lines of the chunk.
+     */
+    private void saveOrders(final List<BatchLine> chunk) {
+        List<Order> orders = new ArrayList<>();
+        for (BatchLine line : withOutcome(chunk, PendingOrder.Outcome.PLACED)) {
+            Order order = new Order();
+            order.setProduct(line.getProduct());
+            order.setCustomer(line.getCustomer());
+            order.setDiscount(line.getDiscount());
+            order.setQuantity(line.getBody().getQuantity());
+            order.setTimestamp(line.timestamp);
+            order.setAmountMinor(line.getAmount());
+            orders.add(order);
+        }
+        orderRepository.saveAll(orders);
+        salesRollupService.addOrders(orders);
+    }
+
+    /**
+     * Saves all the backordered lines of a chunk at once.
+     * @param chunk The lines of the chunk.
+     */
+    private void saveBackorders(final List<BatchLine> chunk) {
+        List<Backorder> backorders = new ArrayList<>();
+        for (BatchLine line : withOutcome(chunk, PendingOrder.Outcome.BACKORDERED)) {
+            Backorder backorder = new Backorder();
+            backorder.setProduct(line.getProduct());
+            backorder.setCustomer(line.getCustomer());
+            backorder.setQuantity(line.getBody().getQuantity());
+            backorder.setTimestamp(line.timestamp);
+            backorders.add(backorder);
+        }
+        backorderRepository.saveAll(backorders);
+        backorderFulfillmentEngine.backordersSaved(backorders);
+    }
+
+    /**
+     * Writes the outcome of the lines of a chunk and counts them in the summary.
+     * @param chunk The processed lines.
+     * @param writer The NDJSON writer of the response.
+     * @param summary The summary of the batch.
+     * @throws IOException If the output can not be written.
+     */
+    private void writeResults(final List<BatchLine> chunk, final SequenceWriter writer, final BatchOrderSummary summary) throws IOException {
+        for (BatchLine line : chunk) {
+            BatchOrderResult.Status status = BatchOrderResult.Status.valueOf(line.getOutcome().name());
+            summary.count(status);
+            writer.write(new BatchOrderResult(line.lineNumber, status, line.getMessage()));
+        }
+        writer.flush();
+    }
+
+    /**
+     * Filters the lines with a given outcome.
+     * @param chunk The lines.
+     * @param outcome The outcome.
+     * @return The lines with that outcome.
+     */
+    private List<BatchLine> withOutcome(final List<BatchLine> chunk, final PendingOrder.Outcome outcome) {
+        return chunk.stream().filter(line -> line.getOutcome() == outcome).toList();
+    }
+
+    /**
+     * One line of the batch while it is processed.
+     */
+    private static final class BatchLine extends PendingOrder {
+
+        /**
+         * The position of the line in the input.
+         */
+        private final int lineNumber;
+
+        /**
+         * The timestamp of the order : the one of the line, or when the line was read if it has none.
+         */
+        private final LocalDateTime timestamp;
+
+        /**
+         * Creates a line read from the input. A line timestamped in the future is rejected.
+         * @param number The position of the line.
+         * @param orderRequestBody The order read, null if it could not be read.
+         */
+        BatchLine(final int number, final BatchOrderRequestBody orderRequestBody) {
+            super(orderRequestBody);
+            this.lineNumber = number;
+            LocalDateTime now = LocalDateTime.now();
+            if (orderRequestBody == null || orderRequestBody.getTimestamp() == null) {
+                this.timestamp = now;
+            } else {
+                this.timestamp = orderRequestBody.getTimestamp();
+                if (timestamp.isAfter(now)) {
+                    reject("Timestamp is in the future : " + timestamp);
+                }
+            }
+        }
+
+        /**
+         * Creates a line which could not be read.
+         * @param number The position of the line.
+         * @param reason Why it could not be read.
+         * @return The rejected line.
+         */
+        static BatchLine rejected(final int number, final String reason) {
+            BatchLine line = new BatchLine(number, null);
+            line.reject(reason);
+            return line;
+        }
+    }
+}
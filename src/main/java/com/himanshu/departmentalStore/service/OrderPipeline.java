@@ -0,0 +1,498 @@
+package com.himanshu.departmentalStore.service;
+
+import com.himanshu.departmentalStore.dto.OrderRequestBody;
+import com.himanshu.departmentalStore.dto.OrderTicket;
+import com.himanshu.departmentalStore.exception.CustomException;
+import com.himanshu.departmentalStore.model.Backorder;
+import com.himanshu.departmentalStore.model.Order;
+import com.himanshu.departmentalStore.repository.BackorderRepository;
+import com.himanshu.departmentalStore.repository.OrderRepository;
+import com.himanshu.departmentalStore.util.Money;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Service class accepting orders asynchronously (POST /orders/async) : the request thread only queues the order
+ * and returns a ticket, which is polled with GET /orders/tickets/{id}.
+ *
+ * <p>
+ * Orders go through three stages : validation (one IN query per entity type for the whole batch), pricing, and
+ * persistence (stock reservation and saveAll of the orders and backorders, in one transaction per batch);
+ * the first two and the reservation are done by {@link OrderPreparation}, as for the other ways of placing orders.
+ * Each stage is a single thread reading a bounded queue (an {@link ArrayBlockingQueue}, a fixed-size ring)
+ * of {@code orders.pipeline.capacity} orders, and takes up to {@code orders.pipeline.batch-size} orders at a time,
+ * so batches grow with the load. When the first queue is full, new orders are refused with 503.
+ * </p>
+ *
+ * <p>
+ * Queue depths ({@code orders.pipeline.queue.depth}), the time spent by each stage on a batch
+ * ({@code orders.pipeline.stage.latency}), batch sizes ({@code orders.pipeline.batch.size}) and the time from acceptance
+ * to outcome ({@code orders.pipeline.latency}) are published as metrics, under /actuator/metrics.
+ * Queued orders and tickets are kept in memory : they are lost if the application crashes, and the tickets
+ * of finished orders are dropped after {@code orders.pipeline.ticket-ttl}.
+ * </p>
+ */
+@Service
+public class OrderPipeline {
+
+    /**
+     * Logger for logging messages related to OrderPipeline class.
+     * This logger is used to log various messages, such as debug, info, error, etc.,
+     * related to the operations performed within the OrderPipeline class.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(OrderPipeline.class);
+
+    /**
+     * How long a stopping stage may take to finish the orders already queued.
+     */
+    private static final long STOP_TIMEOUT_MILLIS = 30_000;
+
+    /**
+     * How long an idle stage waits for an order before checking whether it is stopped.
+     */
+    private static final long POLL_MILLIS = 100;
+
+    /**
+     * The message of the orders whose batch failed.
+     */
+    private static final String FAILURE_MESSAGE = "Order could not be processed : send it again";
+
+    /**
+     * The number of orders each stage can hold.
+     */
+    @Value("${orders.pipeline.capacity:4096}")
+    private int capacity;
+
+    /**
+     * The largest number of orders a stage processes at once.
+     */
+    @Value("${orders.pipeline.batch-size:256}")
+    private int batchSize;
+
+    /**
+     * How long the ticket of a finished order can still be polled.
+     */
+    @Value("${orders.pipeline.ticket-ttl:PT15M}")
+    private Duration ticketTtl;
+
+    /**
+     * Validates, prices and reserves the stock of the orders of each batch.
+     */
+    @Autowired
+    private OrderPreparation orderPreparation;
+
+    /**
+     * Repository for saving the placed orders.
+     */
+    @Autowired
+    private OrderRepository orderRepository;
+
+    /**
+     * Repository for saving the backorders.
+     */
+    @Autowired
+    private BackorderRepository backorderRepository;
+
+    /**
+     * Engine queuing the saved backorders until their product is back in stock.
+     */
+    @Autowired
+    private BackorderFulfillmentEngine backorderFulfillmentEngine;
+
+    /**
+     * Service keeping the sales rollups in step with the orders.
+     */
+    @Autowired
+    private SalesRollupService salesRollupService;
+
+    /**
+     * Runs the persistence of each batch in its own transaction.
+     */
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    /**
+     * Registry the pipeline metrics are published to.
+     */
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * The tickets of the queued and recently finished orders, by id.
+     */
+    private final Map<String, OrderTicket> tickets = new ConcurrentHashMap<>();
+
+    /**
+     * The time from acceptance to outcome, by outcome.
+     */
+    private final Map<OrderTicket.Status, Timer> latencies = new EnumMap<>(OrderTicket.Status.class);
+
+    /**
+     * Orders refused because the pipeline was full.
+     */
+    private Counter refused;
+
+    /**
+     * The first stage, receiving the accepted orders.
+     */
+    private Stage validation;
+
+    /**
+     * The second stage.
+     */
+    private Stage pricing;
+
+    /**
+     * The last stage.
+     */
+    private Stage persistence;
+
+    /**
+     * Whether new orders are accepted (false while the application stops).
+     */
+    private volatile boolean accepting;
+
+    /**
+     * Registers the metrics and starts the stages, last stage first.
+     */
+    @PostConstruct
+    public void start() {
+        for (OrderTicket.Status status : OrderTicket.Status.values()) {
+            latencies.put(status, Timer.builder("orders.pipeline.latency")
+                    .description("Time from the acceptance of an order to its outcome")
+                    .tag("status", status.name())
+                    .register(meterRegistry));
+        }
+        refused = Counter.builder("orders.pipeline.refused")
+                .description("Orders refused with 503 because the pipeline was full")
+                .register(meterRegistry);
+        persistence = new Stage("persistence", this::persist, null);
+        pricing = new Stage("pricing", orderPreparation::price, persistence);
+        validation = new Stage("validation", orderPreparation::validate, pricing);
+        persistence.thread.start();
+        pricing.thread.start();
+        validation.thread.start();
+        accepting = true;
+        LOGGER.info("Order pipeline started : {} orders per stage, batches of up to {}", capacity, batchSize);
+    }
+
+    /**
+     * Stops accepting orders, and lets each stage finish the orders already queued before stopping the next one.
+     * @throws InterruptedException If interrupted while waiting for a stage.
+     */
+    @PreDestroy
+    public void close() throws InterruptedException {
+        accepting = false;
+        validation.stop();
+        pricing.stop();
+        persistence.stop();
+        LOGGER.info("Order pipeline stopped");
+    }
+
+    /**
+     * Queues an order.
+     * @param orderRequestBody The order.
+     * @return The ticket of the order, QUEUED.
+     * @throws CustomException With 503 if the pipeline is full or stopping.
+     */
+    public OrderTicket submit(final OrderRequestBody orderRequestBody) {
+        Job job = new Job(UUID.randomUUID().toString(), orderRequestBody);
+        OrderTicket ticket = new OrderTicket(job.id, OrderTicket.Status.QUEUED, null, null, null, null, job.acceptedAt, null);
+        tickets.put(job.id, ticket);
+        if (!accepting || !validation.queue.offer(job)) {
+            tickets.remove(job.id);
+            refused.increment();
+            LOGGER.error("Order pipeline is full, order refused");
+            throw new CustomException("Order pipeline is full : retry later", null, HttpStatus.SERVICE_UNAVAILABLE);
+        }
+        LOGGER.info("Order queued with ticket : {}", job.id);
+        return ticket;
+    }
+
+    /**
+     * Retrieves the ticket of an order.
+     * @param id The ID of the ticket.
+     * @return The current state of the order.
+     * @throws CustomException With 404 if the ticket does not exist or has expired.
+     */
+    public OrderTicket getTicket(final String id) {
+        OrderTicket ticket = tickets.get(id);
+        if (ticket == null) {
+            LOGGER.error("Ticket not found with Id : {}", id);
+            throw new CustomException("Ticket not found with Id : " + id, null, HttpStatus.NOT_FOUND);
+        }
+        return ticket;
+    }
+
+    /**
+     * Drops the tickets of the orders finished more than {@code orders.pipeline.ticket-ttl} ago.
+     */
+    @Scheduled(fixedDelayString = "${orders.pipeline.purge-interval:PT1M}")
+    public void purgeTickets() {
+        LocalDateTime expired = LocalDateTime.now().minus(ticketTtl);
+        int before = tickets.size();
+        tickets.values().removeIf(ticket -> ticket.getCompletedAt() != null && ticket.getCompletedAt().isBefore(expired));
+        LOGGER.debug("Purged {} order tickets", before - tickets.size());
+    }
+
+    /**
+     * Last stage : reserves the stock and saves the orders and the backorders of the batch, in one transaction.
+     * @param batch The priced orders of the batch.
+     */
+    private void persist(final List<Job> batch) {
+        transactionTemplate.executeWithoutResult(transactionStatus -> {
+            orderPreparation.reserve(batch);
+            List<Order> orders = new ArrayList<>();
+            List<Backorder> backorders = new ArrayList<>();
+            for (Job job : batch) {
+                if (job.getOutcome() == PendingOrder.Outcome.PLACED) {
+                    job.order = new Order();
+                    job.order.setProduct(job.getProduct());
+                    job.order.setCustomer(job.getCustomer());
+                    job.order.setDiscount(job.getDiscount());
+                    job.order.setQuantity(job.getBody().getQuantity());
+                    job.order.setTimestamp(job.acceptedAt);
+                    job.order.setAmountMinor(job.getAmount());
+                    orders.add(job.order);
+                } else if (job.getOutcome() == PendingOrder.Outcome.BACKORDERED) {
+                    job.backorder = new Backorder();
+                    job.backorder.setProduct(job.getProduct());
+                    job.backorder.setCustomer(job.getCustomer());
+                    job.backorder.setQuantity(job.getBody().getQuantity());
+                    job.backorder.setTimestamp(job.acceptedAt);
+                    backorders.add(job.backorder);
+                }
+            }
+            orderRepository.saveAll(orders);
+            salesRollupService.addOrders(orders);
+            backorderRepository.saveAll(backorders);
+            backorderFulfillmentEngine.backordersSaved(backorders);
+        });
+    }
+
+    /**
+     * Publishes the outcome of an order on its ticket.
+     * @param job The finished order.
+     */
+    private void complete(final Job job) {
+        OrderTicket.Status status = job.failed || job.getOutcome() == null
+                ? OrderTicket.Status.FAILED : OrderTicket.Status.valueOf(job.getOutcome().name());
+        tickets.put(job.id, new OrderTicket(job.id, status,
+                job.order == null ? null : job.order.getId(),
+                job.backorder == null ? null : job.backorder.getId(),
+                status == OrderTicket.Status.PLACED ? Money.toDecimal(job.getAmount()) : null,
+                job.failed ? FAILURE_MESSAGE : job.getMessage(), job.acceptedAt, LocalDateTime.now()));
+        latencies.get(status).record(System.nanoTime() - job.acceptedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * One stage of the pipeline : a bounded queue and the single thread processing it.
+     */
+    private final class Stage implements Runnable {
+
+        /**
+         * The name of the stage, used in the metrics and the thread name.
+         */
+        private final String name;
+
+        /**
+         * The orders waiting for this stage.
+         */
+        private final BlockingQueue<Job> queue;
+
+        /**
+         * What the stage does with a batch.
+         */
+        private final Consumer<List<Job>> work;
+
+        /**
+         * The stage receiving the orders still undecided after this one, null for the last stage.
+         */
+        private final Stage next;
+
+        /**
+         * The time spent on each batch.
+         */
+        private final Timer timer;
+
+        /**
+         * The number of orders of each batch.
+         */
+        private final DistributionSummary batchSizes;
+
+        /**
+         * The thread of the stage.
+         */
+        private final Thread thread;
+
+        /**
+         * Set when the stage must stop once its queue is empty.
+         */
+        private volatile boolean stopped;
+
+        /**
+         * Creates a stage and its metrics; the thread is not started.
+         * @param stageName The name of the stage.
+         * @param stageWork What the stage does with a batch.
+         * @param nextStage The next stage, null for the last one.
+         */
+        Stage(final String stageName, final Consumer<List<Job>> stageWork, final Stage nextStage) {
+            this.name = stageName;
+            this.queue = new ArrayBlockingQueue<>(capacity);
+            this.work = stageWork;
+            this.next = nextStage;
+            Gauge.builder("orders.pipeline.queue.depth", queue, Collection::size)
+                    .description("Orders waiting for the stage")
+                    .tag("stage", name)
+                    .register(meterRegistry);
+            this.timer = Timer.builder("orders.pipeline.stage.latency")
+                    .description("Time spent by the stage on a batch")
+                    .tag("stage", name)
+                    .register(meterRegistry);
+            this.batchSizes = DistributionSummary.builder("orders.pipeline.batch.size")
+                    .description("Orders processed by the stage at once")
+                    .tag("stage", name)
+                    .register(meterRegistry);
+            this.thread = new Thread(this, "order-pipeline-" + name);
+            this.thread.setDaemon(true);
+        }
+
+        /**
+         * Processes batches until the stage is stopped and its queue is empty.
+         */
+        @Override
+        public void run() {
+            List<Job> batch = new ArrayList<>(batchSize);
+            try {
+                while (!stopped || !queue.isEmpty()) {
+                    Job first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - 1);
+                    process(batch);
+                    batch.clear();
+                }
+            } catch (InterruptedException e) {
+                LOGGER.error("Order pipeline stage {} interrupted with {} orders queued", name, queue.size());
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        /**
+         * Processes one batch, then hands the undecided orders to the next stage and publishes the others.
+         * @param batch The orders of the batch.
+         * @throws InterruptedException If interrupted while the next stage is full.
+         */
+        private void process(final List<Job> batch) throws InterruptedException {
+            long start = System.nanoTime();
+            try {
+                work.accept(batch);
+            } catch (RuntimeException e) {
+                LOGGER.error("Order pipeline stage {} failed on a batch of {} orders", name, batch.size(), e);
+                batch.forEach(Job::fail);
+            }
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            batchSizes.record(batch.size());
+            for (Job job : batch) {
+                if (next == null || job.failed || job.getOutcome() != null) {
+                    complete(job);
+                } else {
+                    next.queue.put(job);
+                }
+            }
+        }
+
+        /**
+         * Stops the stage once the orders already queued are processed.
+         * @throws InterruptedException If interrupted while waiting.
+         */
+        void stop() throws InterruptedException {
+            stopped = true;
+            thread.join(STOP_TIMEOUT_MILLIS);
+        }
+    }
+
+    /**
+     * One order while it goes through the pipeline. Each field is written by one stage only,
+     * and the queues between the stages publish the writes to the next one.
+     */
+    private static final class Job extends PendingOrder {
+
+        /**
+         * The id of the ticket.
+         */
+        private final String id;
+
+        /**
+         * When the order was accepted, used as the order timestamp.
+         */
+        private final LocalDateTime acceptedAt = LocalDateTime.now();
+
+        /**
+         * When the order was accepted, for the latency metric.
+         */
+        private final long acceptedNanos = System.nanoTime();
+
+        /**
+         * Set when the stage processing the order failed.
+         */
+        private boolean failed;
+
+        /**
+         * The saved order, when placed.
+         */
+        private Order order;
+
+        /**
+         * The saved backorder, when backordered.
+         */
+        private Backorder backorder;
+
+        /**
+         * Creates an accepted order.
+         * @param ticketId The id of its ticket.
+         * @param orderRequestBody The order as received.
+         */
+        Job(final String ticketId, final OrderRequestBody orderRequestBody) {
+            super(orderRequestBody);
+            this.id = ticketId;
+        }
+
+        /**
+         * Marks the order as failed : nothing of it is saved.
+         */
+        void fail() {
+            failed = true;
+            order = null;
+            backorder = null;
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package com.himanshu.departmentalStore.service;
+
+import com.himanshu.departmentalStore.dto.OrderRequestBody;
+import com.himanshu.departmentalStore.exception.CustomException;
+import com.himanshu.departmentalStore.model.Customer;
+import com.himanshu.departmentalStore.model.Discount;
+import com.himanshu.departmentalStore.model.Product;
+import com.himanshu.departmentalStore.repository.CustomerRepository;
+import com.himanshu.departmentalStore.repository.DiscountRepository;
+import com.himanshu.departmentalStore.repository.ProductRepository;
+import com.himanshu.departmentalStore.util.Money;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * The rules every way of placing orders goes through : one order at a time ({@link OrderService}),
+ * a batch file ({@link OrderBatchService}) or the asynchronous pipeline ({@link OrderPipeline}).
+ *
+ * <p>
+ * An order is valid if its quantity is positive and its product, customer and discount exist.
+ * It is backordered if it does not fit in the stock of its product; otherwise it is rejected if its discount
+ * can not be applied, and placed at its price after discount.
+ * The bulk paths load the entities of many orders with one IN query per entity type, and reserve the stock of
+ * all the orders of a product with a single guarded update, products in id order so that concurrent batches lock
+ * product rows in the same order.
+ * </p>
+ */
+@Service
+public class OrderPreparation {
+
+    /**
+     * Logger for logging messages related to OrderPreparation class.
+     * This logger is used to log various messages, such as debug, info, error, etc.,
+     * related to the operations performed within the OrderPreparation class.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(OrderPreparation.class);
+
+    /**
+     * Why an order with a quantity of zero or less is rejected.
+     */
+    public static final String QUANTITY_NOT_POSITIVE = "Quantity must be positive";
+
+    /**
+     * Why an order whose amount is below the minimum price of its discount is rejected.
+     */
+    public static final String DISCOUNT_NOT_APPLICABLE = "This Discount can not be applied : amount is less than minimum price";
+
+    /**
+     * This repository is used for database operations related to Product entities.
+     */
+    @Autowired
+    private ProductRepository productRepository;
+
+    /**
+     * This repository is used for database operations related to Customer entities.
+     */
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    /**
+     * This repository is used for database operations related to Discount entities.
+     */
+    @Autowired
+    private DiscountRepository discountRepository;
+
+    /**
+     * Resolves the coupon codes given instead of a discount ID.
+     */
+    @Autowired
+    private DiscountService discountService;
+
+    /**
+     * Service reserving the stock of the products.
+     */
+    @Autowired
+    private InventoryService inventoryService;
+
+    /**
+     * Checks the quantity of a single order.
+     * @param quantity The ordered quantity.
+     * @throws CustomException With 400 if the quantity is not positive.
+     */
+    public void checkQuantity(final int quantity) {
+        if (quantity <= 0) {
+            LOGGER.error(QUANTITY_NOT_POSITIVE);
+            throw new CustomException(QUANTITY_NOT_POSITIVE, null, HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    /**
+     * Resolves the coupon codes, loads the products, customers and discounts of the orders with one query
+     * per entity type, and rejects the orders with an invalid quantity or referencing missing entities.
+     * Orders already decided are left untouched.
+     * @param orders The orders.
+     */
+    public void validate(final List<? extends PendingOrder> orders) {
+        for (PendingOrder order : orders) {
+            if (order.getOutcome() == null && order.getBody().getCouponCode() != null) {
+                String reason = discountService.applyCouponCode(order.getBody());
+                if (reason != null) {
+                    order.reject(reason);
+                }
+            }
+        }
+        List<PendingOrder> pending = undecided(orders);
+        Map<Long, Product> products = byId(productRepository.findAllById(ids(pending, OrderRequestBody::getProductId)), Product::getId);
+        Map<Long, Customer> customers = byId(customerRepository.findAllById(ids(pending, OrderRequestBody::getCustomerId)), Customer::getId);
+        Map<Long, Discount> discounts = byId(discountRepository.findAllById(ids(pending, OrderRequestBody::getDiscountId)), Discount::getId);
+        for (PendingOrder order : pending) {
+            OrderRequestBody body = order.getBody();
+            if (body.getQuantity() <= 0) {
+                order.reject(QUANTITY_NOT_POSITIVE);
+            } else if (body.getProductId() == null || !products.containsKey(body.getProductId())) {
+                order.reject("Product not found with Id : " + body.getProductId());
+            } else if (body.getCustomerId() == null || !customers.containsKey(body.getCustomerId())) {
+                order.reject("Customer not found with Id : " + body.getCustomerId());
+            } else if (body.getDiscountId() != null && !discounts.containsKey(body.getDiscountId())) {
+                order.reject("Discount not found with Id : " + body.getDiscountId());
+            } else {
+                order.resolve(products.get(body.getProductId()), customers.get(body.getCustomerId()),
+                        body.getDiscountId() == null ? null : discounts.get(body.getDiscountId()));
+            }
+        }
+    }
+
+    /**
+     * Calculates the amount of the validated orders which are not decided yet.
+     * @param orders The orders.
+     */
+    public void price(final List<? extends PendingOrder> orders) {
+        for (PendingOrder order : undecided(orders)) {
+            order.price(price(order.getProduct(), order.getBody().getQuantity(), order.getDiscount()));
+        }
+    }
+
+    /**
+     * Calculates the amount of an order, in cents (see {@link Money}).
+     * @param product The product ordered.
+     * @param quantity The ordered quantity.
+     * @param discount The discount of the order, or null.
+     * @return The amount after discount, or null if the discount can not be applied (amount less than its minimum price).
+     */
+    public Long price(final Product product, final int quantity, final Discount discount) {
+        long totalPrice = Money.lineTotal(product.getPriceMinor(), quantity);
+        if (discount == null) {
+            return totalPrice;
+        } else if (discount.getMinPriceMinor() != null && discount.getMinPriceMinor() <= totalPrice) {
+            return Money.percentOff(totalPrice, discount.getValueBasisPoints());
+        }
+        return null;
+    }
+
+    /**
+     * Checks whether a product is available with enough stock for a quantity.
+     * The count of the product may lag behind the stock (catalog, second-level cache) : a count too low is checked
+     * again against the stock.
+     * @param product The product.
+     * @param quantity The quantity needed.
+     * @return true if the quantity fits in the stock.
+     */
+    public boolean fits(final Product product, final int quantity) {
+        return available(product, quantity) >= quantity;
+    }
+
+    /**
+     * Decides the priced orders which are not decided yet : for each product, in id order, the orders which fit
+     * in the stock (in arrival order) are placed, or rejected if their discount can not be applied, and their stock
+     * is reserved with a single guarded update. If another order took the stock in the meantime, falls back to one
+     * guarded update per order. The orders which do not fit are backordered.
+     * @param orders The priced orders.
+     */
+    public void reserve(final List<? extends PendingOrder> orders) {
+        Map<Long, List<PendingOrder>> ordersByProduct = new TreeMap<>();
+        undecided(orders).forEach(order ->
+                ordersByProduct.computeIfAbsent(order.getProduct().getId(), id -> new ArrayList<>()).add(order));
+        ordersByProduct.values().forEach(this::reserveStock);
+    }
+
+    /**
+     * Reserves the stock of the orders of one product.
+     * @param orders The orders of the product, in arrival order.
+     */
+    private void reserveStock(final List<PendingOrder> orders) {
+        Product product = orders.get(0).getProduct();
+        long needed = orders.stream().mapToLong(order -> order.getBody().getQuantity()).sum();
+        int remaining = available(product, needed);
+        int reserved = 0;
+        List<PendingOrder> placed = new ArrayList<>();
+        for (PendingOrder order : orders) {
+            int quantity = order.getBody().getQuantity();
+            if (quantity > remaining) {
+                order.decide(PendingOrder.Outcome.BACKORDERED);
+            } else if (order.getAmount() == null) {
+                order.reject(DISCOUNT_NOT_APPLICABLE);
+            } else {
+                order.decide(PendingOrder.Outcome.PLACED);
+                remaining -= quantity;
+                reserved += quantity;
+                placed.add(order);
+            }
+        }
+        if (reserved > 0 && !inventoryService.reserve(product.getId(), reserved)) {
+            LOGGER.info("Stock of product {} changed meanwhile, reserving order by order", product.getId());
+            for (PendingOrder order : placed) {
+                if (!inventoryService.reserve(product.getId(), order.getBody().getQuantity())) {
+                    order.decide(PendingOrder.Outcome.BACKORDERED);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the stock of a product, from its count and, when that is too low, from the stock itself.
+     * @param product The product.
+     * @param needed The quantity needed.
+     * @return The quantity in stock, 0 if the product is not available.
+     */
+    private int available(final Product product, final long needed) {
+        if (!product.isAvailability()) {
+            return 0;
+        }
+        int count = inventoryService.count(product);
+        return count >= needed ? count : Math.max(count, inventoryService.currentCount(product.getId()));
+    }
+
+    /**
+     * Filters the orders which are not decided yet.
+     * @param orders The orders.
+     * @return The undecided orders.
+     */
+    private List<PendingOrder> undecided(final List<? extends PendingOrder> orders) {
+        return orders.stream().filter(order -> order.getOutcome() == null).collect(Collectors.toList());
+    }
+
+    /**
+     * Collects the distinct non null ids of the orders.
+     * @param orders The orders.
+     * @param idGetter Reads the id from an order.
+     * @return The distinct ids.
+     */
+    private Set<Long> ids(final List<PendingOrder> orders, final Function<OrderRequestBody, Long> idGetter) {
+        return orders.stream()
+                .map(order -> idGetter.apply(order.getBody()))
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * Indexes entities by their id.
+     * @param entities The entities.
+     * @param idGetter Reads the id of an entity.
+     * @param <T> The entity type.
+     * @return The entities by id.
+     */
+    private <T> Map<Long, T> byId(final List<T> entities, final Function<T, Long> idGetter) {
+        return entities.stream().collect(Collectors.toMap(idGetter, Function.identity()));
+    }
+}
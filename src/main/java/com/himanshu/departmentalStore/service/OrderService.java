@@ -1,6 +1,5 @@
 package com.himanshu.departmentalStore.service;
 
-import com.himanshu.departmentalStore.dto.OrderRequestBody;
 import com.himanshu.departmentalStore.exception.CustomException;
 import com.himanshu.departmentalStore.exception.ResourceNotFoundException;
 import com.himanshu.departmentalStore.model.Order;
@@ -9,15 +8,17 @@ import com.himanshu.departmentalStore.model.Backorder;
 import com.himanshu.departmentalStore.model.Discount;
 import com.himanshu.departmentalStore.model.Customer;
 import com.himanshu.departmentalStore.repository.CustomerRepository;
-import com.himanshu.departmentalStore.repository.DiscountRepository;
 import com.himanshu.departmentalStore.repository.OrderRepository;
-import com.himanshu.departmentalStore.repository.ProductRepository;
+import com.himanshu.departmentalStore.dto.CursorPage;
+import com.himanshu.departmentalStore.dto.OrderHistoryPage;
+import com.himanshu.departmentalStore.dto.OrderSummary;
+import com.himanshu.departmentalStore.util.Pagination;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
-import java.math.BigDecimal;
+import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -41,12 +42,28 @@ public class OrderService {
      */
     private static final String ORDERCONSTANT = "Order";
 
+    /**
+     * Lower bound of the history when no start date is given (the smallest MySQL DATETIME).
+     */
+    private static final LocalDateTime HISTORY_START = LocalDateTime.of(1000, 1, 1, 0, 0);
+
+    /**
+     * Upper bound of the history when no end date is given (the largest MySQL DATETIME).
+     */
+    private static final LocalDateTime HISTORY_END = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+
     /**
      * Repository for accessing order data.
      */
     @Autowired
     private OrderRepository orderRepository;
 
+    /**
+     * Page size rules of the collection endpoints.
+     */
+    @Autowired
+    private Pagination pagination;
+
     /**
      * Service for managing products.
      */
@@ -58,6 +75,11 @@ public class OrderService {
      */
     @Autowired
     private BackorderService backorderService;
+    /**
+     * Engine turning the backorders into orders once the stock is back.
+     */
+    @Autowired
+    private BackorderFulfillmentEngine backorderFulfillmentEngine;
 
     /**
      * Service for managing discount service.
@@ -65,31 +87,75 @@ public class OrderService {
     @Autowired
     private  DiscountService discountService;
     /**
-     * This repository is used for database operations related to Product entities.
+     * This repository is used for database operations related to Customer entities.
+     */
+    @Autowired
+    private CustomerRepository customerRepository;
+    /**
+     * Service reserving and releasing the stock of the products.
      */
     @Autowired
-    private ProductRepository productRepository;
+    private InventoryService inventoryService;
     /**
-     * This repository is used for database operations related to Customer entities.
+     * Service keeping the sales rollups in step with the orders.
      */
     @Autowired
-    private CustomerRepository customerRepository;
+    private SalesRollupService salesRollupService;
     /**
-     * This repository is used for database operations related to Discount entities.
+     * The validation, pricing and stock rules shared with the bulk ways of placing orders.
      */
     @Autowired
-    private DiscountRepository discountRepository;
+    private OrderPreparation orderPreparation;
 
     /**
-     * Retrieves all orders from the database.
-     * @return A list of all orders.
+     * Retrieves a page of orders, in id order.
+     * @param after The id of the last order of the previous page, or null for the first page.
+     * @param limit The page size, or null for the default one.
+     * @param customerId Only the orders of this customer, if not null.
+     * @param productId Only the orders of this product, if not null.
+     * @return The page of orders, with the cursor of the next page.
      */
-    public List<Order> getAllOrders() {
-        LOGGER.info("Fetching all orders");
-        List<Order> orders = orderRepository.findAll();
+    public CursorPage<Order> getAllOrders(final Long after, final Integer limit, final Long customerId, final Long productId) {
+        LOGGER.info("Fetching orders after Id : {}", after);
+        int pageSize = pagination.pageSize(limit);
+        List<Order> orders = orderRepository
+                .findPage(pagination.cursor(after), customerId, productId, pagination.rowsToRead(pageSize));
         LOGGER.info("Order Fetched");
-        return orders;
+        return CursorPage.of(orders, pageSize, Order::getId);
+    }
+    /**
+     * Retrieves a page of the order history of a customer, newest orders first.
+     * @param customerId The ID of the customer.
+     * @param from Only the orders placed at or after this time, if not null.
+     * @param to Only the orders placed before this time, if not null.
+     * @param cursor The nextCursor of the previous page, or null for the first page.
+     * @param limit The page size, or null for the default one.
+     * @return The page of order summaries, with the cursor of the next page.
+     * @throws CustomException If the date range is empty or the cursor is malformed.
+     * @throws ResourceNotFoundException If the customer does not exist.
+     */
+    public OrderHistoryPage getCustomerOrders(final Long customerId, final LocalDateTime from, final LocalDateTime to,
+                                              final String cursor, final Integer limit) {
+        LOGGER.info("Fetching orders of customer Id : {}", customerId);
+        int pageSize = pagination.pageSize(limit);
+        LocalDateTime start = from == null ? HISTORY_START : from;
+        LocalDateTime end = to == null ? HISTORY_END : to;
+        if (!start.isBefore(end)) {
+            throw new CustomException("from must be before to", null, HttpStatus.BAD_REQUEST);
+        }
+        LocalDateTime beforeTimestamp = cursor == null ? end : OrderHistoryPage.cursorTimestamp(cursor);
+        long beforeId = cursor == null ? Long.MAX_VALUE : OrderHistoryPage.cursorId(cursor);
+        List<OrderSummary> orders = orderRepository.findHistory(customerId, start, end, beforeTimestamp, beforeId,
+                pagination.rowsToRead(pageSize));
+        // the customer is only looked up when there is nothing to show, to tell an unknown customer from an empty history
+        if (orders.isEmpty() && !customerRepository.existsById(customerId)) {
+            LOGGER.error("Customer not found with Id : {}", customerId);
+            throw new ResourceNotFoundException("Customer", "Id", customerId);
+        }
+        LOGGER.info("Fetched {} orders of customer Id : {}", orders.size(), customerId);
+        return OrderHistoryPage.of(orders, pageSize);
     }
+
     /**
      * Retrieves an order by its ID.
      * @param orderId The ID of the order to retrieve.
@@ -108,36 +174,62 @@ public class OrderService {
      * Creates a new order.
      * Applies any available discount and checks if the product is available.
      * If the product is not available, a backorder is created.
+     *
+     * <p>
+     * The stock is reserved with a single guarded UPDATE (see {@link com.himanshu.departmentalStore.repository.ProductRepository#decrementStock(Long, int)}),
+     * or by the in-memory engine when it is enabled (see {@link InventoryService#reserve(Long, int)}),
+     * so the outcome of the reservation decides between placing the order and creating a backorder.
+     * The product comes from the catalog (see {@link ProductService#getProductById(Long)}) : it is only used for pricing
+     * and as a fast path for clearly unavailable products, and it is never written back.
+     * As its count may lag behind the stock, a count too low for the order is checked again against the stock.
+     * The checks and the pricing are those of the bulk paths (see {@link OrderPreparation}) : an order which does not
+     * fit in the stock is backordered, otherwise it is refused if its discount can not be applied.
+     * </p>
+     *
+     * <p>
+     * The product, the customer and the discount are loaded once, here (the order only carries their ids),
+     * and the same instances are used for the checks, the amount, the backorder and the saved order.
+     * Placing an order therefore costs one SELECT for the customer and the discount (none for a product in the catalog),
+     * the stock UPDATE and the INSERT,
+     * plus the upserts of the sales rollups (see {@link SalesRollupService}).
+     * </p>
      * @param order The order to create.
      * @return The created order.
-     * @throws CustomException If the ordered quantity is more than the quantity left in stock, a backorder is created.
+     * @throws ResourceNotFoundException If the product, the customer or the discount does not exist.
+     * @throws CustomException If the quantity is not positive, or if the ordered quantity is more than the quantity
+     *                         left in stock, a backorder is created.
      */
+    @Transactional(noRollbackFor = CustomException.class)
     public Order createOrder(final Order order) {
         /** Check Product is available or not and it can fulfill the quantity or not*/
          /** if available then place order else place backorder. */
 
         LOGGER.info("Placing order.");
         int orderQuantity = order.getQuantity();
-        Product product = productService.getProductById(order.getProduct().getId());
+        orderPreparation.checkQuantity(orderQuantity);
+        loadReferences(order);
+        Product product = order.getProduct();
         LOGGER.info("Checking isProductAvailable");
-        if (isProductsAvailable(product, orderQuantity)) {
-            /** Apply discount. */
+        if (orderPreparation.fits(product, orderQuantity)) {
+            /** Apply discount, before touching the stock so an invalid discount leaves the product unchanged. */
             LOGGER.info("Calculating total amount");
-            BigDecimal totalOrderAmount = findAmount(order, product);
-            order.setAmount(totalOrderAmount);
+            long totalOrderAmount = findAmount(order, product);
+            order.setAmountMinor(totalOrderAmount);
             LOGGER.info("Amount updated in order");
-            /** update product -> decrease the available quantity of product. */
-            product.setCount(product.getCount() - orderQuantity);
-            productService.updateProduct(product.getId(), product);
+            /** update product -> decrease the available quantity of product, only if it is still in stock. */
             LOGGER.info("Updating product quantity");
-            LOGGER.info("Saving order");
-            return orderRepository.save(order); // Successfully placed order
-        } else {
-            LOGGER.info("Creating Backorder");
-            Backorder backorder = createBackorder(order.getCustomer(), product, orderQuantity, order.getTimestamp());
-            LOGGER.info("Backorder saved with Id : {}", backorder.getId());
-            throw new CustomException("Ordered quantity is more then quantity left in stock : Backorder created", backorder, HttpStatus.ACCEPTED);
+            if (inventoryService.reserve(product.getId(), orderQuantity)) {
+                LOGGER.info("Saving order");
+                Order savedOrder = orderRepository.save(order); // Successfully placed order
+                salesRollupService.addOrder(savedOrder);
+                return savedOrder;
+            }
+            LOGGER.info("Product {} sold out by a concurrent order, backordering", product.getId());
         }
+        LOGGER.info("Creating Backorder");
+        Backorder backorder = createBackorder(order.getCustomer(), product, orderQuantity, order.getTimestamp());
+        LOGGER.info("Backorder saved with Id : {}", backorder.getId());
+        throw new CustomException("Ordered quantity is more then quantity left in stock : Backorder created", backorder, HttpStatus.ACCEPTED);
     }
     /**
      * Creates a backorder for the specified customer, product, order quantity, and timestamp.
@@ -157,46 +249,51 @@ public class OrderService {
         return backorderService.saveBackorder(backorder);
     }
     /**
-     * Calculates the total amount for the given order, considering any applicable discount.
-     * @param order The order for which the total amount is calculated.
-     * @return The total amount after applying any applicable discount.
-     * @throws CustomException Throws exception if amount is less than minimum price
+     * Replaces the product, customer and discount of an order, which only carry an id, by the loaded entities.
+     * @param order The order whose references are loaded.
+     * @throws CustomException If the product or the customer is missing.
+     * @throws ResourceNotFoundException If the product, the customer or the discount does not exist.
      */
-    private BigDecimal findAmount(final Order order, final Product product) {
-        BigDecimal totalPrice = product.getPrice().multiply(BigDecimal.valueOf(order.getQuantity()));
-        if (order.getDiscount() == null) {
-            return totalPrice;
+    private void loadReferences(final Order order) {
+        if (order.getProduct() == null || order.getProduct().getId() == null
+                || order.getCustomer() == null || order.getCustomer().getId() == null) {
+            LOGGER.error("Product or Customer is null");
+            throw new CustomException("Product or Customer is null", null, HttpStatus.BAD_REQUEST);
         }
-        Discount discount = discountService.getDiscountById(order.getDiscount().getId());
-        if (discount == null) {
-            return totalPrice;
-        } else if (discount.getMinPrice() != null
-                && discount.getMinPrice().compareTo(totalPrice) <= 0) {
-            BigDecimal discountAmount = totalPrice.multiply(discount.getValue().divide(BigDecimal.valueOf(100))); // Calculate discount amount
-            totalPrice = totalPrice.subtract(discountAmount); // Subtract discount amount from total price
-            return totalPrice;
+        order.setProduct(productService.getProductById(order.getProduct().getId()));
+        Long customerId = order.getCustomer().getId();
+        order.setCustomer(customerRepository
+                .findById(customerId)
+                .orElseThrow(() -> new ResourceNotFoundException("Customer", "Id", customerId)));
+        order.setDiscount(findDiscount(order));
+    }
+    /**
+     * Loads the discount referenced by an order.
+     * @param order The order.
+     * @return The discount, or null if the order has no discount.
+     * @throws ResourceNotFoundException If the discount does not exist.
+     */
+    private Discount findDiscount(final Order order) {
+        if (order.getDiscount() == null || order.getDiscount().getId() == null) {
+            return null;
         }
-        LOGGER.error("This discount can not be applied.");
-        throw new CustomException("This Discount can not be applied : amount is less than minimum price", discount, HttpStatus.BAD_REQUEST);
-         // else discount not applied
+        return discountService.getDiscountById(order.getDiscount().getId());
     }
-
     /**
-     * Checks if a product is available and has sufficient quantity to fulfill an order.
-     * The order can only be placed when both conditions are met:
-     * - The product's availability status is true.
-     * - The product's quantity is greater than or equal to the order quantity.
-     * @param product The product to be checked for availability.
-     * @param quantity The quantity of the product required for the order.
-     * @return true if the product is available and has sufficient quantity, otherwise return false.
+     * Calculates the total amount for the given order, considering any applicable discount.
+     * The calculation is done in cents (see {@link OrderPreparation#price(Product, int, Discount)}).
+     * @param order The order for which the total amount is calculated, with its discount already loaded.
+     * @param product The product ordered.
+     * @return The total amount after applying any applicable discount, in cents.
+     * @throws CustomException Throws exception if amount is less than minimum price
      */
-    private Boolean isProductsAvailable(final Product product, final int quantity) {
-        if (product.isAvailability() && product.getCount() >= quantity) {
-            LOGGER.info("Product available.");
-            return true;
+    private long findAmount(final Order order, final Product product) {
+        Long amount = orderPreparation.price(product, order.getQuantity(), order.getDiscount());
+        if (amount == null) {
+            LOGGER.error("This discount can not be applied.");
+            throw new CustomException(OrderPreparation.DISCOUNT_NOT_APPLICABLE, order.getDiscount(), HttpStatus.BAD_REQUEST);
         }
-        LOGGER.error("Product not available");
-        return false;
+        return amount;
     }
     /**
      * Updates an existing order by modifying its quantity while ensuring the integrity of related data.
@@ -230,19 +327,27 @@ public class OrderService {
      * now check the backorder which can be fulfilled by the increase in stock of product (quantity) from any related backorders.
      * </p>
      *
+     * <p>
+     * Runs in one transaction, so the saved order references the product, customer and discount already loaded
+     * in it : the returned order can be serialized without an open session.
+     * The sales rollups move the previous order out and the updated one in, in the same transaction.
+     * </p>
+     *
      * @param orderId The ID of the order to update.
      * @param order    The updated order object containing the new quantity.
      * @return The updated order after the modification.
      * @throws ResourceNotFoundException If the order with the given ID does not exist in the database.
      * @throws CustomException           If the provided updated order differs in customer, product, or discount from the
-     *                                   previous order, or if there is no change in the quantity, or if the ordered
-     *                                   quantity exceeds the available stock.
+     *                                   previous order, or if the quantity is not positive or did not change,
+     *                                   or if the ordered quantity exceeds the available stock.
      */
+    @Transactional
     public Order updateOrder(final Long orderId, final Order order) {
         LOGGER.info("Updating order with Id : {}", orderId);
         Order previousOrder = orderRepository
                 .findById(orderId)
                 .orElseThrow(() -> new ResourceNotFoundException(ORDERCONSTANT, "Id", orderId));
+        orderPreparation.checkQuantity(order.getQuantity());
         Product previousProduct = previousOrder.getProduct();
         LOGGER.info("Check if the customer, product, and discount are the same or different");
         if (!previousOrder.getCustomer().getId().equals(order.getCustomer().getId())
@@ -256,20 +361,23 @@ public class OrderService {
                     + ": Customer or Product or Discount is not same "
                     + ": Only Quantity can be updated", null, HttpStatus.BAD_REQUEST);
         }
+        // same product and customer : reuse the instances fetched with the previous order
+        order.setProduct(previousProduct);
+        order.setCustomer(previousOrder.getCustomer());
         int requiredQuantity = previousOrder.getQuantity() - order.getQuantity();
         if (requiredQuantity == 0) {
             LOGGER.error("No change in previous and current quantity : not updated");
             throw new CustomException("No change in previous and current quantity", null, HttpStatus.BAD_REQUEST);
         } else if (requiredQuantity < 0) { //increase in quantity
             LOGGER.info("Product quantity increased : Checking is Product available");
-            if (Boolean.TRUE.equals(isProductsAvailable(previousProduct, -requiredQuantity))) {
-                // here requiredQuantity is negative, hence decreases overall quantity
-                previousProduct.setCount(previousProduct.getCount() + requiredQuantity);
-                productService.updateProduct(previousProduct.getId(), previousProduct);
+            // here requiredQuantity is negative : the extra quantity is reserved with the same guard as a new order
+            if (orderPreparation.fits(previousProduct, -requiredQuantity)
+                    && inventoryService.reserve(previousProduct.getId(), -requiredQuantity)) {
                 order.setId(orderId);
-                order.setAmount(findAmount(order, previousProduct));
+                order.setDiscount(findDiscount(order));
+                order.setAmountMinor(findAmount(order, previousProduct));
                 LOGGER.info("Updated Order, product, orderAmount");
-                return orderRepository.save(order);
+                return replaceOrder(previousOrder, order);
             } else {
                 LOGGER.error("Ordered quantity is more then quantity left in stock : not updated");
                 throw new CustomException("Can't update the order :"
@@ -278,23 +386,40 @@ public class OrderService {
         } else { // requiredQuantity > 0  // decrease in quantity
             LOGGER.info("Product quantity decreased");
             order.setId(orderId);
-            previousProduct.setCount(previousProduct.getCount() + requiredQuantity); // here requiredQuantity is positive
-            productService.updateProduct(previousProduct.getId(), previousProduct); //increase quantity, save
+            int count = inventoryService.release(previousProduct.getId(), requiredQuantity); // here requiredQuantity is positive
             LOGGER.info("Checking backorder which can be fulfilled");
-            backorderService.removeFromBackOrder(previousProduct.getId(), previousProduct.getCount()); //remove from backorder
-            order.setAmount(findAmount(order, previousProduct)); // update amount
+            backorderFulfillmentEngine.fulfill(previousProduct.getId(), count); // place the backorders which fit
+            order.setDiscount(findDiscount(order));
+            order.setAmountMinor(findAmount(order, previousProduct)); // update amount
             LOGGER.info("Updated Order, product, orderAmount");
-            return orderRepository.save(order); //update order
+            return replaceOrder(previousOrder, order); //update order
         }
     }
+    /**
+     * Saves an updated order and moves it in the sales rollups.
+     * The order is written only if it still has the version read, so that a concurrent update of the same order
+     * fails (and rolls back its stock change) instead of applying a quantity change computed from an outdated order.
+     * @param previousOrder The order as it was saved.
+     * @param order The updated order.
+     * @return The saved order.
+     */
+    private Order replaceOrder(final Order previousOrder, final Order order) {
+        salesRollupService.removeOrder(previousOrder);
+        order.setVersion(previousOrder.getVersion());
+        Order savedOrder = orderRepository.save(order);
+        salesRollupService.addOrder(savedOrder);
+        return savedOrder;
+    }
     /**
      * Deletes an order by its ID.
      * Increases product quantity and checks if any backorders can be fulfilled.
-     * If the order is successfully deleted, it updates the product quantity and removes fulfilled backorders.
+     * If the order is successfully deleted, it updates the product quantity and turns the backorders which fit into orders.
+     * Runs in one transaction, with the removal of the order from the sales rollups.
      * @param orderId The ID of the order to delete.
      * @return True if the order is deleted successfully, otherwise false.
      * @throws ResourceNotFoundException If the order with the given ID does not exist.
      */
+    @Transactional
     public Boolean deleteOrder(final Long orderId) {
         LOGGER.info("Deleting order with Id : {}", orderId);
         Order optionalOrder = orderRepository
@@ -302,43 +427,18 @@ public class OrderService {
                 .orElseThrow(() -> new ResourceNotFoundException(ORDERCONSTANT, "Id", orderId));
             /**
              * increase product quantity
-             * then check backorder if it can be fulfilled then send notification and delete that backorder from backorder table.
+             * then place the backorders which fit in the stock, oldest first, and notify their customers.
              * reset discount - optional
              */
             LOGGER.info("Updating product");
-            Product product = optionalOrder.getProduct();
-            Long productId = product.getId();
-            product.setCount(product.getCount() + optionalOrder.getQuantity());
-            Product updatedProduct = productService.updateProduct(productId, product);
+            Long productId = optionalOrder.getProduct().getId();
+            int count = inventoryService.release(productId, optionalOrder.getQuantity());
             LOGGER.info("Product quantity increased in product");
-            /**
-             * Atomic Integer is used because the variable inside lambda expression should be final
-             * Therefor we can not use productQuantity = productQuantity - b.getQuantity(); in lambda expression
-             */
             LOGGER.info("Checking backorder which can be fulfilled");
-            backorderService.removeFromBackOrder(updatedProduct.getId(), updatedProduct.getCount());
+            backorderFulfillmentEngine.fulfill(productId, count);
+            salesRollupService.removeOrder(optionalOrder);
             orderRepository.deleteById(orderId);
             LOGGER.info("Order deleted with Id : {}", orderId);
             return true;
     }
-
-    /**
-     * Check that product, customer and discount exist with requested ID or not.
-     * If all product, customer and discount exist then proceed to create or update order.
-     * Used in OrderController to update and create Order
-     * @param orderRequestBody The request body containing order details
-     */
-    public void checkExistence(final OrderRequestBody orderRequestBody) {
-        productRepository
-                .findById(orderRequestBody.getProductId())
-                .orElseThrow(() -> new ResourceNotFoundException("Product", "Id", orderRequestBody.getProductId()));
-        customerRepository
-                .findById(orderRequestBody.getCustomerId())
-                .orElseThrow(() -> new ResourceNotFoundException("Customer", "Id", orderRequestBody.getCustomerId()));
-        if (orderRequestBody.getDiscountId() != null) {
-            discountRepository
-                    .findById(orderRequestBody.getDiscountId())
-                    .orElseThrow(() -> new ResourceNotFoundException("Discount", "Id", orderRequestBody.getDiscountId()));
-        }
-    }
 }
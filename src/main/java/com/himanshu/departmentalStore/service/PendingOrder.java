@@ -0,0 +1,167 @@
+package com.himanshu.departmentalStore.service;
+
+import com.himanshu.departmentalStore.dto.OrderRequestBody;
+import com.himanshu.departmentalStore.model.Customer;
+import com.himanshu.departmentalStore.model.Discount;
+import com.himanshu.departmentalStore.model.Product;
+
+/**
+ * An order received by one of the bulk paths (see {@link OrderBatchService} and {@link OrderPipeline})
+ * while {@link OrderPreparation} validates it, prices it and reserves its stock.
+ */
+public class PendingOrder {
+
+    /**
+     * What became of an order.
+     */
+    public enum Outcome {
+        /**
+         * The stock is reserved : the order is saved.
+         */
+        PLACED,
+        /**
+         * Not enough stock : a backorder is saved instead.
+         */
+        BACKORDERED,
+        /**
+         * The order is invalid : nothing is saved.
+         */
+        REJECTED
+    }
+
+    /**
+     * The order as received, null if it could not be read.
+     */
+    private final OrderRequestBody body;
+
+    /**
+     * The product, set by the validation.
+     */
+    private Product product;
+
+    /**
+     * The customer, set by the validation.
+     */
+    private Customer customer;
+
+    /**
+     * The discount (or null), set by the validation.
+     */
+    private Discount discount;
+
+    /**
+     * The amount after discount in cents, set by the pricing; null if the discount can not be applied.
+     */
+    private Long amount;
+
+    /**
+     * The outcome, null while it is not decided.
+     */
+    private Outcome outcome;
+
+    /**
+     * The reason of a rejection.
+     */
+    private String message;
+
+    /**
+     * Creates an order as received.
+     * @param orderRequestBody The order, null if it could not be read.
+     */
+    public PendingOrder(final OrderRequestBody orderRequestBody) {
+        this.body = orderRequestBody;
+    }
+
+    /**
+     * Gets the order as received.
+     * @return The order, or null if it could not be read.
+     */
+    public OrderRequestBody getBody() {
+        return body;
+    }
+
+    /**
+     * Gets the ordered product.
+     * @return The product, or null until the order is validated.
+     */
+    public Product getProduct() {
+        return product;
+    }
+
+    /**
+     * Gets the ordering customer.
+     * @return The customer, or null until the order is validated.
+     */
+    public Customer getCustomer() {
+        return customer;
+    }
+
+    /**
+     * Gets the discount of the order.
+     * @return The discount, or null.
+     */
+    public Discount getDiscount() {
+        return discount;
+    }
+
+    /**
+     * Gets the amount of the order.
+     * @return The amount after discount in cents, or null if the discount can not be applied.
+     */
+    public Long getAmount() {
+        return amount;
+    }
+
+    /**
+     * Gets what became of the order.
+     * @return The outcome, or null while it is not decided.
+     */
+    public Outcome getOutcome() {
+        return outcome;
+    }
+
+    /**
+     * Gets the reason of a rejection.
+     * @return The reason, or null.
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * Rejects the order.
+     * @param reason Why the order is rejected.
+     */
+    public void reject(final String reason) {
+        outcome = Outcome.REJECTED;
+        message = reason;
+    }
+
+    /**
+     * Sets the entities referenced by a valid order.
+     * @param orderedProduct The product.
+     * @param orderingCustomer The customer.
+     * @param appliedDiscount The discount, or null.
+     */
+    void resolve(final Product orderedProduct, final Customer orderingCustomer, final Discount appliedDiscount) {
+        this.product = orderedProduct;
+        this.customer = orderingCustomer;
+        this.discount = appliedDiscount;
+    }
+
+    /**
+     * Sets the amount of the order.
+     * @param amountMinor The amount after discount in cents, null if the discount can not be applied.
+     */
+    void price(final Long amountMinor) {
+        this.amount = amountMinor;
+    }
+
+    /**
+     * Decides whether the order is placed or backordered.
+     * @param placedOrBackordered The outcome.
+     */
+    void decide(final Outcome placedOrBackordered) {
+        this.outcome = placedOrBackordered;
+    }
+}
@@ -0,0 +1,184 @@
+package com.himanshu.departmentalStore.service;
+
+import com.himanshu.departmentalStore.model.Product;
+import com.himanshu.departmentalStore.repository.ProductRepository;
+import com.himanshu.departmentalStore.util.ProductCatalog;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Service class holding the in-process product catalog (see {@link ProductCatalog}).
+ *
+ * <p>
+ * The catalog is swapped for a new snapshot on each save, update or delete done through {@link ProductService},
+ * and reloaded every catalog.refresh-interval to pick up the changes made by other instances.
+ * The stock moved by the orders is not copied per order : the products whose stock changed are refreshed together
+ * every catalog.stock-refresh-interval, so the count of a catalog product may lag behind the stock by that long.
+ * </p>
+ */
+@Service
+public class ProductCatalogService {
+
+    /**
+     * Logger for logging messages related to ProductCatalogService class.
+     * This logger is used to log various messages, such as debug, info, error, etc.,
+     * related to the operations performed within the ProductCatalogService class.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(ProductCatalogService.class);
+
+    /**
+     * Repository for managing products in the database.
+     */
+    @Autowired
+    private ProductRepository productRepository;
+
+    /**
+     * The current snapshot, replaced as a whole by each change.
+     */
+    private volatile ProductCatalog catalog = ProductCatalog.EMPTY;
+
+    /**
+     * One change of the catalog at a time, so that no change is lost between reading a snapshot and publishing the next.
+     * Readers never take it.
+     */
+    private final ReentrantLock catalogLock = new ReentrantLock();
+
+    /**
+     * The IDs of the products whose stock changed since the last stock refresh.
+     */
+    private final Set<Long> stockChanged = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Finds a product in the catalog.
+     * @param productId The ID of the product.
+     * @return The product, shared with the other readers, or null if it is not in the catalog.
+     */
+    public Product find(final Long productId) {
+        return catalog.get(productId);
+    }
+
+    /**
+     * Gets the version of the catalog.
+     * @return The version, incremented by each change of the catalog.
+     */
+    public long getVersion() {
+        return catalog.getVersion();
+    }
+
+    /**
+     * Reloads the catalog with all the products.
+     * Runs at startup, then every catalog.refresh-interval.
+     */
+    @Scheduled(fixedDelayString = "${catalog.refresh-interval:PT5M}")
+    public void reload() {
+        catalogLock.lock();
+        try {
+            // cleared before reading, so a stock changed during the read is refreshed again
+            stockChanged.clear();
+            catalog = catalog.reload(productRepository.findAll());
+            LOGGER.info("Product catalog reloaded with {} products, version {}", catalog.size(), catalog.getVersion());
+        } finally {
+            catalogLock.unlock();
+        }
+    }
+
+    /**
+     * Reloads the products whose stock changed since the last refresh.
+     * Runs every catalog.stock-refresh-interval.
+     */
+    @Scheduled(fixedDelayString = "${catalog.stock-refresh-interval:PT1S}")
+    public void refreshStock() {
+        if (stockChanged.isEmpty()) {
+            return;
+        }
+        catalogLock.lock();
+        try {
+            List<Long> productIds = new ArrayList<>();
+            for (Iterator<Long> iterator = stockChanged.iterator(); iterator.hasNext();) {
+                productIds.add(iterator.next());
+                iterator.remove();
+            }
+            if (productIds.isEmpty()) {
+                return;
+            }
+            // a product deleted meanwhile is not found, so it is not put back
+            catalog = catalog.with(productRepository.findAllById(productIds));
+            LOGGER.debug("Stock of {} products refreshed in the catalog", productIds.size());
+        } finally {
+            catalogLock.unlock();
+        }
+    }
+
+    /**
+     * Puts a saved product in the catalog.
+     * Inside a transaction, the product is put once the transaction commits, so a rolled back update is never served.
+     * @param product The product, as saved.
+     */
+    public void productSaved(final Product product) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    put(product);
+                }
+            });
+            return;
+        }
+        put(product);
+    }
+
+    /**
+     * Removes a deleted product from the catalog.
+     * @param productId The ID of the product.
+     */
+    public void productDeleted(final Long productId) {
+        catalogLock.lock();
+        try {
+            catalog = catalog.without(productId);
+        } finally {
+            catalogLock.unlock();
+        }
+    }
+
+    /**
+     * Marks the stock of a product as changed, to be refreshed at the next stock refresh.
+     * Inside a transaction, the product is marked once the transaction ends, so the refresh reads the committed stock.
+     * @param productId The ID of the product.
+     */
+    public void stockChanged(final Long productId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            stockChanged.add(productId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(final int status) {
+                stockChanged.add(productId);
+            }
+        });
+    }
+
+    /**
+     * Publishes a snapshot with a product added or replaced.
+     * @param product The product.
+     */
+    private void put(final Product product) {
+        catalogLock.lock();
+        try {
+            catalog = catalog.with(List.of(product));
+        } finally {
+            catalogLock.unlock();
+        }
+    }
+}
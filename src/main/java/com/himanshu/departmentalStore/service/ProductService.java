@@ -3,10 +3,14 @@ package com.himanshu.departmentalStore.service;
 import com.himanshu.departmentalStore.exception.ResourceNotFoundException;
 import com.himanshu.departmentalStore.model.Product;
 import com.himanshu.departmentalStore.repository.ProductRepository;
+import com.himanshu.departmentalStore.dto.CursorPage;
+import com.himanshu.departmentalStore.util.OptimisticRetry;
+import com.himanshu.departmentalStore.util.Pagination;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 import java.util.List;
 
 /**
@@ -36,34 +40,84 @@ public class ProductService {
     private ProductRepository productRepository;
 
     /**
-     * service for managing Backorder.
+     * Page size rules of the collection endpoints.
      */
     @Autowired
-    private BackorderService backorderService;
+    private Pagination pagination;
 
     /**
-     * Retrieves all products from the database.
-     * @return List of all products
+     * Engine turning the backorders into orders once the stock is back.
      */
-    public List<Product> getAllProducts() {
-        LOGGER.info("Fetching all products from the database");
-        List<Product> products = productRepository.findAll();
+    @Autowired
+    private BackorderFulfillmentEngine backorderFulfillmentEngine;
+
+    /**
+     * Service holding the stock, told about the counts set by hand.
+     */
+    @Autowired
+    private InventoryService inventoryService;
+
+    /**
+     * In-process snapshot of the products, serving the lookups by id.
+     */
+    @Autowired
+    private ProductCatalogService productCatalogService;
+
+    /**
+     * Retry policy of the updates which conflict with a stock change.
+     */
+    @Autowired
+    private OptimisticRetry optimisticRetry;
+
+    /**
+     * Runs each attempt of an update, with the fulfillment of the backorders, in one transaction.
+     */
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    /**
+     * Retrieves a page of products, in id order.
+     * @param after The id of the last product of the previous page, or null for the first page.
+     * @param limit The page size, or null for the default one.
+     * @param availability Only the products with this availability, if not null.
+     * @return The page of products, with the cursor of the next page.
+     */
+    public CursorPage<Product> getAllProducts(final Long after, final Integer limit, final Boolean availability) {
+        LOGGER.info("Fetching products after Id : {}", after);
+        int pageSize = pagination.pageSize(limit);
+        List<Product> products = productRepository
+                .findPage(pagination.cursor(after), availability, pagination.rowsToRead(pageSize));
         LOGGER.info("Fetched {} products", products.size());
-        return products;
+        return CursorPage.of(products, pageSize, Product::getId);
     }
 
     /**
      * Retrieves a product by its ID.
+     * The product is read from the catalog (see {@link ProductCatalogService}) without locking or copying,
+     * or from the database if it is not in the catalog yet.
      * @param id The ID of the product to retrieve
-     * @return The product with the specified ID
+     * @return The product with the specified ID, which must not be modified
      * @throws ResourceNotFoundException if the product with the specified ID does not exist
      */
     public Product getProductById(final Long id) {
-        LOGGER.info("Fetching product with ID {}", id);
-        Product product = productRepository.findById(id)
+        LOGGER.debug("Fetching product with ID {}", id);
+        Product product = productCatalogService.find(id);
+        if (product != null) {
+            return product;
+        }
+        product = productRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException(PRODUCTCONSTANT, "Id", id));
-        LOGGER.info("Fetched product: {}", product);
-        return product;    }
+        LOGGER.info("Fetched product not in the catalog: {}", product);
+        return product;
+    }
+
+    /**
+     * Gets the version of the product catalog, which changes with every product.
+     * @return The version of the catalog.
+     */
+    public long getCatalogVersion() {
+        return productCatalogService.getVersion();
+    }
 
     /**
      * Saves a new product or updates an existing one.
@@ -75,11 +129,19 @@ public class ProductService {
             throw new NullPointerException();
         }
         LOGGER.info("Saving new product: {}", product);
-        return productRepository.save(product);
+        Product savedProduct = productRepository.save(product);
+        inventoryService.productSaved(savedProduct);
+        productCatalogService.productSaved(savedProduct);
+        return savedProduct;
     }
 
     /**
      * Updates an existing product with the specified ID.
+     * A product given with its version is updated only if it still has that version, otherwise the update fails
+     * with status 409. Without a version, the update applies to the current row, read again (see {@link OptimisticRetry})
+     * if an order changed its stock meanwhile.
+     * Each attempt saves the product and fulfills its backorders in one transaction : the restock is not committed
+     * if the fulfillment fails, and a retry starts from the row as committed.
      * @param id      The ID of the product to update
      * @param product The updated product information
      * @return The updated product
@@ -87,29 +149,52 @@ public class ProductService {
      */
     public Product updateProduct(final Long id, final Product product) {
         LOGGER.info("Updating product with ID {}: {}", id, product);
+        if (product != null && product.getVersion() != null) {
+            return transactionTemplate.execute(status -> applyUpdate(id, product, product.getVersion()));
+        }
+        return optimisticRetry.run("product-update",
+                () -> transactionTemplate.execute(status -> applyUpdate(id, product, null)));
+    }
+
+    /**
+     * Writes an updated product over the row read, and fulfills the backorders if its count was increased.
+     * Runs in the transaction of the attempt.
+     * @param id              The ID of the product to update
+     * @param product         The updated product information
+     * @param expectedVersion The version the product must have, or null for the version read
+     * @return The updated product
+     * @throws ResourceNotFoundException if the product with the specified ID does not exist
+     */
+    private Product applyUpdate(final Long id, final Product product, final Long expectedVersion) {
         Product previousProduct = productRepository
                 .findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException(PRODUCTCONSTANT, "Id", id));
         product.setId(id);
-        if (product.getCount() > previousProduct.getCount()) {
-            backorderService.removeFromBackOrder(previousProduct.getId(), product.getCount());
-        }
-        return productRepository.save(product);
+        product.setVersion(expectedVersion != null ? expectedVersion : previousProduct.getVersion());
+        boolean countIncreased = product.getCount() > inventoryService.count(previousProduct);
+        Product savedProduct = productRepository.save(product);
+        inventoryService.productSaved(savedProduct);
+        productCatalogService.productSaved(savedProduct);
         // if product quantity is increased then handel backorder
+        if (countIncreased) {
+            backorderFulfillmentEngine.fulfill(savedProduct.getId(), savedProduct.getCount());
+        }
+        return savedProduct;
     }
 
     /**
-     * Deletes a product with the specified ID.
+     * Deletes a product with the specified ID, with a single DELETE statement.
      * @param id The ID of the product to delete
      * @return true if the product was deleted successfully, false otherwise
      * @throws ResourceNotFoundException ResourceNotFountException if the product with the specified ID does not exist
      */
     public boolean deleteProduct(final Long id) {
         LOGGER.info("Deleting product with ID {}", id);
-        productRepository
-                .findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException(PRODUCTCONSTANT, "Id", id));
-        productRepository.deleteById(id);
+        if (productRepository.deleteOneById(id) == 0) {
+            throw new ResourceNotFoundException(PRODUCTCONSTANT, "Id", id);
+        }
+        inventoryService.productDeleted(id);
+        productCatalogService.productDeleted(id);
         return true;
     }
 }
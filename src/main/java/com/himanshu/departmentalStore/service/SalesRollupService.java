@@ -0,0 +1,478 @@
+package com.himanshu.departmentalStore.service;
+
+import com.himanshu.departmentalStore.dto.BackfillSummary;
+import com.himanshu.departmentalStore.exception.CustomException;
+import com.himanshu.departmentalStore.model.Cart;
+import com.himanshu.departmentalStore.model.DiscountDailySales;
+import com.himanshu.departmentalStore.model.Order;
+import com.himanshu.departmentalStore.model.OrderLine;
+import com.himanshu.departmentalStore.model.ProductDailySales;
+import com.himanshu.departmentalStore.model.ProductHourlySales;
+import com.himanshu.departmentalStore.repository.DiscountDailySalesRepository;
+import com.himanshu.departmentalStore.repository.DiscountRepository;
+import com.himanshu.departmentalStore.repository.ProductDailySalesRepository;
+import com.himanshu.departmentalStore.repository.ProductHourlySalesRepository;
+import com.himanshu.departmentalStore.repository.ProductRepository;
+import com.himanshu.departmentalStore.util.Money;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * Service class maintaining the sales rollups (per product and day, product and hour, discount and day).
+ *
+ * <p>
+ * Every order or cart write applies its delta to the rollups in the same transaction, with one upsert per rollup row,
+ * so the reports read a few pre-aggregated rows instead of scanning customer_order and order_line.
+ * The rollups can also be rebuilt from those tables by {@link #backfill()}, e.g. after the first deployment.
+ * </p>
+ *
+ * <p>
+ * A cart line counts as one order of its product, at the time of its cart, and earns its share of the amount paid
+ * for the cart (see {@link Money#share(long, long, long)}) : the discount of a cart applies to its total, not per line.
+ * A cart with a discount counts as one order of the discount, with the units of all its lines and the amount paid.
+ * </p>
+ */
+@Service
+public class SalesRollupService {
+
+    /**
+     * Logger for logging messages related to SalesRollupService class.
+     * This logger is used to log various messages, such as debug, info, error, etc.,
+     * related to the operations performed within the SalesRollupService class.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(SalesRollupService.class);
+
+    /**
+     * How many times a backfill chunk is tried when it loses a lock conflict with the order writes.
+     */
+    private static final int BACKFILL_ATTEMPTS = 3;
+
+    /**
+     * Half a second, to round timestamps to the second the way MySQL stores them in a DATETIME column.
+     */
+    private static final long HALF_SECOND_NANOS = 500_000_000L;
+
+    /**
+     * The longest range of a daily report, in days.
+     */
+    private static final long MAX_DAILY_RANGE_DAYS = 366;
+
+    /**
+     * The longest range of an hourly report, in days.
+     */
+    private static final long MAX_HOURLY_RANGE_DAYS = 31;
+
+    /**
+     * The number of chunks rebuilt in parallel by the backfill.
+     */
+    @Value("${reports.backfill.threads:4}")
+    private int backfillThreads;
+
+    /**
+     * The number of product (or discount) IDs rebuilt together by one backfill chunk.
+     */
+    @Value("${reports.backfill.chunk-size:100}")
+    private int backfillChunkSize;
+
+    /**
+     * Repository of the sales per product and day.
+     */
+    @Autowired
+    private ProductDailySalesRepository productDailySalesRepository;
+
+    /**
+     * Repository of the sales per product and hour.
+     */
+    @Autowired
+    private ProductHourlySalesRepository productHourlySalesRepository;
+
+    /**
+     * Repository of the sales per discount and day.
+     */
+    @Autowired
+    private DiscountDailySalesRepository discountDailySalesRepository;
+
+    /**
+     * This repository is used for database operations related to Product entities.
+     */
+    @Autowired
+    private ProductRepository productRepository;
+
+    /**
+     * This repository is used for database operations related to Discount entities.
+     */
+    @Autowired
+    private DiscountRepository discountRepository;
+
+    /**
+     * Runs each backfill chunk in its own transaction.
+     */
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    /**
+     * Adds a saved order to the rollups.
+     * @param order The order, with its product, discount, timestamp, quantity and amount.
+     */
+    @Transactional
+    public void addOrder(final Order order) {
+        apply(List.of(order), 1);
+    }
+
+    /**
+     * Adds saved orders to the rollups, with one upsert per rollup row whatever the number of orders.
+     * @param orders The orders.
+     */
+    @Transactional
+    public void addOrders(final Collection<Order> orders) {
+        apply(orders, 1);
+    }
+
+    /**
+     * Removes an order from the rollups, before it is deleted or replaced.
+     * @param order The order, as it was saved.
+     */
+    @Transactional
+    public void removeOrder(final Order order) {
+        apply(List.of(order), -1);
+    }
+
+    /**
+     * Adds a saved cart to the rollups : its lines to the product rollups, the cart to the rollup of its discount.
+     * @param cart The cart, with its timestamp, discount, amount and lines.
+     */
+    @Transactional
+    public void addCart(final Cart cart) {
+        if (cart.getTimestamp() == null) {
+            return;
+        }
+        long gross = 0;
+        int units = 0;
+        for (OrderLine line : cart.getLines()) {
+            gross = Math.addExact(gross, minor(line.getAmountMinor()));
+            units += line.getQuantity();
+        }
+        List<Sale> sales = new ArrayList<>(cart.getLines().size() + 1);
+        for (OrderLine line : cart.getLines()) {
+            long paid = cart.getAmountMinor() == null ? minor(line.getAmountMinor())
+                    : Money.share(cart.getAmountMinor(), minor(line.getAmountMinor()), gross);
+            sales.add(new Sale(line.getProduct().getId(), null, cart.getTimestamp(), line.getQuantity(), Money.toDecimal(paid)));
+        }
+        if (cart.getDiscount() != null) {
+            sales.add(new Sale(null, cart.getDiscount().getId(), cart.getTimestamp(), units, cart.getAmount()));
+        }
+        applySales(sales, 1);
+    }
+
+    /**
+     * Sums the orders per rollup row and applies the totals.
+     * @param orders The orders.
+     * @param sign 1 to add the orders, -1 to remove them.
+     */
+    private void apply(final Collection<Order> orders, final int sign) {
+        List<Sale> sales = new ArrayList<>(orders.size());
+        for (Order order : orders) {
+            if (order.getTimestamp() != null) {
+                sales.add(new Sale(order.getProduct().getId(), order.getDiscount() == null ? null : order.getDiscount().getId(),
+                        order.getTimestamp(), order.getQuantity(), order.getAmount()));
+            }
+        }
+        applySales(sales, sign);
+    }
+
+    /**
+     * Sums the sales per rollup row and applies the totals.
+     * @param sales The sales.
+     * @param sign 1 to add the sales, -1 to remove them.
+     */
+    private void applySales(final Collection<Sale> sales, final int sign) {
+        Map<ProductDailySales.Key, Totals> productDays = new HashMap<>();
+        Map<ProductHourlySales.Key, Totals> productHours = new HashMap<>();
+        Map<DiscountDailySales.Key, Totals> discountDays = new HashMap<>();
+        for (Sale sale : sales) {
+            LocalDateTime timestamp = storedTimestamp(sale.timestamp);
+            if (sale.productId != null) {
+                productDays.computeIfAbsent(new ProductDailySales.Key(sale.productId, timestamp.toLocalDate()), key -> new Totals())
+                        .add(sale, sign);
+                productHours.computeIfAbsent(new ProductHourlySales.Key(sale.productId, timestamp.truncatedTo(ChronoUnit.HOURS)), key -> new Totals())
+                        .add(sale, sign);
+            }
+            if (sale.discountId != null) {
+                discountDays.computeIfAbsent(new DiscountDailySales.Key(sale.discountId, timestamp.toLocalDate()), key -> new Totals())
+                        .add(sale, sign);
+            }
+        }
+        productDays.forEach((key, totals) -> productDailySalesRepository
+                .add(key.getProductId(), key.getDay(), totals.units, totals.revenue, totals.orders));
+        productHours.forEach((key, totals) -> productHourlySalesRepository
+                .add(key.getProductId(), key.getHour(), totals.units, totals.revenue, totals.orders));
+        discountDays.forEach((key, totals) -> discountDailySalesRepository
+                .add(key.getDiscountId(), key.getDay(), totals.units, totals.revenue, totals.orders));
+    }
+
+    /**
+     * Reads an amount which may be missing.
+     * @param amount The amount in cents, or null.
+     * @return The amount, 0 if missing.
+     */
+    private static long minor(final Long amount) {
+        return amount == null ? 0 : amount;
+    }
+
+    /**
+     * Rounds a timestamp to the second, as customer_order.timestamp (a DATETIME) stores it,
+     * so an order is rolled up in the same day and hour by the writes and by the backfill.
+     * @param timestamp The timestamp of the order.
+     * @return The timestamp stored in the database.
+     */
+    static LocalDateTime storedTimestamp(final LocalDateTime timestamp) {
+        return timestamp.plusNanos(HALF_SECOND_NANOS).truncatedTo(ChronoUnit.SECONDS);
+    }
+
+    /**
+     * Retrieves the sales per product and day.
+     * @param from The first day, included.
+     * @param to The last day, included.
+     * @param productId The product to report on, or null for all of them.
+     * @return The totals, by day then product.
+     * @throws CustomException If the range is empty or longer than a year.
+     */
+    public List<ProductDailySales> getProductDailySales(final LocalDate from, final LocalDate to, final Long productId) {
+        checkRange(from.atStartOfDay(), to.plusDays(1).atStartOfDay(), MAX_DAILY_RANGE_DAYS);
+        return productDailySalesRepository.findReport(from, to, productId);
+    }
+
+    /**
+     * Retrieves the sales per product and hour.
+     * @param from The first hour, included.
+     * @param to The end of the range, excluded.
+     * @param productId The product to report on, or null for all of them.
+     * @return The totals, by hour then product.
+     * @throws CustomException If the range is empty or longer than a month.
+     */
+    public List<ProductHourlySales> getProductHourlySales(final LocalDateTime from, final LocalDateTime to, final Long productId) {
+        checkRange(from, to, MAX_HOURLY_RANGE_DAYS);
+        return productHourlySalesRepository.findReport(from.truncatedTo(ChronoUnit.HOURS), to, productId);
+    }
+
+    /**
+     * Retrieves the sales per discount and day.
+     * @param from The first day, included.
+     * @param to The last day, included.
+     * @param discountId The discount to report on, or null for all of them.
+     * @return The totals, by day then discount.
+     * @throws CustomException If the range is empty or longer than a year.
+     */
+    public List<DiscountDailySales> getDiscountDailySales(final LocalDate from, final LocalDate to, final Long discountId) {
+        checkRange(from.atStartOfDay(), to.plusDays(1).atStartOfDay(), MAX_DAILY_RANGE_DAYS);
+        return discountDailySalesRepository.findReport(from, to, discountId);
+    }
+
+    /**
+     * Checks the range of a report : the number of rows read depends on the range, not on the number of orders.
+     * @param from The start of the range, included.
+     * @param to The end of the range, excluded.
+     * @param maxDays The longest range allowed, in days.
+     * @throws CustomException If the range is empty or too long.
+     */
+    private void checkRange(final LocalDateTime from, final LocalDateTime to, final long maxDays) {
+        if (!from.isBefore(to)) {
+            throw new CustomException("from must be before to", null, HttpStatus.BAD_REQUEST);
+        }
+        if (from.plusDays(maxDays).isBefore(to)) {
+            throw new CustomException("The range of the report can not be longer than " + maxDays + " days", null, HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    /**
+     * Rebuilds all the rollups from customer_order, and from the carts and their lines (order_line).
+     *
+     * <p>
+     * The products (and the discounts) are split into ranges of {@code reports.backfill.chunk-size} IDs,
+     * rebuilt in parallel on {@code reports.backfill.threads} threads. Each chunk deletes and recomputes its rows
+     * with two statements per rollup, in its own transaction : the chunks never share a rollup row,
+     * and InnoDB locks keep a chunk consistent with the orders written while it runs.
+     * </p>
+     * @return The summary of the backfill.
+     * @throws CustomException If a chunk can not be rebuilt.
+     */
+    public BackfillSummary backfill() {
+        long start = System.nanoTime();
+        List<Callable<Integer>> chunks = new ArrayList<>();
+        Long maxProductId = productRepository.findMaxId();
+        for (long first = 0; maxProductId != null && first <= maxProductId; first += backfillChunkSize) {
+            long firstId = first;
+            long lastId = first + backfillChunkSize - 1;
+            chunks.add(() -> inTransaction(() -> {
+                productDailySalesRepository.deleteProducts(firstId, lastId);
+                productHourlySalesRepository.deleteProducts(firstId, lastId);
+                return productDailySalesRepository.rebuildProducts(firstId, lastId)
+                        + productHourlySalesRepository.rebuildProducts(firstId, lastId);
+            }));
+        }
+        Long maxDiscountId = discountRepository.findMaxId();
+        for (long first = 0; maxDiscountId != null && first <= maxDiscountId; first += backfillChunkSize) {
+            long firstId = first;
+            long lastId = first + backfillChunkSize - 1;
+            chunks.add(() -> inTransaction(() -> {
+                discountDailySalesRepository.deleteDiscounts(firstId, lastId);
+                return discountDailySalesRepository.rebuildDiscounts(firstId, lastId);
+            }));
+        }
+        BackfillSummary summary = new BackfillSummary();
+        summary.setChunks(chunks.size());
+        summary.setRows(run(chunks));
+        summary.setElapsedMillis((System.nanoTime() - start) / 1_000_000);
+        LOGGER.info("Sales rollups rebuilt : {} chunks, {} rows in {} ms",
+                summary.getChunks(), summary.getRows(), summary.getElapsedMillis());
+        return summary;
+    }
+
+    /**
+     * Runs the chunks on a fixed pool of {@code reports.backfill.threads} threads.
+     * @param chunks The chunks, each returning the number of rows it wrote.
+     * @return The number of rows written by all the chunks.
+     * @throws CustomException If a chunk failed or the backfill was interrupted.
+     */
+    private long run(final List<Callable<Integer>> chunks) {
+        ExecutorService executor = Executors.newFixedThreadPool(backfillThreads);
+        try {
+            long rows = 0;
+            for (Future<Integer> chunk : executor.invokeAll(chunks)) {
+                rows += chunk.get();
+            }
+            return rows;
+        } catch (ExecutionException e) {
+            LOGGER.error("Backfill of the sales rollups failed", e.getCause());
+            throw new CustomException("Backfill of the sales rollups failed : " + e.getCause().getMessage(),
+                    null, HttpStatus.INTERNAL_SERVER_ERROR);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CustomException("Backfill of the sales rollups interrupted", null, HttpStatus.INTERNAL_SERVER_ERROR);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Runs a backfill chunk in its own transaction. The chunk locks rollup rows before the orders it reads,
+     * in the opposite order of the order writes, so it is retried when InnoDB picks it as a deadlock victim.
+     * @param chunk The statements of the chunk, returning the number of rows inserted.
+     * @return The number of rows inserted.
+     */
+    private int inTransaction(final Supplier<Integer> chunk) {
+        for (int attempt = 1;; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> chunk.get());
+            } catch (PessimisticLockingFailureException e) {
+                if (attempt == BACKFILL_ATTEMPTS) {
+                    throw e;
+                }
+                LOGGER.info("Backfill chunk lost a lock conflict, retrying (attempt {})", attempt);
+            }
+        }
+    }
+
+    /**
+     * One sale to roll up : an order, a cart line (without discount) or a cart (without product).
+     */
+    private static final class Sale {
+
+        /**
+         * The ID of the product, null for the discount rollup of a cart.
+         */
+        private final Long productId;
+
+        /**
+         * The ID of the discount, or null.
+         */
+        private final Long discountId;
+
+        /**
+         * The time of the sale.
+         */
+        private final LocalDateTime timestamp;
+
+        /**
+         * The quantity.
+         */
+        private final int quantity;
+
+        /**
+         * The amount paid, or null.
+         */
+        private final BigDecimal amount;
+
+        /**
+         * Creates a sale.
+         * @param product The ID of the product, or null.
+         * @param discount The ID of the discount, or null.
+         * @param time The time of the sale.
+         * @param units The quantity.
+         * @param paid The amount paid, or null.
+         */
+        Sale(final Long product, final Long discount, final LocalDateTime time, final int units, final BigDecimal paid) {
+            this.productId = product;
+            this.discountId = discount;
+            this.timestamp = time;
+            this.quantity = units;
+            this.amount = paid;
+        }
+    }
+
+    /**
+     * The totals of the sales of one rollup row.
+     */
+    private static final class Totals {
+
+        /**
+         * The quantity.
+         */
+        private long units;
+
+        /**
+         * The amount.
+         */
+        private BigDecimal revenue = BigDecimal.ZERO;
+
+        /**
+         * The number of orders.
+         */
+        private long orders;
+
+        /**
+         * Adds (or subtracts) a sale.
+         * @param sale The sale.
+         * @param sign 1 to add the sale, -1 to subtract it.
+         */
+        void add(final Sale sale, final int sign) {
+            units += (long) sign * sale.quantity;
+            if (sale.amount != null) {
+                revenue = revenue.add(sign < 0 ? sale.amount.negate() : sale.amount);
+            }
+            orders += sign;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.himanshu.departmentalStore.util;
+
+import com.himanshu.departmentalStore.model.Discount;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Immutable interval index over the validity windows [startDateTime, endDateTime] of discounts.
+ *
+ * <p>
+ * The start of each window and the instant right after its end are the boundaries of the index.
+ * Between two consecutive boundaries the active discounts do not change, so the list of each segment is built once :
+ * "active at time T" is a binary search of T among the boundaries, and returns that prebuilt list without copying it.
+ * </p>
+ *
+ * <p>
+ * An index is built from the discounts which had not ended at {@link #getBuiltFrom()},
+ * so it only answers for that time and later ; see {@link #covers(LocalDateTime)}.
+ * </p>
+ */
+public final class ActiveDiscountIndex {
+
+    /**
+     * The discounts which had ended before this time are not in the index.
+     */
+    private final LocalDateTime builtFrom;
+
+    /**
+     * The boundaries of the segments, in ascending order.
+     */
+    private final LocalDateTime[] boundaries;
+
+    /**
+     * The active discounts of each segment, in id order : segments.get(i) applies from boundaries[i] (inclusive)
+     * to boundaries[i + 1] (exclusive).
+     */
+    private final List<List<Discount>> segments;
+
+    /**
+     * The number of discounts in the index.
+     */
+    private final int discountCount;
+
+    /**
+     * Creates an index from its segments.
+     * @param from The time the index was built for.
+     * @param segmentStarts The boundaries of the segments, in ascending order.
+     * @param activeDiscounts The active discounts of each segment.
+     * @param count The number of discounts in the index.
+     */
+    private ActiveDiscountIndex(final LocalDateTime from, final LocalDateTime[] segmentStarts,
+                                final List<List<Discount>> activeDiscounts, final int count) {
+        this.builtFrom = from;
+        this.boundaries = segmentStarts;
+        this.segments = activeDiscounts;
+        this.discountCount = count;
+    }
+
+    /**
+     * Builds the index of discounts.
+     * A discount whose window is empty (start after end) is never active and is left out.
+     * @param discounts The discounts which had not ended at the given time.
+     * @param from The time the index is built for, usually now.
+     * @return The index.
+     */
+    public static ActiveDiscountIndex build(final List<Discount> discounts, final LocalDateTime from) {
+        Map<LocalDateTime, List<Discount>> starting = new TreeMap<>();
+        Map<LocalDateTime, List<Discount>> ending = new TreeMap<>();
+        for (Discount discount : discounts) {
+            if (discount.getStartDateTime().isAfter(discount.getEndDateTime())) {
+                continue;
+            }
+            starting.computeIfAbsent(discount.getStartDateTime(), time -> new ArrayList<>()).add(discount);
+            // the window includes its end : the discount stops one nanosecond later
+            ending.computeIfAbsent(discount.getEndDateTime().plusNanos(1), time -> new ArrayList<>()).add(discount);
+        }
+        TreeSet<LocalDateTime> times = new TreeSet<>(starting.keySet());
+        times.addAll(ending.keySet());
+
+        LocalDateTime[] boundaries = times.toArray(new LocalDateTime[0]);
+        List<List<Discount>> segments = new ArrayList<>(boundaries.length);
+        Map<Long, Discount> active = new TreeMap<>();
+        for (LocalDateTime boundary : boundaries) {
+            ending.getOrDefault(boundary, List.of()).forEach(discount -> active.remove(discount.getId()));
+            starting.getOrDefault(boundary, List.of()).forEach(discount -> active.put(discount.getId(), discount));
+            segments.add(List.copyOf(active.values()));
+        }
+        return new ActiveDiscountIndex(from, boundaries, segments, starting.values().stream().mapToInt(List::size).sum());
+    }
+
+    /**
+     * Checks whether the index can answer for a time.
+     * @param time The time.
+     * @return true if the time is not before the time the index was built for.
+     */
+    public boolean covers(final LocalDateTime time) {
+        return !time.isBefore(builtFrom);
+    }
+
+    /**
+     * Finds the discounts active at a time : start &lt;= time &lt;= end.
+     * @param time The time, covered by the index.
+     * @return The active discounts in id order, as an unmodifiable list shared by all the callers.
+     */
+    public List<Discount> activeAt(final LocalDateTime time) {
+        int index = Arrays.binarySearch(boundaries, time);
+        int segment = index >= 0 ? index : -index - 2;
+        return segment < 0 ? List.of() : segments.get(segment);
+    }
+
+    /**
+     * Finds the first boundary after a time, when a discount starts or ends.
+     * @param time The time.
+     * @return The first boundary strictly after the time, or null if the active discounts never change after it.
+     */
+    public LocalDateTime nextBoundaryAfter(final LocalDateTime time) {
+        int index = Arrays.binarySearch(boundaries, time);
+        int next = index >= 0 ? index + 1 : -index - 1;
+        return next < boundaries.length ? boundaries[next] : null;
+    }
+
+    /**
+     * Gets the time the index was built for.
+     * @return The time : the discounts which had ended before it are not in the index.
+     */
+    public LocalDateTime getBuiltFrom() {
+        return builtFrom;
+    }
+
+    /**
+     * Gets the number of discounts in the index.
+     * @return The number of discounts active now or later.
+     */
+    public int size() {
+        return discountCount;
+    }
+}
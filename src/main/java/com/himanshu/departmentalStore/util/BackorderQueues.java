@@ -0,0 +1,499 @@
+package com.himanshu.departmentalStore.util;
+
+import com.himanshu.departmentalStore.dto.PendingBackorder;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The pending backorders, in one min-heap per product ordered by timestamp then id.
+ *
+ * <p>
+ * The heaps are found from a map keyed by the primitive product id (open addressing, linear probing), and each heap
+ * keeps its backorders in parallel primitive arrays : no object, boxed key or map entry per backorder.
+ * A pending backorder takes 20 bytes (timestamp in microseconds, id, quantity), up to 40 while its heap has just doubled;
+ * a product with backorders about 200 bytes more for its slots, its heap and the first arrays. {@link #footprintBytes()}
+ * gives the estimate for the current content, compressed oops assumed.
+ * </p>
+ *
+ * <p>
+ * Each heap also keeps a lower bound of its smallest quantity, exact after each heap drained by a poll :
+ * a stock below the smallest allocation it allows is answered without popping anything. Not thread-safe : the caller serializes the accesses.
+ * </p>
+ */
+public final class BackorderQueues {
+
+    /**
+     * Capacity of the map when empty, a power of two.
+     */
+    private static final int INITIAL_SLOTS = 16;
+
+    /**
+     * Capacity of the heap of a product when its first backorder is added.
+     */
+    private static final int INITIAL_HEAP_CAPACITY = 4;
+
+    /**
+     * Bytes taken by a backorder in a heap : timestamp, id and quantity.
+     */
+    private static final int BYTES_PER_BACKORDER = Long.BYTES + Long.BYTES + Integer.BYTES;
+
+    /**
+     * Header of an array, compressed oops.
+     */
+    private static final int ARRAY_HEADER_BYTES = 16;
+
+    /**
+     * Header and fields of a heap, compressed oops.
+     */
+    private static final int HEAP_BYTES = 32;
+
+    /**
+     * The product ids of the slots, 0 for an empty slot.
+     */
+    private long[] productIds = new long[INITIAL_SLOTS];
+
+    /**
+     * The heaps of the slots.
+     */
+    private Heap[] heaps = new Heap[INITIAL_SLOTS];
+
+    /**
+     * The number of products with pending backorders.
+     */
+    private int products;
+
+    /**
+     * The number of pending backorders.
+     */
+    private int backorders;
+
+    /**
+     * Adds a pending backorder to the heap of its product.
+     * @param backorder The backorder, with a product id above 0.
+     */
+    public void add(final PendingBackorder backorder) {
+        long productId = backorder.getProductId();
+        int slot = slot(productId);
+        if (productIds[slot] == 0) {
+            if ((products + 1) * 2 > productIds.length) {
+                resize();
+                slot = slot(productId);
+            }
+            productIds[slot] = productId;
+            heaps[slot] = new Heap();
+            products++;
+        }
+        heaps[slot].push(toKey(backorder.getTimestamp()), backorder.getId(), backorder.getQuantity());
+        backorders++;
+    }
+
+    /**
+     * Removes a pending backorder, updated or deleted.
+     * Its product is not known (an update may have changed it) : scans the ids of every heap, a sequential read of
+     * about 8 bytes per pending backorder, until the backorder is found.
+     * @param backorderId The ID of the backorder.
+     * @return Whether the backorder was pending.
+     */
+    public boolean remove(final long backorderId) {
+        for (int slot = 0; slot < productIds.length; slot++) {
+            if (productIds[slot] == 0 || !heaps[slot].remove(backorderId)) {
+                continue;
+            }
+            backorders--;
+            if (heaps[slot].size == 0) {
+                delete(slot);
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Tells whether a product has pending backorders. Does not allocate.
+     * @param productId The ID of the product.
+     * @return True if at least one backorder waits for the product.
+     */
+    public boolean hasPending(final long productId) {
+        return productIds[slot(productId)] != 0;
+    }
+
+    /**
+     * Takes out the backorders of a product which a stock fulfills as a whole, oldest first.
+     * @param productId The ID of the product.
+     * @param stock The stock to allocate.
+     * @return The backorders taken, oldest first, their quantities adding up to at most the stock.
+     */
+    public List<PendingBackorder> poll(final long productId, final int stock) {
+        return poll(productId, stock, 1.0);
+    }
+
+    /**
+     * Takes out the backorders of a product to which a stock is allocated, oldest first.
+     * A backorder is allocated its quantity, or the whole stock left if that is at least minFill of its quantity
+     * (partial fill : the backorder is taken out with its full quantity, its remainder is for the caller to queue again).
+     * A backorder allocated nothing is skipped and stays in the heap, the next ones can still be taken.
+     * @param productId The ID of the product.
+     * @param stock The stock to allocate.
+     * @param minFill The smallest fraction of a backorder a partial fill delivers : 1 for whole backorders only.
+     * @return The backorders taken, oldest first, their allocations adding up to at most the stock.
+     */
+    public List<PendingBackorder> poll(final long productId, final int stock, final double minFill) {
+        int slot = slot(productId);
+        if (productIds[slot] == 0 || stock < fillable(heaps[slot].minQuantity, minFill)) {
+            return List.of();
+        }
+        Heap heap = heaps[slot];
+        Heap skipped = null;
+        List<PendingBackorder> taken = new ArrayList<>();
+        int remaining = stock;
+        while (heap.size > 0 && remaining >= fillable(heap.minQuantity, minFill)) {
+            long key = heap.keys[0];
+            long id = heap.ids[0];
+            int quantity = heap.quantities[0];
+            heap.pop();
+            int allocated = Math.min(quantity, remaining);
+            if (allocated >= fillable(quantity, minFill)) {
+                taken.add(new PendingBackorder(id, productId, toTimestamp(key), quantity, allocated));
+                remaining -= allocated;
+            } else {
+                if (skipped == null) {
+                    skipped = new Heap();
+                }
+                skipped.append(key, id, quantity);
+            }
+        }
+        if (skipped != null) {
+            boolean drained = heap.size == 0;
+            for (int i = 0; i < skipped.size; i++) {
+                heap.push(skipped.keys[i], skipped.ids[i], skipped.quantities[i]);
+            }
+            if (drained) {
+                // every backorder left went through the loop : the bound is their smallest quantity
+                heap.minQuantity = skipped.smallestQuantity();
+            }
+        }
+        backorders -= taken.size();
+        if (heap.size == 0) {
+            delete(slot);
+        }
+        return taken;
+    }
+
+    /**
+     * Gets the number of pending backorders.
+     * @return The number of backorders in all the heaps.
+     */
+    public int size() {
+        return backorders;
+    }
+
+    /**
+     * Gets the number of products with pending backorders.
+     * @return The number of heaps.
+     */
+    public int productCount() {
+        return products;
+    }
+
+    /**
+     * Estimates the memory held by the queues.
+     * @return The bytes of the map, the heaps and their arrays, compressed oops assumed.
+     */
+    public long footprintBytes() {
+        long bytes = 2L * ARRAY_HEADER_BYTES + (long) productIds.length * (Long.BYTES + Integer.BYTES);
+        for (Heap heap : heaps) {
+            if (heap != null) {
+                bytes += HEAP_BYTES + 3L * ARRAY_HEADER_BYTES + (long) heap.ids.length * BYTES_PER_BACKORDER;
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Finds the slot of a product : its slot, or the empty slot where it would go.
+     * @param productId The ID of the product.
+     * @return The index of the slot.
+     */
+    private int slot(final long productId) {
+        int mask = productIds.length - 1;
+        int slot = home(productId, mask);
+        while (productIds[slot] != 0 && productIds[slot] != productId) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Empties the slot of a product whose heap is empty, shifting back the products probed past it.
+     * @param emptied The index of the slot.
+     */
+    private void delete(final int emptied) {
+        int mask = productIds.length - 1;
+        int gap = emptied;
+        for (int slot = (gap + 1) & mask; productIds[slot] != 0; slot = (slot + 1) & mask) {
+            int home = home(productIds[slot], mask);
+            // the product can fill the gap if the gap is between its home slot and its slot
+            if (((slot - home) & mask) >= ((slot - gap) & mask)) {
+                productIds[gap] = productIds[slot];
+                heaps[gap] = heaps[slot];
+                gap = slot;
+            }
+        }
+        productIds[gap] = 0;
+        heaps[gap] = null;
+        products--;
+    }
+
+    /**
+     * Doubles the number of slots.
+     */
+    private void resize() {
+        long[] oldProductIds = productIds;
+        Heap[] oldHeaps = heaps;
+        productIds = new long[oldProductIds.length * 2];
+        heaps = new Heap[oldHeaps.length * 2];
+        for (int i = 0; i < oldProductIds.length; i++) {
+            if (oldProductIds[i] != 0) {
+                int slot = slot(oldProductIds[i]);
+                productIds[slot] = oldProductIds[i];
+                heaps[slot] = oldHeaps[i];
+            }
+        }
+    }
+
+    /**
+     * Gets the home slot of a product, from the mixed bits of its id.
+     * @param productId The ID of the product.
+     * @param mask The number of slots minus one.
+     * @return The index of the first slot probed.
+     */
+    private static int home(final long productId, final int mask) {
+        long mixed = productId * 0x9E3779B97F4A7C15L;
+        return (int) (mixed ^ (mixed >>> 32)) & mask;
+    }
+
+    /**
+     * Gets the smallest allocation a backorder accepts.
+     * @param quantity The quantity of the backorder.
+     * @param minFill The smallest fraction of a backorder a partial fill delivers.
+     * @return The quantity, or the units of its smallest partial fill, at least 1.
+     */
+    private static int fillable(final int quantity, final double minFill) {
+        if (minFill >= 1.0) {
+            return quantity;
+        }
+        return Math.max(1, (int) Math.ceil(quantity * Math.max(0.0, minFill)));
+    }
+
+    /**
+     * Converts a timestamp to the key of the heaps.
+     * @param timestamp The timestamp, or null.
+     * @return The microseconds since the epoch in UTC, or Long.MIN_VALUE for no timestamp (first in line).
+     */
+    private static long toKey(final LocalDateTime timestamp) {
+        if (timestamp == null) {
+            return Long.MIN_VALUE;
+        }
+        return timestamp.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + timestamp.getNano() / 1_000;
+    }
+
+    /**
+     * Converts a key of the heaps back to a timestamp.
+     * @param key The microseconds since the epoch in UTC, or Long.MIN_VALUE.
+     * @return The timestamp, or null.
+     */
+    private static LocalDateTime toTimestamp(final long key) {
+        if (key == Long.MIN_VALUE) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(key, 1_000_000L),
+                (int) Math.floorMod(key, 1_000_000L) * 1_000, ZoneOffset.UTC);
+    }
+
+    /**
+     * The backorders of one product : a binary min-heap on (key, id) in parallel arrays.
+     */
+    private static final class Heap {
+
+        /**
+         * The timestamps of the backorders, in microseconds.
+         */
+        private long[] keys = new long[INITIAL_HEAP_CAPACITY];
+
+        /**
+         * The ids of the backorders.
+         */
+        private long[] ids = new long[INITIAL_HEAP_CAPACITY];
+
+        /**
+         * The quantities of the backorders.
+         */
+        private int[] quantities = new int[INITIAL_HEAP_CAPACITY];
+
+        /**
+         * The number of backorders.
+         */
+        private int size;
+
+        /**
+         * At most the smallest quantity in the heap.
+         */
+        private int minQuantity = Integer.MAX_VALUE;
+
+        /**
+         * Adds a backorder.
+         * @param key The timestamp of the backorder.
+         * @param id The ID of the backorder.
+         * @param quantity The quantity of the backorder.
+         */
+        void push(final long key, final long id, final int quantity) {
+            append(key, id, quantity);
+            siftUp(size - 1);
+        }
+
+        /**
+         * Adds a backorder at the end of the arrays, without restoring the heap order.
+         * @param key The timestamp of the backorder.
+         * @param id The ID of the backorder.
+         * @param quantity The quantity of the backorder.
+         */
+        void append(final long key, final long id, final int quantity) {
+            if (size == ids.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                ids = Arrays.copyOf(ids, size * 2);
+                quantities = Arrays.copyOf(quantities, size * 2);
+            }
+            keys[size] = key;
+            ids[size] = id;
+            quantities[size] = quantity;
+            size++;
+            minQuantity = Math.min(minQuantity, quantity);
+        }
+
+        /**
+         * Removes the oldest backorder.
+         */
+        void pop() {
+            removeAt(0);
+        }
+
+        /**
+         * Removes a backorder by id.
+         * @param id The ID of the backorder.
+         * @return Whether the backorder was in the heap.
+         */
+        boolean remove(final long id) {
+            for (int i = 0; i < size; i++) {
+                if (ids[i] == id) {
+                    removeAt(i);
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Gets the smallest quantity in the heap.
+         * @return The smallest quantity, Integer.MAX_VALUE when empty.
+         */
+        int smallestQuantity() {
+            int smallest = Integer.MAX_VALUE;
+            for (int i = 0; i < size; i++) {
+                smallest = Math.min(smallest, quantities[i]);
+            }
+            return smallest;
+        }
+
+        /**
+         * Removes the backorder at an index, moving the last one in its place.
+         * @param index The index of the backorder.
+         */
+        private void removeAt(final int index) {
+            size--;
+            if (index == size) {
+                return;
+            }
+            move(size, index);
+            siftDown(index);
+            siftUp(index);
+        }
+
+        /**
+         * Moves a backorder up while it is older than its parent.
+         * @param start The index of the backorder.
+         */
+        private void siftUp(final int start) {
+            int index = start;
+            while (index > 0) {
+                int parent = (index - 1) >>> 1;
+                if (!before(index, parent)) {
+                    return;
+                }
+                swap(index, parent);
+                index = parent;
+            }
+        }
+
+        /**
+         * Moves a backorder down while a child is older.
+         * @param start The index of the backorder.
+         */
+        private void siftDown(final int start) {
+            int index = start;
+            while (true) {
+                int oldest = index;
+                int left = 2 * index + 1;
+                if (left < size && before(left, oldest)) {
+                    oldest = left;
+                }
+                if (left + 1 < size && before(left + 1, oldest)) {
+                    oldest = left + 1;
+                }
+                if (oldest == index) {
+                    return;
+                }
+                swap(index, oldest);
+                index = oldest;
+            }
+        }
+
+        /**
+         * Compares two backorders by timestamp then id.
+         * @param first The index of a backorder.
+         * @param second The index of another backorder.
+         * @return True if the first comes before the second.
+         */
+        private boolean before(final int first, final int second) {
+            return keys[first] < keys[second] || keys[first] == keys[second] && ids[first] < ids[second];
+        }
+
+        /**
+         * Swaps two backorders.
+         * @param first The index of a backorder.
+         * @param second The index of another backorder.
+         */
+        private void swap(final int first, final int second) {
+            long key = keys[first];
+            long id = ids[first];
+            int quantity = quantities[first];
+            move(second, first);
+            keys[second] = key;
+            ids[second] = id;
+            quantities[second] = quantity;
+        }
+
+        /**
+         * Copies a backorder over another.
+         * @param from The index of the backorder copied.
+         * @param to The index overwritten.
+         */
+        private void move(final int from, final int to) {
+            keys[to] = keys[from];
+            ids[to] = ids[from];
+            quantities[to] = quantities[from];
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.himanshu.departmentalStore.util;
+
+import com.himanshu.departmentalStore.exception.CustomException;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import java.util.Locale;
+
+/**
+ * Formats of the export endpoints.
+ */
+public enum ExportFormat {
+
+    /**
+     * One JSON object per line.
+     */
+    NDJSON(MediaType.APPLICATION_NDJSON_VALUE, "ndjson"),
+
+    /**
+     * A header line, then one comma separated line per row (RFC 4180 quoting).
+     */
+    CSV("text/csv;charset=UTF-8", "csv");
+
+    /**
+     * Content type of the response.
+     */
+    private final String contentType;
+
+    /**
+     * Extension of the exported file.
+     */
+    private final String extension;
+
+    /**
+     * Creates a format.
+     * @param type Content type of the response.
+     * @param fileExtension Extension of the exported file.
+     */
+    ExportFormat(final String type, final String fileExtension) {
+        this.contentType = type;
+        this.extension = fileExtension;
+    }
+
+    /**
+     * @return The content type of the response.
+     */
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * @return The extension of the exported file.
+     */
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * Sets the status and headers of an export response, before its body is streamed.
+     * @param response The response.
+     * @param name The name of the exported file, without extension.
+     */
+    public void prepare(final HttpServletResponse response, final String name) {
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(contentType);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                ContentDisposition.attachment().filename(name + "." + extension).build().toString());
+    }
+
+    /**
+     * Resolves the format requested by a client.
+     * @param format The format parameter, case insensitive (ndjson or csv).
+     * @return The export format.
+     * @throws CustomException If the format is not supported.
+     */
+    public static ExportFormat fromParameter(final String format) {
+        for (ExportFormat exportFormat : values()) {
+            if (exportFormat.extension.equals(format.toLowerCase(Locale.ROOT))) {
+                return exportFormat;
+            }
+        }
+        throw new CustomException("Unsupported export format : use ndjson or csv", format, HttpStatus.BAD_REQUEST);
+    }
+}
@@ -0,0 +1,104 @@
+package com.himanshu.departmentalStore.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Fixed-point arithmetic for prices, amounts and discount percentages.
+ * Every one of them is a long count of hundredths, the scale of their DECIMAL(x, 2) columns :
+ * cents for money (10.50 is 1050) and hundredths of a percent (basis points) for discounts (12.5 % is 1250).
+ * The methods only work on primitives, so pricing an order allocates nothing ;
+ * BigDecimal is only used at the edges (JSON, database columns, exports).
+ *
+ * Rounding rules :
+ * - a decimal value with more than two decimals is rounded HALF_UP to hundredths when it is converted.
+ * - a discounted amount is rounded HALF_UP to the cent, so a half cent is paid by the customer.
+ *   This gives the cents MySQL stored when the unrounded BigDecimal amount was written to DECIMAL(10, 2).
+ * - an overflow throws ArithmeticException instead of wrapping around.
+ */
+public final class Money {
+
+    /**
+     * The number of decimals of every value : hundredths.
+     */
+    public static final int SCALE = 2;
+
+    /**
+     * 100 %, in basis points.
+     */
+    public static final long HUNDRED_PERCENT = 10_000L;
+
+    /**
+     * Utility class, not instantiated.
+     */
+    private Money() {
+    }
+
+    /**
+     * Converts a decimal value to hundredths.
+     * @param value The decimal value, e.g. a price of 10.50 or a discount of 12.5 (%).
+     * @return The value in hundredths, rounded HALF_UP : 1050 or 1250.
+     * @throws ArithmeticException If the value does not fit in a long.
+     */
+    public static long toMinor(final BigDecimal value) {
+        return value.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Converts hundredths back to a decimal value, always with two decimals.
+     * @param minor The value in hundredths.
+     * @return The decimal value, e.g. 10.50 for 1050.
+     */
+    public static BigDecimal toDecimal(final long minor) {
+        return BigDecimal.valueOf(minor, SCALE);
+    }
+
+    /**
+     * Calculates the price of a quantity of a product.
+     * @param unitPrice The price of one unit, in cents.
+     * @param quantity The quantity.
+     * @return unitPrice * quantity, in cents.
+     * @throws ArithmeticException If the total overflows.
+     */
+    public static long lineTotal(final long unitPrice, final int quantity) {
+        return Math.multiplyExact(unitPrice, quantity);
+    }
+
+    /**
+     * Applies a percentage discount to an amount.
+     * @param amount The amount, in cents.
+     * @param percent The discount, in basis points.
+     * @return amount * (100 % - percent) / 100 %, rounded HALF_UP to the cent.
+     * @throws ArithmeticException If the calculation overflows.
+     */
+    public static long percentOff(final long amount, final long percent) {
+        return divideHalfUp(Math.multiplyExact(amount, HUNDRED_PERCENT - percent), HUNDRED_PERCENT);
+    }
+
+    /**
+     * Apportions an amount to a part of a whole, e.g. the amount paid for a cart to one of its lines.
+     * @param amount The amount to apportion, in cents.
+     * @param part The part, in cents.
+     * @param whole The whole, in cents : the part itself if it is 0.
+     * @return amount * part / whole, rounded HALF_UP to the cent.
+     * @throws ArithmeticException If the calculation overflows.
+     */
+    public static long share(final long amount, final long part, final long whole) {
+        return whole == 0 ? part : divideHalfUp(Math.multiplyExact(amount, part), whole);
+    }
+
+    /**
+     * Divides, rounding the quotient HALF_UP (half away from zero, like RoundingMode.HALF_UP).
+     * @param dividend The dividend.
+     * @param divisor The divisor, positive.
+     * @return The rounded quotient.
+     */
+    private static long divideHalfUp(final long dividend, final long divisor) {
+        long quotient = dividend / divisor;
+        long remainder = dividend % divisor;
+        if (Math.abs(remainder) * 2 >= divisor) {
+            quotient += Long.signum(dividend);
+        }
+        return quotient;
+    }
+}
@@ -0,0 +1,34 @@
+package com.himanshu.departmentalStore.util;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+import java.math.BigDecimal;
+
+/**
+ * Maps a value kept in hundredths by the entities (see {@link Money}) to its DECIMAL(x, 2) column.
+ * The columns are unchanged : the value written always has exactly two decimals, so the database never rounds it,
+ * and the rows written before are read back as they are.
+ */
+@Converter
+public class MoneyConverter implements AttributeConverter<Long, BigDecimal> {
+
+    /**
+     * Converts the hundredths to the column value.
+     * @param minor The value in hundredths, or null.
+     * @return The decimal value with two decimals, or null.
+     */
+    @Override
+    public BigDecimal convertToDatabaseColumn(final Long minor) {
+        return minor == null ? null : Money.toDecimal(minor);
+    }
+
+    /**
+     * Converts the column value to hundredths.
+     * @param value The decimal value of the column, or null.
+     * @return The value in hundredths, or null.
+     */
+    @Override
+    public Long convertToEntityAttribute(final BigDecimal value) {
+        return value == null ? null : Money.toMinor(value);
+    }
+}
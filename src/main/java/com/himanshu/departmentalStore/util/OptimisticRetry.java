@@ -0,0 +1,140 @@
+package com.himanshu.departmentalStore.util;
+
+import com.himanshu.departmentalStore.exception.CustomException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Retry policy of the operations which fail when a versioned row (a product or an order) was changed
+ * by another transaction since it was read.
+ * Each attempt must run in its own transaction, so the caller is outside of the transaction of the operation.
+ * Between two attempts the thread sleeps a random time between zero and an exponential backoff (full jitter),
+ * so that the transactions which conflicted once do not conflict again on their next attempt.
+ * The retries and the operations which still fail after the last attempt are counted by the
+ * orders.retry.conflicts and orders.retry.exhausted meters, tagged with the operation.
+ */
+@Component
+public class OptimisticRetry {
+
+    /**
+     * Logger for logging messages related to OptimisticRetry class.
+     * This logger is used to log various messages, such as debug, info, error, etc.,
+     * related to the operations performed within the OptimisticRetry class.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(OptimisticRetry.class);
+
+    /**
+     * Number of attempts of an operation, the first one included.
+     */
+    private final int maxAttempts;
+
+    /**
+     * Upper bound of the sleep before the first retry, doubled for each next retry.
+     */
+    private final long initialBackoffNanos;
+
+    /**
+     * Upper bound of the sleep before any retry.
+     */
+    private final long maxBackoffNanos;
+
+    /**
+     * The registry of the retry meters.
+     */
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Creates the retry policy.
+     * @param attempts Number of attempts of an operation, the first one included.
+     * @param initialBackoff Upper bound of the sleep before the first retry.
+     * @param maxBackoff Upper bound of the sleep before any retry.
+     * @param registry The registry of the retry meters.
+     */
+    public OptimisticRetry(@Value("${orders.retry.max-attempts:5}") final int attempts,
+                           @Value("${orders.retry.initial-backoff:PT0.005S}") final Duration initialBackoff,
+                           @Value("${orders.retry.max-backoff:PT0.2S}") final Duration maxBackoff,
+                           final MeterRegistry registry) {
+        this.maxAttempts = Math.max(1, attempts);
+        this.initialBackoffNanos = initialBackoff.toNanos();
+        this.maxBackoffNanos = maxBackoff.toNanos();
+        this.meterRegistry = registry;
+    }
+
+    /**
+     * Runs an operation, again while it fails on a row changed concurrently.
+     * @param operation The name of the operation, tag of the meters.
+     * @param action The operation, running its own transaction.
+     * @param <T> The type of the result of the operation.
+     * @return The result of the first attempt which did not conflict.
+     * @throws CustomException With status 409 if every attempt conflicted.
+     */
+    public <T> T run(final String operation, final Supplier<T> action) {
+        for (int attempt = 1;; attempt++) {
+            try {
+                return action.get();
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= maxAttempts) {
+                    LOGGER.error("{} still conflicting after {} attempts", operation, attempt);
+                    counter("orders.retry.exhausted", "Operations given up after the last attempt conflicted",
+                            operation).increment();
+                    throw new CustomException("Changed concurrently by another request : try again", null,
+                            HttpStatus.CONFLICT);
+                }
+                LOGGER.info("{} conflicted on attempt {}, retrying", operation, attempt);
+                counter("orders.retry.conflicts", "Attempts retried because a row was changed concurrently",
+                        operation).increment();
+                sleep(backoff(attempt), e);
+            }
+        }
+    }
+
+    /**
+     * Draws the sleep before a retry.
+     * @param attempt The number of the attempt which conflicted, from 1.
+     * @return A random duration between zero and the initial backoff doubled (attempt - 1) times, at most the max backoff.
+     */
+    public Duration backoff(final int attempt) {
+        long bound = maxBackoffNanos;
+        if (attempt - 1 < Long.numberOfLeadingZeros(initialBackoffNanos) - 1) {
+            bound = Math.min(maxBackoffNanos, initialBackoffNanos << (attempt - 1));
+        }
+        return Duration.ofNanos(bound <= 0 ? 0 : ThreadLocalRandom.current().nextLong(bound + 1));
+    }
+
+    /**
+     * Gets the counter of a meter for an operation.
+     * @param name The name of the meter.
+     * @param description The description of the meter.
+     * @param operation The operation.
+     * @return The counter, registered on first use.
+     */
+    private Counter counter(final String name, final String description, final String operation) {
+        return Counter.builder(name)
+                .description(description)
+                .tag("operation", operation)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Sleeps before a retry.
+     * @param duration The time to sleep.
+     * @param conflict The conflict, thrown again if the thread is interrupted.
+     */
+    private void sleep(final Duration duration, final OptimisticLockingFailureException conflict) {
+        try {
+            Thread.sleep(duration.toMillis(), duration.toNanosPart() % 1_000_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw conflict;
+        }
+    }
+}
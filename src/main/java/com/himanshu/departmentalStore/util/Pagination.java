@@ -0,0 +1,71 @@
+package com.himanshu.departmentalStore.util;
+
+import com.himanshu.departmentalStore.exception.CustomException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+/**
+ * Page size rules shared by the collection endpoints.
+ * The requested limit defaults to pagination.default-limit and is capped at pagination.max-limit,
+ * so that no request can read (and serialize) a whole table at once.
+ */
+@Component
+public class Pagination {
+
+    /**
+     * Page size used when the request does not give one.
+     */
+    private final int defaultLimit;
+
+    /**
+     * Largest page size a request can ask for.
+     */
+    private final int maxLimit;
+
+    /**
+     * Creates the pagination rules.
+     * @param defaultPageSize Page size used when the request does not give one.
+     * @param maxPageSize Largest page size a request can ask for.
+     */
+    public Pagination(@Value("${pagination.default-limit:50}") final int defaultPageSize,
+                      @Value("${pagination.max-limit:500}") final int maxPageSize) {
+        this.defaultLimit = defaultPageSize;
+        this.maxLimit = maxPageSize;
+    }
+
+    /**
+     * Resolves the page size of a request.
+     * @param requested The limit requested, or null.
+     * @return The default limit if none was requested, otherwise the requested limit capped at the maximum.
+     * @throws CustomException If the requested limit is not positive.
+     */
+    public int pageSize(final Integer requested) {
+        if (requested == null) {
+            return defaultLimit;
+        }
+        if (requested < 1) {
+            throw new CustomException("limit must be positive", requested, HttpStatus.BAD_REQUEST);
+        }
+        return Math.min(requested, maxLimit);
+    }
+
+    /**
+     * The number of rows a keyset query reads for a page : one more than the page size, to detect the next page.
+     * @param pageSize The page size.
+     * @return The limit of the query.
+     */
+    public Limit rowsToRead(final int pageSize) {
+        return Limit.of(pageSize + 1);
+    }
+
+    /**
+     * Resolves the cursor of a request.
+     * @param after The id after which the page starts, or null for the first page.
+     * @return The cursor, 0 for the first page (ids start at 1).
+     */
+    public long cursor(final Long after) {
+        return after == null ? 0L : after;
+    }
+}
@@ -0,0 +1,105 @@
+package com.himanshu.departmentalStore.util;
+
+import com.himanshu.departmentalStore.model.Product;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable, versioned snapshot of the products, by id.
+ *
+ * <p>
+ * A change never touches a published snapshot : {@link #with(Collection)} and {@link #without(Long)} copy it
+ * into a new one with the next version. Readers therefore look a product up without locking or copying anything,
+ * and the version tells whether anything changed since a product was read.
+ * </p>
+ *
+ * <p>
+ * The products of a snapshot are shared by all its readers and must not be modified.
+ * </p>
+ */
+public final class ProductCatalog {
+
+    /**
+     * The catalog before the products are first loaded.
+     */
+    public static final ProductCatalog EMPTY = new ProductCatalog(0L, new HashMap<>());
+
+    /**
+     * The version of the snapshot, incremented by each change.
+     */
+    private final long version;
+
+    /**
+     * The products by id, never modified once the snapshot is built.
+     */
+    private final Map<Long, Product> products;
+
+    /**
+     * Creates a snapshot.
+     * @param snapshotVersion The version of the snapshot.
+     * @param productsById The products by id, owned by the snapshot.
+     */
+    private ProductCatalog(final long snapshotVersion, final Map<Long, Product> productsById) {
+        this.version = snapshotVersion;
+        this.products = productsById;
+    }
+
+    /**
+     * Builds the snapshot of all the products, replacing this one.
+     * @param allProducts All the products.
+     * @return The snapshot, with the next version.
+     */
+    public ProductCatalog reload(final Collection<Product> allProducts) {
+        Map<Long, Product> byId = new HashMap<>(allProducts.size() * 4 / 3 + 1);
+        allProducts.forEach(product -> byId.put(product.getId(), product));
+        return new ProductCatalog(version + 1, byId);
+    }
+
+    /**
+     * Builds a snapshot with some products added or replaced.
+     * @param changedProducts The products to add or replace.
+     * @return The new snapshot, with the next version.
+     */
+    public ProductCatalog with(final Collection<Product> changedProducts) {
+        Map<Long, Product> byId = new HashMap<>(products);
+        changedProducts.forEach(product -> byId.put(product.getId(), product));
+        return new ProductCatalog(version + 1, byId);
+    }
+
+    /**
+     * Builds a snapshot without a product.
+     * @param productId The ID of the product to remove.
+     * @return The new snapshot, with the next version.
+     */
+    public ProductCatalog without(final Long productId) {
+        Map<Long, Product> byId = new HashMap<>(products);
+        byId.remove(productId);
+        return new ProductCatalog(version + 1, byId);
+    }
+
+    /**
+     * Finds a product.
+     * @param productId The ID of the product.
+     * @return The product, shared with the other readers, or null if it is not in the snapshot.
+     */
+    public Product get(final Long productId) {
+        return products.get(productId);
+    }
+
+    /**
+     * Gets the version of the snapshot.
+     * @return The version : 0 before the first load, then incremented by each change.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Gets the number of products in the snapshot.
+     * @return The number of products.
+     */
+    public int size() {
+        return products.size();
+    }
+}
@@ -0,0 +1,5 @@
+-- Order history of a customer : "WHERE customer_id = ? AND timestamp in range ORDER BY timestamp DESC, id DESC LIMIT n".
+-- The index is read backwards from the cursor and stops after n entries. The selected columns follow
+-- (customer_id, timestamp) in the index and InnoDB appends id to it, so no table row is read : the index covers the query.
+CREATE INDEX idx_customer_order_customer_id_timestamp
+    ON customer_order (customer_id, timestamp, product_id, quantity, amount, discount_id);
@@ -0,0 +1,31 @@
+-- Sales rollups : totals of customer_order per product and day, product and hour, discount and day.
+-- Rows are incremented in place on every order write (INSERT ... ON DUPLICATE KEY UPDATE)
+-- and can be rebuilt from customer_order by the backfill (POST /reports/backfill).
+-- The primary key serves the reports of one product (or discount), the secondary index the reports of all of them.
+CREATE TABLE sales_product_day (
+    product_id BIGINT NOT NULL,
+    sales_day DATE NOT NULL,
+    units BIGINT NOT NULL,
+    revenue DECIMAL(19, 2) NOT NULL,
+    order_count BIGINT NOT NULL,
+    PRIMARY KEY (product_id, sales_day),
+    INDEX idx_sales_product_day_sales_day (sales_day, product_id)
+);
+CREATE TABLE sales_product_hour (
+    product_id BIGINT NOT NULL,
+    sales_hour DATETIME NOT NULL,
+    units BIGINT NOT NULL,
+    revenue DECIMAL(19, 2) NOT NULL,
+    order_count BIGINT NOT NULL,
+    PRIMARY KEY (product_id, sales_hour),
+    INDEX idx_sales_product_hour_sales_hour (sales_hour, product_id)
+);
+CREATE TABLE sales_discount_day (
+    discount_id BIGINT NOT NULL,
+    sales_day DATE NOT NULL,
+    units BIGINT NOT NULL,
+    revenue DECIMAL(19, 2) NOT NULL,
+    order_count BIGINT NOT NULL,
+    PRIMARY KEY (discount_id, sales_day),
+    INDEX idx_sales_discount_day_sales_day (sales_day, discount_id)
+);
@@ -0,0 +1,4 @@
+-- Active discounts at a time : "WHERE start_date_time <= ? AND end_date_time >= ?".
+-- Only read until the in-memory index of the application is loaded : the index range scans
+-- the discounts started before the time, and filters their end date from the index without reading the table rows.
+CREATE INDEX idx_discount_start_end ON Discount (start_date_time, end_date_time);
@@ -0,0 +1,3 @@
+-- A coupon code identifies one discount : GET /discounts/coupon/{code} and orders given a couponCode resolve it.
+-- Discounts sharing a coupon code must be renamed before this migration, which fails otherwise.
+CREATE UNIQUE INDEX uk_discount_coupon_code ON Discount (coupon_code);
@@ -0,0 +1,4 @@
+-- Optimistic locking of products and orders : every update of a row increments its version, and Hibernate updates
+-- (or deletes) the row only if its version is still the one read. Existing rows start at version 0.
+ALTER TABLE Product ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE customer_order ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,3 @@
+-- Backorder fulfillment : "WHERE product_id = ? AND quantity <= ? ORDER BY timestamp, id LIMIT n" walks the backorders
+-- of a product oldest first. InnoDB appends the primary key to the index, so the sort is read from it.
+CREATE INDEX idx_backorder_product_id_timestamp ON Backorder (product_id, timestamp);
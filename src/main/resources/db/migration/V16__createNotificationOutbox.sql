@@ -0,0 +1,19 @@
+-- Outbox of the customer notifications : a row is inserted in the transaction which fulfills a backorder,
+-- and NotificationDispatcher delivers the rows in batches, deleting them once delivered.
+-- A row whose delivery failed waits until next_attempt_at; after its last attempt it is kept with the status FAILED.
+CREATE TABLE notification_outbox (
+    id BIGINT NOT NULL PRIMARY KEY,
+    backorder_id BIGINT NOT NULL,
+    customer_id BIGINT NOT NULL,
+    product_id BIGINT NOT NULL,
+    order_id BIGINT,
+    quantity INT NOT NULL,
+    remaining INT NOT NULL,
+    status VARCHAR(16) NOT NULL,
+    attempts INT NOT NULL,
+    created_at DATETIME(6) NOT NULL,
+    next_attempt_at DATETIME(6) NOT NULL,
+    last_error VARCHAR(255),
+    INDEX idx_notification_outbox_due (status, next_attempt_at)
+);
+INSERT INTO id_sequence (sequence_name, next_val) VALUES ('notification_outbox', 501);
@@ -0,0 +1,3 @@
+-- SHA-256 (hex) of the body of the request which claimed a key : a retry with the same key but another body is
+-- refused instead of being answered with the stored response. Rows stored before have no hash and are replayed as before.
+ALTER TABLE idempotency_record ADD COLUMN request_hash VARCHAR(64);
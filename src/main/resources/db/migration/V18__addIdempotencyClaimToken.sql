@@ -0,0 +1,3 @@
+-- Random token of the request holding a key : a request which outlived its lease, and whose key was taken over,
+-- can neither complete nor release the claim of the new holder. Rows stored before have no token and only expire.
+ALTER TABLE idempotency_record ADD COLUMN claim_token VARCHAR(36);
@@ -0,0 +1,18 @@
+CREATE TABLE cart (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    customer_id BIGINT NOT NULL,
+    timestamp DATETIME,
+    discount_id BIGINT,
+    amount DECIMAL(10, 2),
+    FOREIGN KEY (customer_id) REFERENCES Customer(id),
+    FOREIGN KEY (discount_id) REFERENCES Discount(id)
+);
+CREATE TABLE order_line (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    cart_id BIGINT NOT NULL,
+    product_id BIGINT NOT NULL,
+    quantity INT NOT NULL,
+    amount DECIMAL(10, 2),
+    FOREIGN KEY (cart_id) REFERENCES cart(id),
+    FOREIGN KEY (product_id) REFERENCES Product(id)
+);
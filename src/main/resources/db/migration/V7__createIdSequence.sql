@@ -0,0 +1,14 @@
+-- Pooled id allocation : hibernate reserves a block of 50 ids with one update of this table,
+-- instead of one AUTO_INCREMENT round trip per inserted row (which also disables insert batching).
+-- The stored value is the upper end of the next block to hand out, hence the seed of max(id) + 51.
+CREATE TABLE id_sequence (
+    sequence_name VARCHAR(255) NOT NULL PRIMARY KEY,
+    next_val BIGINT NOT NULL
+);
+INSERT INTO id_sequence (sequence_name, next_val) SELECT 'customer', COALESCE(MAX(id), 0) + 51 FROM Customer;
+INSERT INTO id_sequence (sequence_name, next_val) SELECT 'product', COALESCE(MAX(id), 0) + 51 FROM Product;
+INSERT INTO id_sequence (sequence_name, next_val) SELECT 'discount', COALESCE(MAX(id), 0) + 51 FROM Discount;
+INSERT INTO id_sequence (sequence_name, next_val) SELECT 'customer_order', COALESCE(MAX(id), 0) + 51 FROM customer_order;
+INSERT INTO id_sequence (sequence_name, next_val) SELECT 'backorder', COALESCE(MAX(id), 0) + 51 FROM Backorder;
+INSERT INTO id_sequence (sequence_name, next_val) SELECT 'cart', COALESCE(MAX(id), 0) + 51 FROM cart;
+INSERT INTO id_sequence (sequence_name, next_val) SELECT 'order_line', COALESCE(MAX(id), 0) + 51 FROM order_line;
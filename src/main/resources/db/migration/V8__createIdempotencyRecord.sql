@@ -0,0 +1,9 @@
+-- Results of POST /orders and POST /backorders, stored per Idempotency-Key so that a retried request is answered
+-- with the first response. status_code 0 marks a key claimed by a request which is still running.
+CREATE TABLE idempotency_record (
+    idempotency_key VARCHAR(100) PRIMARY KEY,
+    status_code INT NOT NULL,
+    response_body TEXT,
+    expires_at DATETIME NOT NULL,
+    INDEX idx_idempotency_record_expires_at (expires_at)
+);
@@ -0,0 +1,9 @@
+-- Keyset pagination : a page is "WHERE id > :after [AND <filter> = ?] ORDER BY id LIMIT n".
+-- Unfiltered pages are a range scan of the primary key. Each filter column gets an index ending with id,
+-- so a filtered page is a range scan too, and the deepest page costs the same as the first one.
+-- These indexes also serve the foreign keys on customer_id and product_id.
+CREATE INDEX idx_customer_order_customer_id_id ON customer_order (customer_id, id);
+CREATE INDEX idx_customer_order_product_id_id ON customer_order (product_id, id);
+CREATE INDEX idx_backorder_customer_id_id ON Backorder (customer_id, id);
+CREATE INDEX idx_backorder_product_id_id ON Backorder (product_id, id);
+CREATE INDEX idx_product_availability_id ON Product (availability, id);
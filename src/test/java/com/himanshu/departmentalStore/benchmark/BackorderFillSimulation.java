@@ -0,0 +1,159 @@
+package com.himanshu.departmentalStore.benchmark;
+
+import com.himanshu.departmentalStore.dto.PendingBackorder;
+import com.himanshu.departmentalStore.util.BackorderQueues;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Simulates a year of orders and restocks of one product, and the backorders fulfilled by BackorderQueues
+ * with several minimum-fill fractions, from whole backorders only (1.0) to any unit in stock (0.0).
+ * Two products : a fast mover ordered about twice an hour and delivered every 3 days, and a slow mover
+ * ordered about every 4 hours and delivered every week.
+ *
+ * <p>
+ * Orders arrive during 12 opening hours : 70% of 1 to 5 units, 25% of 6 to 24, 5% bulk orders of 25 to 120.
+ * An order is placed if the stock covers it, and backordered otherwise. The supplier delivers in cases of 24 units,
+ * between 90% and 130% of the average demand between two deliveries, capped to bring the stock up to twice
+ * that demand. So the product runs short now and then.
+ * On each delivery, the stock is allocated to the backorders as BackorderFulfillmentEngine does, and what is left
+ * serves the next orders. The same orders and delivery draws are replayed for each fraction.
+ * </p>
+ *
+ * <p>
+ * Fill rate : the share of the backordered units delivered within the year. Wait : hours between a backorder and the
+ * delivery of its units, weighted by units; bulk wait, the same for the backorders of more than 24 units (or filled in parts).
+ * Idle : units left in stock by a delivery while backorders still wait.
+ * Run after mvn test-compile :
+ * java -cp "target/test-classes:target/classes:$(cat cp.txt)" com.himanshu.departmentalStore.benchmark.BackorderFillSimulation
+ * </p>
+ */
+public final class BackorderFillSimulation {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+    private static final int DAYS = 365;
+    private static final int OPENING_HOUR = 9;
+    private static final int OPEN_HOURS = 12;
+    private static final int CASE_SIZE = 24;
+    private static final int BULK = 24;
+    private static final double[] MIN_FILLS = {1.0, 0.75, 0.5, 0.25, 0.0};
+
+    private BackorderFillSimulation() {
+    }
+
+    public static void main(String[] args) {
+        scenario("Fast mover", 2.0, 3);
+        scenario("Slow mover", 0.25, 7);
+    }
+
+    private static void scenario(String name, double ordersPerHour, int restockEveryDays) {
+        Random random = new Random(42);
+        List<Event> events = new ArrayList<>();
+        long demand = 0;
+        for (int day = 0; day < DAYS; day++) {
+            for (int hour = OPENING_HOUR; hour < OPENING_HOUR + OPEN_HOURS; hour++) {
+                int orders = poisson(random, ordersPerHour);
+                for (int order = 0; order < orders; order++) {
+                    int quantity = orderQuantity(random);
+                    demand += quantity;
+                    events.add(new Event(START.plusDays(day).plusHours(hour).plusMinutes(random.nextInt(60)), quantity, false));
+                }
+            }
+        }
+        double demandPerRestock = (double) demand / DAYS * restockEveryDays;
+        for (int day = 0; day < DAYS; day += restockEveryDays) {
+            int units = (int) (demandPerRestock * (0.9 + 0.4 * random.nextDouble()));
+            events.add(new Event(START.plusDays(day).plusHours(7), units, true));
+        }
+        events.sort((first, second) -> first.at.compareTo(second.at));
+
+        System.out.printf("%n%s : %d units ordered in %d days, %.0f every %d days on average%n%n",
+                name, demand, DAYS, demandPerRestock, restockEveryDays);
+        System.out.println("| min fill | backordered units | fill rate | average wait (h) | bulk wait (h) | partial fills | idle units per delivery |");
+        System.out.println("|----------|-------------------|-----------|------------------|---------------|---------------|-------------------------|");
+        for (double minFill : MIN_FILLS) {
+            System.out.println(simulate(events, demandPerRestock, minFill));
+        }
+    }
+
+    private static String simulate(List<Event> events, double demandPerRestock, double minFill) {
+        BackorderQueues queues = new BackorderQueues();
+        long productId = 1;
+        long nextId = 1;
+        int stock = 0;
+        long backordered = 0;
+        long delivered = 0;
+        double waitUnitHours = 0;
+        long bulkDelivered = 0;
+        double bulkWaitUnitHours = 0;
+        long partialFills = 0;
+        long idle = 0;
+        int deliveries = 0;
+        long waiting = 0;
+        for (Event event : events) {
+            if (!event.restock) {
+                if (stock >= event.quantity) {
+                    stock -= event.quantity;
+                } else {
+                    queues.add(new PendingBackorder(nextId++, productId, event.at, event.quantity));
+                    backordered += event.quantity;
+                    waiting += event.quantity;
+                }
+                continue;
+            }
+            int upTo = (int) (2 * demandPerRestock - stock);
+            stock += Math.max(0, Math.min(event.quantity, upTo)) / CASE_SIZE * CASE_SIZE;
+            deliveries++;
+            for (PendingBackorder backorder : queues.poll(productId, stock, minFill)) {
+                stock -= backorder.getAllocated();
+                delivered += backorder.getAllocated();
+                waiting -= backorder.getAllocated();
+                double waitHours = Duration.between(backorder.getTimestamp(), event.at).toMinutes() / 60.0;
+                waitUnitHours += backorder.getAllocated() * waitHours;
+                if (backorder.getQuantity() > BULK || backorder.isPartial()) {
+                    bulkDelivered += backorder.getAllocated();
+                    bulkWaitUnitHours += backorder.getAllocated() * waitHours;
+                }
+                if (backorder.isPartial()) {
+                    partialFills++;
+                    queues.add(new PendingBackorder(backorder.getId(), productId, backorder.getTimestamp(),
+                            backorder.getQuantity() - backorder.getAllocated()));
+                }
+            }
+            if (queues.hasPending(productId)) {
+                idle += stock;
+            }
+        }
+        return String.format("| %-8.2f | %-17d | %-9s | %-16.1f | %-13.1f | %-13d | %-23.1f |", minFill, backordered,
+                String.format("%.1f%%", 100.0 * delivered / backordered), waitUnitHours / delivered,
+                bulkWaitUnitHours / bulkDelivered, partialFills, (double) idle / deliveries);
+    }
+
+    private static int orderQuantity(Random random) {
+        double draw = random.nextDouble();
+        if (draw < 0.70) {
+            return 1 + random.nextInt(5);
+        }
+        if (draw < 0.95) {
+            return 6 + random.nextInt(19);
+        }
+        return 25 + random.nextInt(96);
+    }
+
+    private static int poisson(Random random, double mean) {
+        double limit = Math.exp(-mean);
+        double product = random.nextDouble();
+        int count = 0;
+        while (product > limit) {
+            product *= random.nextDouble();
+            count++;
+        }
+        return count;
+    }
+
+    private record Event(LocalDateTime at, int quantity, boolean restock) {
+    }
+}
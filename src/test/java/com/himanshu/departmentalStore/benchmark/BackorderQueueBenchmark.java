@@ -0,0 +1,126 @@
+package com.himanshu.departmentalStore.benchmark;
+
+import com.himanshu.departmentalStore.dto.PendingBackorder;
+import com.himanshu.departmentalStore.util.BackorderQueues;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Restocks a product with 100 000 backorders pending over 1 000 products : with the primitive BackorderQueues,
+ * and with a HashMap of PriorityQueues of PendingBackorder objects. Each restock takes 10 units of 1-unit backorders,
+ * which are queued again so that every invocation sees the same queues; a restock of a product without
+ * backorders is only a lookup. The estimated footprint of both is printed at the end of each trial.
+ * Run after mvn test-compile, with the gc profiler to see the allocations :
+ * mvn dependency:build-classpath -Dmdep.outputFile=cp.txt -Dmdep.includeScope=test
+ * java -cp "target/test-classes:target/classes:$(cat cp.txt)" org.openjdk.jmh.Main BackorderQueueBenchmark -prof gc
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BackorderQueueBenchmark {
+
+    private static final int PENDING = 100_000;
+    private static final int PRODUCTS = 1_000;
+    private static final int RESTOCK = 10;
+
+    private static final Comparator<PendingBackorder> OLDEST_FIRST = Comparator
+            .comparing(PendingBackorder::getTimestamp)
+            .thenComparing(PendingBackorder::getId);
+
+    private BackorderQueues queues;
+    private Map<Long, PriorityQueue<PendingBackorder>> boxed;
+    private long boxedBytes;
+    private long next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        LocalDateTime start = LocalDateTime.of(2024, 4, 1, 0, 0);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long before = threads.getCurrentThreadAllocatedBytes();
+        // the objects, their boxed ids and timestamps are held by the boxed queues only
+        boxed = new HashMap<>();
+        for (long id = 1; id <= PENDING; id++) {
+            PendingBackorder backorder = new PendingBackorder(id, 1L + random.nextInt(PRODUCTS),
+                    start.plusSeconds(random.nextInt(30 * 24 * 3600)), 1 + random.nextInt(2));
+            boxed.computeIfAbsent(backorder.getProductId(), productId -> new PriorityQueue<>(OLDEST_FIRST)).add(backorder);
+        }
+        boxedBytes = threads.getCurrentThreadAllocatedBytes() - before;
+        queues = new BackorderQueues();
+        boxed.values().forEach(queue -> queue.forEach(queues::add));
+    }
+
+    @TearDown(Level.Trial)
+    public void printFootprint() {
+        System.out.printf("%nBackorderQueues : %d backorders of %d products in about %d bytes, %.1f bytes per backorder%n",
+                queues.size(), queues.productCount(), queues.footprintBytes(), (double) queues.footprintBytes() / queues.size());
+        System.out.printf("Boxed queues : at most %d bytes allocated to build them, %.1f bytes per backorder%n",
+                boxedBytes, (double) boxedBytes / PENDING);
+    }
+
+    /**
+     * A restock of a product with backorders, popped from the primitive heaps.
+     */
+    @Benchmark
+    public int primitiveRestock() {
+        long productId = 1 + next++ % PRODUCTS;
+        List<PendingBackorder> taken = queues.poll(productId, RESTOCK);
+        taken.forEach(queues::add);
+        return taken.size();
+    }
+
+    /**
+     * The same restock with a priority queue of objects per boxed product id.
+     */
+    @Benchmark
+    public int boxedRestock() {
+        long productId = 1 + next++ % PRODUCTS;
+        PriorityQueue<PendingBackorder> queue = boxed.get(productId);
+        List<PendingBackorder> taken = new ArrayList<>();
+        List<PendingBackorder> skipped = new ArrayList<>();
+        int remaining = RESTOCK;
+        while (remaining > 0 && !queue.isEmpty()) {
+            PendingBackorder backorder = queue.poll();
+            if (backorder.getQuantity() <= remaining) {
+                taken.add(backorder);
+                remaining -= backorder.getQuantity();
+            } else {
+                skipped.add(backorder);
+            }
+        }
+        queue.addAll(skipped);
+        queue.addAll(taken);
+        return taken.size();
+    }
+
+    /**
+     * A restock of a product nobody waits for.
+     */
+    @Benchmark
+    public boolean restockWithoutBackorders() {
+        return queues.hasPending(PRODUCTS + 1 + next++ % PRODUCTS);
+    }
+}
@@ -0,0 +1,84 @@
+package com.himanshu.departmentalStore.benchmark;
+
+import com.himanshu.departmentalStore.util.Money;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prices an order (line total, minimum price check, percentage discount) the way OrderService did with BigDecimal,
+ * and with the fixed-point Money arithmetic on cents and basis points.
+ * Run after mvn test-compile, with the gc profiler to see the allocations :
+ * mvn dependency:build-classpath -Dmdep.outputFile=cp.txt -Dmdep.includeScope=test
+ * java -cp "target/test-classes:target/classes:$(cat cp.txt)" org.openjdk.jmh.Main PricingBenchmark -prof gc
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PricingBenchmark {
+
+    private static final int ORDERS = 1024;
+
+    private final BigDecimal[] prices = new BigDecimal[ORDERS];
+    private final BigDecimal[] discounts = new BigDecimal[ORDERS];
+    private final BigDecimal[] minPrices = new BigDecimal[ORDERS];
+    private final long[] priceCents = new long[ORDERS];
+    private final long[] discountBasisPoints = new long[ORDERS];
+    private final long[] minPriceCents = new long[ORDERS];
+    private final int[] quantities = new int[ORDERS];
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        for (int i = 0; i < ORDERS; i++) {
+            priceCents[i] = 1 + random.nextInt(100_000);
+            discountBasisPoints[i] = random.nextInt(10_001);
+            minPriceCents[i] = random.nextInt(1_000);
+            quantities[i] = 1 + random.nextInt(20);
+            prices[i] = Money.toDecimal(priceCents[i]);
+            discounts[i] = Money.toDecimal(discountBasisPoints[i]);
+            minPrices[i] = Money.toDecimal(minPriceCents[i]);
+        }
+    }
+
+    /**
+     * The previous OrderService.findAmount, plus the rounding done when the amount is written to DECIMAL(10, 2).
+     */
+    @Benchmark
+    public BigDecimal bigDecimal() {
+        int i = next++ & (ORDERS - 1);
+        BigDecimal totalPrice = prices[i].multiply(BigDecimal.valueOf(quantities[i]));
+        if (minPrices[i].compareTo(totalPrice) <= 0) {
+            totalPrice = totalPrice.subtract(totalPrice.multiply(discounts[i].divide(BigDecimal.valueOf(100))));
+        }
+        return totalPrice.setScale(2, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * The same pricing on cents and basis points.
+     */
+    @Benchmark
+    public long fixedPoint() {
+        int i = next++ & (ORDERS - 1);
+        long totalPrice = Money.lineTotal(priceCents[i], quantities[i]);
+        if (minPriceCents[i] <= totalPrice) {
+            totalPrice = Money.percentOff(totalPrice, discountBasisPoints[i]);
+        }
+        return totalPrice;
+    }
+}
@@ -1,6 +1,7 @@
 package com.himanshu.departmentalStore.controller;
 
 import com.himanshu.departmentalStore.dto.BackOrderRequestBody;
+import com.himanshu.departmentalStore.dto.CursorPage;
 import com.himanshu.departmentalStore.model.Backorder;
 import com.himanshu.departmentalStore.model.Customer;
 import com.himanshu.departmentalStore.model.Product;
@@ -50,13 +51,14 @@ class BackorderControllerTest {
                 createBackorderMock(1L, createProductMock(), createCustomerMock(), LocalDateTime.now(), 5),
                 createBackorderMock(2L, createProductMock(), createCustomerMock(), LocalDateTime.now(), 10)
         );
-        when(backorderService.getAllBackorders()).thenReturn(backorders);
+        when(backorderService.getAllBackorders(null, null, null, null))
+                .thenReturn(CursorPage.of(backorders, 50, Backorder::getId));
 
         // Test
-        ResponseEntity<List<Backorder>> result = backorderController.getAllBackorders();
+        ResponseEntity<CursorPage<Backorder>> result = backorderController.getAllBackorders(null, null, null, null);
 
         // Verification
-        assertEquals(2, result.getBody().size());
+        assertEquals(2, result.getBody().getItems().size());
     }
 
     @Test
@@ -1,7 +1,11 @@
 package com.himanshu.departmentalStore.controller;
 
+import com.himanshu.departmentalStore.dto.CursorPage;
+import com.himanshu.departmentalStore.dto.OrderHistoryPage;
+import com.himanshu.departmentalStore.dto.OrderSummary;
 import com.himanshu.departmentalStore.model.Customer;
 import com.himanshu.departmentalStore.service.CustomerService;
+import com.himanshu.departmentalStore.service.OrderService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
@@ -9,6 +13,8 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
 import static org.junit.jupiter.api.Assertions.*;
@@ -21,6 +27,9 @@ class CustomerControllerTest {
     @Mock
     private CustomerService customerService;
 
+    @Mock
+    private OrderService orderService;
+
     @InjectMocks
     private CustomerController customerController;
 
@@ -36,13 +45,30 @@ class CustomerControllerTest {
                 createCustomerMock(1L, "Himanshu Kumar", "Delhi", "1234567890"),
                 createCustomerMock(2L, "Rahul Singh", "Gurgaon", "9876543210")
         );
-        when(customerService.getAllCustomers()).thenReturn(customers);
+        when(customerService.getAllCustomers(null, null)).thenReturn(CursorPage.of(customers, 50, Customer::getId));
 
         // Test
-        List<Customer> result = customerController.getAllCustomers().getBody();
+        CursorPage<Customer> result = customerController.getAllCustomers(null, null).getBody();
 
         // Verification
-        assertEquals(2, result.size());
+        assertEquals(2, result.getItems().size());
+    }
+
+    @Test
+    void getCustomerOrders() {
+        // Mocking behavior
+        LocalDateTime from = LocalDateTime.of(2024, 4, 1, 0, 0);
+        List<OrderSummary> orders = List.of(
+                new OrderSummary(2L, LocalDateTime.of(2024, 4, 2, 10, 0), 1L, 1, BigDecimal.TEN, null));
+        when(orderService.getCustomerOrders(1L, from, null, null, 10)).thenReturn(OrderHistoryPage.of(orders, 10));
+
+        // Test
+        ResponseEntity<OrderHistoryPage> result = customerController.getCustomerOrders(1L, from, null, null, 10);
+
+        // Verification
+        assertEquals(HttpStatus.OK, result.getStatusCode());
+        assertEquals(1, result.getBody().getItems().size());
+        assertNull(result.getBody().getNextCursor());
     }
 
     @Test
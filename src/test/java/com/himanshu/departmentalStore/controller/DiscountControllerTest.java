@@ -100,6 +100,20 @@ class DiscountControllerTest {
         assertEquals(HttpStatus.OK, result.getStatusCode());
     }
 
+    @Test
+    void getDiscountByCouponCode() {
+        // Mocking behavior
+        Discount discount = createDiscountMock(1L, "50% off", new BigDecimal("50"), LocalDateTime.now(), LocalDateTime.now().plusDays(7), "Half price sale", new BigDecimal("0"), "HALFOFF");
+        when(discountService.getDiscountByCouponCode("HALFOFF")).thenReturn(discount);
+
+        // Test
+        ResponseEntity<Discount> result = discountController.getDiscountByCouponCode("HALFOFF");
+
+        // Verification
+        assertEquals(HttpStatus.OK, result.getStatusCode());
+        assertEquals(1L, result.getBody().getId());
+    }
+
     private Discount createDiscountMock(Long id, String name, BigDecimal value, LocalDateTime startDate, LocalDateTime endDate, String description, BigDecimal minPrice, String couponCode) {
         Discount discount = new Discount();
         discount.setId(id);
@@ -1,26 +1,46 @@
 package com.himanshu.departmentalStore.controller;
 
+import com.himanshu.departmentalStore.dto.CartLineRequestBody;
+import com.himanshu.departmentalStore.dto.CartRequestBody;
+import com.himanshu.departmentalStore.dto.CursorPage;
 import com.himanshu.departmentalStore.dto.OrderRequestBody;
+import com.himanshu.departmentalStore.dto.OrderTicket;
+import com.himanshu.departmentalStore.exception.CustomException;
+import com.himanshu.departmentalStore.model.Cart;
 import com.himanshu.departmentalStore.model.Customer;
+import com.himanshu.departmentalStore.model.Discount;
 import com.himanshu.departmentalStore.model.Order;
 import com.himanshu.departmentalStore.model.Product;
+import com.himanshu.departmentalStore.service.CartService;
 import com.himanshu.departmentalStore.service.CustomerService;
 import com.himanshu.departmentalStore.service.DiscountService;
+import com.himanshu.departmentalStore.service.ExportService;
+import com.himanshu.departmentalStore.service.OrderPipeline;
 import com.himanshu.departmentalStore.service.OrderService;
 import com.himanshu.departmentalStore.service.ProductService;
+import com.himanshu.departmentalStore.util.ExportFormat;
+import com.himanshu.departmentalStore.util.OptimisticRetry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 import org.modelmapper.ModelMapper;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
@@ -35,6 +55,15 @@ class OrderControllerTest {
     private DiscountService discountService;
     @Mock
     private ProductService productService;
+    @Mock
+    private CartService cartService;
+    @Mock
+    private ExportService exportService;
+    @Mock
+    private OrderPipeline orderPipeline;
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    @Spy
+    private OptimisticRetry optimisticRetry = new OptimisticRetry(3, Duration.ZERO, Duration.ZERO, meterRegistry);
     @InjectMocks
     private OrderController orderController;
     private ModelMapper modelMapper = mock(ModelMapper.class);
@@ -50,13 +79,26 @@ class OrderControllerTest {
                 createOrderMock(1L, createProductMock(), createCustomerMock(), LocalDateTime.now(), 5),
                 createOrderMock(2L, createProductMock(), createCustomerMock(), LocalDateTime.now(), 10)
         );
-        when(orderService.getAllOrders()).thenReturn(orders);
+        when(orderService.getAllOrders(null, 50, 1L, null)).thenReturn(CursorPage.of(orders, 50, Order::getId));
 
         // Test
-        ResponseEntity<List<Order>> result = orderController.getAllOrders();
+        ResponseEntity<CursorPage<Order>> result = orderController.getAllOrders(null, 50, 1L, null);
 
         // Verification
-        assertEquals(2, result.getBody().size());
+        assertEquals(2, result.getBody().getItems().size());
+    }
+
+    @Test
+    void exportOrders() throws IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        when(exportService.exportOrders(eq(ExportFormat.CSV), any())).thenReturn(2L);
+
+        orderController.exportOrders("CSV", response);
+
+        assertEquals(HttpStatus.OK.value(), response.getStatus());
+        assertEquals("text/csv;charset=UTF-8", response.getContentType());
+        assertEquals("attachment; filename=\"orders.csv\"", response.getHeader("Content-Disposition"));
+        verify(exportService).exportOrders(ExportFormat.CSV, response.getOutputStream());
     }
 
     @Test
@@ -93,6 +135,86 @@ class OrderControllerTest {
         assertEquals(order.getId(), result.getBody().getId());
     }
 
+    @Test
+    void createOrder_CouponCode_ShouldResolveDiscountId() {
+        // Mocking behavior
+        Order order = createOrderMock(1L, createProductMock(), createCustomerMock(), LocalDateTime.now(), 5);
+        OrderRequestBody orderRequestBody = createOrderRequestBodyMock();
+        orderRequestBody.setDiscountId(null);
+        orderRequestBody.setCouponCode("flat50");
+        Discount discount = new Discount();
+        discount.setId(7L);
+        when(discountService.getDiscountByCouponCode("flat50")).thenReturn(discount);
+        when(orderService.createOrder(any(Order.class))).thenReturn(order);
+        when(modelMapper.map(any(), any())).thenReturn(order);
+
+        // Test
+        ResponseEntity<Order> result = orderController.createOrder(orderRequestBody);
+
+        // Verification
+        assertEquals(HttpStatus.CREATED, result.getStatusCode());
+        assertEquals(7L, orderRequestBody.getDiscountId());
+    }
+
+    @Test
+    void createOrder_DiscountIdAndCouponCode_ShouldThrowCustomException() {
+        OrderRequestBody orderRequestBody = createOrderRequestBodyMock();
+        orderRequestBody.setCouponCode("FLAT50");
+
+        CustomException exception = assertThrows(CustomException.class, () -> orderController.createOrder(orderRequestBody));
+
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getExceptionHttpStatus());
+        verify(orderService, never()).createOrder(any());
+    }
+
+    @Test
+    void createOrderAsync() {
+        // Mocking behavior
+        OrderRequestBody orderRequestBody = createOrderRequestBodyMock();
+        OrderTicket ticket = new OrderTicket("ticket-1", OrderTicket.Status.QUEUED, null, null, null, null, LocalDateTime.now(), null);
+        when(orderPipeline.submit(orderRequestBody)).thenReturn(ticket);
+
+        // Test
+        ResponseEntity<OrderTicket> result = orderController.createOrderAsync(orderRequestBody);
+
+        // Verification
+        assertEquals(HttpStatus.ACCEPTED, result.getStatusCode());
+        assertEquals("/orders/tickets/ticket-1", result.getHeaders().getLocation().toString());
+        assertEquals(ticket, result.getBody());
+        verify(orderService, never()).createOrder(any());
+    }
+
+    @Test
+    void getTicket() {
+        OrderTicket ticket = new OrderTicket("ticket-1", OrderTicket.Status.PLACED, 1L, null, BigDecimal.valueOf(21.0), null, LocalDateTime.now(), LocalDateTime.now());
+        when(orderPipeline.getTicket("ticket-1")).thenReturn(ticket);
+
+        ResponseEntity<OrderTicket> result = orderController.getTicket("ticket-1");
+
+        assertEquals(HttpStatus.OK, result.getStatusCode());
+        assertEquals(1L, result.getBody().getOrderId());
+    }
+
+    @Test
+    void createCart() {
+        // Mocking behavior
+        CartLineRequestBody line = new CartLineRequestBody();
+        line.setProductId(1L);
+        line.setQuantity(2);
+        CartRequestBody cartRequestBody = new CartRequestBody();
+        cartRequestBody.setCustomerId(1L);
+        cartRequestBody.setLines(List.of(line));
+        Cart cart = new Cart();
+        cart.setId(1L);
+        when(cartService.createCart(cartRequestBody)).thenReturn(cart);
+
+        // Test
+        ResponseEntity<Cart> result = orderController.createCart(cartRequestBody);
+
+        // Verification
+        assertEquals(HttpStatus.CREATED, result.getStatusCode());
+        assertEquals(cart.getId(), result.getBody().getId());
+    }
 
     @Test
     void updateOrder() {
@@ -111,6 +233,42 @@ class OrderControllerTest {
         assertEquals(orderId, result.getBody().getId());
     }
 
+    @Test
+    void updateOrder_ChangedConcurrently_ShouldRetry() {
+        // Mocking behavior : the first attempt conflicts with another update of the order
+        Long orderId = 1L;
+        Order order = createOrderMock(1L, createProductMock(), createCustomerMock(), LocalDateTime.now(), 5);
+        OrderRequestBody orderRequestBody = createOrderRequestBodyMock();
+        when(orderService.updateOrder(eq(orderId), any(Order.class)))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Order.class, orderId))
+                .thenReturn(order);
+        when(modelMapper.map(any(), any())).thenReturn(order);
+
+        // Test
+        ResponseEntity<Order> result = orderController.updateOrder(orderId, orderRequestBody);
+
+        // Verification
+        assertEquals(orderId, result.getBody().getId());
+        verify(orderService, times(2)).updateOrder(eq(orderId), any(Order.class));
+        assertEquals(1.0, meterRegistry.get("orders.retry.conflicts").tag("operation", "update").counter().count());
+    }
+
+    @Test
+    void deleteOrder_AlwaysConflicting_ShouldThrowConflict() {
+        // Mocking behavior
+        Long orderId = 1L;
+        when(orderService.deleteOrder(orderId)).thenThrow(new ObjectOptimisticLockingFailureException(Order.class, orderId));
+
+        // Test
+        CustomException exception = assertThrows(CustomException.class, () -> orderController.deleteOrder(orderId));
+
+        // Verification
+        assertEquals(HttpStatus.CONFLICT, exception.getExceptionHttpStatus());
+        verify(orderService, times(3)).deleteOrder(orderId);
+        assertEquals(2.0, meterRegistry.get("orders.retry.conflicts").tag("operation", "delete").counter().count());
+        assertEquals(1.0, meterRegistry.get("orders.retry.exhausted").tag("operation", "delete").counter().count());
+    }
+
     @Test
     void deleteOrder() {
         // Mocking behavior
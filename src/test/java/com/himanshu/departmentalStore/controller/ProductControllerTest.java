@@ -1,6 +1,9 @@
 package com.himanshu.departmentalStore.controller;
 
+import com.himanshu.departmentalStore.dto.CursorPage;
+import com.himanshu.departmentalStore.exception.CustomException;
 import com.himanshu.departmentalStore.model.Product;
+import com.himanshu.departmentalStore.service.ExportService;
 import com.himanshu.departmentalStore.service.ProductService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -9,11 +12,17 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletResponse;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.List;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 class ProductControllerTest {
@@ -21,6 +30,9 @@ class ProductControllerTest {
     @Mock
     private ProductService productService;
 
+    @Mock
+    private ExportService exportService;
+
     @InjectMocks
     private ProductController productController;
 
@@ -38,13 +50,23 @@ class ProductControllerTest {
                 createProductMock(2L, "Product 2", "Description 2", BigDecimal.valueOf(20.99),
                         LocalDate.now().plusMonths(3), 50, false)
         );
-        when(productService.getAllProducts()).thenReturn(products);
+        when(productService.getAllProducts(null, 1, null)).thenReturn(CursorPage.of(products, 1, Product::getId));
 
         // Test
-        ResponseEntity<List<Product>> result = productController.getAllProducts();
+        ResponseEntity<CursorPage<Product>> result = productController.getAllProducts(null, 1, null);
 
         // Verification
-        assertEquals(2, result.getBody().size());
+        assertEquals(1, result.getBody().getItems().size());
+        assertEquals(1L, result.getBody().getNextCursor());
+    }
+
+    @Test
+    void exportProducts_UnsupportedFormat() {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertThrows(CustomException.class, () -> productController.exportProducts("xml", response));
+
+        verifyNoInteractions(exportService);
     }
 
     @Test
@@ -54,12 +76,27 @@ class ProductControllerTest {
         Product product = createProductMock(productId, "Product 1", "Description 1",
                 BigDecimal.valueOf(10.99), LocalDate.now().plusMonths(6), 100, true);
         when(productService.getProductById(productId)).thenReturn(product);
+        when(productService.getCatalogVersion()).thenReturn(3L);
 
         // Test
-        ResponseEntity<Product> result = productController.getProductById(productId);
+        ResponseEntity<Product> result = productController.getProductById(productId, null);
 
         // Verification
         assertEquals(productId, result.getBody().getId());
+        assertEquals("\"3\"", result.getHeaders().getETag());
+    }
+
+    @Test
+    void getProductById_CatalogUnchanged_ShouldReturnNotModified() {
+        // Mocking behavior
+        when(productService.getCatalogVersion()).thenReturn(3L);
+
+        // Test
+        ResponseEntity<Product> result = productController.getProductById(1L, "\"3\"");
+
+        // Verification
+        assertEquals(HttpStatus.NOT_MODIFIED, result.getStatusCode());
+        verify(productService, never()).getProductById(any());
     }
 
     @Test
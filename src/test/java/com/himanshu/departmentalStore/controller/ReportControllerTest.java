@@ -0,0 +1,96 @@
+package com.himanshu.departmentalStore.controller;
+
+import com.himanshu.departmentalStore.dto.BackfillSummary;
+import com.himanshu.departmentalStore.model.DiscountDailySales;
+import com.himanshu.departmentalStore.model.ProductDailySales;
+import com.himanshu.departmentalStore.model.ProductHourlySales;
+import com.himanshu.departmentalStore.service.SalesRollupService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+
+class ReportControllerTest {
+
+    @Mock
+    private SalesRollupService salesRollupService;
+
+    @InjectMocks
+    private ReportController reportController;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.initMocks(this);
+    }
+
+    @Test
+    void getProductDailySales() {
+        // Mocking behavior
+        LocalDate day = LocalDate.of(2024, 4, 10);
+        ProductDailySales sales = new ProductDailySales();
+        sales.setProductId(1L);
+        sales.setDay(day);
+        sales.setUnits(3);
+        sales.setRevenue(BigDecimal.valueOf(29.0));
+        sales.setOrders(2);
+        when(salesRollupService.getProductDailySales(day, day, 1L)).thenReturn(List.of(sales));
+
+        // Test
+        ResponseEntity<List<ProductDailySales>> result = reportController.getProductDailySales(day, day, 1L);
+
+        // Verification
+        assertEquals(HttpStatus.OK, result.getStatusCode());
+        assertEquals(3, result.getBody().get(0).getUnits());
+    }
+
+    @Test
+    void getProductHourlySales() {
+        // Mocking behavior
+        LocalDateTime from = LocalDateTime.of(2024, 4, 10, 0, 0);
+        LocalDateTime to = from.plusDays(1);
+        when(salesRollupService.getProductHourlySales(from, to, null)).thenReturn(List.of(new ProductHourlySales(), new ProductHourlySales()));
+
+        // Test
+        ResponseEntity<List<ProductHourlySales>> result = reportController.getProductHourlySales(from, to, null);
+
+        // Verification
+        assertEquals(2, result.getBody().size());
+    }
+
+    @Test
+    void getDiscountDailySales() {
+        // Mocking behavior
+        LocalDate day = LocalDate.of(2024, 4, 10);
+        when(salesRollupService.getDiscountDailySales(day, day, null)).thenReturn(List.of(new DiscountDailySales()));
+
+        // Test
+        ResponseEntity<List<DiscountDailySales>> result = reportController.getDiscountDailySales(day, day, null);
+
+        // Verification
+        assertEquals(1, result.getBody().size());
+    }
+
+    @Test
+    void backfill() {
+        // Mocking behavior
+        BackfillSummary summary = new BackfillSummary();
+        summary.setChunks(4);
+        when(salesRollupService.backfill()).thenReturn(summary);
+
+        // Test
+        ResponseEntity<BackfillSummary> result = reportController.backfill();
+
+        // Verification
+        assertEquals(HttpStatus.OK, result.getStatusCode());
+        assertEquals(4, result.getBody().getChunks());
+    }
+}
@@ -0,0 +1,190 @@
+package com.himanshu.departmentalStore.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.himanshu.departmentalStore.model.IdempotencyRecord;
+import com.himanshu.departmentalStore.service.IdempotencyService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Optional;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class IdempotencyFilterTest {
+
+    @Mock
+    private IdempotencyService idempotencyService;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @InjectMocks
+    private IdempotencyFilter idempotencyFilter;
+
+    private FilterChain filterChain = mock(FilterChain.class);
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.initMocks(this);
+    }
+
+    @Test
+    void firstRequest_ShouldBeProcessedAndStored() throws Exception {
+        when(idempotencyService.claim(eq("/orders:key-1"), any(), any())).thenReturn(Optional.empty());
+        doAnswer(invocation -> {
+            assertEquals("{\"productId\":1}", ((HttpServletRequest) invocation.getArgument(0)).getReader().readLine());
+            HttpServletResponse response = invocation.getArgument(1);
+            response.setStatus(201);
+            response.getWriter().write("{\"id\":1}");
+            return null;
+        }).when(filterChain).doFilter(any(), any());
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        idempotencyFilter.doFilter(createRequestMock("/orders", "key-1"), response, filterChain);
+
+        assertEquals(201, response.getStatus());
+        assertEquals("{\"id\":1}", response.getContentAsString());
+        verify(idempotencyService).complete(eq("/orders:key-1"), any(), eq(sha256("{\"productId\":1}")), eq(201), eq("{\"id\":1}"));
+        verify(idempotencyService, never()).release(any(), any());
+    }
+
+    @Test
+    void retry_ShouldReplayStoredResponse() throws Exception {
+        IdempotencyRecord completed = new IdempotencyRecord();
+        completed.setKey("/backorders:key-1");
+        completed.setStatusCode(202);
+        completed.setResponseBody("{\"message\":\"Backorder created\"}");
+        completed.setExpiresAt(LocalDateTime.now().plusHours(1));
+        when(idempotencyService.claim(eq("/backorders:key-1"), any(), any())).thenReturn(Optional.of(completed));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        idempotencyFilter.doFilter(createRequestMock("/backorders", "key-1"), response, filterChain);
+
+        assertEquals(202, response.getStatus());
+        assertEquals("true", response.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+        assertEquals("{\"message\":\"Backorder created\"}", response.getContentAsString());
+        verify(filterChain, never()).doFilter(any(), any());
+    }
+
+    @Test
+    void retryWithAnotherBody_ShouldReturnUnprocessableEntity() throws Exception {
+        IdempotencyRecord completed = new IdempotencyRecord();
+        completed.setKey("/orders:key-1");
+        completed.setRequestHash(sha256("{\"productId\":2}"));
+        completed.setStatusCode(201);
+        completed.setResponseBody("{\"id\":1}");
+        when(idempotencyService.claim(eq("/orders:key-1"), any(), any())).thenReturn(Optional.of(completed));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        idempotencyFilter.doFilter(createRequestMock("/orders", "key-1"), response, filterChain);
+
+        assertEquals(422, response.getStatus());
+        assertTrue(response.getContentAsString().contains("another request body"));
+        verify(idempotencyService).claim(eq("/orders:key-1"), any(), eq(sha256("{\"productId\":1}")));
+        verify(filterChain, never()).doFilter(any(), any());
+    }
+
+    @Test
+    void retryWhileInProgress_ShouldReturnConflict() throws Exception {
+        IdempotencyRecord inProgress = new IdempotencyRecord();
+        inProgress.setStatusCode(IdempotencyRecord.IN_PROGRESS);
+        when(idempotencyService.claim(eq("/orders:key-1"), any(), any())).thenReturn(Optional.of(inProgress));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        idempotencyFilter.doFilter(createRequestMock("/orders", "key-1"), response, filterChain);
+
+        assertEquals(409, response.getStatus());
+        assertTrue(response.getContentAsString().contains("still being processed"));
+        verify(filterChain, never()).doFilter(any(), any());
+    }
+
+    @Test
+    void failedRequest_ShouldReleaseKey() throws Exception {
+        when(idempotencyService.claim(eq("/orders:key-1"), any(), any())).thenReturn(Optional.empty());
+        doAnswer(invocation -> {
+            ((HttpServletResponse) invocation.getArgument(1)).setStatus(404);
+            return null;
+        }).when(filterChain).doFilter(any(), any());
+
+        idempotencyFilter.doFilter(createRequestMock("/orders", "key-1"), new MockHttpServletResponse(), filterChain);
+
+        // the key is released with the token it was claimed with
+        ArgumentCaptor<String> claimToken = ArgumentCaptor.forClass(String.class);
+        verify(idempotencyService).claim(eq("/orders:key-1"), claimToken.capture(), any());
+        verify(idempotencyService).release("/orders:key-1", claimToken.getValue());
+        verify(idempotencyService, never()).complete(any(), any(), any(), anyInt(), any());
+    }
+
+    @Test
+    void exceptionInChain_ShouldReleaseKey() throws Exception {
+        when(idempotencyService.claim(eq("/orders:key-1"), any(), any())).thenReturn(Optional.empty());
+        doThrow(new IllegalStateException("boom")).when(filterChain).doFilter(any(), any());
+
+        assertThrows(IllegalStateException.class, () -> idempotencyFilter
+                .doFilter(createRequestMock("/orders", "key-1"), new MockHttpServletResponse(), filterChain));
+
+        verify(idempotencyService).release(eq("/orders:key-1"), any());
+    }
+
+    @Test
+    void tooLongKey_ShouldReturnBadRequest() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        idempotencyFilter.doFilter(createRequestMock("/orders", "k".repeat(65)), response, filterChain);
+
+        assertEquals(400, response.getStatus());
+        verify(idempotencyService, never()).claim(any(), any(), any());
+    }
+
+    @Test
+    void requestsWithoutKeyOrOnOtherEndpoints_ShouldPassThrough() throws Exception {
+        MockHttpServletRequest withoutKey = createRequestMock("/orders", null);
+        MockHttpServletRequest cart = createRequestMock("/orders/cart", "key-1");
+        MockHttpServletRequest get = createRequestMock("/orders", "key-1");
+        get.setMethod("GET");
+
+        idempotencyFilter.doFilter(withoutKey, new MockHttpServletResponse(), filterChain);
+        idempotencyFilter.doFilter(cart, new MockHttpServletResponse(), filterChain);
+        idempotencyFilter.doFilter(get, new MockHttpServletResponse(), filterChain);
+
+        verify(idempotencyService, never()).claim(any(), any(), any());
+        verify(filterChain, times(3)).doFilter(any(), any());
+    }
+
+    private MockHttpServletRequest createRequestMock(String path, String key) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", path);
+        request.setContent("{\"productId\":1}".getBytes(StandardCharsets.UTF_8));
+        if (key != null) {
+            request.addHeader(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, key);
+        }
+        return request;
+    }
+
+    private String sha256(String body) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(body.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,220 @@
+package com.himanshu.departmentalStore.integration_test;
+
+import com.himanshu.departmentalStore.dto.OrderRequestBody;
+import com.himanshu.departmentalStore.model.Customer;
+import com.himanshu.departmentalStore.model.Product;
+import com.himanshu.departmentalStore.repository.BackorderRepository;
+import com.himanshu.departmentalStore.repository.CustomerRepository;
+import com.himanshu.departmentalStore.repository.OrderRepository;
+import com.himanshu.departmentalStore.repository.ProductRepository;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * GET /products and POST /orders under a high number of concurrent clients, with the production persistence profile.
+ * Run by a platform thread and a virtual thread subclass, with the same connection pool, which print the same report :
+ * requests/sec, p99 latency, peak heap and peak thread count, and the number of virtual threads pinning their carrier
+ * (JFR jdk.VirtualThreadPinned events) during the run.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("prod")
+@TestPropertySource(properties = "spring.datasource.hikari.maximum-pool-size=50")
+abstract class AbstractThreadModeBenchmark extends AbstractTestContainer {
+
+    static final int CONCURRENCY = 1_000;
+    static final int REQUESTS = 10_000;
+
+    @LocalServerPort
+    private int port;
+    @Autowired
+    private OrderRepository orderRepository;
+    @Autowired
+    private BackorderRepository backorderRepository;
+    @Autowired
+    private CustomerRepository customerRepository;
+    @Autowired
+    private ProductRepository productRepository;
+
+    private final HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+    private Customer customer;
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        orderRepository.deleteAllInBatch();
+        backorderRepository.deleteAllInBatch();
+        customer = new Customer();
+        customer.setFullName("Himanshu Kumar");
+        customer.setAddress("Delhi");
+        customer.setContactNumber("1234567890");
+        customerRepository.save(customer);
+        product = new Product();
+        product.setName("Benchmark product");
+        product.setPrice(BigDecimal.valueOf(10.0));
+        product.setExpiry(LocalDate.now().plusMonths(6));
+        product.setCount(REQUESTS * 10);
+        product.setAvailability(true);
+        productRepository.save(product);
+    }
+
+    @AfterEach
+    void tearDown() {
+        orderRepository.deleteAllInBatch();
+        backorderRepository.deleteAllInBatch();
+    }
+
+    /**
+     * The name of the thread mode, printed in the report.
+     */
+    abstract String mode();
+
+    /**
+     * Checks the number of pinning events of a run.
+     */
+    abstract void checkPinning(String endpoint, long pinnedEvents);
+
+    @Test
+    public void getProducts() throws Exception {
+        run("GET /products", i -> HttpRequest.newBuilder(uri("/products?limit=50")).GET().build(), 200);
+    }
+
+    @Test
+    public void createOrders() throws Exception {
+        String body = OrderIntegrationTest.asJsonString(newOrder());
+        run("POST /orders", i -> HttpRequest.newBuilder(uri("/orders"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build(), 201);
+        assertEquals(REQUESTS, orderRepository.count());
+    }
+
+    private void run(String endpoint, IntFunction<HttpRequest> request, int expectedStatus) throws Exception {
+        // warm up : JIT, connection pools, prepared statement caches
+        send(request, CONCURRENCY / 10, REQUESTS / 10, expectedStatus);
+        orderRepository.deleteAllInBatch();
+
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        threads.resetPeakThreadCount();
+        AtomicLong peakHeap = new AtomicLong();
+        Thread sampler = new Thread(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                peakHeap.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max);
+                try {
+                    Thread.sleep(20);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        });
+        Path jfr = Files.createTempFile("pinning", ".jfr");
+        long pinned;
+        Result result;
+        try (Recording recording = new Recording()) {
+            // every pin, however short : the default threshold (20 ms) hides the JDBC calls pinning for a few milliseconds
+            recording.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO).withStackTrace();
+            recording.start();
+            sampler.start();
+            result = send(request, CONCURRENCY, REQUESTS, expectedStatus);
+            sampler.interrupt();
+            recording.stop();
+            recording.dump(jfr);
+            pinned = 0;
+            for (RecordedEvent event : RecordingFile.readAllEvents(jfr)) {
+                pinned++;
+                System.out.println("Pinned carrier thread : " + event.getStackTrace());
+            }
+        } finally {
+            Files.deleteIfExists(jfr);
+        }
+        System.out.printf("%s, %s threads, %d clients : %.0f requests/sec, p50 %.1f ms, p99 %.1f ms, "
+                        + "peak heap %d MB, peak threads %d, pinned %d%n",
+                endpoint, mode(), CONCURRENCY, result.throughput, result.percentile(50), result.percentile(99),
+                peakHeap.get() / (1024 * 1024), threads.getPeakThreadCount(), pinned);
+        assertEquals(0, result.errors.get(), "requests failed or got an unexpected status");
+        checkPinning(endpoint, pinned);
+    }
+
+    private Result send(IntFunction<HttpRequest> request, int concurrency, int requests, int expectedStatus) throws Exception {
+        Semaphore inFlight = new Semaphore(concurrency);
+        List<Long> latencies = Collections.synchronizedList(new ArrayList<>(requests));
+        AtomicInteger errors = new AtomicInteger();
+        List<CompletableFuture<?>> futures = new ArrayList<>(requests);
+        long begin = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            inFlight.acquire();
+            long start = System.nanoTime();
+            futures.add(httpClient.sendAsync(request.apply(i), HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, failure) -> {
+                        latencies.add(System.nanoTime() - start);
+                        if (failure != null || response.statusCode() != expectedStatus) {
+                            errors.incrementAndGet();
+                        }
+                        inFlight.release();
+                    }));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).handle((ignored, failure) -> null).get();
+        long elapsed = System.nanoTime() - begin;
+        return new Result(requests / (elapsed / 1_000_000_000.0), latencies, errors);
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private OrderRequestBody newOrder() {
+        OrderRequestBody orderRequestBody = new OrderRequestBody();
+        orderRequestBody.setProductId(product.getId());
+        orderRequestBody.setCustomerId(customer.getId());
+        orderRequestBody.setQuantity(1);
+        return orderRequestBody;
+    }
+
+    private static final class Result {
+        private final double throughput;
+        private final List<Long> latencies;
+        private final AtomicInteger errors;
+
+        private Result(double requestsPerSecond, List<Long> latencyNanos, AtomicInteger failed) {
+            this.throughput = requestsPerSecond;
+            this.latencies = new ArrayList<>(latencyNanos);
+            Collections.sort(this.latencies);
+            this.errors = failed;
+        }
+
+        private double percentile(int percent) {
+            int index = Math.min(latencies.size() - 1, (int) Math.ceil(latencies.size() * percent / 100.0) - 1);
+            return latencies.get(Math.max(index, 0)) / 1_000_000.0;
+        }
+    }
+}
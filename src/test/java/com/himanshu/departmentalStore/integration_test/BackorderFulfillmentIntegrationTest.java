@@ -0,0 +1,176 @@
+package com.himanshu.departmentalStore.integration_test;
+
+import com.himanshu.departmentalStore.model.Backorder;
+import com.himanshu.departmentalStore.model.Customer;
+import com.himanshu.departmentalStore.model.Product;
+import com.himanshu.departmentalStore.repository.BackorderRepository;
+import com.himanshu.departmentalStore.repository.CustomerRepository;
+import com.himanshu.departmentalStore.repository.NotificationOutboxRepository;
+import com.himanshu.departmentalStore.repository.OrderRepository;
+import com.himanshu.departmentalStore.repository.ProductRepository;
+import com.himanshu.departmentalStore.service.BackorderFulfillmentEngine;
+import com.himanshu.departmentalStore.service.NotificationDispatcher;
+import com.himanshu.departmentalStore.service.ProductService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Restocks a product awaited by thousands of backorders, with the production persistence profile (JDBC batches).
+ * The oldest backorders which fit become orders, in a number of statements which does not grow with one per backorder,
+ * and their notifications are written to the outbox, then delivered by the dispatcher (run by hand here).
+ */
+@SpringBootTest(properties = {"spring.jpa.properties.hibernate.generate_statistics=true",
+        "notifications.dispatch.interval=PT1H"})
+@ActiveProfiles("prod")
+public class BackorderFulfillmentIntegrationTest extends AbstractTestContainer {
+
+    private static final int BACKORDERS = 3500;
+    private static final int RESTOCK = 3000;
+
+    @Autowired
+    private ProductService productService;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private CustomerRepository customerRepository;
+    @Autowired
+    private BackorderRepository backorderRepository;
+    @Autowired
+    private OrderRepository orderRepository;
+    @Autowired
+    private BackorderFulfillmentEngine backorderFulfillmentEngine;
+    @Autowired
+    private NotificationOutboxRepository notificationOutboxRepository;
+    @Autowired
+    private NotificationDispatcher notificationDispatcher;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Product product;
+    private Backorder tooLarge;
+    private LocalDateTime start;
+
+    @BeforeEach
+    void setUp() {
+        Customer customer = new Customer();
+        customer.setFullName("Himanshu Kumar");
+        customer.setAddress("Delhi");
+        customer.setContactNumber("1234567890");
+        customerRepository.save(customer);
+
+        product = new Product();
+        product.setName("Restocked product");
+        product.setPrice(BigDecimal.valueOf(10.0));
+        product.setExpiry(LocalDate.now().plusMonths(6));
+        product.setCount(0);
+        product.setAvailability(true);
+        productRepository.save(product);
+
+        start = LocalDateTime.now().minusDays(1).truncatedTo(ChronoUnit.SECONDS);
+        List<Backorder> backorders = new ArrayList<>();
+        // the restock is less than half of the oldest backorder, too little for a partial fill : it is skipped
+        tooLarge = createBackorder(customer, start.minusMinutes(1), 2 * RESTOCK + 1);
+        backorders.add(tooLarge);
+        for (int i = 0; i < BACKORDERS; i++) {
+            backorders.add(createBackorder(customer, start.plusSeconds(i), 1));
+        }
+        backorderRepository.saveAll(backorders);
+        // saved straight to the table, as by another instance : queued by the rebuild
+        backorderFulfillmentEngine.rebuild();
+    }
+
+    @AfterEach
+    void tearDown() {
+        notificationOutboxRepository.deleteAllInBatch();
+        orderRepository.deleteAllInBatch();
+        backorderRepository.deleteAllInBatch();
+        productRepository.deleteAllInBatch();
+        customerRepository.deleteAllInBatch();
+    }
+
+    @Test
+    public void restockFulfillsOldestBackordersFirst() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        Product restock = productRepository.findById(product.getId()).get();
+        restock.setVersion(null);
+        restock.setCount(RESTOCK);
+        statistics.clear();
+
+        long begin = System.nanoTime();
+        productService.updateProduct(product.getId(), restock);
+        long elapsedMillis = (System.nanoTime() - begin) / 1_000_000;
+        System.out.printf("%d backorders fulfilled in %d ms, %d statements%n",
+                RESTOCK, elapsedMillis, statistics.getPrepareStatementCount());
+
+        assertEquals(RESTOCK, orderRepository.count());
+        assertEquals(0, productRepository.findById(product.getId()).get().getCount());
+        List<Backorder> left = backorderRepository.findAll();
+        assertEquals(BACKORDERS - RESTOCK + 1, left.size());
+        assertTrue(left.stream().anyMatch(backorder -> backorder.getId().equals(tooLarge.getId())));
+        // the newest ones are left waiting
+        LocalDateTime oldestLeft = left.stream()
+                .filter(backorder -> backorder.getQuantity() == 1)
+                .map(Backorder::getTimestamp)
+                .min(Comparator.naturalOrder()).get();
+        assertEquals(start.plusSeconds(RESTOCK), oldestLeft);
+        // order and outbox inserts and rollup upserts in batches, one DELETE : far fewer statements than backorders
+        assertTrue(statistics.getPrepareStatementCount() < RESTOCK / 10, statistics.getPrepareStatementCount() + " statements");
+
+        // one notification per order, committed with them, delivered by the next runs of the dispatcher
+        assertEquals(RESTOCK, notificationOutboxRepository.count());
+        // 3000 notifications, 1000 a run
+        for (int run = 0; run < 3; run++) {
+            notificationDispatcher.dispatch();
+        }
+        assertEquals(0, notificationOutboxRepository.count());
+        assertEquals(0, notificationDispatcher.getBacklog());
+    }
+
+    @Test
+    public void restockWithoutBackordersSkipsFulfillment() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        Product other = new Product();
+        other.setName("Product nobody waits for");
+        other.setPrice(BigDecimal.valueOf(5.0));
+        other.setExpiry(LocalDate.now().plusMonths(6));
+        other.setCount(0);
+        other.setAvailability(true);
+        productRepository.save(other);
+        Product restock = productRepository.findById(other.getId()).get();
+        restock.setVersion(null);
+        restock.setCount(RESTOCK);
+        statistics.clear();
+
+        productService.updateProduct(other.getId(), restock);
+
+        // the product read and updated, nothing read from the backorders
+        assertEquals(0, statistics.getEntityStatistics(Backorder.class.getName()).getLoadCount());
+        assertTrue(statistics.getPrepareStatementCount() <= 3, statistics.getPrepareStatementCount() + " statements");
+        assertEquals(BACKORDERS + 1, backorderRepository.count());
+    }
+
+    private Backorder createBackorder(Customer customer, LocalDateTime timestamp, int quantity) {
+        Backorder backorder = new Backorder();
+        backorder.setProduct(product);
+        backorder.setCustomer(customer);
+        backorder.setTimestamp(timestamp);
+        backorder.setQuantity(quantity);
+        return backorder;
+    }
+}
@@ -0,0 +1,107 @@
+package com.himanshu.departmentalStore.integration_test;
+
+import com.himanshu.departmentalStore.model.Product;
+import com.himanshu.departmentalStore.repository.ProductRepository;
+import com.himanshu.departmentalStore.service.ProductCatalogService;
+import com.himanshu.departmentalStore.service.ProductService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongFunction;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Product lookups by id per second, with the production persistence profile.
+ * "Repository" is the previous path of ProductService.getProductById, one SELECT by primary key per lookup.
+ * "Catalog" reads the same products from the in-process snapshot.
+ */
+@SpringBootTest
+@ActiveProfiles("prod")
+public class CatalogThroughputIntegrationTest extends AbstractTestContainer {
+
+    private static final int THREADS = 16;
+    private static final int PRODUCTS = 500;
+    private static final int REPOSITORY_LOOKUPS = 20_000;
+    private static final int CATALOG_LOOKUPS = 20_000_000;
+
+    @Autowired
+    private ProductService productService;
+    @Autowired
+    private ProductCatalogService productCatalogService;
+    @Autowired
+    private ProductRepository productRepository;
+
+    private final List<Long> productIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < PRODUCTS; i++) {
+            Product product = new Product();
+            product.setName("Product " + i);
+            product.setPrice(BigDecimal.valueOf(10.0));
+            product.setExpiry(LocalDate.now().plusMonths(6));
+            product.setCount(100);
+            product.setAvailability(true);
+            productIds.add(productRepository.save(product).getId());
+        }
+        productCatalogService.reload();
+    }
+
+    @AfterEach
+    void tearDown() {
+        productRepository.deleteAllInBatch();
+    }
+
+    @Test
+    public void catalogOutrunsTheRepository() throws Exception {
+        Long[] ids = productIds.toArray(new Long[0]);
+        double repository = runConcurrently(REPOSITORY_LOOKUPS,
+                i -> productRepository.findById(ids[(int) (i % ids.length)]).orElseThrow().getId());
+        double catalog = runConcurrently(CATALOG_LOOKUPS,
+                i -> productService.getProductById(ids[(int) (i % ids.length)]).getId());
+        System.out.printf("%d products, %d threads : repository %.0f lookups/sec, catalog %.0f lookups/sec (x%.0f)%n",
+                PRODUCTS, THREADS, repository, catalog, catalog / repository);
+
+        assertEquals(PRODUCTS, productIds.size());
+        assertTrue(catalog > 100 * repository, "the catalog should not be bound by the database round trip");
+    }
+
+    private double runConcurrently(int lookups, LongFunction<Long> lookUp) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Long>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            int share = lookups / THREADS + (i < lookups % THREADS ? 1 : 0);
+            futures.add(executor.submit(() -> {
+                start.await();
+                long sum = 0;
+                for (long j = 0; j < share; j++) {
+                    sum += lookUp.apply(j);
+                }
+                return sum;
+            }));
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Future<Long> future : futures) {
+            future.get();
+        }
+        long elapsed = System.nanoTime() - begin;
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.MINUTES);
+        return lookups / (elapsed / 1_000_000_000.0);
+    }
+}
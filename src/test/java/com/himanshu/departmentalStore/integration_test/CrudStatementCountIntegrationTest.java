@@ -0,0 +1,241 @@
+package com.himanshu.departmentalStore.integration_test;
+
+import com.himanshu.departmentalStore.dto.BackOrderRequestBody;
+import com.himanshu.departmentalStore.model.Backorder;
+import com.himanshu.departmentalStore.model.Customer;
+import com.himanshu.departmentalStore.model.Discount;
+import com.himanshu.departmentalStore.model.Product;
+import com.himanshu.departmentalStore.repository.BackorderRepository;
+import com.himanshu.departmentalStore.repository.CustomerRepository;
+import com.himanshu.departmentalStore.repository.DiscountRepository;
+import com.himanshu.departmentalStore.repository.ProductRepository;
+import com.himanshu.departmentalStore.service.ProductCatalogService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Counts the JDBC statements of the PUT and DELETE requests of customers, discounts, backorders and products :
+ * each is a single UPDATE or DELETE, whose affected row count tells a missing id (404) without reading it first.
+ * Customers are the exception : they are read from the second-level cache and changed as entities,
+ * so that a change does not empty the customer region.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"spring.jpa.properties.hibernate.generate_statistics=true", "catalog.stock-refresh-interval=PT1H"})
+@AutoConfigureMockMvc
+public class CrudStatementCountIntegrationTest extends AbstractTestContainer {
+
+    private static final long MISSING_ID = 999_999L;
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private CustomerRepository customerRepository;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private DiscountRepository discountRepository;
+    @Autowired
+    private BackorderRepository backorderRepository;
+    @Autowired
+    private ProductCatalogService productCatalogService;
+
+    private Statistics statistics;
+    private Customer customer;
+    private Product product;
+    private Discount discount;
+    private Backorder backorder;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        customer = new Customer();
+        customer.setFullName("Himanshu Kumar");
+        customer.setAddress("Delhi");
+        customer.setContactNumber("1234567890");
+        customerRepository.save(customer);
+        product = new Product();
+        product.setName("Product 1");
+        product.setPrice(BigDecimal.valueOf(100.0));
+        product.setExpiry(LocalDate.now().plusMonths(6));
+        product.setCount(0);
+        product.setAvailability(true);
+        productRepository.save(product);
+        discount = new Discount();
+        discount.setName("Discount 1");
+        discount.setValue(BigDecimal.valueOf(10.0));
+        discount.setStartDateTime(LocalDateTime.now().minusDays(1));
+        discount.setEndDateTime(LocalDateTime.now().plusDays(7));
+        discount.setMinPrice(BigDecimal.valueOf(100.0));
+        discount.setCouponCode("CRUD10");
+        discountRepository.save(discount);
+        backorder = new Backorder();
+        backorder.setProduct(product);
+        backorder.setCustomer(customer);
+        backorder.setTimestamp(LocalDateTime.now());
+        backorder.setQuantity(2);
+        backorderRepository.save(backorder);
+    }
+
+    @AfterEach
+    void tearDown() {
+        backorderRepository.deleteAll();
+        customerRepository.deleteAll();
+        productRepository.deleteAll();
+        discountRepository.deleteAll();
+    }
+
+    @Test
+    public void updateCustomer() throws Exception {
+        customer.setAddress("Noida");
+        statistics.clear();
+
+        perform(MockMvcRequestBuilders.put("/customers/{id}", customer.getId()).content(OrderIntegrationTest.asJsonString(customer)))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.address").value("Noida"));
+
+        // the UPDATE : the customer is read from the second-level cache
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals("Noida", customerRepository.findById(customer.getId()).get().getAddress());
+    }
+
+    @Test
+    public void updateCustomerKeepsTheOtherCustomersCached() throws Exception {
+        Customer other = new Customer();
+        other.setFullName("Rahul Kumar");
+        other.setAddress("Delhi");
+        other.setContactNumber("1234567891");
+        customerRepository.save(other);
+        customer.setAddress("Noida");
+        perform(MockMvcRequestBuilders.put("/customers/{id}", customer.getId()).content(OrderIntegrationTest.asJsonString(customer)))
+                .andExpect(status().isOk());
+        statistics.clear();
+
+        Customer updated = customerRepository.findById(customer.getId()).get();
+        customerRepository.findById(other.getId());
+
+        // the update replaced its own entry only : both customers are still read from the cache
+        CacheRegionStatistics customers = statistics.getDomainDataRegionStatistics("customer");
+        assertEquals(2, customers.getHitCount());
+        assertEquals(0, customers.getMissCount());
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals("Noida", updated.getAddress());
+    }
+
+    @Test
+    public void updateMissingCustomer() throws Exception {
+        statistics.clear();
+
+        perform(MockMvcRequestBuilders.put("/customers/{id}", MISSING_ID).content(OrderIntegrationTest.asJsonString(customer)))
+                .andExpect(status().isNotFound())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.message").value("Customer not found with Id : " + MISSING_ID));
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void deleteCustomer() throws Exception {
+        Customer other = new Customer();
+        other.setFullName("Rahul Kumar");
+        other.setAddress("Delhi");
+        other.setContactNumber("1234567891");
+        customerRepository.save(other);
+        statistics.clear();
+
+        perform(MockMvcRequestBuilders.delete("/customers/{id}", other.getId())).andExpect(status().isOk());
+        perform(MockMvcRequestBuilders.delete("/customers/{id}", other.getId())).andExpect(status().isNotFound());
+
+        // the customer from the cache and its DELETE, then the SELECT which finds no row
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    public void updateAndDeleteDiscount() throws Exception {
+        discount.setName("Discount 2");
+        discount.setValue(BigDecimal.valueOf(12.50));
+        discount.setMinPrice(BigDecimal.valueOf(50.0));
+        statistics.clear();
+
+        perform(MockMvcRequestBuilders.put("/discounts/{id}", discount.getId()).content(OrderIntegrationTest.asJsonString(discount)))
+                .andExpect(status().isOk());
+        // the UPDATE, then the reload of the active discount index
+        assertEquals(2, statistics.getPrepareStatementCount());
+        Discount updated = discountRepository.findById(discount.getId()).get();
+        assertEquals(new BigDecimal("12.50"), updated.getValue());
+        assertEquals(new BigDecimal("50.00"), updated.getMinPrice());
+
+        statistics.clear();
+        perform(MockMvcRequestBuilders.delete("/discounts/{id}", MISSING_ID)).andExpect(status().isNotFound());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void updateBackorder() throws Exception {
+        BackOrderRequestBody body = new BackOrderRequestBody();
+        body.setProductId(product.getId());
+        body.setCustomerId(customer.getId());
+        body.setQuantity(5);
+        productCatalogService.reload();
+        customerRepository.findById(customer.getId());
+        statistics.clear();
+
+        perform(MockMvcRequestBuilders.put("/backorders/{id}", backorder.getId()).content(OrderIntegrationTest.asJsonString(body)))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.quantity").value(5))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.product.id").value(product.getId()));
+
+        // the UPDATE : the product of the response comes from the catalog, the customer from the second-level cache
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void updateBackorderOfMissingProduct() throws Exception {
+        BackOrderRequestBody body = new BackOrderRequestBody();
+        body.setProductId(MISSING_ID);
+        body.setCustomerId(customer.getId());
+        body.setQuantity(5);
+
+        perform(MockMvcRequestBuilders.put("/backorders/{id}", backorder.getId()).content(OrderIntegrationTest.asJsonString(body)))
+                .andExpect(status().isNotFound())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.message").value("Product not found with Id : " + MISSING_ID));
+
+        assertEquals(2, backorderRepository.findById(backorder.getId()).get().getQuantity());
+    }
+
+    @Test
+    public void deleteBackorderAndProduct() throws Exception {
+        statistics.clear();
+
+        perform(MockMvcRequestBuilders.delete("/backorders/{id}", backorder.getId())).andExpect(status().isOk());
+        perform(MockMvcRequestBuilders.delete("/products/{id}", product.getId())).andExpect(status().isOk());
+
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertFalse(productRepository.existsById(product.getId()));
+    }
+
+    private ResultActions perform(MockHttpServletRequestBuilder request) throws Exception {
+        return mockMvc.perform(request.contentType(MediaType.APPLICATION_JSON).accept(MediaType.APPLICATION_JSON));
+    }
+}
@@ -0,0 +1,181 @@
+package com.himanshu.departmentalStore.integration_test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.himanshu.departmentalStore.model.Customer;
+import com.himanshu.departmentalStore.model.Order;
+import com.himanshu.departmentalStore.model.Product;
+import com.himanshu.departmentalStore.repository.CustomerRepository;
+import com.himanshu.departmentalStore.repository.OrderRepository;
+import com.himanshu.departmentalStore.repository.ProductRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * GET /customers/{id}/orders : walks the history page by page, newest first, one statement per page,
+ * and checks that MySQL answers the history query from the (customer_id, timestamp, ...) index alone.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureMockMvc
+@ActiveProfiles("prod")
+public class CustomerOrderHistoryIntegrationTest extends AbstractTestContainer {
+
+    private static final int ROWS = 25;
+    private static final LocalDateTime FIRST_ORDER = LocalDateTime.of(2024, 4, 1, 10, 0);
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private OrderRepository orderRepository;
+    @Autowired
+    private CustomerRepository customerRepository;
+    @Autowired
+    private ProductRepository productRepository;
+
+    private Statistics statistics;
+    private Customer customer;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        customer = customerRepository.save(createCustomer("Himanshu Kumar"));
+        Customer otherCustomer = customerRepository.save(createCustomer("Rahul Singh"));
+        Product product = new Product();
+        product.setName("Product 1");
+        product.setPrice(BigDecimal.valueOf(10.0));
+        product.setExpiry(LocalDate.now().plusMonths(6));
+        product.setCount(100);
+        product.setAvailability(true);
+        productRepository.save(product);
+
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            // one order a day, and two orders at the same time on the last day to check the id tie-break
+            LocalDateTime timestamp = FIRST_ORDER.plusDays(Math.min(i, ROWS - 2));
+            orders.add(createOrder(product, customer, timestamp));
+            orders.add(createOrder(product, otherCustomer, timestamp));
+        }
+        orderRepository.saveAll(orders);
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        orderRepository.deleteAllInBatch();
+        customerRepository.deleteAll();
+        productRepository.deleteAll();
+    }
+
+    @Test
+    public void walkHistory() throws Exception {
+        Set<Long> seen = new HashSet<>();
+        LocalDateTime previous = LocalDateTime.MAX;
+        String cursor = null;
+        int pages = 0;
+        do {
+            MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                    .get("/customers/{id}/orders", customer.getId())
+                    .param("limit", "10")
+                    .accept("application/json");
+            if (cursor != null) {
+                request.param("cursor", cursor);
+            }
+            JsonNode page = objectMapper.readTree(mockMvc.perform(request)
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString());
+            for (JsonNode order : page.get("items")) {
+                LocalDateTime timestamp = LocalDateTime.parse(order.get("timestamp").asText());
+                assertTrue(!timestamp.isAfter(previous));
+                previous = timestamp;
+                assertTrue(seen.add(order.get("id").asLong()));
+            }
+            cursor = page.get("nextCursor").isNull() ? null : page.get("nextCursor").asText();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(ROWS, seen.size());
+        assertEquals(3, pages);
+        assertEquals(pages, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void historyInDateRange() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders
+                        .get("/customers/{id}/orders", customer.getId())
+                        .param("from", FIRST_ORDER.plusDays(2).toString())
+                        .param("to", FIRST_ORDER.plusDays(5).toString())
+                        .accept("application/json"))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.items.length()").value(3))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.items[0].timestamp").value(FIRST_ORDER.plusDays(4).toString() + ":00"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.items[0].product").doesNotExist())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    public void historyOfUnknownCustomer() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders
+                        .get("/customers/{id}/orders", customer.getId() + 1000)
+                        .accept("application/json"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void historyIsReadFromTheIndexOnly() {
+        Map<String, Object> plan = jdbcTemplate.queryForMap("EXPLAIN SELECT id, timestamp, product_id, quantity, amount, discount_id"
+                + " FROM customer_order WHERE customer_id = ? AND timestamp >= ? AND timestamp < ?"
+                + " ORDER BY timestamp DESC, id DESC LIMIT 51", customer.getId(), FIRST_ORDER, FIRST_ORDER.plusYears(1));
+
+        assertEquals("idx_customer_order_customer_id_timestamp", plan.get("key"));
+        assertTrue(String.valueOf(plan.get("Extra")).contains("Using index"));
+    }
+
+    private Customer createCustomer(String fullName) {
+        Customer newCustomer = new Customer();
+        newCustomer.setFullName(fullName);
+        newCustomer.setAddress("Delhi");
+        newCustomer.setContactNumber("1234567890");
+        return newCustomer;
+    }
+
+    private Order createOrder(Product product, Customer orderCustomer, LocalDateTime timestamp) {
+        Order order = new Order();
+        order.setProduct(product);
+        order.setCustomer(orderCustomer);
+        order.setQuantity(1);
+        order.setTimestamp(timestamp);
+        order.setAmount(BigDecimal.valueOf(10.0));
+        return order;
+    }
+}
@@ -16,6 +16,7 @@ import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
@@ -115,6 +116,8 @@ public class DiscountIntegrationTest extends AbstractTestContainer{
         discountRepository.save(discount);
 
         discount.setName("Updated Discount");
+        discount.setValue(BigDecimal.valueOf(12.50));
+        discount.setMinPrice(BigDecimal.valueOf(250.75));
         mockMvc.perform(MockMvcRequestBuilders
                         .put("/discounts/{id}", discount.getId())
                         .contentType("application/json")
@@ -122,6 +125,11 @@ public class DiscountIntegrationTest extends AbstractTestContainer{
                         .accept("application/json"))
                 .andExpect(status().isOk())
                 .andExpect(MockMvcResultMatchers.jsonPath("$.name").value("Updated Discount"));
+
+        Discount updated = discountRepository.findById(discount.getId()).get();
+        assertEquals("Updated Discount", updated.getName());
+        assertEquals(new BigDecimal("12.50"), updated.getValue());
+        assertEquals(new BigDecimal("250.75"), updated.getMinPrice());
     }
 
     @Test
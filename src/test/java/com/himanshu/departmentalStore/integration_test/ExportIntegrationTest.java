@@ -0,0 +1,124 @@
+package com.himanshu.departmentalStore.integration_test;
+
+import com.himanshu.departmentalStore.model.Customer;
+import com.himanshu.departmentalStore.model.Order;
+import com.himanshu.departmentalStore.model.Product;
+import com.himanshu.departmentalStore.repository.CustomerRepository;
+import com.himanshu.departmentalStore.repository.OrderRepository;
+import com.himanshu.departmentalStore.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Exports through the MySQL streaming result set, with the prod profile (no open-in-view session).
+ * More rows than the eviction interval are exported, so the persistence context is cleared while the result set is open.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureMockMvc
+@ActiveProfiles("prod")
+public class ExportIntegrationTest extends AbstractTestContainer {
+
+    private static final int ROWS = 2_500;
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private OrderRepository orderRepository;
+    @Autowired
+    private CustomerRepository customerRepository;
+    @Autowired
+    private ProductRepository productRepository;
+
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        Customer customer = new Customer();
+        customer.setFullName("Kumar, Himanshu");
+        customer.setAddress("Delhi");
+        customer.setContactNumber("1234567890");
+        customerRepository.save(customer);
+        product = new Product();
+        product.setName("Product 1");
+        product.setPrice(BigDecimal.valueOf(10.0));
+        product.setExpiry(LocalDate.now().plusMonths(6));
+        product.setCount(100);
+        product.setAvailability(true);
+        productRepository.save(product);
+
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            Order order = new Order();
+            order.setProduct(product);
+            order.setCustomer(customer);
+            order.setQuantity(1);
+            order.setTimestamp(LocalDateTime.now());
+            order.setAmount(BigDecimal.valueOf(10.0));
+            orders.add(order);
+        }
+        orderRepository.saveAll(orders);
+    }
+
+    @AfterEach
+    void tearDown() {
+        orderRepository.deleteAllInBatch();
+        customerRepository.deleteAll();
+        productRepository.deleteAll();
+    }
+
+    @Test
+    public void exportOrdersAsNdjson() throws Exception {
+        String body = mockMvc.perform(MockMvcRequestBuilders.get("/orders/export"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+        String[] lines = body.split("\n");
+        assertEquals(ROWS, lines.length);
+        assertTrue(lines[ROWS - 1].contains("\"productId\":" + product.getId()));
+    }
+
+    @Test
+    public void exportOrdersAsCsv() throws Exception {
+        String body = mockMvc.perform(MockMvcRequestBuilders.get("/orders/export").param("format", "csv"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"orders.csv\""))
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+        String[] lines = body.split("\r\n");
+        assertEquals(ROWS + 1, lines.length);
+        assertEquals("id,productId,customerId,discountId,timestamp,quantity,amount", lines[0]);
+    }
+
+    @Test
+    public void exportCustomersAsCsv() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/customers/export").param("format", "csv"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("\"Kumar, Himanshu\",Delhi,1234567890")));
+    }
+
+    @Test
+    public void exportUnsupportedFormat() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/products/export").param("format", "xml"))
+                .andExpect(status().isBadRequest());
+    }
+}
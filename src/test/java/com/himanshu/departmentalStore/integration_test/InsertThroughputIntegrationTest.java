@@ -0,0 +1,148 @@
+package com.himanshu.departmentalStore.integration_test;
+
+import com.himanshu.departmentalStore.model.Backorder;
+import com.himanshu.departmentalStore.model.Customer;
+import com.himanshu.departmentalStore.model.Order;
+import com.himanshu.departmentalStore.model.Product;
+import com.himanshu.departmentalStore.repository.BackorderRepository;
+import com.himanshu.departmentalStore.repository.CustomerRepository;
+import com.himanshu.departmentalStore.repository.OrderRepository;
+import com.himanshu.departmentalStore.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Insert throughput of orders and backorders, with the production persistence profile.
+ * "Before" replays what GenerationType.IDENTITY forces : one INSERT and one generated key round trip per row.
+ * "After" saves the same rows with saveAll, pooled ids and hibernate JDBC batching.
+ */
+@SpringBootTest
+@ActiveProfiles("prod")
+public class InsertThroughputIntegrationTest extends AbstractTestContainer {
+
+    private static final int ROWS = 5_000;
+
+    @Autowired
+    private OrderRepository orderRepository;
+    @Autowired
+    private BackorderRepository backorderRepository;
+    @Autowired
+    private CustomerRepository customerRepository;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Customer customer;
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        orderRepository.deleteAllInBatch();
+        backorderRepository.deleteAllInBatch();
+        customer = new Customer();
+        customer.setFullName("Himanshu Kumar");
+        customer.setAddress("Delhi");
+        customer.setContactNumber("1234567890");
+        customerRepository.save(customer);
+        product = new Product();
+        product.setName("Product 1");
+        product.setPrice(BigDecimal.valueOf(10.0));
+        product.setExpiry(LocalDate.now().plusMonths(6));
+        product.setCount(100);
+        product.setAvailability(true);
+        productRepository.save(product);
+    }
+
+    @AfterEach
+    void tearDown() {
+        orderRepository.deleteAllInBatch();
+        backorderRepository.deleteAllInBatch();
+        customerRepository.deleteAll();
+        productRepository.deleteAll();
+    }
+
+    @Test
+    public void orderInsertThroughput() {
+        double before = rowsPerSecond(() -> {
+            for (int i = 0; i < ROWS; i++) {
+                insertWithIdentity("INSERT INTO customer_order (product_id, customer_id, timestamp, quantity, amount) "
+                        + "VALUES (?, ?, ?, 1, 10.0)");
+            }
+        });
+        orderRepository.deleteAllInBatch();
+
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            Order order = new Order();
+            order.setProduct(product);
+            order.setCustomer(customer);
+            order.setQuantity(1);
+            order.setTimestamp(LocalDateTime.now());
+            order.setAmount(BigDecimal.valueOf(10.0));
+            orders.add(order);
+        }
+        double after = rowsPerSecond(() -> orderRepository.saveAll(orders));
+
+        System.out.printf("Order inserts : %.0f rows/sec with IDENTITY, %.0f rows/sec pooled + batched%n", before, after);
+        assertEquals(ROWS, orderRepository.count());
+    }
+
+    @Test
+    public void backorderInsertThroughput() {
+        double before = rowsPerSecond(() -> {
+            for (int i = 0; i < ROWS; i++) {
+                insertWithIdentity("INSERT INTO backorder (product_id, customer_id, timestamp, quantity) VALUES (?, ?, ?, 1)");
+            }
+        });
+        backorderRepository.deleteAllInBatch();
+
+        List<Backorder> backorders = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            Backorder backorder = new Backorder();
+            backorder.setProduct(product);
+            backorder.setCustomer(customer);
+            backorder.setQuantity(1);
+            backorder.setTimestamp(LocalDateTime.now());
+            backorders.add(backorder);
+        }
+        double after = rowsPerSecond(() -> backorderRepository.saveAll(backorders));
+
+        System.out.printf("Backorder inserts : %.0f rows/sec with IDENTITY, %.0f rows/sec pooled + batched%n", before, after);
+        assertEquals(ROWS, backorderRepository.count());
+    }
+
+    private void insertWithIdentity(String sql) {
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+            statement.setLong(1, product.getId());
+            statement.setLong(2, customer.getId());
+            statement.setTimestamp(3, Timestamp.valueOf(LocalDateTime.now()));
+            return statement;
+        }, new GeneratedKeyHolder());
+    }
+
+    private double rowsPerSecond(Runnable inserts) {
+        long start = System.nanoTime();
+        transactionTemplate.executeWithoutResult(status -> inserts.run());
+        return ROWS / ((System.nanoTime() - start) / 1_000_000_000.0);
+    }
+}
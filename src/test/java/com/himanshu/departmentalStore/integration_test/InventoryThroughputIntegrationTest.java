@@ -0,0 +1,171 @@
+package com.himanshu.departmentalStore.integration_test;
+
+import com.himanshu.departmentalStore.exception.CustomException;
+import com.himanshu.departmentalStore.model.Customer;
+import com.himanshu.departmentalStore.model.Order;
+import com.himanshu.departmentalStore.model.Product;
+import com.himanshu.departmentalStore.repository.BackorderRepository;
+import com.himanshu.departmentalStore.repository.CustomerRepository;
+import com.himanshu.departmentalStore.repository.OrderRepository;
+import com.himanshu.departmentalStore.repository.ProductRepository;
+import com.himanshu.departmentalStore.service.InventoryEngine;
+import com.himanshu.departmentalStore.service.OrderService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Reservations per second on a single product, with the production persistence profile.
+ * "Row lock" is the guarded UPDATE of the database mode : every reservation of the product waits for the lock of its row.
+ * "Engine" reserves from the in-memory counters, and the stock reaches the product table with the write-behind flush.
+ */
+@SpringBootTest(properties = "inventory.engine.enabled=true")
+@ActiveProfiles("prod")
+public class InventoryThroughputIntegrationTest extends AbstractTestContainer {
+
+    private static final int THREADS = 16;
+    private static final int ROW_LOCK_RESERVATIONS = 2_000;
+    private static final int ENGINE_RESERVATIONS = 400_000;
+    private static final int ENGINE_STOCK = 200_000;
+    private static final int ORDERS = 400;
+    private static final int ORDER_STOCK = 100;
+
+    @Autowired
+    private InventoryEngine inventoryEngine;
+    @Autowired
+    private OrderService orderService;
+    @Autowired
+    private OrderRepository orderRepository;
+    @Autowired
+    private BackorderRepository backorderRepository;
+    @Autowired
+    private CustomerRepository customerRepository;
+    @Autowired
+    private ProductRepository productRepository;
+
+    private Customer customer;
+
+    @BeforeEach
+    void setUp() {
+        orderRepository.deleteAllInBatch();
+        backorderRepository.deleteAllInBatch();
+        customer = new Customer();
+        customer.setFullName("Himanshu Kumar");
+        customer.setAddress("Delhi");
+        customer.setContactNumber("1234567890");
+        customerRepository.save(customer);
+    }
+
+    @AfterEach
+    void tearDown() {
+        orderRepository.deleteAllInBatch();
+        backorderRepository.deleteAllInBatch();
+    }
+
+    @Test
+    public void engineOutrunsTheRowLock() throws Exception {
+        Product locked = saveProduct(ROW_LOCK_RESERVATIONS);
+        double rowLock = runConcurrently(ROW_LOCK_RESERVATIONS, () -> productRepository.decrementStock(locked.getId(), 1) == 1);
+
+        Product product = saveProduct(ENGINE_STOCK);
+        AtomicInteger reserved = new AtomicInteger();
+        double engine = runConcurrently(ENGINE_RESERVATIONS, () -> {
+            boolean done = inventoryEngine.reserve(product.getId(), 1);
+            if (done) {
+                reserved.incrementAndGet();
+            }
+            return done;
+        });
+        System.out.printf("Single product, %d threads : row lock %.0f reservations/sec, engine %.0f reservations/sec (x%.0f)%n",
+                THREADS, rowLock, engine, engine / rowLock);
+
+        // twice as many attempts as units : every unit is sold once, and the flush writes the final count
+        assertEquals(ENGINE_STOCK, reserved.get());
+        inventoryEngine.flush();
+        assertEquals(0, productRepository.findCountById(product.getId()));
+        assertEquals(0, productRepository.findCountById(locked.getId()));
+        assertTrue(engine > 10 * rowLock, "the engine should not be bound by the row lock");
+    }
+
+    @Test
+    public void concurrentOrdersNeverOversell() throws Exception {
+        Product product = saveProduct(ORDER_STOCK);
+        runConcurrently(ORDERS, () -> {
+            try {
+                orderService.createOrder(newOrder(product));
+                return true;
+            } catch (CustomException e) {
+                // backorder created : expected once the stock is gone
+                return false;
+            }
+        });
+
+        inventoryEngine.flush();
+        assertEquals(0, productRepository.findCountById(product.getId()));
+        assertEquals(ORDER_STOCK, orderRepository.count());
+        assertEquals(ORDERS - ORDER_STOCK, backorderRepository.count());
+    }
+
+    private Product saveProduct(int count) {
+        Product product = new Product();
+        product.setName("Flash sale product");
+        product.setPrice(BigDecimal.valueOf(10.0));
+        product.setExpiry(LocalDate.now().plusMonths(6));
+        product.setCount(count);
+        product.setAvailability(true);
+        return productRepository.save(product);
+    }
+
+    private Order newOrder(Product product) {
+        Product reference = new Product();
+        reference.setId(product.getId());
+        Order order = new Order();
+        order.setProduct(reference);
+        order.setCustomer(customer);
+        order.setQuantity(1);
+        order.setTimestamp(LocalDateTime.now());
+        return order;
+    }
+
+    private double runConcurrently(int reservations, BooleanSupplier reserve) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            int share = reservations / THREADS + (i < reservations % THREADS ? 1 : 0);
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int j = 0; j < share; j++) {
+                    reserve.getAsBoolean();
+                }
+                return null;
+            }));
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        long elapsed = System.nanoTime() - begin;
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.MINUTES);
+        return reservations / (elapsed / 1_000_000_000.0);
+    }
+}
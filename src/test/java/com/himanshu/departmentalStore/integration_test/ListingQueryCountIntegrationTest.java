@@ -0,0 +1,200 @@
+package com.himanshu.departmentalStore.integration_test;
+
+import com.himanshu.departmentalStore.model.Backorder;
+import com.himanshu.departmentalStore.model.Customer;
+import com.himanshu.departmentalStore.model.Discount;
+import com.himanshu.departmentalStore.model.Order;
+import com.himanshu.departmentalStore.model.Product;
+import com.himanshu.departmentalStore.repository.BackorderRepository;
+import com.himanshu.departmentalStore.repository.CustomerRepository;
+import com.himanshu.departmentalStore.repository.DiscountRepository;
+import com.himanshu.departmentalStore.repository.OrderRepository;
+import com.himanshu.departmentalStore.repository.ProductRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Checks that the order and backorder reads cost one query whatever the number of rows (no N+1 on the associations)
+ * and whatever the depth of the page, and that they serialize with the prod profile, where open-in-view is disabled.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureMockMvc
+@ActiveProfiles("prod")
+public class ListingQueryCountIntegrationTest extends AbstractTestContainer {
+
+    private static final int ROWS = 20;
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private OrderRepository orderRepository;
+    @Autowired
+    private BackorderRepository backorderRepository;
+    @Autowired
+    private CustomerRepository customerRepository;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private DiscountRepository discountRepository;
+
+    private Statistics statistics;
+    private final List<Long> orderIds = new ArrayList<>();
+    private Order lastOrder;
+    private Customer lastCustomer;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        Discount discount = new Discount();
+        discount.setName("Discount 1");
+        discount.setValue(BigDecimal.valueOf(10.0));
+        discount.setStartDateTime(LocalDateTime.now().minusDays(1));
+        discount.setEndDateTime(LocalDateTime.now().plusDays(7));
+        discount.setMinPrice(BigDecimal.valueOf(10.0));
+        discount.setCouponCode("FLAT10");
+        discountRepository.save(discount);
+        // a distinct product and customer per row, so that lazy loading them one by one would show up in the count
+        for (int i = 0; i < ROWS; i++) {
+            Customer customer = new Customer();
+            customer.setFullName("Customer " + i);
+            customer.setAddress("Delhi");
+            customer.setContactNumber("1234567890");
+            lastCustomer = customerRepository.save(customer);
+            Product product = new Product();
+            product.setName("Product " + i);
+            product.setPrice(BigDecimal.valueOf(10.0));
+            product.setExpiry(LocalDate.now().plusMonths(6));
+            product.setCount(100);
+            product.setAvailability(true);
+            productRepository.save(product);
+
+            Order order = new Order();
+            order.setProduct(product);
+            order.setCustomer(customer);
+            order.setDiscount(i % 2 == 0 ? discount : null);
+            order.setQuantity(1);
+            order.setTimestamp(LocalDateTime.now());
+            order.setAmount(BigDecimal.valueOf(9.0));
+            lastOrder = orderRepository.save(order);
+            orderIds.add(lastOrder.getId());
+
+            Backorder backorder = new Backorder();
+            backorder.setProduct(product);
+            backorder.setCustomer(customer);
+            backorder.setQuantity(500);
+            backorder.setTimestamp(LocalDateTime.now());
+            backorderRepository.save(backorder);
+        }
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        orderRepository.deleteAll();
+        backorderRepository.deleteAll();
+        customerRepository.deleteAll();
+        productRepository.deleteAll();
+        discountRepository.deleteAll();
+    }
+
+    @Test
+    public void getAllOrders() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders
+                        .get("/orders")
+                        .accept("application/json"))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.items.length()").value(ROWS))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.items[0].product.name").exists())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.items[0].customer.fullName").exists())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.items[0].discount.couponCode").value("FLAT10"));
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void getOrdersPage() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders
+                        .get("/orders")
+                        .param("limit", "5")
+                        .accept("application/json"))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.items.length()").value(5))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.items[0].id").value(orderIds.get(0)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.nextCursor").value(orderIds.get(4)));
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void getLastOrdersPage() throws Exception {
+        // the deepest page is one keyed range read, like the first one
+        mockMvc.perform(MockMvcRequestBuilders
+                        .get("/orders")
+                        .param("after", String.valueOf(orderIds.get(ROWS - 3)))
+                        .param("limit", "5")
+                        .accept("application/json"))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.items.length()").value(2))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.nextCursor").doesNotExist());
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void getOrdersOfCustomer() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders
+                        .get("/orders")
+                        .param("customerId", String.valueOf(lastCustomer.getId()))
+                        .accept("application/json"))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.items.length()").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.items[0].id").value(lastOrder.getId()));
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void getOrderById() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders
+                        .get("/orders/{id}", lastOrder.getId())
+                        .accept("application/json"))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.product.name").value("Product " + (ROWS - 1)));
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void getAllBackorders() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders
+                        .get("/backorders")
+                        .accept("application/json"))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.items.length()").value(ROWS))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.items[0].product.name").exists())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.items[0].customer.fullName").exists());
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+}
@@ -0,0 +1,230 @@
+package com.himanshu.departmentalStore.integration_test;
+
+import com.himanshu.departmentalStore.exception.CustomException;
+import com.himanshu.departmentalStore.model.Backorder;
+import com.himanshu.departmentalStore.model.Customer;
+import com.himanshu.departmentalStore.model.Order;
+import com.himanshu.departmentalStore.model.Product;
+import com.himanshu.departmentalStore.repository.BackorderRepository;
+import com.himanshu.departmentalStore.repository.CustomerRepository;
+import com.himanshu.departmentalStore.repository.OrderRepository;
+import com.himanshu.departmentalStore.repository.ProductRepository;
+import com.himanshu.departmentalStore.service.OrderService;
+import com.himanshu.departmentalStore.util.OptimisticRetry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Places many single-unit orders for the same product from several threads at once.
+ * The atomic path must never oversell; the read-modify-write paths, checked by the version of the product or
+ * serialized by a SELECT ... FOR UPDATE of its row, are run alongside for an orders/sec comparison.
+ */
+@SpringBootTest
+public class OrderContentionIntegrationTest extends AbstractTestContainer {
+
+    private static final int THREADS = 16;
+    private static final int ORDERS = 400;
+    private static final int STOCK = 100;
+
+    @Autowired
+    private OrderService orderService;
+    @Autowired
+    private OrderRepository orderRepository;
+    @Autowired
+    private CustomerRepository customerRepository;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private BackorderRepository backorderRepository;
+    @Autowired
+    private OptimisticRetry optimisticRetry;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private Customer customer;
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        orderRepository.deleteAll();
+        backorderRepository.deleteAll();
+        customerRepository.deleteAll();
+        productRepository.deleteAll();
+
+        customer = new Customer();
+        customer.setFullName("Himanshu Kumar");
+        customer.setAddress("Delhi");
+        customer.setContactNumber("1234567890");
+        customerRepository.save(customer);
+
+        product = new Product();
+        product.setName("Flash sale product");
+        product.setPrice(BigDecimal.valueOf(10.0));
+        product.setExpiry(LocalDate.now().plusMonths(6));
+        product.setCount(STOCK);
+        product.setAvailability(true);
+        productRepository.save(product);
+    }
+
+    @AfterEach
+    void tearDown() {
+        orderRepository.deleteAll();
+        backorderRepository.deleteAll();
+        customerRepository.deleteAll();
+        productRepository.deleteAll();
+    }
+
+    @Test
+    public void concurrentOrdersNeverOversell() throws Exception {
+        double ordersPerSecond = runConcurrently(() -> {
+            try {
+                orderService.createOrder(newOrder());
+            } catch (CustomException e) {
+                // backorder created : expected once the stock is gone
+            }
+        });
+        System.out.printf("Atomic decrement : %.1f orders/sec%n", ordersPerSecond);
+
+        assertEquals(0, productRepository.findById(product.getId()).get().getCount());
+        assertEquals(STOCK, orderRepository.count());
+        assertEquals(ORDERS - STOCK, backorderRepository.count());
+    }
+
+    @Test
+    public void optimisticLockingOutrunsPessimisticLocking() throws Exception {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        double pessimistic = runConcurrently(() -> transaction.executeWithoutResult(status -> readModifyWrite(
+                entityManager.find(Product.class, product.getId(), LockModeType.PESSIMISTIC_WRITE))));
+        assertNotOversold("SELECT ... FOR UPDATE", pessimistic);
+        resetStock();
+
+        double atomic = runConcurrently(() -> {
+            try {
+                optimisticRetry.run("create", () -> orderService.createOrder(newOrder()));
+            } catch (CustomException e) {
+                // backorder created : expected once the stock is gone
+            }
+        });
+        assertNotOversold("Atomic decrement with retry", atomic);
+        resetStock();
+
+        double versioned = runConcurrently(() -> {
+            try {
+                optimisticRetry.run("benchmark", () -> transaction.execute(status -> {
+                    readModifyWrite(productRepository.findById(product.getId()).get());
+                    return null;
+                }));
+            } catch (CustomException e) {
+                // still conflicting after the last attempt : the order is not placed
+            }
+        });
+        assertNotOversold("Versioned read-modify-write with retry", versioned);
+        System.out.printf("Retries : create %.0f, versioned read-modify-write %.0f (%.0f given up)%n",
+                retries("orders.retry.conflicts", "create"), retries("orders.retry.conflicts", "benchmark"),
+                retries("orders.retry.exhausted", "benchmark"));
+
+        assertTrue(atomic > pessimistic, "the guarded update should not be slower than locking the row first");
+    }
+
+    private void assertNotOversold(String path, double ordersPerSecond) {
+        long placed = orderRepository.count();
+        int left = productRepository.findById(product.getId()).get().getCount();
+        System.out.printf("%s : %.1f orders/sec, %d orders placed for %d units, %d units left%n",
+                path, ordersPerSecond, placed, STOCK, left);
+        assertEquals(STOCK, placed + left);
+    }
+
+    private void resetStock() {
+        orderRepository.deleteAll();
+        backorderRepository.deleteAll();
+        Product current = productRepository.findById(product.getId()).get();
+        current.setCount(STOCK);
+        productRepository.save(current);
+    }
+
+    private double retries(String name, String operation) {
+        Counter counter = meterRegistry.find(name).tag("operation", operation).counter();
+        return counter == null ? 0 : counter.count();
+    }
+
+    /**
+     * The order placement path before the guarded update : read the product, check in java and write the whole row back.
+     * Without a lock on the row, the version of the product makes the write of a concurrently changed product fail.
+     */
+    private void readModifyWrite(Product current) {
+        Order order = newOrder();
+        if (current.isAvailability() && current.getCount() >= order.getQuantity()) {
+            current.setCount(current.getCount() - order.getQuantity());
+            productRepository.save(current);
+            order.setAmount(current.getPrice());
+            orderRepository.save(order);
+        } else {
+            Backorder backorder = new Backorder();
+            backorder.setProduct(current);
+            backorder.setCustomer(customer);
+            backorder.setQuantity(order.getQuantity());
+            backorder.setTimestamp(order.getTimestamp());
+            backorderRepository.save(backorder);
+        }
+    }
+
+    private double runConcurrently(final Runnable placeOrder) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < ORDERS; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                placeOrder.run();
+                return null;
+            }));
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        long elapsed = System.nanoTime() - begin;
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.MINUTES);
+        return ORDERS / (elapsed / 1_000_000_000.0);
+    }
+
+    private Order newOrder() {
+        Product reference = new Product();
+        reference.setId(product.getId());
+        Order order = new Order();
+        order.setProduct(reference);
+        order.setCustomer(customer);
+        order.setQuantity(1);
+        order.setTimestamp(LocalDateTime.now());
+        return order;
+    }
+}
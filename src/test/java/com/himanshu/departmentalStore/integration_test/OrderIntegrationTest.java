@@ -2,9 +2,12 @@ package com.himanshu.departmentalStore.integration_test;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.himanshu.departmentalStore.dto.CartLineRequestBody;
+import com.himanshu.departmentalStore.dto.CartRequestBody;
 import com.himanshu.departmentalStore.dto.OrderRequestBody;
 import com.himanshu.departmentalStore.model.*;
 import com.himanshu.departmentalStore.repository.*;
+import com.himanshu.departmentalStore.service.IdempotencyService;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -17,6 +20,9 @@ import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
@@ -36,6 +42,12 @@ public class OrderIntegrationTest extends AbstractTestContainer {
     private DiscountRepository discountRepository;
     @Autowired
     private BackorderRepository backorderRepository;
+    @Autowired
+    private CartRepository cartRepository;
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+    @Autowired
+    private IdempotencyService idempotencyService;
 
     private Order order;
     private Customer customer;
@@ -45,6 +57,7 @@ public class OrderIntegrationTest extends AbstractTestContainer {
 
     @BeforeEach
     void setUp() {
+        cartRepository.deleteAll();
         orderRepository.deleteAll();
         backorderRepository.deleteAll();
         customerRepository.deleteAll();
@@ -67,11 +80,13 @@ public class OrderIntegrationTest extends AbstractTestContainer {
 
     @AfterEach
     void tearDown() {
+        cartRepository.deleteAll();
         orderRepository.deleteAll();
         backorderRepository.deleteAll();
         customerRepository.deleteAll();
         productRepository.deleteAll();
         discountRepository.deleteAll();
+        idempotencyRecordRepository.deleteAll();
     }
 
     @Test
@@ -134,6 +149,74 @@ public class OrderIntegrationTest extends AbstractTestContainer {
                 .andExpect(MockMvcResultMatchers.jsonPath("$.quantity").value(order.getQuantity()));
     }
 
+    @Test
+    public void createOrderRetriedWithSameIdempotencyKey() throws Exception {
+        OrderRequestBody orderRequestBody = new OrderRequestBody();
+        orderRequestBody.setProductId(product.getId());
+        orderRequestBody.setCustomerId(customer.getId());
+        orderRequestBody.setQuantity(5);
+
+        for (int attempt = 0; attempt < 3; attempt++) {
+            mockMvc.perform(MockMvcRequestBuilders
+                            .post("/orders")
+                            .header("Idempotency-Key", "pos-7-receipt-42")
+                            .contentType("application/json")
+                            .content(asJsonString(orderRequestBody))
+                            .accept("application/json"))
+                    .andExpect(status().isCreated())
+                    .andExpect(MockMvcResultMatchers.jsonPath("$.quantity").value(5));
+        }
+
+        // one order placed, stock decremented once
+        assertEquals(1, orderRepository.count());
+        assertEquals(95, productRepository.findById(product.getId()).get().getCount());
+    }
+
+    @Test
+    public void createOrderWithIdempotencyKeyOfAnotherOrder() throws Exception {
+        OrderRequestBody orderRequestBody = new OrderRequestBody();
+        orderRequestBody.setProductId(product.getId());
+        orderRequestBody.setCustomerId(customer.getId());
+        orderRequestBody.setQuantity(5);
+        mockMvc.perform(MockMvcRequestBuilders
+                        .post("/orders")
+                        .header("Idempotency-Key", "pos-7-receipt-43")
+                        .contentType("application/json")
+                        .content(asJsonString(orderRequestBody))
+                        .accept("application/json"))
+                .andExpect(status().isCreated());
+
+        orderRequestBody.setQuantity(6);
+        mockMvc.perform(MockMvcRequestBuilders
+                        .post("/orders")
+                        .header("Idempotency-Key", "pos-7-receipt-43")
+                        .contentType("application/json")
+                        .content(asJsonString(orderRequestBody))
+                        .accept("application/json"))
+                .andExpect(status().isUnprocessableEntity());
+
+        assertEquals(1, orderRepository.count());
+        assertEquals(95, productRepository.findById(product.getId()).get().getCount());
+    }
+
+    @Test
+    public void idempotencyKeyTakenOverAfterItsLease() {
+        idempotencyService.claim("/orders:slow-receipt", "slow-token", "hash");
+        // the lease of the slow request is over, a retry takes the key over
+        IdempotencyRecord slowClaim = idempotencyRecordRepository.findById("/orders:slow-receipt").get();
+        slowClaim.setExpiresAt(LocalDateTime.now().minusSeconds(1));
+        idempotencyRecordRepository.save(slowClaim);
+        assertTrue(idempotencyService.claim("/orders:slow-receipt", "retry-token", "hash").isEmpty());
+
+        // the slow request finishes : it can neither complete nor release the claim of the retry
+        idempotencyService.complete("/orders:slow-receipt", "slow-token", "hash", 201, "{}");
+        idempotencyService.release("/orders:slow-receipt", "slow-token");
+
+        IdempotencyRecord retryClaim = idempotencyRecordRepository.findById("/orders:slow-receipt").get();
+        assertEquals("retry-token", retryClaim.getClaimToken());
+        assertTrue(retryClaim.isInProgress());
+    }
+
     @Test
     public void createOrderWithNonExistingCustomer() throws Exception {
         OrderRequestBody orderRequestBody = new OrderRequestBody();
@@ -179,6 +262,27 @@ public class OrderIntegrationTest extends AbstractTestContainer {
                 .andExpect(status().isAccepted());
     }
 
+    @Test
+    public void createCart() throws Exception {
+        Product secondProduct = productRepository.save(createProductMock("Product 2", "Description 2",
+                BigDecimal.valueOf(5.0), LocalDate.now().plusMonths(6), 1, true));
+
+        CartRequestBody cartRequestBody = new CartRequestBody();
+        cartRequestBody.setCustomerId(customer.getId());
+        cartRequestBody.setLines(List.of(cartLine(product.getId(), 2), cartLine(secondProduct.getId(), 5)));
+
+        mockMvc.perform(MockMvcRequestBuilders
+                        .post("/orders/cart")
+                        .contentType("application/json")
+                        .content(asJsonString(cartRequestBody))
+                        .accept("application/json"))
+                .andExpect(status().isCreated())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.lines.length()").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.lines[0].product.id").value(product.getId()))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.backorders[0].quantity").value(5))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.amount").value(20.0));
+    }
+
     @Test
     public void updateOrder() throws Exception {
         orderRepository.save(order);
@@ -293,6 +397,13 @@ public class OrderIntegrationTest extends AbstractTestContainer {
         }
     }
 
+    private CartLineRequestBody cartLine(Long productId, int quantity) {
+        CartLineRequestBody line = new CartLineRequestBody();
+        line.setProductId(productId);
+        line.setQuantity(quantity);
+        return line;
+    }
+
     private Customer createMockCustomer(String fullName, String address, String contactNumber) {
         Customer customer = new Customer();
         customer.setFullName(fullName);
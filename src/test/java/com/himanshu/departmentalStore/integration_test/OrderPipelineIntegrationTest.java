@@ -0,0 +1,169 @@
+package com.himanshu.departmentalStore.integration_test;
+
+import com.himanshu.departmentalStore.dto.OrderRequestBody;
+import com.himanshu.departmentalStore.dto.OrderTicket;
+import com.himanshu.departmentalStore.model.Customer;
+import com.himanshu.departmentalStore.model.Product;
+import com.himanshu.departmentalStore.repository.BackorderRepository;
+import com.himanshu.departmentalStore.repository.CustomerRepository;
+import com.himanshu.departmentalStore.repository.OrderRepository;
+import com.himanshu.departmentalStore.repository.ProductRepository;
+import com.himanshu.departmentalStore.service.OrderPipeline;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Orders accepted by POST /orders/async : the tickets must end with exactly the stock placed, the rest backordered,
+ * and the pipeline metrics must be published.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureMockMvc
+public class OrderPipelineIntegrationTest extends AbstractTestContainer {
+
+    private static final int THREADS = 16;
+    private static final int ORDERS = 400;
+    private static final int STOCK = 100;
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private OrderPipeline orderPipeline;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private OrderRepository orderRepository;
+    @Autowired
+    private BackorderRepository backorderRepository;
+    @Autowired
+    private CustomerRepository customerRepository;
+    @Autowired
+    private ProductRepository productRepository;
+
+    private Customer customer;
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        customer = new Customer();
+        customer.setFullName("Himanshu Kumar");
+        customer.setAddress("Delhi");
+        customer.setContactNumber("1234567890");
+        customerRepository.save(customer);
+        product = new Product();
+        product.setName("Flash sale product");
+        product.setPrice(BigDecimal.valueOf(10.0));
+        product.setExpiry(LocalDate.now().plusMonths(6));
+        product.setCount(STOCK);
+        product.setAvailability(true);
+        productRepository.save(product);
+    }
+
+    @AfterEach
+    void tearDown() {
+        orderRepository.deleteAll();
+        backorderRepository.deleteAll();
+        customerRepository.deleteAll();
+        productRepository.deleteAll();
+    }
+
+    @Test
+    public void createOrderAsync() throws Exception {
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders
+                        .post("/orders/async")
+                        .contentType("application/json")
+                        .content(OrderIntegrationTest.asJsonString(newOrder()))
+                        .accept("application/json"))
+                .andExpect(status().isAccepted())
+                .andExpect(header().exists("Location"))
+                .andExpect(jsonPath("$.status").value("QUEUED"))
+                .andReturn();
+        String location = result.getResponse().getHeader("Location");
+        String id = location.substring(location.lastIndexOf('/') + 1);
+        awaitOutcome(id);
+
+        mockMvc.perform(MockMvcRequestBuilders.get(location).accept("application/json"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("PLACED"))
+                .andExpect(jsonPath("$.amount").value(10.0));
+        assertEquals(1, orderRepository.count());
+    }
+
+    @Test
+    public void concurrentOrdersNeverOversell() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<String>> futures = new ArrayList<>();
+        long begin = System.nanoTime();
+        for (int i = 0; i < ORDERS; i++) {
+            futures.add(executor.submit(() -> orderPipeline.submit(newOrder()).getId()));
+        }
+        List<String> ids = new ArrayList<>();
+        for (Future<String> future : futures) {
+            ids.add(future.get());
+        }
+        long accepted = System.nanoTime() - begin;
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.MINUTES);
+        List<OrderTicket> tickets = new ArrayList<>();
+        for (String id : ids) {
+            tickets.add(awaitOutcome(id));
+        }
+        long done = System.nanoTime() - begin;
+        System.out.printf("Async orders : %.1f accepted/sec, %.1f completed/sec%n",
+                ORDERS / (accepted / 1_000_000_000.0), ORDERS / (done / 1_000_000_000.0));
+
+        Map<OrderTicket.Status, Long> outcomes = tickets.stream()
+                .collect(Collectors.groupingBy(OrderTicket::getStatus, Collectors.counting()));
+        assertEquals(Map.of(OrderTicket.Status.PLACED, (long) STOCK, OrderTicket.Status.BACKORDERED, (long) (ORDERS - STOCK)), outcomes);
+        assertEquals(0, productRepository.findById(product.getId()).get().getCount());
+        assertEquals(STOCK, orderRepository.count());
+        assertEquals(ORDERS - STOCK, backorderRepository.count());
+        // the orders went through in batches, and every stage published its latency
+        assertTrue(meterRegistry.get("orders.pipeline.batch.size").tag("stage", "persistence").summary().max() > 1);
+        for (String stage : List.of("validation", "pricing", "persistence")) {
+            assertTrue(meterRegistry.get("orders.pipeline.stage.latency").tag("stage", stage).timer().count() > 0);
+        }
+        assertEquals(ORDERS, tickets.stream().map(OrderTicket::getId).collect(Collectors.toMap(Function.identity(), id -> 1)).size());
+    }
+
+    private OrderTicket awaitOutcome(String id) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        OrderTicket ticket = orderPipeline.getTicket(id);
+        while (ticket.getStatus() == OrderTicket.Status.QUEUED && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+            ticket = orderPipeline.getTicket(id);
+        }
+        return ticket;
+    }
+
+    private OrderRequestBody newOrder() {
+        OrderRequestBody orderRequestBody = new OrderRequestBody();
+        orderRequestBody.setProductId(product.getId());
+        orderRequestBody.setCustomerId(customer.getId());
+        orderRequestBody.setQuantity(1);
+        return orderRequestBody;
+    }
+}
@@ -0,0 +1,167 @@
+package com.himanshu.departmentalStore.integration_test;
+
+import com.himanshu.departmentalStore.dto.OrderRequestBody;
+import com.himanshu.departmentalStore.model.Customer;
+import com.himanshu.departmentalStore.model.Discount;
+import com.himanshu.departmentalStore.model.Product;
+import com.himanshu.departmentalStore.repository.BackorderRepository;
+import com.himanshu.departmentalStore.repository.CustomerRepository;
+import com.himanshu.departmentalStore.repository.DiscountRepository;
+import com.himanshu.departmentalStore.repository.OrderRepository;
+import com.himanshu.departmentalStore.repository.ProductRepository;
+import com.himanshu.departmentalStore.service.ProductCatalogService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultMatcher;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Counts the JDBC statements of POST /orders, so that extra loads on the order path can not come back unnoticed.
+ * Each test places a first order to warm up the pooled id blocks, then measures the next one.
+ * The product is read from the catalog, whose stock refresh is pushed out of the way of the counts,
+ * and the customer and the discount from the second-level cache once the first order has loaded them.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"spring.jpa.properties.hibernate.generate_statistics=true", "catalog.stock-refresh-interval=PT1H"})
+@AutoConfigureMockMvc
+public class OrderStatementCountIntegrationTest extends AbstractTestContainer {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private OrderRepository orderRepository;
+    @Autowired
+    private BackorderRepository backorderRepository;
+    @Autowired
+    private CustomerRepository customerRepository;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private DiscountRepository discountRepository;
+    @Autowired
+    private ProductCatalogService productCatalogService;
+
+    private Statistics statistics;
+    private Customer customer;
+    private Product product;
+    private Discount discount;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        customer = new Customer();
+        customer.setFullName("Himanshu Kumar");
+        customer.setAddress("Delhi");
+        customer.setContactNumber("1234567890");
+        customerRepository.save(customer);
+        product = new Product();
+        product.setName("Product 1");
+        product.setPrice(BigDecimal.valueOf(100.0));
+        product.setExpiry(LocalDate.now().plusMonths(6));
+        product.setCount(10);
+        product.setAvailability(true);
+        productRepository.save(product);
+        productCatalogService.reload();
+        discount = new Discount();
+        discount.setName("Discount 1");
+        discount.setValue(BigDecimal.valueOf(10.0));
+        discount.setStartDateTime(LocalDateTime.now().minusDays(1));
+        discount.setEndDateTime(LocalDateTime.now().plusDays(7));
+        discount.setMinPrice(BigDecimal.valueOf(100.0));
+        discount.setCouponCode("FLAT10");
+        discountRepository.save(discount);
+    }
+
+    @AfterEach
+    void tearDown() {
+        orderRepository.deleteAll();
+        backorderRepository.deleteAll();
+        customerRepository.deleteAll();
+        productRepository.deleteAll();
+        discountRepository.deleteAll();
+    }
+
+    @Test
+    public void createOrderWithDiscount() throws Exception {
+        placeOrder(1, discount.getId(), status().isCreated());
+        statistics.clear();
+
+        placeOrder(1, discount.getId(), status().isCreated());
+
+        // UPDATE the stock, INSERT the order, upsert the product day, product hour and discount day rollups :
+        // the product is in the catalog, the customer and the discount in the second-level cache
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(5, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void createOrderWithoutDiscount() throws Exception {
+        placeOrder(1, null, status().isCreated());
+        statistics.clear();
+
+        placeOrder(1, null, status().isCreated());
+
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(4, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void createOrderOutOfStock() throws Exception {
+        placeOrder(20, null, status().isAccepted());
+        statistics.clear();
+
+        placeOrder(20, null, status().isAccepted());
+
+        // SELECT the count as the catalog one is too low, INSERT the backorder : the stock is not touched
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void repeatedOrdersDoNotSelectTheCustomer() throws Exception {
+        placeOrder(1, discount.getId(), status().isCreated());
+        statistics.clear();
+
+        for (int i = 0; i < 3; i++) {
+            placeOrder(1, discount.getId(), status().isCreated());
+        }
+
+        // the stock updates and rollup upserts in between evict neither the customer nor the discount
+        CacheRegionStatistics customers = statistics.getDomainDataRegionStatistics("customer");
+        assertEquals(3, customers.getHitCount());
+        assertEquals(0, customers.getMissCount());
+        assertEquals(3, statistics.getDomainDataRegionStatistics("discount").getHitCount());
+        assertEquals(0, statistics.getEntityStatistics(Customer.class.getName()).getLoadCount());
+    }
+
+    private void placeOrder(int quantity, Long discountId, ResultMatcher expectedStatus) throws Exception {
+        OrderRequestBody orderRequestBody = new OrderRequestBody();
+        orderRequestBody.setProductId(product.getId());
+        orderRequestBody.setCustomerId(customer.getId());
+        orderRequestBody.setDiscountId(discountId);
+        orderRequestBody.setQuantity(quantity);
+
+        mockMvc.perform(MockMvcRequestBuilders
+                        .post("/orders")
+                        .contentType("application/json")
+                        .content(OrderIntegrationTest.asJsonString(orderRequestBody))
+                        .accept("application/json"))
+                .andExpect(expectedStatus);
+    }
+}
@@ -0,0 +1,20 @@
+package com.himanshu.departmentalStore.integration_test;
+
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * The thread mode benchmark with the default Tomcat pool of platform threads.
+ */
+@TestPropertySource(properties = "spring.threads.virtual.enabled=false")
+public class PlatformThreadBenchmarkIntegrationTest extends AbstractThreadModeBenchmark {
+
+    @Override
+    String mode() {
+        return "platform";
+    }
+
+    @Override
+    void checkPinning(String endpoint, long pinnedEvents) {
+        // no virtual thread, nothing to pin
+    }
+}
@@ -123,6 +123,29 @@ public class ProductIntegrationTest extends AbstractTestContainer{
                 .andExpect(MockMvcResultMatchers.jsonPath("$.name").value("Updated Product"));
     }
 
+    @Test
+    public void getProductById_ETagChangesWithCatalog() throws Exception {
+        productRepository.save(product);
+
+        String eTag = mockMvc.perform(MockMvcRequestBuilders.get("/products/{id}", product.getId()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        mockMvc.perform(MockMvcRequestBuilders.get("/products/{id}", product.getId()).header("If-None-Match", eTag))
+                .andExpect(status().isNotModified());
+
+        product.setName("Updated Product");
+        mockMvc.perform(MockMvcRequestBuilders
+                        .put("/products/{id}", product.getId())
+                        .contentType("application/json")
+                        .content(asJsonString(product)))
+                .andExpect(status().isOk());
+
+        // the update is a new catalog version : the copy of the client is replaced
+        mockMvc.perform(MockMvcRequestBuilders.get("/products/{id}", product.getId()).header("If-None-Match", eTag))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.name").value("Updated Product"));
+    }
+
     @Test
     public void updateNonExistingProduct() throws Exception {
         productRepository.save(product);
@@ -0,0 +1,280 @@
+package com.himanshu.departmentalStore.integration_test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.himanshu.departmentalStore.dto.CartLineRequestBody;
+import com.himanshu.departmentalStore.dto.CartRequestBody;
+import com.himanshu.departmentalStore.dto.OrderRequestBody;
+import com.himanshu.departmentalStore.model.Customer;
+import com.himanshu.departmentalStore.model.Discount;
+import com.himanshu.departmentalStore.model.Order;
+import com.himanshu.departmentalStore.model.Product;
+import com.himanshu.departmentalStore.repository.BackorderRepository;
+import com.himanshu.departmentalStore.repository.CartRepository;
+import com.himanshu.departmentalStore.repository.CustomerRepository;
+import com.himanshu.departmentalStore.repository.DiscountRepository;
+import com.himanshu.departmentalStore.repository.OrderRepository;
+import com.himanshu.departmentalStore.repository.ProductRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Checks that the sales rollups maintained by the order writes, and those rebuilt by the backfill,
+ * hold the same totals as a GROUP BY over customer_order, that the cart writes and the backfill count the carts alike,
+ * and that the reports only read the rollups.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureMockMvc
+public class SalesRollupIntegrationTest extends AbstractTestContainer {
+
+    private static final String PRODUCT_DAY = "SELECT product_id, sales_day, units, revenue, order_count"
+            + " FROM sales_product_day WHERE order_count <> 0 ORDER BY product_id, sales_day";
+    private static final String PRODUCT_DAY_RECOMPUTED = "SELECT product_id, DATE(timestamp) AS sales_day, CAST(SUM(quantity) AS SIGNED) AS units,"
+            + " SUM(amount) AS revenue, COUNT(*) AS order_count FROM customer_order"
+            + " GROUP BY product_id, DATE(timestamp) ORDER BY product_id, sales_day";
+    private static final String PRODUCT_HOUR = "SELECT product_id, sales_hour, units, revenue, order_count"
+            + " FROM sales_product_hour WHERE order_count <> 0 ORDER BY product_id, sales_hour";
+    private static final String PRODUCT_HOUR_RECOMPUTED = "SELECT product_id, DATE(timestamp) + INTERVAL HOUR(timestamp) HOUR AS sales_hour,"
+            + " CAST(SUM(quantity) AS SIGNED) AS units, SUM(amount) AS revenue, COUNT(*) AS order_count FROM customer_order"
+            + " GROUP BY product_id, sales_hour ORDER BY product_id, sales_hour";
+    private static final String DISCOUNT_DAY = "SELECT discount_id, sales_day, units, revenue, order_count"
+            + " FROM sales_discount_day WHERE order_count <> 0 ORDER BY discount_id, sales_day";
+    private static final String DISCOUNT_DAY_RECOMPUTED = "SELECT discount_id, DATE(timestamp) AS sales_day, CAST(SUM(quantity) AS SIGNED) AS units,"
+            + " SUM(amount) AS revenue, COUNT(*) AS order_count FROM customer_order WHERE discount_id IS NOT NULL"
+            + " GROUP BY discount_id, DATE(timestamp) ORDER BY discount_id, sales_day";
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private OrderRepository orderRepository;
+    @Autowired
+    private BackorderRepository backorderRepository;
+    @Autowired
+    private CartRepository cartRepository;
+    @Autowired
+    private CustomerRepository customerRepository;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private DiscountRepository discountRepository;
+
+    private Customer customer;
+    private final List<Product> products = new ArrayList<>();
+    private Discount discount;
+
+    @BeforeEach
+    void setUp() {
+        clearRollups();
+        customer = new Customer();
+        customer.setFullName("Himanshu Kumar");
+        customer.setAddress("Delhi");
+        customer.setContactNumber("1234567890");
+        customerRepository.save(customer);
+        for (int i = 0; i < 3; i++) {
+            Product product = new Product();
+            product.setName("Product " + i);
+            product.setPrice(BigDecimal.valueOf(10.0 + i));
+            product.setExpiry(LocalDate.now().plusMonths(6));
+            product.setCount(1000);
+            product.setAvailability(true);
+            products.add(productRepository.save(product));
+        }
+        discount = new Discount();
+        discount.setName("Discount 1");
+        discount.setValue(BigDecimal.valueOf(10.0));
+        discount.setStartDateTime(LocalDateTime.now().minusDays(1));
+        discount.setEndDateTime(LocalDateTime.now().plusDays(7));
+        discount.setMinPrice(BigDecimal.valueOf(0.0));
+        discount.setCouponCode("FLAT10");
+        discountRepository.save(discount);
+    }
+
+    @AfterEach
+    void tearDown() {
+        clearRollups();
+        cartRepository.deleteAll();
+        orderRepository.deleteAll();
+        backorderRepository.deleteAll();
+        customerRepository.deleteAll();
+        productRepository.deleteAll();
+        discountRepository.deleteAll();
+    }
+
+    @Test
+    public void orderWritesKeepRollupsInStep() throws Exception {
+        List<Long> orderIds = new ArrayList<>();
+        for (int i = 0; i < 9; i++) {
+            orderIds.add(placeOrder(products.get(i % 3), 1 + i % 4, i % 2 == 0 ? discount.getId() : null));
+        }
+        // an increase, a decrease and a deletion
+        updateOrder(orderIds.get(0), products.get(0), 5, discount.getId());
+        updateOrder(orderIds.get(1), products.get(1), 1, null);
+        mockMvc.perform(MockMvcRequestBuilders.delete("/orders/{id}", orderIds.get(2)))
+                .andExpect(status().isOk());
+
+        assertRollupsMatchOrders();
+    }
+
+    @Test
+    public void backfillRebuildsRollups() throws Exception {
+        // orders written behind the back of the rollups, spread over several days and hours
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            Order order = new Order();
+            order.setProduct(products.get(i % 3));
+            order.setCustomer(customer);
+            order.setDiscount(i % 3 == 0 ? discount : null);
+            order.setQuantity(1 + i % 5);
+            order.setTimestamp(LocalDateTime.of(2024, 4, 1, 8, 0).plusHours(i * 5L));
+            order.setAmount(BigDecimal.valueOf(10.0 + i));
+            orders.add(order);
+        }
+        orderRepository.saveAll(orders);
+        assertFalse(jdbcTemplate.queryForList(PRODUCT_DAY_RECOMPUTED).equals(jdbcTemplate.queryForList(PRODUCT_DAY)));
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/reports/backfill").accept("application/json"))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.chunks").isNumber());
+
+        assertRollupsMatchOrders();
+    }
+
+    @Test
+    public void cartWritesAndBackfillCountCartsAlike() throws Exception {
+        placeOrder(products.get(0), 2, discount.getId());
+        // 10 % off 10.00 + 11.00 * 2 + 12.00 * 3 : shares rounded to the cent
+        placeCart(discount.getId(), cartLine(products.get(0), 1), cartLine(products.get(1), 2), cartLine(products.get(2), 3));
+        placeCart(null, cartLine(products.get(1), 1), cartLine(products.get(2), 1));
+        List<Map<String, Object>> productDays = jdbcTemplate.queryForList(PRODUCT_DAY);
+        List<Map<String, Object>> productHours = jdbcTemplate.queryForList(PRODUCT_HOUR);
+        List<Map<String, Object>> discountDays = jdbcTemplate.queryForList(DISCOUNT_DAY);
+        // product 1 : one order and one cart line
+        assertEquals(3L, ((Number) productDays.get(0).get("units")).longValue());
+        assertEquals(2L, ((Number) productDays.get(0).get("order_count")).longValue());
+        // the discount : one order of 2 units and one cart of 6 units
+        assertEquals(8L, ((Number) discountDays.get(0).get("units")).longValue());
+
+        clearRollups();
+        mockMvc.perform(MockMvcRequestBuilders.post("/reports/backfill").accept("application/json"))
+                .andExpect(status().isOk());
+
+        assertEquals(productDays, jdbcTemplate.queryForList(PRODUCT_DAY));
+        assertEquals(productHours, jdbcTemplate.queryForList(PRODUCT_HOUR));
+        assertEquals(discountDays, jdbcTemplate.queryForList(DISCOUNT_DAY));
+    }
+
+    @Test
+    public void reportsReadOnlyTheRollups() throws Exception {
+        placeOrder(products.get(0), 2, discount.getId());
+        placeOrder(products.get(0), 1, null);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        mockMvc.perform(MockMvcRequestBuilders
+                        .get("/reports/products/daily")
+                        .param("from", LocalDate.now().minusDays(1).toString())
+                        .param("to", LocalDate.now().plusDays(1).toString())
+                        .param("productId", String.valueOf(products.get(0).getId()))
+                        .accept("application/json"))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.length()").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].units").value(3))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].orders").value(2));
+        mockMvc.perform(MockMvcRequestBuilders
+                        .get("/reports/discounts/daily")
+                        .param("from", LocalDate.now().minusDays(1).toString())
+                        .param("to", LocalDate.now().plusDays(1).toString())
+                        .accept("application/json"))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].units").value(2));
+
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    private void assertRollupsMatchOrders() {
+        assertEquals(jdbcTemplate.queryForList(PRODUCT_DAY_RECOMPUTED), jdbcTemplate.queryForList(PRODUCT_DAY));
+        assertEquals(jdbcTemplate.queryForList(PRODUCT_HOUR_RECOMPUTED), jdbcTemplate.queryForList(PRODUCT_HOUR));
+        assertEquals(jdbcTemplate.queryForList(DISCOUNT_DAY_RECOMPUTED), jdbcTemplate.queryForList(DISCOUNT_DAY));
+    }
+
+    private void clearRollups() {
+        jdbcTemplate.update("DELETE FROM sales_product_day");
+        jdbcTemplate.update("DELETE FROM sales_product_hour");
+        jdbcTemplate.update("DELETE FROM sales_discount_day");
+    }
+
+    private Long placeOrder(Product product, int quantity, Long discountId) throws Exception {
+        String response = mockMvc.perform(MockMvcRequestBuilders
+                        .post("/orders")
+                        .contentType("application/json")
+                        .content(OrderIntegrationTest.asJsonString(orderRequestBody(product, quantity, discountId)))
+                        .accept("application/json"))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(response).get("id").asLong();
+    }
+
+    private void placeCart(Long discountId, CartLineRequestBody... lines) throws Exception {
+        CartRequestBody cartRequestBody = new CartRequestBody();
+        cartRequestBody.setCustomerId(customer.getId());
+        cartRequestBody.setDiscountId(discountId);
+        cartRequestBody.setLines(List.of(lines));
+        mockMvc.perform(MockMvcRequestBuilders
+                        .post("/orders/cart")
+                        .contentType("application/json")
+                        .content(OrderIntegrationTest.asJsonString(cartRequestBody))
+                        .accept("application/json"))
+                .andExpect(status().isCreated());
+    }
+
+    private CartLineRequestBody cartLine(Product product, int quantity) {
+        CartLineRequestBody line = new CartLineRequestBody();
+        line.setProductId(product.getId());
+        line.setQuantity(quantity);
+        return line;
+    }
+
+    private void updateOrder(Long orderId, Product product, int quantity, Long discountId) throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders
+                        .put("/orders/{id}", orderId)
+                        .contentType("application/json")
+                        .content(OrderIntegrationTest.asJsonString(orderRequestBody(product, quantity, discountId)))
+                        .accept("application/json"))
+                .andExpect(status().isOk());
+    }
+
+    private OrderRequestBody orderRequestBody(Product product, int quantity, Long discountId) {
+        OrderRequestBody orderRequestBody = new OrderRequestBody();
+        orderRequestBody.setProductId(product.getId());
+        orderRequestBody.setCustomerId(customer.getId());
+        orderRequestBody.setDiscountId(discountId);
+        orderRequestBody.setQuantity(quantity);
+        return orderRequestBody;
+    }
+}
@@ -0,0 +1,26 @@
+package com.himanshu.departmentalStore.integration_test;
+
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.test.context.TestPropertySource;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The thread mode benchmark with one virtual thread per request, as with the "virtual" spring profile.
+ * Also fails if a request pins its carrier thread at all : the JFR event is recorded without threshold.
+ * Needs Java 21 and the Connector/J 9 of the java21 maven profile : mvn -Pjava21 verify.
+ */
+@EnabledForJreRange(min = JRE.JAVA_21)
+@TestPropertySource(properties = "spring.threads.virtual.enabled=true")
+public class VirtualThreadBenchmarkIntegrationTest extends AbstractThreadModeBenchmark {
+
+    @Override
+    String mode() {
+        return "virtual";
+    }
+
+    @Override
+    void checkPinning(String endpoint, long pinnedEvents) {
+        assertEquals(0, pinnedEvents, endpoint + " pinned carrier threads, see the stack traces above");
+    }
+}
@@ -0,0 +1,47 @@
+package com.himanshu.departmentalStore.notification;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.himanshu.departmentalStore.dto.BackorderFulfilledEvent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class FileNotificationChannelTest {
+
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void deliver_ShouldAppendOneJsonLinePerNotification() throws IOException {
+        Path file = directory.resolve("notifications.jsonl");
+        FileNotificationChannel channel = new FileNotificationChannel(file, objectMapper);
+
+        channel.deliver(List.of(new BackorderFulfilledEvent(1L, 2L, 3L, 4, 0, 5L)));
+        channel.deliver(List.of(new BackorderFulfilledEvent(6L, 2L, 3L, 1, 2, 7L),
+                new BackorderFulfilledEvent(8L, 9L, 3L, 1, 0, 10L)));
+
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(3, lines.size());
+        JsonNode partial = objectMapper.readTree(lines.get(1));
+        assertEquals(6L, partial.get("backorderId").asLong());
+        assertEquals(2, partial.get("remaining").asInt());
+        assertEquals(7L, partial.get("orderId").asLong());
+    }
+
+    @Test
+    void deliver_UnwritableFile_ShouldFailBatch() {
+        FileNotificationChannel channel = new FileNotificationChannel(directory.resolve("missing").resolve("notifications.jsonl"),
+                objectMapper);
+
+        assertThrows(UncheckedIOException.class, () -> channel.deliver(List.of(new BackorderFulfilledEvent(1L, 2L, 3L, 4, 0, 5L))));
+    }
+}
@@ -0,0 +1,309 @@
+package com.himanshu.departmentalStore.service;
+
+import com.himanshu.departmentalStore.dto.BackorderFulfilledEvent;
+import com.himanshu.departmentalStore.dto.PendingBackorder;
+import com.himanshu.departmentalStore.model.Backorder;
+import com.himanshu.departmentalStore.model.Customer;
+import com.himanshu.departmentalStore.model.Order;
+import com.himanshu.departmentalStore.model.Product;
+import com.himanshu.departmentalStore.repository.BackorderRepository;
+import com.himanshu.departmentalStore.repository.OrderRepository;
+import com.himanshu.departmentalStore.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Stream;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class BackorderFulfillmentEngineTest {
+
+    @Mock
+    private BackorderRepository backorderRepository;
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private InventoryService inventoryService;
+
+    @Mock
+    private SalesRollupService salesRollupService;
+
+    @Mock
+    private NotificationService notificationService;
+
+    @InjectMocks
+    private BackorderFulfillmentEngine backorderFulfillmentEngine;
+
+    private Product product;
+
+    private Map<Long, Backorder> database = new HashMap<>();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        MockitoAnnotations.initMocks(this);
+        ReflectionTestUtils.setField(backorderFulfillmentEngine, "minFill", 1.0);
+        product = new Product();
+        product.setId(1L);
+        product.setPriceMinor(250L);
+        product.setAvailability(true);
+        when(productRepository.findById(1L)).thenReturn(Optional.of(product));
+        when(backorderRepository.lockAllById(any())).thenAnswer(invocation -> ((Collection<Long>) invocation.getArgument(0))
+                .stream().map(database::get).filter(Objects::nonNull).toList());
+    }
+
+    @Test
+    void fulfill_OldestFirst_ShouldAllocateStockAndPlaceOrders() {
+        // Mocking behavior : 8 units back in stock for backorders of 5, 4 and 3 units, oldest first
+        queue(createBackorderMock(1L, 5), createBackorderMock(2L, 4), createBackorderMock(3L, 3));
+        when(inventoryService.reserve(1L, 8)).thenReturn(true);
+
+        // Test
+        List<Order> orders = backorderFulfillmentEngine.fulfill(1L, 8);
+
+        // Verification : the first and the last fit, their stock is reserved at once
+        assertEquals(2, orders.size());
+        assertEquals(5, orders.get(0).getQuantity());
+        assertEquals(1250L, orders.get(0).getAmountMinor());
+        assertEquals(3, orders.get(1).getQuantity());
+        verify(inventoryService).reserve(1L, 8);
+        verify(orderRepository).saveAll(orders);
+        verify(salesRollupService).addOrders(orders);
+        verify(backorderRepository).deleteAllByIdInBatch(List.of(1L, 3L));
+        List<BackorderFulfilledEvent> notifications = enqueuedNotifications();
+        assertEquals(2, notifications.size());
+        assertEquals(3L, notifications.get(1).getBackorderId());
+        assertEquals(3L, notifications.get(1).getCustomerId());
+    }
+
+    @Test
+    void fulfill_SkippedBackorder_ShouldStayQueued() {
+        // Mocking behavior
+        queue(createBackorderMock(1L, 5), createBackorderMock(2L, 3));
+        when(inventoryService.reserve(1L, 3)).thenReturn(true);
+        when(inventoryService.reserve(1L, 5)).thenReturn(true);
+
+        // Test : the 5 units do not fit in 4, they do in the next restock
+        List<Order> first = backorderFulfillmentEngine.fulfill(1L, 4);
+        database.remove(2L);
+        List<Order> second = backorderFulfillmentEngine.fulfill(1L, 5);
+
+        // Verification
+        assertEquals(3, first.get(0).getQuantity());
+        assertEquals(5, second.get(0).getQuantity());
+        verify(backorderRepository).deleteAllByIdInBatch(List.of(2L));
+        verify(backorderRepository).deleteAllByIdInBatch(List.of(1L));
+    }
+
+    @Test
+    void fulfill_StockTakenMeanwhile_ShouldAllocateAgain() {
+        // Mocking behavior : an order took 4 of the 8 units before the reservation
+        queue(createBackorderMock(1L, 5), createBackorderMock(2L, 3));
+        when(inventoryService.reserve(1L, 8)).thenReturn(false);
+        when(inventoryService.currentCount(1L)).thenReturn(4);
+        when(inventoryService.reserve(1L, 3)).thenReturn(true);
+
+        // Test
+        List<Order> orders = backorderFulfillmentEngine.fulfill(1L, 8);
+
+        // Verification
+        assertEquals(1, orders.size());
+        assertEquals(3, orders.get(0).getQuantity());
+        verify(backorderRepository).deleteAllByIdInBatch(List.of(2L));
+    }
+
+    @Test
+    void fulfill_BackorderGoneMeanwhile_ShouldAllocateWithoutIt() {
+        // Mocking behavior : the oldest backorder was deleted by another instance
+        queue(createBackorderMock(1L, 2), createBackorderMock(2L, 2), createBackorderMock(3L, 2));
+        database.remove(1L);
+        when(inventoryService.reserve(1L, 4)).thenReturn(true);
+
+        // Test
+        List<Order> orders = backorderFulfillmentEngine.fulfill(1L, 4);
+
+        // Verification : the stock freed by the deleted backorder goes to the next one
+        assertEquals(2, orders.size());
+        verify(backorderRepository).deleteAllByIdInBatch(List.of(2L, 3L));
+    }
+
+    @Test
+    void fulfill_BackordersKeepGoingMeanwhile_ShouldStopAfterMaxAllocations() {
+        // Mocking behavior : each backorder popped was deleted by another instance before it could be locked
+        queue(createBackorderMock(1L, 1), createBackorderMock(2L, 1), createBackorderMock(3L, 1),
+                createBackorderMock(4L, 1), createBackorderMock(5L, 1));
+        database.clear();
+
+        // Test
+        List<Order> orders = backorderFulfillmentEngine.fulfill(1L, 1);
+
+        // Verification : three allocations, the backorders left are for the next stock change
+        assertTrue(orders.isEmpty());
+        verify(backorderRepository, times(3)).lockAllById(any());
+        verify(inventoryService, never()).reserve(any(), anyInt());
+    }
+
+    @Test
+    void fulfill_PartialFill_ShouldKeepRestOfBackorderInLine() {
+        // Mocking behavior : 6 units for the oldest backorder of 10, at least half of it filled
+        ReflectionTestUtils.setField(backorderFulfillmentEngine, "minFill", 0.5);
+        Backorder oldest = createBackorderMock(1L, 10);
+        queue(oldest, createBackorderMock(2L, 2));
+        when(inventoryService.reserve(1L, 6)).thenReturn(true);
+        when(inventoryService.reserve(1L, 4)).thenReturn(true);
+
+        // Test
+        List<Order> orders = backorderFulfillmentEngine.fulfill(1L, 6);
+
+        // Verification : an order for the 6 units, the backorder keeps the 4 others and its place
+        assertEquals(1, orders.size());
+        assertEquals(6, orders.get(0).getQuantity());
+        assertEquals(1500L, orders.get(0).getAmountMinor());
+        assertEquals(4, oldest.getQuantity());
+        verify(backorderRepository, never()).deleteAllByIdInBatch(any());
+        BackorderFulfilledEvent notification = enqueuedNotifications().get(0);
+        assertEquals(6, notification.getQuantity());
+        assertEquals(4, notification.getRemaining());
+
+        // the next restock goes to its rest first
+        assertEquals(4, backorderFulfillmentEngine.fulfill(1L, 4).get(0).getQuantity());
+        verify(backorderRepository).deleteAllByIdInBatch(List.of(1L));
+    }
+
+    @Test
+    void fulfill_BelowMinimumFill_ShouldSkipBackorder() {
+        // Mocking behavior : 4 units are less than half of the oldest backorder
+        ReflectionTestUtils.setField(backorderFulfillmentEngine, "minFill", 0.5);
+        queue(createBackorderMock(1L, 10), createBackorderMock(2L, 2));
+        when(inventoryService.reserve(1L, 2)).thenReturn(true);
+
+        // Test
+        List<Order> orders = backorderFulfillmentEngine.fulfill(1L, 4);
+
+        // Verification
+        assertEquals(1, orders.size());
+        assertEquals(2, orders.get(0).getQuantity());
+        verify(backorderRepository).deleteAllByIdInBatch(List.of(2L));
+    }
+
+    @Test
+    void fulfill_NoBackorders_ShouldNotTouchDatabase() {
+        assertTrue(backorderFulfillmentEngine.fulfill(1L, 10).isEmpty());
+        verifyNoInteractions(productRepository, backorderRepository, inventoryService);
+    }
+
+    @Test
+    void fulfill_NothingFits_ShouldNotTouchStock() {
+        queue(createBackorderMock(1L, 5));
+
+        assertTrue(backorderFulfillmentEngine.fulfill(1L, 2).isEmpty());
+        verify(backorderRepository, never()).lockAllById(any());
+        verify(inventoryService, never()).reserve(any(), anyInt());
+        verify(orderRepository, never()).saveAll(anyList());
+        verifyNoInteractions(notificationService);
+    }
+
+    @Test
+    void fulfill_ProductUnavailable_ShouldNotLockBackorders() {
+        queue(createBackorderMock(1L, 5));
+        product.setAvailability(false);
+
+        assertTrue(backorderFulfillmentEngine.fulfill(1L, 10).isEmpty());
+        verify(backorderRepository, never()).lockAllById(any());
+    }
+
+    @Test
+    void backorderDeleted_ShouldNotBeFulfilled() {
+        Backorder backorder = createBackorderMock(1L, 5);
+        queue(backorder);
+
+        backorderFulfillmentEngine.backorderDeleted(1L);
+
+        assertTrue(backorderFulfillmentEngine.fulfill(1L, 10).isEmpty());
+        verifyNoInteractions(productRepository);
+    }
+
+    @Test
+    void backorderUpdated_OtherProduct_ShouldMoveBackorder() {
+        // Mocking behavior : the backorder of product 1 moved to product 2
+        Backorder backorder = createBackorderMock(1L, 5);
+        queue(backorder);
+        Product other = new Product();
+        other.setId(2L);
+        backorder.setProduct(other);
+
+        // Test
+        backorderFulfillmentEngine.backorderUpdated(backorder);
+
+        // Verification : nothing waits for product 1 any more
+        assertTrue(backorderFulfillmentEngine.fulfill(1L, 10).isEmpty());
+        verifyNoInteractions(productRepository);
+    }
+
+    @Test
+    void rebuild_ShouldQueueBackordersOfTable() {
+        // Mocking behavior : saved by another instance, only in the table
+        Backorder backorder = createBackorderMock(1L, 5);
+        database.put(1L, backorder);
+        when(backorderRepository.streamPending()).thenReturn(Stream.of(
+                new PendingBackorder(1L, 1L, backorder.getTimestamp(), 5)));
+        when(inventoryService.reserve(1L, 5)).thenReturn(true);
+
+        // Test
+        backorderFulfillmentEngine.rebuild();
+        List<Order> orders = backorderFulfillmentEngine.fulfill(1L, 5);
+
+        // Verification
+        assertEquals(1, orders.size());
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<BackorderFulfilledEvent> enqueuedNotifications() {
+        ArgumentCaptor<List<BackorderFulfilledEvent>> notifications = ArgumentCaptor.forClass(List.class);
+        verify(notificationService).enqueue(notifications.capture());
+        return notifications.getValue();
+    }
+
+    private void queue(Backorder... backorders) {
+        for (Backorder backorder : backorders) {
+            database.put(backorder.getId(), backorder);
+        }
+        backorderFulfillmentEngine.backordersSaved(List.of(backorders));
+    }
+
+    private Backorder createBackorderMock(Long id, int quantity) {
+        Customer customer = new Customer();
+        customer.setId(id);
+        Backorder backorder = new Backorder();
+        backorder.setId(id);
+        backorder.setProduct(product);
+        backorder.setCustomer(customer);
+        backorder.setTimestamp(LocalDateTime.now().minusDays(1).plusHours(id));
+        backorder.setQuantity(quantity);
+        return backorder;
+    }
+}
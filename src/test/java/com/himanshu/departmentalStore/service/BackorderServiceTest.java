@@ -1,14 +1,20 @@
 package com.himanshu.departmentalStore.service;
 
+import com.himanshu.departmentalStore.dto.CursorPage;
 import com.himanshu.departmentalStore.model.Backorder;
 import com.himanshu.departmentalStore.model.Customer;
 import com.himanshu.departmentalStore.model.Product;
 import com.himanshu.departmentalStore.repository.BackorderRepository;
+import com.himanshu.departmentalStore.repository.CustomerRepository;
+import com.himanshu.departmentalStore.repository.ProductRepository;
+import com.himanshu.departmentalStore.util.Pagination;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.data.domain.Limit;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.Arrays;
@@ -16,15 +22,34 @@ import java.util.List;
 import java.util.Optional;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
-import static org.mockito.Mockito.doNothing;
 
 class BackorderServiceTest {
 
     @Mock
     private BackorderRepository backorderRepository;
 
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private ProductCatalogService productCatalogService;
+
+    @Mock
+    private CustomerRepository customerRepository;
+
+    @Mock
+    private BackorderFulfillmentEngine backorderFulfillmentEngine;
+
+    @Spy
+    private Pagination pagination = new Pagination(50, 500);
+
     @InjectMocks
     private BackorderService backorderService;
 
@@ -40,13 +65,14 @@ class BackorderServiceTest {
                 createBackorderMock(1L, createProductMock(), createCustomerMock(), LocalDateTime.now(), 5),
                 createBackorderMock(2L, createProductMock(), createCustomerMock(), LocalDateTime.now(), 10)
         );
-        when(backorderRepository.findAll()).thenReturn(backorders);
+        when(backorderRepository.findPage(0L, null, 1L, Limit.of(51))).thenReturn(backorders);
 
         // Test
-        List<Backorder> result = backorderService.getAllBackorders();
+        CursorPage<Backorder> result = backorderService.getAllBackorders(null, null, null, 1L);
 
         // Verification
-        assertEquals(backorders, result);
+        assertEquals(backorders, result.getItems());
+        assertNull(result.getNextCursor());
     }
 
     @Test
@@ -73,8 +99,9 @@ class BackorderServiceTest {
         // Test
         Backorder result = backorderService.saveBackorder(backorder);
 
-        // Verification
+        // Verification : queued for its product
         assertNotNull(result.getId());
+        verify(backorderFulfillmentEngine).backordersSaved(List.of(backorder));
     }
 
     @Test
@@ -82,16 +109,22 @@ class BackorderServiceTest {
         // Mocking behavior
         Long backorderId = 1L;
         Backorder backorder = createBackorderMock(backorderId, createProductMock(), createCustomerMock(), LocalDateTime.now(), 5);
-        when(backorderRepository.save(backorder)).thenReturn(backorder);
-        when(backorderRepository.existsById(backorderId)).thenReturn(true);
+        when(backorderRepository.updateById(backorderId, backorder)).thenReturn(1);
+        when(productCatalogService.find(backorder.getProduct().getId())).thenReturn(backorder.getProduct());
+        when(customerRepository.findById(backorder.getCustomer().getId())).thenReturn(Optional.of(backorder.getCustomer()));
 
         backorder.setQuantity(10);
         // Test
         Backorder result = backorderService.updateBackorder(backorderId, backorder);
 
-        // Verification
+        // Verification : one UPDATE, the product comes from the catalog and the customer from the second-level cache
         assertEquals(backorderId, result.getId());
         assertEquals(10, result.getQuantity());
+        assertSame(backorder.getProduct(), result.getProduct());
+        verify(backorderRepository).updateById(backorderId, backorder);
+        verifyNoMoreInteractions(backorderRepository);
+        verifyNoInteractions(productRepository);
+        verify(backorderFulfillmentEngine).backorderUpdated(backorder);
     }
 
     @Test
@@ -99,14 +132,16 @@ class BackorderServiceTest {
         // Mocking behavior
         Long backorderId = 1L;
         Backorder backorder = createBackorderMock(backorderId, createProductMock(), createCustomerMock(), LocalDateTime.now(), 5);
-        when(backorderRepository.findById(backorderId)).thenReturn(Optional.of(backorder));
-        doNothing().when(backorderRepository).deleteById(backorderId);
+        when(backorderRepository.deleteOneById(backorderId)).thenReturn(1);
 
         // Test
         Boolean result = backorderService.deleteBackorder(backorderId);
 
-        // Verification
+        // Verification : one DELETE, no read before it
         assertTrue(result);
+        verify(backorderRepository).deleteOneById(backorderId);
+        verifyNoMoreInteractions(backorderRepository);
+        verify(backorderFulfillmentEngine).backorderDeleted(backorderId);
     }
 
     private Backorder createBackorderMock(Long id, Product product, Customer customer, LocalDateTime timestamp, int quantity) {
@@ -0,0 +1,161 @@
+package com.himanshu.departmentalStore.service;
+
+import com.himanshu.departmentalStore.dto.CartLineRequestBody;
+import com.himanshu.departmentalStore.dto.CartRequestBody;
+import com.himanshu.departmentalStore.exception.CustomException;
+import com.himanshu.departmentalStore.exception.ResourceNotFoundException;
+import com.himanshu.departmentalStore.model.Backorder;
+import com.himanshu.departmentalStore.model.Cart;
+import com.himanshu.departmentalStore.model.Customer;
+import com.himanshu.departmentalStore.model.Product;
+import com.himanshu.departmentalStore.repository.CartRepository;
+import com.himanshu.departmentalStore.repository.CustomerRepository;
+import com.himanshu.departmentalStore.repository.DiscountRepository;
+import com.himanshu.departmentalStore.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpStatus;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CartServiceTest {
+
+    @Mock
+    private CartRepository cartRepository;
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private CustomerRepository customerRepository;
+
+    @Mock
+    private DiscountRepository discountRepository;
+
+    @Mock
+    private BackorderService backorderService;
+
+    @Mock
+    private InventoryService inventoryService;
+
+    @Mock
+    private SalesRollupService salesRollupService;
+
+    @InjectMocks
+    private CartService cartService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.initMocks(this);
+        when(inventoryService.count(any(Product.class))).thenAnswer(invocation -> ((Product) invocation.getArgument(0)).getCount());
+        when(customerRepository.findById(1L)).thenReturn(Optional.of(createCustomerMock()));
+        when(cartRepository.save(any(Cart.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    void createCart() {
+        Product first = createProductMock(1L, 100);
+        Product second = createProductMock(2L, 100);
+        when(productRepository.findByIdInOrderByIdAsc(any())).thenReturn(Arrays.asList(first, second));
+        when(inventoryService.reserve(any(), any(Integer.class))).thenReturn(true);
+
+        // lines given out of id order, product 2 twice
+        Cart result = cartService.createCart(createCartRequestBodyMock(line(2L, 1), line(1L, 2), line(2L, 3)));
+
+        assertEquals(2, result.getLines().size());
+        assertEquals(0, result.getBackorders().size());
+        assertEquals(new BigDecimal("60.00"), result.getAmount()); // (2 + 4) * 10.0
+        // one IN query for all the products, stock reserved in product id order
+        verify(productRepository, times(1)).findByIdInOrderByIdAsc(any());
+        InOrder inOrder = inOrder(inventoryService);
+        inOrder.verify(inventoryService).reserve(1L, 2);
+        inOrder.verify(inventoryService).reserve(2L, 4);
+        // the lines are counted by the sales reports
+        verify(salesRollupService).addCart(result);
+    }
+
+    @Test
+    void createCart_LineOutOfStock_ShouldBackorderThatLine() {
+        Product inStock = createProductMock(1L, 100);
+        Product outOfStock = createProductMock(2L, 1);
+        when(productRepository.findByIdInOrderByIdAsc(any())).thenReturn(Arrays.asList(inStock, outOfStock));
+        when(inventoryService.reserve(1L, 2)).thenReturn(true);
+        when(backorderService.saveBackorder(any(Backorder.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Cart result = cartService.createCart(createCartRequestBodyMock(line(1L, 2), line(2L, 5)));
+
+        assertEquals(1, result.getLines().size());
+        assertEquals(1, result.getBackorders().size());
+        assertEquals(5, result.getBackorders().get(0).getQuantity());
+        verify(inventoryService, never()).reserve(2L, 5);
+    }
+
+    @Test
+    void createCart_NoLineInStock_ShouldThrowCustomException() {
+        when(productRepository.findByIdInOrderByIdAsc(any())).thenReturn(List.of(createProductMock(1L, 1)));
+        when(backorderService.saveBackorder(any(Backorder.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        CustomException exception = assertThrows(CustomException.class,
+                () -> cartService.createCart(createCartRequestBodyMock(line(1L, 5))));
+
+        assertEquals(HttpStatus.ACCEPTED, exception.getExceptionHttpStatus());
+        verify(cartRepository, never()).save(any(Cart.class));
+        verify(salesRollupService, never()).addCart(any(Cart.class));
+    }
+
+    @Test
+    void createCart_ProductNotFound_ShouldThrowResourceNotFoundException() {
+        when(productRepository.findByIdInOrderByIdAsc(any())).thenReturn(List.of(createProductMock(1L, 100)));
+
+        assertThrows(ResourceNotFoundException.class,
+                () -> cartService.createCart(createCartRequestBodyMock(line(1L, 1), line(3L, 1))));
+        verify(inventoryService, never()).reserve(any(), any(Integer.class));
+    }
+
+    private CartRequestBody createCartRequestBodyMock(CartLineRequestBody... lines) {
+        CartRequestBody cartRequestBody = new CartRequestBody();
+        cartRequestBody.setCustomerId(1L);
+        cartRequestBody.setLines(Arrays.asList(lines));
+        return cartRequestBody;
+    }
+
+    private CartLineRequestBody line(Long productId, int quantity) {
+        CartLineRequestBody line = new CartLineRequestBody();
+        line.setProductId(productId);
+        line.setQuantity(quantity);
+        return line;
+    }
+
+    private Product createProductMock(Long id, int count) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName("Sample Product " + id);
+        product.setPrice(BigDecimal.valueOf(10.0));
+        product.setCount(count);
+        product.setAvailability(true);
+        return product;
+    }
+
+    private Customer createCustomerMock() {
+        Customer customer = new Customer();
+        customer.setId(1L);
+        customer.setFullName("Himanshu Kumar");
+        customer.setAddress("Delhi");
+        customer.setContactNumber("1234567890");
+        return customer;
+    }
+}
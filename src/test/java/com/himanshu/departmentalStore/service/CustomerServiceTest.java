@@ -1,26 +1,35 @@
 package com.himanshu.departmentalStore.service;
 
+import com.himanshu.departmentalStore.dto.CursorPage;
 import com.himanshu.departmentalStore.model.Customer;
 import com.himanshu.departmentalStore.repository.CustomerRepository;
+import com.himanshu.departmentalStore.util.Pagination;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.data.domain.Limit;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
-import static org.mockito.Mockito.doNothing;
 
 class CustomerServiceTest {
 
     @Mock
     private CustomerRepository customerRepository;
 
+    @Spy
+    private Pagination pagination = new Pagination(50, 500);
+
     @InjectMocks
     private CustomerService customerService;
 
@@ -36,13 +45,14 @@ class CustomerServiceTest {
                 createCustomerMock(1L, "John", "Delhi", "1234567890"),
                 createCustomerMock(2L, "Rahul", "Gurgaon", "9876543210")
         );
-        when(customerRepository.findAll()).thenReturn(customers);
+        when(customerRepository.findByIdGreaterThanOrderByIdAsc(0L, Limit.of(2))).thenReturn(customers);
 
         // Test
-        List<Customer> result = customerService.getAllCustomers();
+        CursorPage<Customer> result = customerService.getAllCustomers(null, 1);
 
         // Verification
-        assertEquals(customers, result);
+        assertEquals(1, result.getItems().size());
+        assertEquals(1L, result.getNextCursor());
     }
 
     @Test
@@ -86,8 +96,8 @@ class CustomerServiceTest {
         customer.setFullName("John");
         customer.setAddress("Delhi");
         customer.setContactNumber("1234567890");
-        when(customerRepository.save(customer)).thenReturn(customer);
-        when(customerRepository.existsById(customerId)).thenReturn(true);
+        Customer existing = createCustomerMock(customerId, "John", "Delhi", "1234567890");
+        when(customerRepository.findById(customerId)).thenReturn(Optional.of(existing));
 
 
         customer.setFullName("Rahul");
@@ -95,22 +105,29 @@ class CustomerServiceTest {
         Customer result = customerService.updateCustomer(customerId, customer);
 
 
-        // Verification
+        // Verification : the loaded entity is changed, and written when the transaction commits
+        assertSame(existing, result);
         assertEquals(customerId, result.getId());
+        assertEquals("Rahul", result.getFullName());
+        verify(customerRepository).findById(customerId);
+        verifyNoMoreInteractions(customerRepository);
     }
 
     @Test
     void deleteCustomer() {
         // Mocking behavior
         Long customerId = 1L;
-        when(customerRepository.findById(customerId)).thenReturn(Optional.of(new Customer()));
-        doNothing().when(customerRepository).deleteById(customerId);
+        Customer existing = createCustomerMock(customerId, "John", "Delhi", "1234567890");
+        when(customerRepository.findById(customerId)).thenReturn(Optional.of(existing));
 
         // Test
         Boolean result = customerService.deleteCustomer(customerId);
 
-        // Verification
+        // Verification : the loaded entity is deleted
         assertTrue(result);
+        verify(customerRepository).findById(customerId);
+        verify(customerRepository).delete(existing);
+        verifyNoMoreInteractions(customerRepository);
     }
 
     private Customer createCustomerMock(Long id, String fullName, String address, String contactNumber) {
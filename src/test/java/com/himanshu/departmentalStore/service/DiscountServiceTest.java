@@ -1,5 +1,6 @@
 package com.himanshu.departmentalStore.service;
 
+import com.himanshu.departmentalStore.dto.OrderRequestBody;
 import com.himanshu.departmentalStore.model.Discount;
 import com.himanshu.departmentalStore.repository.DiscountRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -7,21 +8,28 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.scheduling.TaskScheduler;
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.when;
-import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 
 class DiscountServiceTest {
 
     @Mock
     private DiscountRepository discountRepository;
 
+    @Mock
+    private TaskScheduler taskScheduler;
+
     @InjectMocks
     private DiscountService discountService;
 
@@ -38,13 +46,95 @@ class DiscountServiceTest {
                 createDiscountMock(2L, "20% off", new BigDecimal("20"), LocalDateTime.now(), LocalDateTime.now().plusDays(5), "Spring sale", new BigDecimal("50"), "SPRING20"),
                 createDiscountMock(4L, "50% off", new BigDecimal("50"), LocalDateTime.now().minusDays(2), LocalDateTime.now().plusDays(2), "Half price sale", BigDecimal.ZERO, "HALFOFF")
                 );
-        when(discountRepository.findAll()).thenReturn(discounts);
+        when(discountRepository.findNotEndedAt(any())).thenReturn(discounts);
+        discountService.rebuildActiveIndex();
 
         // Test
         List<Discount> result = discountService.getAllActiveDiscounts();
 
         // Verification
         assertEquals(2, result.size()); // because 1 discount is not active.
+        assertEquals(List.of(2L, 4L), result.stream().map(Discount::getId).toList());
+        // answered from the index, which is rebuilt when the next discount starts
+        verify(discountRepository, never()).findActiveAt(any());
+        verify(taskScheduler).schedule(any(Runnable.class), any(Instant.class));
+    }
+
+    @Test
+    void getAllActiveDiscounts_IndexNotLoaded_ShouldReadDatabase() {
+        // Mocking behavior
+        List<Discount> discounts = List.of(
+                createDiscountMock(2L, "20% off", new BigDecimal("20"), LocalDateTime.now(), LocalDateTime.now().plusDays(5), "Spring sale", new BigDecimal("50"), "SPRING20"));
+        when(discountRepository.findActiveAt(any())).thenReturn(discounts);
+
+        // Test
+        List<Discount> result = discountService.getAllActiveDiscounts();
+
+        // Verification
+        assertEquals(discounts, result);
+    }
+
+    @Test
+    void getDiscountByCouponCode_FromMemory() {
+        // Mocking behavior
+        Discount discount = createDiscountMock(1L, "50% off", new BigDecimal("50"), LocalDateTime.now(), LocalDateTime.now().plusDays(7), "Half price sale", BigDecimal.ZERO, "HALFOFF");
+        when(discountRepository.findAll()).thenReturn(List.of(discount));
+        discountService.reloadCouponCodes();
+
+        // Test
+        Discount result = discountService.getDiscountByCouponCode("halfoff");
+
+        // Verification : the code is resolved without case, and without reading the database
+        assertEquals(discount, result);
+        verify(discountRepository, never()).findByCouponCode(any());
+    }
+
+    @Test
+    void getDiscountByCouponCode_NotLoaded_ShouldReadDatabase() {
+        // Mocking behavior
+        Discount discount = createDiscountMock(1L, "50% off", new BigDecimal("50"), LocalDateTime.now(), LocalDateTime.now().plusDays(7), "Half price sale", BigDecimal.ZERO, "HALFOFF");
+        when(discountRepository.findByCouponCode("HALFOFF")).thenReturn(Optional.of(discount));
+
+        // Test
+        Discount result = discountService.getDiscountByCouponCode("HALFOFF");
+
+        // Verification
+        assertEquals(discount, result);
+    }
+
+    @Test
+    void updateDiscount_NewCouponCode_ShouldReplaceCouponCode() {
+        // Mocking behavior
+        Discount discount = createDiscountMock(1L, "50% off", new BigDecimal("50"), LocalDateTime.now(), LocalDateTime.now().plusDays(7), "Half price sale", BigDecimal.ZERO, "HALFOFF");
+        when(discountRepository.findAll()).thenReturn(List.of(discount));
+        discountService.reloadCouponCodes();
+        Discount updated = createDiscountMock(1L, "50% off", new BigDecimal("50"), LocalDateTime.now(), LocalDateTime.now().plusDays(7), "Half price sale", BigDecimal.ZERO, "HALF50");
+        when(discountRepository.updateById(1L, updated)).thenReturn(1);
+
+        // Test
+        discountService.updateDiscount(1L, updated);
+
+        // Verification
+        assertEquals(updated, discountService.findDiscountByCouponCode("HALF50"));
+        assertNull(discountService.findDiscountByCouponCode("HALFOFF"));
+    }
+
+    @Test
+    void applyCouponCode() {
+        // Mocking behavior
+        Discount discount = createDiscountMock(1L, "50% off", new BigDecimal("50"), LocalDateTime.now(), LocalDateTime.now().plusDays(7), "Half price sale", BigDecimal.ZERO, "HALFOFF");
+        when(discountRepository.findAll()).thenReturn(List.of(discount));
+        discountService.reloadCouponCodes();
+        OrderRequestBody known = new OrderRequestBody();
+        known.setCouponCode("HALFOFF");
+        OrderRequestBody unknown = new OrderRequestBody();
+        unknown.setCouponCode("NOPE");
+
+        // Test & Verification
+        assertNull(discountService.applyCouponCode(known));
+        assertEquals(1L, known.getDiscountId());
+        assertEquals("Discount not found with coupon code : NOPE", discountService.applyCouponCode(unknown));
+        assertNull(unknown.getDiscountId());
     }
 
     @Test
@@ -97,11 +187,15 @@ class DiscountServiceTest {
         Discount discount = createDiscountMock(discountId, "50% off", new BigDecimal("50"), LocalDateTime.now(), LocalDateTime.now().plusDays(7), "Half price sale", BigDecimal.ZERO, "HALFOFF");
         when(discountRepository.save(discount)).thenReturn(discount);
 
+        when(discountRepository.findNotEndedAt(any())).thenReturn(List.of(discount));
+
         // Test
         Discount result = discountService.saveDiscount(discount);
 
         // Verification
         assertNotNull(result.getId());
+        // the new discount is active right away
+        assertEquals(List.of(discount), discountService.getAllActiveDiscounts());
     }
 
     @Test
@@ -109,30 +203,35 @@ class DiscountServiceTest {
         // Mocking behavior
         Long discountId = 1L;
         Discount discount = createDiscountMock(discountId, "50% off", new BigDecimal("50"), LocalDateTime.now(), LocalDateTime.now().plusDays(7), "Half price sale", BigDecimal.ZERO, "HALFOFF");
-        when(discountRepository.save(discount)).thenReturn(discount);
-        when(discountRepository.existsById(discountId)).thenReturn(true);
+        when(discountRepository.updateById(discountId, discount)).thenReturn(1);
 
         discount.setName("40% off");
         // Test
         Discount result = discountService.updateDiscount(discountId, discount);
 
-        // Verification
+        // Verification : one UPDATE, no read before it (the active index is reloaded after the change)
         assertEquals(discountId, result.getId());
         assertEquals("40% off", result.getName());
+        verify(discountRepository).updateById(discountId, discount);
+        verify(discountRepository, never()).existsById(any());
+        verify(discountRepository, never()).save(any());
     }
 
     @Test
     void deleteDiscount() {
         // Mocking behavior
         Long discountId = 1L;
-        when(discountRepository.findById(discountId)).thenReturn(Optional.of(new Discount()));
-        doNothing().when(discountRepository).deleteById(discountId);
+        when(discountRepository.deleteOneById(discountId)).thenReturn(1);
 
         // Test
         boolean result = discountService.deleteDiscount(discountId);
 
-        // Verification
+        // Verification : one DELETE, no read before it
         assertTrue(result);
+        verify(discountRepository).deleteOneById(discountId);
+        verify(discountRepository, never()).findById(any());
+        verify(discountRepository, never()).deleteById(any());
+        verify(discountRepository).findNotEndedAt(any());
     }
 
     private Discount createDiscountMock(Long id, String name, BigDecimal value, LocalDateTime startDate, LocalDateTime endDate, String description, BigDecimal minPrice, String couponCode) {
@@ -0,0 +1,135 @@
+package com.himanshu.departmentalStore.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.himanshu.departmentalStore.model.Customer;
+import com.himanshu.departmentalStore.model.Discount;
+import com.himanshu.departmentalStore.model.Order;
+import com.himanshu.departmentalStore.model.Product;
+import com.himanshu.departmentalStore.repository.BackorderRepository;
+import com.himanshu.departmentalStore.repository.CustomerRepository;
+import com.himanshu.departmentalStore.repository.OrderRepository;
+import com.himanshu.departmentalStore.repository.ProductRepository;
+import com.himanshu.departmentalStore.util.ExportFormat;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ExportServiceTest {
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private BackorderRepository backorderRepository;
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private CustomerRepository customerRepository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    @InjectMocks
+    private ExportService exportService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.initMocks(this);
+    }
+
+    @Test
+    void exportOrders_Ndjson() throws IOException {
+        Discount discount = new Discount();
+        discount.setId(7L);
+        when(orderRepository.streamAll()).thenReturn(Stream.of(
+                createOrderMock(1L, discount), createOrderMock(2L, null)));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        long exported = exportService.exportOrders(ExportFormat.NDJSON, output);
+
+        assertEquals(2, exported);
+        String[] lines = output.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        JsonNode first = objectMapper.readTree(lines[0]);
+        assertEquals(1L, first.get("id").asLong());
+        assertEquals(3L, first.get("productId").asLong());
+        assertEquals(7L, first.get("discountId").asLong());
+        assertEquals("2024-04-01T10:15:30", first.get("timestamp").asText());
+        assertTrue(objectMapper.readTree(lines[1]).get("discountId").isNull());
+        verify(entityManager, never()).clear();
+    }
+
+    @Test
+    void exportCustomers_Csv() throws IOException {
+        Customer customer = new Customer();
+        customer.setId(1L);
+        customer.setFullName("Kumar, Himanshu");
+        customer.setAddress("12 \"Green\" Park");
+        customer.setContactNumber("1234567890");
+        when(customerRepository.streamAll()).thenReturn(Stream.of(customer));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        exportService.exportCustomers(ExportFormat.CSV, output);
+
+        assertEquals("id,fullName,address,contactNumber\r\n"
+                + "1,\"Kumar, Himanshu\",\"12 \"\"Green\"\" Park\",1234567890\r\n", output.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void exportProducts_ClearsPersistenceContext() throws IOException {
+        when(productRepository.streamAll()).thenReturn(IntStream.rangeClosed(1, 2_500).mapToObj(i -> {
+            Product product = new Product();
+            product.setId((long) i);
+            product.setName("Product " + i);
+            product.setPrice(BigDecimal.valueOf(10.5));
+            return product;
+        }));
+
+        long exported = exportService.exportProducts(ExportFormat.CSV, new ByteArrayOutputStream());
+
+        assertEquals(2_500, exported);
+        // exported entities are evicted every 1000 rows
+        verify(entityManager, times(2)).clear();
+    }
+
+    private Order createOrderMock(Long id, Discount discount) {
+        Product product = new Product();
+        product.setId(3L);
+        Customer customer = new Customer();
+        customer.setId(4L);
+        Order order = new Order();
+        order.setId(id);
+        order.setProduct(product);
+        order.setCustomer(customer);
+        order.setDiscount(discount);
+        order.setTimestamp(LocalDateTime.of(2024, 4, 1, 10, 15, 30));
+        order.setQuantity(2);
+        order.setAmount(BigDecimal.valueOf(21.0));
+        return order;
+    }
+}
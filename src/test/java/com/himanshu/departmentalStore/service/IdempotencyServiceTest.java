@@ -0,0 +1,189 @@
+package com.himanshu.departmentalStore.service;
+
+import com.himanshu.departmentalStore.model.IdempotencyRecord;
+import com.himanshu.departmentalStore.repository.IdempotencyRecordRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class IdempotencyServiceTest {
+
+    private static final String TOKEN = "0b6f1d4e-8f0a-4c4e-9d59-2f1c3a7e5b21";
+
+    private static final String HASH = "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08";
+
+    @Mock
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @InjectMocks
+    private IdempotencyService idempotencyService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.initMocks(this);
+        ReflectionTestUtils.setField(idempotencyService, "ttl", Duration.ofHours(24));
+        ReflectionTestUtils.setField(idempotencyService, "lease", Duration.ofMinutes(1));
+        ReflectionTestUtils.setField(idempotencyService, "cacheTtl", Duration.ofMinutes(10));
+        ReflectionTestUtils.setField(idempotencyService, "cacheSize", 2);
+        when(idempotencyRecordRepository.complete(any(), any(), anyInt(), any(), any())).thenReturn(1);
+    }
+
+    @Test
+    void claim_NewKey() {
+        when(idempotencyRecordRepository.claim(eq("/orders:a"), eq(TOKEN), eq(HASH), any())).thenReturn(1);
+
+        assertFalse(idempotencyService.claim("/orders:a", TOKEN, HASH).isPresent());
+        verify(idempotencyRecordRepository, never()).findById(any());
+    }
+
+    @Test
+    void claim_NewKey_ShouldHoldItForTheLeaseOnly() {
+        ArgumentCaptor<LocalDateTime> expiresAt = ArgumentCaptor.forClass(LocalDateTime.class);
+        when(idempotencyRecordRepository.claim(eq("/orders:a"), eq(TOKEN), eq(HASH), expiresAt.capture())).thenReturn(1);
+
+        idempotencyService.claim("/orders:a", TOKEN, HASH);
+
+        assertTrue(expiresAt.getValue().isBefore(LocalDateTime.now().plusMinutes(2)));
+    }
+
+    @Test
+    void complete_ShouldKeepTheResponseForTheTtl() {
+        ArgumentCaptor<LocalDateTime> expiresAt = ArgumentCaptor.forClass(LocalDateTime.class);
+
+        idempotencyService.complete("/orders:a", TOKEN, HASH, 201, "{}");
+
+        verify(idempotencyRecordRepository).complete(eq("/orders:a"), eq(TOKEN), eq(201), eq("{}"), expiresAt.capture());
+        assertTrue(expiresAt.getValue().isAfter(LocalDateTime.now().plusHours(23)));
+        assertEquals(HASH, idempotencyService.claim("/orders:a", TOKEN, HASH).get().getRequestHash());
+    }
+
+    @Test
+    void claim_CompletedKey_ShouldBeServedFromCacheAfterward() {
+        IdempotencyRecord completed = createRecordMock("/orders:a", 201, LocalDateTime.now().plusHours(1));
+        when(idempotencyRecordRepository.claim(eq("/orders:a"), eq(TOKEN), eq(HASH), any())).thenReturn(0);
+        when(idempotencyRecordRepository.findById("/orders:a")).thenReturn(Optional.of(completed));
+
+        Optional<IdempotencyRecord> first = idempotencyService.claim("/orders:a", TOKEN, HASH);
+        Optional<IdempotencyRecord> second = idempotencyService.claim("/orders:a", TOKEN, HASH);
+
+        assertEquals(201, first.get().getStatusCode());
+        assertEquals(201, second.get().getStatusCode());
+        verify(idempotencyRecordRepository, times(1)).claim(eq("/orders:a"), eq(TOKEN), eq(HASH), any());
+        verify(idempotencyRecordRepository, times(1)).findById("/orders:a");
+    }
+
+    @Test
+    void claim_InProgressKey_ShouldNotBeCached() {
+        IdempotencyRecord inProgress = createRecordMock("/orders:a", IdempotencyRecord.IN_PROGRESS, LocalDateTime.now().plusHours(1));
+        when(idempotencyRecordRepository.claim(eq("/orders:a"), eq(TOKEN), eq(HASH), any())).thenReturn(0);
+        when(idempotencyRecordRepository.findById("/orders:a")).thenReturn(Optional.of(inProgress));
+
+        assertTrue(idempotencyService.claim("/orders:a", TOKEN, HASH).get().isInProgress());
+        assertTrue(idempotencyService.claim("/orders:a", TOKEN, HASH).get().isInProgress());
+        verify(idempotencyRecordRepository, times(2)).findById("/orders:a");
+    }
+
+    @Test
+    void claim_ExpiredKey_ShouldBeTakenOver() {
+        IdempotencyRecord expired = createRecordMock("/orders:a", IdempotencyRecord.IN_PROGRESS, LocalDateTime.now().minusMinutes(1));
+        when(idempotencyRecordRepository.claim(eq("/orders:a"), eq(TOKEN), eq(HASH), any())).thenReturn(0);
+        when(idempotencyRecordRepository.findById("/orders:a")).thenReturn(Optional.of(expired));
+        when(idempotencyRecordRepository.takeOver(eq("/orders:a"), eq(TOKEN), eq(HASH), any(), any())).thenReturn(1);
+
+        assertFalse(idempotencyService.claim("/orders:a", TOKEN, HASH).isPresent());
+        verify(idempotencyRecordRepository, never()).release(any(), any());
+    }
+
+    @Test
+    void claim_ExpiredKeyTakenOverByAnotherRequest_ShouldReturnItsRecord() {
+        IdempotencyRecord expired = createRecordMock("/orders:a", IdempotencyRecord.IN_PROGRESS, LocalDateTime.now().minusMinutes(1));
+        IdempotencyRecord otherClaim = createRecordMock("/orders:a", IdempotencyRecord.IN_PROGRESS, LocalDateTime.now().plusMinutes(1));
+        when(idempotencyRecordRepository.claim(eq("/orders:a"), eq(TOKEN), eq(HASH), any())).thenReturn(0);
+        when(idempotencyRecordRepository.findById("/orders:a")).thenReturn(Optional.of(expired), Optional.of(otherClaim));
+        when(idempotencyRecordRepository.takeOver(eq("/orders:a"), eq(TOKEN), eq(HASH), any(), any())).thenReturn(0);
+
+        assertTrue(idempotencyService.claim("/orders:a", TOKEN, HASH).get().isInProgress());
+        verify(idempotencyRecordRepository, times(1)).takeOver(eq("/orders:a"), eq(TOKEN), eq(HASH), any(), any());
+        verify(idempotencyRecordRepository, never()).release(any(), any());
+    }
+
+    @Test
+    void complete_ShouldServeRetriesFromCache() {
+        idempotencyService.complete("/backorders:b", TOKEN, HASH, 201, "{\"id\":1}");
+
+        Optional<IdempotencyRecord> replayed = idempotencyService.claim("/backorders:b", TOKEN, HASH);
+
+        assertEquals("{\"id\":1}", replayed.get().getResponseBody());
+        verify(idempotencyRecordRepository).complete(eq("/backorders:b"), eq(TOKEN), eq(201), eq("{\"id\":1}"), any());
+        verify(idempotencyRecordRepository, never()).claim(any(), any(), any(), any());
+    }
+
+    @Test
+    void complete_AfterLeaseTakenOver_ShouldNotStoreNorCacheTheResponse() {
+        when(idempotencyRecordRepository.complete(eq("/orders:a"), eq(TOKEN), eq(201), eq("{}"), any())).thenReturn(0);
+        IdempotencyRecord newClaim = createRecordMock("/orders:a", IdempotencyRecord.IN_PROGRESS, LocalDateTime.now().plusMinutes(1));
+        when(idempotencyRecordRepository.claim(eq("/orders:a"), eq("other-token"), eq(HASH), any())).thenReturn(0);
+        when(idempotencyRecordRepository.findById("/orders:a")).thenReturn(Optional.of(newClaim));
+
+        idempotencyService.complete("/orders:a", TOKEN, HASH, 201, "{}");
+
+        // the request which took the key over is still running : retries get 409, not the response of the slow request
+        assertTrue(idempotencyService.claim("/orders:a", "other-token", HASH).get().isInProgress());
+    }
+
+    @Test
+    void release_AfterLeaseTakenOver_ShouldLeaveTheNewClaim() {
+        when(idempotencyRecordRepository.release("/orders:a", TOKEN)).thenReturn(0);
+
+        idempotencyService.release("/orders:a", TOKEN);
+
+        verify(idempotencyRecordRepository).release("/orders:a", TOKEN);
+        verify(idempotencyRecordRepository, never()).deleteById(any());
+    }
+
+    @Test
+    void complete_CacheFull_ShouldDropLeastRecentlyUsed() {
+        idempotencyService.complete("/orders:1", TOKEN, HASH, 201, "{}");
+        idempotencyService.complete("/orders:2", TOKEN, HASH, 201, "{}");
+        idempotencyService.complete("/orders:3", TOKEN, HASH, 201, "{}");
+        when(idempotencyRecordRepository.claim(eq("/orders:1"), eq(TOKEN), eq(HASH), any())).thenReturn(1);
+
+        assertFalse(idempotencyService.claim("/orders:1", TOKEN, HASH).isPresent());
+        assertTrue(idempotencyService.claim("/orders:3", TOKEN, HASH).isPresent());
+    }
+
+    @Test
+    void purgeExpired() {
+        when(idempotencyRecordRepository.deleteExpired(any())).thenReturn(3);
+
+        idempotencyService.purgeExpired();
+
+        verify(idempotencyRecordRepository).deleteExpired(any());
+    }
+
+    private IdempotencyRecord createRecordMock(String key, int statusCode, LocalDateTime expiresAt) {
+        IdempotencyRecord idempotencyRecord = new IdempotencyRecord();
+        idempotencyRecord.setKey(key);
+        idempotencyRecord.setStatusCode(statusCode);
+        idempotencyRecord.setResponseBody("{}");
+        idempotencyRecord.setExpiresAt(expiresAt);
+        return idempotencyRecord;
+    }
+}
@@ -0,0 +1,208 @@
+package com.himanshu.departmentalStore.service;
+
+import com.himanshu.departmentalStore.dto.ProductStock;
+import com.himanshu.departmentalStore.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class InventoryEngineTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @InjectMocks
+    private InventoryEngine inventoryEngine;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.initMocks(this);
+    }
+
+    @Test
+    void load() {
+        when(productRepository.findAllStock()).thenReturn(List.of(new ProductStock(1L, 10, true), new ProductStock(2L, 0, true)));
+
+        // Test
+        inventoryEngine.load();
+
+        // Verification : loaded products are not read again
+        assertEquals(10, inventoryEngine.count(1L));
+        assertFalse(inventoryEngine.reserve(2L, 1));
+        verify(productRepository, times(0)).findStockById(any());
+    }
+
+    @Test
+    void reserve_ConcurrentOrdersNeverOversell() throws Exception {
+        inventoryEngine.set(1L, 1_000, true);
+        AtomicInteger reserved = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            workers.add(executor.submit(() -> {
+                for (int j = 0; j < 500; j++) {
+                    if (inventoryEngine.reserve(1L, 1)) {
+                        reserved.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        for (Future<?> worker : workers) {
+            worker.get();
+        }
+        executor.shutdown();
+
+        // 4000 attempts on 1000 units : exactly 1000 succeed and the count stops at zero
+        assertEquals(1_000, reserved.get());
+        assertEquals(0, inventoryEngine.count(1L));
+    }
+
+    @Test
+    void reserve_UnavailableProduct() {
+        inventoryEngine.set(1L, 10, false);
+
+        assertFalse(inventoryEngine.reserve(1L, 1));
+        assertEquals(10, inventoryEngine.count(1L));
+    }
+
+    @Test
+    void reserve_LoadsMissingProductOnce() {
+        when(productRepository.findStockById(2L)).thenReturn(Optional.of(new ProductStock(2L, 5, true)));
+
+        // Test
+        assertTrue(inventoryEngine.reserve(2L, 3));
+        assertFalse(inventoryEngine.reserve(2L, 3));
+
+        // Verification
+        assertEquals(2, inventoryEngine.count(2L));
+        verify(productRepository, times(1)).findStockById(2L);
+    }
+
+    @Test
+    void reserve_ConcurrentFirstUse_KeepsOneStock() throws Exception {
+        when(productRepository.findStockById(3L)).thenReturn(Optional.of(new ProductStock(3L, 100, true)));
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            workers.add(executor.submit(() -> inventoryEngine.reserve(3L, 1)));
+        }
+        for (Future<?> worker : workers) {
+            worker.get();
+        }
+        executor.shutdown();
+
+        // products are loaded outside of the map lock : racing loads are possible, but only one stock is kept
+        assertEquals(92, inventoryEngine.count(3L));
+    }
+
+    @Test
+    void reserve_UnknownProduct() {
+        when(productRepository.findStockById(9L)).thenReturn(Optional.empty());
+
+        assertFalse(inventoryEngine.reserve(9L, 1));
+        assertEquals(0, inventoryEngine.release(9L, 1));
+    }
+
+    @Test
+    void reserve_RolledBack_ShouldPutStockBack() {
+        inventoryEngine.set(1L, 10, true);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // Test
+            assertTrue(inventoryEngine.reserve(1L, 4));
+            assertEquals(6, inventoryEngine.count(1L));
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        // Verification
+        assertEquals(10, inventoryEngine.count(1L));
+    }
+
+    @Test
+    void set_RolledBack_ShouldRestoreStockAndKeepReservations() throws Exception {
+        inventoryEngine.set(1L, 10, false);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // Test : a restock to 50 rolled back, while an order of another thread took 3 units
+            inventoryEngine.set(1L, 50, true);
+            Thread order = new Thread(() -> inventoryEngine.reserve(1L, 3));
+            order.start();
+            order.join();
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        // Verification : back to unavailable, without the 3 units
+        assertEquals(7, inventoryEngine.count(1L));
+        assertFalse(inventoryEngine.reserve(1L, 1));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flush() {
+        inventoryEngine.set(1L, 10, true);
+        inventoryEngine.set(2L, 10, true);
+        inventoryEngine.flush();
+        inventoryEngine.reserve(1L, 2);
+        inventoryEngine.reserve(1L, 3);
+        inventoryEngine.release(2L, 1);
+
+        // Test
+        int flushed = inventoryEngine.flush();
+
+        // Verification : the latest counts only, all in one batch, and nothing left for the next flush
+        assertEquals(2, flushed);
+        ArgumentCaptor<List<Object[]>> updates = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(2)).batchUpdate(eq("UPDATE product SET count = ?, version = version + 1 WHERE id = ?"), updates.capture());
+        assertArrayEquals(new Object[]{5, 1L}, updates.getValue().get(0));
+        assertArrayEquals(new Object[]{11, 2L}, updates.getValue().get(1));
+        assertEquals(0, inventoryEngine.flush());
+    }
+
+    @Test
+    void flush_Failure_ShouldRetryWithNextFlush() {
+        inventoryEngine.set(1L, 10, true);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenThrow(new QueryTimeoutException("Lock wait timeout exceeded"));
+
+        // Test
+        assertEquals(0, inventoryEngine.flush());
+
+        // Verification
+        doReturn(new int[]{1}).when(jdbcTemplate).batchUpdate(anyString(), anyList());
+        assertEquals(1, inventoryEngine.flush());
+    }
+}
@@ -0,0 +1,103 @@
+package com.himanshu.departmentalStore.service;
+
+import com.himanshu.departmentalStore.model.Product;
+import com.himanshu.departmentalStore.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class InventoryServiceTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private InventoryEngine inventoryEngine;
+
+    @Mock
+    private ProductCatalogService productCatalogService;
+
+    @InjectMocks
+    private InventoryService inventoryService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.initMocks(this);
+    }
+
+    @Test
+    void reserve_Database() {
+        ReflectionTestUtils.setField(inventoryService, "inventoryEngine", null);
+        when(productRepository.decrementStock(1L, 2)).thenReturn(1);
+        when(productRepository.decrementStock(1L, 50)).thenReturn(0);
+
+        assertTrue(inventoryService.reserve(1L, 2));
+        assertFalse(inventoryService.reserve(1L, 50));
+        // only the stock which moved is refreshed in the catalog
+        verify(productCatalogService, times(1)).stockChanged(1L);
+    }
+
+    @Test
+    void release_Database() {
+        ReflectionTestUtils.setField(inventoryService, "inventoryEngine", null);
+        when(productRepository.findCountById(1L)).thenReturn(12);
+
+        // Test
+        int count = inventoryService.release(1L, 2);
+
+        // Verification : one increment, then the new count read from the database
+        assertEquals(12, count);
+        verify(productRepository).incrementStock(1L, 2);
+        verify(productCatalogService).stockChanged(1L);
+    }
+
+    @Test
+    void currentCount() {
+        ReflectionTestUtils.setField(inventoryService, "inventoryEngine", null);
+        when(productRepository.findCountById(1L)).thenReturn(7);
+
+        assertEquals(7, inventoryService.currentCount(1L));
+        assertEquals(0, inventoryService.currentCount(2L));
+    }
+
+    @Test
+    void reserve_Engine() {
+        when(inventoryEngine.reserve(1L, 2)).thenReturn(true);
+        when(inventoryEngine.count(1L)).thenReturn(8);
+        Product product = new Product();
+        product.setId(1L);
+        product.setCount(100); // stale, the engine holds the stock
+
+        assertTrue(inventoryService.reserve(1L, 2));
+        assertEquals(8, inventoryService.count(product));
+        verify(productRepository, never()).decrementStock(any(), anyInt());
+    }
+
+    @Test
+    void productSaved_Engine() {
+        Product product = new Product();
+        product.setId(1L);
+        product.setCount(40);
+        product.setAvailability(true);
+
+        // Test
+        inventoryService.productSaved(product);
+        inventoryService.productDeleted(2L);
+
+        // Verification
+        verify(inventoryEngine).set(1L, 40, true);
+        verify(inventoryEngine).remove(2L);
+    }
+}
@@ -0,0 +1,175 @@
+package com.himanshu.departmentalStore.service;
+
+import com.himanshu.departmentalStore.dto.BackorderFulfilledEvent;
+import com.himanshu.departmentalStore.model.OutboxNotification;
+import com.himanshu.departmentalStore.notification.NotificationChannel;
+import com.himanshu.departmentalStore.repository.NotificationOutboxRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class NotificationDispatcherTest {
+
+    @Mock
+    private NotificationOutboxRepository notificationOutboxRepository;
+
+    @Mock
+    private NotificationChannel notificationChannel;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private NotificationDispatcher notificationDispatcher;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        MockitoAnnotations.initMocks(this);
+        ReflectionTestUtils.setField(notificationDispatcher, "batchSize", 2);
+        ReflectionTestUtils.setField(notificationDispatcher, "maxBatchesPerRun", 3);
+        ReflectionTestUtils.setField(notificationDispatcher, "maxAttempts", 3);
+        ReflectionTestUtils.setField(notificationDispatcher, "initialBackoff", Duration.ofSeconds(1));
+        ReflectionTestUtils.setField(notificationDispatcher, "maxBackoff", Duration.ofSeconds(10));
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                ((TransactionCallback<Boolean>) invocation.getArgument(0)).doInTransaction(null));
+        notificationDispatcher.registerMetrics();
+    }
+
+    @Test
+    void dispatch_FullBatches_ShouldDeliverUntilOutboxIsDrained() {
+        // Mocking behavior : 3 notifications due, in batches of 2
+        when(notificationOutboxRepository.claimDue(eq(OutboxNotification.Status.PENDING), any(), eq(Limit.of(2))))
+                .thenReturn(List.of(createNotificationMock(1L, 0), createNotificationMock(2L, 0)))
+                .thenReturn(List.of(createNotificationMock(3L, 0)));
+        when(notificationOutboxRepository.countByStatus(OutboxNotification.Status.PENDING)).thenReturn(0L);
+
+        // Test
+        notificationDispatcher.dispatch();
+
+        // Verification : the short batch ends the run
+        ArgumentCaptor<List<BackorderFulfilledEvent>> batches = ArgumentCaptor.forClass(List.class);
+        verify(notificationChannel, times(2)).deliver(batches.capture());
+        assertEquals(2, batches.getAllValues().get(0).size());
+        assertEquals(10L, batches.getAllValues().get(0).get(0).getBackorderId());
+        verify(notificationOutboxRepository).deleteAllByIdInBatch(List.of(1L, 2L));
+        verify(notificationOutboxRepository).deleteAllByIdInBatch(List.of(3L));
+        assertEquals(3.0, meterRegistry.get("notifications.delivered").counter().count());
+        assertEquals(3, meterRegistry.get("notifications.delivery.latency").timer().count());
+        assertEquals(0L, notificationDispatcher.getBacklog());
+    }
+
+    @Test
+    void dispatch_LargeBacklog_ShouldStopAfterMaxBatches() {
+        // Mocking behavior : always a full batch due
+        when(notificationOutboxRepository.claimDue(any(), any(), any()))
+                .thenAnswer(invocation -> List.of(createNotificationMock(1L, 0), createNotificationMock(2L, 0)));
+        when(notificationOutboxRepository.countByStatus(OutboxNotification.Status.PENDING)).thenReturn(500L);
+
+        // Test
+        notificationDispatcher.dispatch();
+
+        // Verification : the rest waits for the next run
+        verify(notificationChannel, times(3)).deliver(anyList());
+        assertEquals(500L, notificationDispatcher.getBacklog());
+        assertEquals(500.0, meterRegistry.get("notifications.outbox.backlog").gauge().value());
+    }
+
+    @Test
+    void dispatch_ChannelFails_ShouldRetryLaterAndStopRun() {
+        // Mocking behavior
+        OutboxNotification first = createNotificationMock(1L, 0);
+        OutboxNotification second = createNotificationMock(2L, 0);
+        when(notificationOutboxRepository.claimDue(any(), any(), any())).thenReturn(List.of(first, second));
+        doThrow(new IllegalStateException("mail server down")).when(notificationChannel).deliver(anyList());
+
+        // Test
+        LocalDateTime before = LocalDateTime.now();
+        notificationDispatcher.dispatch();
+
+        // Verification : one attempt per run, the batch is kept and due again after the backoff
+        verify(notificationChannel, times(1)).deliver(anyList());
+        verify(notificationOutboxRepository, never()).deleteAllByIdInBatch(any());
+        assertEquals(1, first.getAttempts());
+        assertEquals(OutboxNotification.Status.PENDING, first.getStatus());
+        assertTrue(first.getNextAttemptAt().isAfter(before.plusNanos(499_000_000)), first.getNextAttemptAt().toString());
+        assertTrue(first.getLastError().contains("mail server down"));
+        assertEquals(2.0, meterRegistry.get("notifications.retried").counter().count());
+    }
+
+    @Test
+    void dispatch_LastAttemptFails_ShouldGiveUpNotification() {
+        // Mocking behavior : the third attempt of the first notification
+        OutboxNotification exhausted = createNotificationMock(1L, 2);
+        OutboxNotification fresh = createNotificationMock(2L, 0);
+        when(notificationOutboxRepository.claimDue(any(), any(), any())).thenReturn(List.of(exhausted, fresh));
+        doThrow(new IllegalStateException("x".repeat(300))).when(notificationChannel).deliver(anyList());
+
+        // Test
+        notificationDispatcher.dispatch();
+
+        // Verification
+        assertEquals(OutboxNotification.Status.FAILED, exhausted.getStatus());
+        assertEquals(255, exhausted.getLastError().length());
+        assertEquals(OutboxNotification.Status.PENDING, fresh.getStatus());
+        assertEquals(1.0, meterRegistry.get("notifications.failed").counter().count());
+        assertEquals(1.0, meterRegistry.get("notifications.retried").counter().count());
+    }
+
+    @Test
+    void dispatch_NothingDue_ShouldNotCallChannel() {
+        when(notificationOutboxRepository.claimDue(any(), any(), any())).thenReturn(new ArrayList<>());
+
+        notificationDispatcher.dispatch();
+
+        verify(notificationChannel, never()).deliver(anyList());
+        verify(notificationOutboxRepository).countByStatus(OutboxNotification.Status.PENDING);
+    }
+
+    @Test
+    void backoff_ShouldDoubleWithJitterUpToMax() {
+        for (int i = 0; i < 100; i++) {
+            Duration first = notificationDispatcher.backoff(1);
+            Duration third = notificationDispatcher.backoff(3);
+            Duration tenth = notificationDispatcher.backoff(10);
+            assertTrue(first.toMillis() >= 500 && first.toMillis() <= 1000, first.toString());
+            assertTrue(third.toMillis() >= 2000 && third.toMillis() <= 4000, third.toString());
+            assertTrue(tenth.toMillis() >= 5000 && tenth.toMillis() <= 10000, tenth.toString());
+        }
+    }
+
+    private OutboxNotification createNotificationMock(Long id, int attempts) {
+        OutboxNotification notification = OutboxNotification.of(
+                new BackorderFulfilledEvent(id * 10, id, 1L, 2, 0, id * 100), LocalDateTime.now().minusSeconds(1));
+        notification.setId(id);
+        notification.setAttempts(attempts);
+        return notification;
+    }
+}
@@ -0,0 +1,55 @@
+package com.himanshu.departmentalStore.service;
+
+import com.himanshu.departmentalStore.dto.BackorderFulfilledEvent;
+import com.himanshu.departmentalStore.model.OutboxNotification;
+import com.himanshu.departmentalStore.repository.NotificationOutboxRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+class NotificationServiceTest {
+
+    @Mock
+    private NotificationOutboxRepository notificationOutboxRepository;
+
+    @InjectMocks
+    private NotificationService notificationService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.initMocks(this);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void enqueue_ShouldWritePendingNotificationsDueNow() {
+        // Test
+        notificationService.enqueue(List.of(new BackorderFulfilledEvent(1L, 2L, 3L, 4, 1, 5L)));
+
+        // Verification
+        ArgumentCaptor<List<OutboxNotification>> saved = ArgumentCaptor.forClass(List.class);
+        verify(notificationOutboxRepository).saveAll(saved.capture());
+        OutboxNotification notification = saved.getValue().get(0);
+        assertEquals(OutboxNotification.Status.PENDING, notification.getStatus());
+        assertEquals(0, notification.getAttempts());
+        assertEquals(notification.getCreatedAt(), notification.getNextAttemptAt());
+        assertEquals(1L, notification.toEvent().getBackorderId());
+        assertEquals(4, notification.toEvent().getQuantity());
+        assertEquals(1, notification.toEvent().getRemaining());
+        assertEquals(5L, notification.toEvent().getOrderId());
+    }
+
+    @Test
+    void enqueue_NoNotification_ShouldNotTouchDatabase() {
+        notificationService.enqueue(List.of());
+
+        verifyNoInteractions(notificationOutboxRepository);
+    }
+}
@@ -0,0 +1,195 @@
+package com.himanshu.departmentalStore.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.himanshu.departmentalStore.dto.BatchOrderSummary;
+import com.himanshu.departmentalStore.model.Backorder;
+import com.himanshu.departmentalStore.model.Customer;
+import com.himanshu.departmentalStore.model.Order;
+import com.himanshu.departmentalStore.model.Product;
+import com.himanshu.departmentalStore.repository.BackorderRepository;
+import com.himanshu.departmentalStore.repository.CustomerRepository;
+import com.himanshu.departmentalStore.repository.DiscountRepository;
+import com.himanshu.departmentalStore.repository.OrderRepository;
+import com.himanshu.departmentalStore.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OrderBatchServiceTest {
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private BackorderRepository backorderRepository;
+
+    @Mock
+    private BackorderFulfillmentEngine backorderFulfillmentEngine;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private CustomerRepository customerRepository;
+
+    @Mock
+    private DiscountRepository discountRepository;
+
+    @Mock
+    private SalesRollupService salesRollupService;
+
+    @Mock
+    private InventoryService inventoryService;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    @InjectMocks
+    private OrderBatchService orderBatchService;
+
+    @InjectMocks
+    private OrderPreparation orderPreparation;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        MockitoAnnotations.initMocks(this);
+        ReflectionTestUtils.setField(orderBatchService, "orderPreparation", orderPreparation);
+        ReflectionTestUtils.setField(orderBatchService, "chunkSize", 2);
+        doAnswer(invocation -> {
+            ((Consumer<TransactionStatus>) invocation.getArgument(0)).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        when(productRepository.findAllById(any())).thenReturn(List.of(createProductMock(1L, 3)));
+        when(customerRepository.findAllById(any())).thenReturn(List.of(createCustomerMock()));
+        when(discountRepository.findAllById(any())).thenReturn(List.of());
+        when(inventoryService.count(any(Product.class))).thenAnswer(invocation -> ((Product) invocation.getArgument(0)).getCount());
+        when(inventoryService.reserve(eq(1L), anyInt())).thenReturn(true);
+    }
+
+    @Test
+    void ingestOrders_Ndjson() throws IOException {
+        String input = """
+                {"productId": 1, "customerId": 1, "quantity": 2}
+                {"productId": 1, "customerId": 1, "quantity": 2}
+                {"productId": 9, "customerId": 1, "quantity": 1}
+                {"productId": 1, "customerId": 1, "quantity": 1}
+                """;
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        BatchOrderSummary summary = orderBatchService.ingestOrders(toStream(input), output);
+
+        // chunk 1 : 2 placed out of 3 in stock -> second line backordered; chunk 2 : unknown product, then 1 placed
+        assertEquals(4, summary.getTotal());
+        assertEquals(2, summary.getPlaced());
+        assertEquals(1, summary.getBackordered());
+        assertEquals(1, summary.getRejected());
+        String[] results = output.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(5, results.length); // one result per line + the summary
+        assertTrue(results[1].contains("BACKORDERED"));
+        assertTrue(results[2].contains("Product not found with Id : 9"));
+        // one guarded update per product and chunk, one saveAll per entity type and chunk
+        verify(inventoryService, times(2)).reserve(eq(1L), anyInt());
+        verify(orderRepository, times(2)).saveAll(any());
+        verify(backorderRepository, times(2)).saveAll(any());
+        verify(backorderFulfillmentEngine, times(2)).backordersSaved(any());
+        verify(salesRollupService, times(2)).addOrders(any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void ingestOrders_JsonArray() throws IOException {
+        String input = "[{\"productId\": 1, \"customerId\": 1, \"quantity\": 1},"
+                + " {\"productId\": 1, \"customerId\": 1, \"quantity\": \"many\"}]";
+
+        BatchOrderSummary summary = orderBatchService.ingestOrders(toStream(input), new ByteArrayOutputStream());
+
+        assertEquals(2, summary.getTotal());
+        assertEquals(1, summary.getPlaced());
+        assertEquals(1, summary.getRejected());
+        ArgumentCaptor<List<Order>> placed = ArgumentCaptor.forClass(List.class);
+        verify(orderRepository).saveAll(placed.capture());
+        assertEquals(1, placed.getValue().size());
+        assertEquals(new BigDecimal("10.50"), placed.getValue().get(0).getAmount());
+        verify(salesRollupService).addOrders(placed.getValue());
+        ArgumentCaptor<List<Backorder>> backordered = ArgumentCaptor.forClass(List.class);
+        verify(backorderRepository).saveAll(backordered.capture());
+        assertTrue(backordered.getValue().isEmpty());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void ingestOrders_TimestampedLines_ShouldKeepTheirTimestamp() throws IOException {
+        String input = """
+                {"productId": 1, "customerId": 1, "quantity": 2, "timestamp": "2024-05-01T18:42:10"}
+                {"productId": 1, "customerId": 1, "quantity": 2, "timestamp": "2024-05-01T18:43:00"}
+                {"productId": 1, "customerId": 1, "quantity": 1, "timestamp": "2999-01-01T00:00:00"}
+                """;
+        ReflectionTestUtils.setField(orderBatchService, "chunkSize", 3);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        BatchOrderSummary summary = orderBatchService.ingestOrders(toStream(input), output);
+
+        assertEquals(1, summary.getPlaced());
+        assertEquals(1, summary.getBackordered());
+        assertEquals(1, summary.getRejected());
+        ArgumentCaptor<List<Order>> placed = ArgumentCaptor.forClass(List.class);
+        verify(orderRepository).saveAll(placed.capture());
+        assertEquals(LocalDateTime.of(2024, 5, 1, 18, 42, 10), placed.getValue().get(0).getTimestamp());
+        ArgumentCaptor<List<Backorder>> backordered = ArgumentCaptor.forClass(List.class);
+        verify(backorderRepository).saveAll(backordered.capture());
+        assertEquals(LocalDateTime.of(2024, 5, 1, 18, 43), backordered.getValue().get(0).getTimestamp());
+        assertTrue(output.toString(StandardCharsets.UTF_8).split("\n")[2].contains("Timestamp is in the future"));
+    }
+
+    private ByteArrayInputStream toStream(String input) {
+        return new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Product createProductMock(Long id, int count) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName("Sample Product");
+        product.setPrice(BigDecimal.valueOf(10.50));
+        product.setCount(count);
+        product.setAvailability(true);
+        return product;
+    }
+
+    private Customer createCustomerMock() {
+        Customer customer = new Customer();
+        customer.setId(1L);
+        customer.setFullName("Himanshu Kumar");
+        customer.setAddress("Delhi");
+        customer.setContactNumber("1234567890");
+        return customer;
+    }
+}
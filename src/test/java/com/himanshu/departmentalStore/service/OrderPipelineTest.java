@@ -0,0 +1,295 @@
+package com.himanshu.departmentalStore.service;
+
+import com.himanshu.departmentalStore.dto.OrderRequestBody;
+import com.himanshu.departmentalStore.dto.OrderTicket;
+import com.himanshu.departmentalStore.exception.CustomException;
+import com.himanshu.departmentalStore.model.Backorder;
+import com.himanshu.departmentalStore.model.Customer;
+import com.himanshu.departmentalStore.model.Discount;
+import com.himanshu.departmentalStore.model.Order;
+import com.himanshu.departmentalStore.model.Product;
+import com.himanshu.departmentalStore.repository.BackorderRepository;
+import com.himanshu.departmentalStore.repository.CustomerRepository;
+import com.himanshu.departmentalStore.repository.DiscountRepository;
+import com.himanshu.departmentalStore.repository.OrderRepository;
+import com.himanshu.departmentalStore.repository.ProductRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OrderPipelineTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private CustomerRepository customerRepository;
+
+    @Mock
+    private DiscountRepository discountRepository;
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private BackorderRepository backorderRepository;
+
+    @Mock
+    private BackorderFulfillmentEngine backorderFulfillmentEngine;
+
+    @Mock
+    private InventoryService inventoryService;
+
+    @Mock
+    private SalesRollupService salesRollupService;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private OrderPipeline orderPipeline;
+
+    @InjectMocks
+    private OrderPreparation orderPreparation;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        MockitoAnnotations.initMocks(this);
+        ReflectionTestUtils.setField(orderPipeline, "orderPreparation", orderPreparation);
+        ReflectionTestUtils.setField(orderPipeline, "capacity", 16);
+        ReflectionTestUtils.setField(orderPipeline, "batchSize", 8);
+        ReflectionTestUtils.setField(orderPipeline, "ticketTtl", Duration.ofMinutes(15));
+        doAnswer(invocation -> {
+            ((Consumer<TransactionStatus>) invocation.getArgument(0)).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        when(productRepository.findAllById(any())).thenReturn(List.of(createProductMock()));
+        when(customerRepository.findAllById(any())).thenReturn(List.of(createCustomerMock()));
+        when(discountRepository.findAllById(any())).thenReturn(List.of());
+        when(inventoryService.count(any(Product.class))).thenAnswer(invocation -> ((Product) invocation.getArgument(0)).getCount());
+        when(inventoryService.reserve(eq(1L), anyInt())).thenReturn(true);
+        // ids are given by the database when the orders are saved
+        doAnswer(invocation -> {
+            ((List<Order>) invocation.getArgument(0)).forEach(order -> order.setId(100L));
+            return invocation.getArgument(0);
+        }).when(orderRepository).saveAll(any());
+        orderPipeline.start();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        orderPipeline.close();
+    }
+
+    @Test
+    void submit_Placed() throws InterruptedException {
+        // Test
+        OrderTicket queued = orderPipeline.submit(createRequestMock(1L, 2, null));
+        OrderTicket ticket = awaitOutcome(queued.getId());
+
+        // Verification
+        assertEquals(OrderTicket.Status.QUEUED, queued.getStatus());
+        assertEquals(OrderTicket.Status.PLACED, ticket.getStatus());
+        assertEquals(100L, ticket.getOrderId());
+        assertEquals(new BigDecimal("21.00"), ticket.getAmount());
+        assertEquals(queued.getAcceptedAt(), ticket.getAcceptedAt());
+        verify(salesRollupService).addOrders(any());
+        // every stage timed its batch
+        assertEquals(1, meterRegistry.get("orders.pipeline.stage.latency").tag("stage", "persistence").timer().count());
+        assertEquals(1, meterRegistry.get("orders.pipeline.latency").tag("status", "PLACED").timer().count());
+        assertEquals(0.0, meterRegistry.get("orders.pipeline.queue.depth").tag("stage", "validation").gauge().value());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void submit_Backordered() throws InterruptedException {
+        when(inventoryService.reserve(1L, 5)).thenReturn(false);
+        doAnswer(invocation -> {
+            ((List<Backorder>) invocation.getArgument(0)).forEach(backorder -> backorder.setId(7L));
+            return invocation.getArgument(0);
+        }).when(backorderRepository).saveAll(any());
+
+        // Test
+        OrderTicket ticket = awaitOutcome(orderPipeline.submit(createRequestMock(1L, 5, null)).getId());
+
+        // Verification
+        assertEquals(OrderTicket.Status.BACKORDERED, ticket.getStatus());
+        assertEquals(7L, ticket.getBackorderId());
+        assertNull(ticket.getAmount());
+    }
+
+    @Test
+    void submit_Discount() throws InterruptedException {
+        Discount discount = new Discount();
+        discount.setId(3L);
+        discount.setValue(BigDecimal.valueOf(50));
+        discount.setMinPrice(BigDecimal.valueOf(20));
+        when(discountRepository.findAllById(any())).thenReturn(List.of(discount));
+
+        // Test
+        OrderTicket placed = awaitOutcome(orderPipeline.submit(createRequestMock(1L, 2, 3L)).getId());
+        OrderTicket rejected = awaitOutcome(orderPipeline.submit(createRequestMock(1L, 1, 3L)).getId());
+
+        // Verification : 21.0 is discounted, 10.5 is below the minimum price
+        assertEquals(0, BigDecimal.valueOf(10.5).compareTo(placed.getAmount()));
+        assertEquals(OrderTicket.Status.REJECTED, rejected.getStatus());
+        assertEquals("This Discount can not be applied : amount is less than minimum price", rejected.getMessage());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void submit_OrdersQueuedTogetherShareTheirQueries() throws InterruptedException {
+        // a first order waits in the persistence stage, so that every order after it is persisted in one batch :
+        // the stages hand the orders over one by one, and would otherwise split them depending on timing
+        CountDownLatch persisting = new CountDownLatch(1);
+        CountDownLatch persist = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            if (persisting.getCount() > 0) {
+                persisting.countDown();
+                persist.await(5, TimeUnit.SECONDS);
+            }
+            ((Consumer<TransactionStatus>) invocation.getArgument(0)).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        OrderTicket first = orderPipeline.submit(createRequestMock(1L, 1, null));
+        assertTrue(persisting.await(5, TimeUnit.SECONDS));
+        // a second order waits in the validation stage while three more orders are queued
+        CountDownLatch validating = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(productRepository.findAllById(any())).thenAnswer(invocation -> {
+            validating.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return List.of(createProductMock());
+        });
+        OrderTicket second = orderPipeline.submit(createRequestMock(1L, 1, null));
+        assertTrue(validating.await(5, TimeUnit.SECONDS));
+        List<OrderTicket> queued = List.of(
+                orderPipeline.submit(createRequestMock(1L, 1, null)),
+                orderPipeline.submit(createRequestMock(1L, 2, null)),
+                orderPipeline.submit(createRequestMock(1L, 3, null)));
+        assertEquals(3.0, meterRegistry.get("orders.pipeline.queue.depth").tag("stage", "validation").gauge().value());
+
+        // Test
+        release.countDown();
+        awaitQueueDepth("persistence", 4);
+        persist.countDown();
+
+        // Verification : the three queued orders are validated as one batch, with one query per entity type
+        assertEquals(OrderTicket.Status.PLACED, awaitOutcome(first.getId()).getStatus());
+        assertEquals(OrderTicket.Status.PLACED, awaitOutcome(second.getId()).getStatus());
+        for (OrderTicket ticket : queued) {
+            assertEquals(OrderTicket.Status.PLACED, awaitOutcome(ticket.getId()).getStatus());
+        }
+        verify(productRepository, times(3)).findAllById(any());
+        verify(customerRepository, times(3)).findAllById(any());
+        assertEquals(3.0, meterRegistry.get("orders.pipeline.batch.size").tag("stage", "validation").summary().max());
+        // and the stock of a persisted batch is reserved with one update : one for the first order, one for the four others
+        assertEquals(4.0, meterRegistry.get("orders.pipeline.batch.size").tag("stage", "persistence").summary().max());
+        verify(inventoryService).reserve(1L, 1);
+        verify(inventoryService).reserve(1L, 7);
+        verify(inventoryService, times(2)).reserve(eq(1L), anyInt());
+    }
+
+    @Test
+    void submit_InvalidOrders_Rejected() throws InterruptedException {
+        OrderTicket unknownProduct = awaitOutcome(orderPipeline.submit(createRequestMock(9L, 1, null)).getId());
+        OrderTicket noQuantity = awaitOutcome(orderPipeline.submit(createRequestMock(1L, 0, null)).getId());
+
+        assertEquals(OrderTicket.Status.REJECTED, unknownProduct.getStatus());
+        assertEquals("Product not found with Id : 9", unknownProduct.getMessage());
+        assertEquals("Quantity must be positive", noQuantity.getMessage());
+        verify(inventoryService, never()).reserve(any(), anyInt());
+        verify(orderRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void purgeTickets() throws InterruptedException {
+        String id = orderPipeline.submit(createRequestMock(1L, 1, null)).getId();
+        awaitOutcome(id);
+        ReflectionTestUtils.setField(orderPipeline, "ticketTtl", Duration.ofSeconds(-1));
+
+        // Test
+        orderPipeline.purgeTickets();
+
+        // Verification
+        assertThrows(CustomException.class, () -> orderPipeline.getTicket(id));
+    }
+
+    private OrderTicket awaitOutcome(String id) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        OrderTicket ticket = orderPipeline.getTicket(id);
+        while (ticket.getStatus() == OrderTicket.Status.QUEUED && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+            ticket = orderPipeline.getTicket(id);
+        }
+        return ticket;
+    }
+
+    private void awaitQueueDepth(String stage, int depth) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.get("orders.pipeline.queue.depth").tag("stage", stage).gauge().value() < depth
+                && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(depth, meterRegistry.get("orders.pipeline.queue.depth").tag("stage", stage).gauge().value());
+    }
+
+    private OrderRequestBody createRequestMock(Long productId, int quantity, Long discountId) {
+        OrderRequestBody body = new OrderRequestBody();
+        body.setProductId(productId);
+        body.setCustomerId(1L);
+        body.setQuantity(quantity);
+        body.setDiscountId(discountId);
+        return body;
+    }
+
+    private Product createProductMock() {
+        Product product = new Product();
+        product.setId(1L);
+        product.setName("Sample Product");
+        product.setPrice(BigDecimal.valueOf(10.50));
+        product.setCount(100);
+        product.setAvailability(true);
+        return product;
+    }
+
+    private Customer createCustomerMock() {
+        Customer customer = new Customer();
+        customer.setId(1L);
+        customer.setFullName("Himanshu Kumar");
+        customer.setAddress("Delhi");
+        customer.setContactNumber("1234567890");
+        return customer;
+    }
+}
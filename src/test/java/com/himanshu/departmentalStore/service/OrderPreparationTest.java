@@ -0,0 +1,178 @@
+package com.himanshu.departmentalStore.service;
+
+import com.himanshu.departmentalStore.dto.OrderRequestBody;
+import com.himanshu.departmentalStore.model.Customer;
+import com.himanshu.departmentalStore.model.Discount;
+import com.himanshu.departmentalStore.model.Product;
+import com.himanshu.departmentalStore.repository.CustomerRepository;
+import com.himanshu.departmentalStore.repository.DiscountRepository;
+import com.himanshu.departmentalStore.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import java.math.BigDecimal;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OrderPreparationTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private CustomerRepository customerRepository;
+
+    @Mock
+    private DiscountRepository discountRepository;
+
+    @Mock
+    private DiscountService discountService;
+
+    @Mock
+    private InventoryService inventoryService;
+
+    @InjectMocks
+    private OrderPreparation orderPreparation;
+
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.initMocks(this);
+        product = createProductMock(5);
+        when(productRepository.findAllById(any())).thenReturn(List.of(product));
+        when(customerRepository.findAllById(any())).thenReturn(List.of(createCustomerMock()));
+        when(discountRepository.findAllById(any())).thenReturn(List.of(createDiscountMock()));
+        when(inventoryService.count(any(Product.class))).thenAnswer(invocation -> ((Product) invocation.getArgument(0)).getCount());
+        when(inventoryService.reserve(any(), any(Integer.class))).thenReturn(true);
+    }
+
+    @Test
+    void prepare_OrdersOfOneProduct_ShouldReserveWhatFitsAtOnce() {
+        List<PendingOrder> orders = List.of(
+                new PendingOrder(createRequestMock(1L, 2, null)),
+                new PendingOrder(createRequestMock(1L, 1, 3L)),
+                new PendingOrder(createRequestMock(1L, 4, 3L)),
+                new PendingOrder(createRequestMock(1L, 2, null)));
+
+        prepare(orders);
+
+        // 2 then 1 (below the minimum price of the discount), 4 does not fit, then 2
+        assertEquals(PendingOrder.Outcome.PLACED, orders.get(0).getOutcome());
+        assertEquals(2100L, orders.get(0).getAmount());
+        assertEquals(PendingOrder.Outcome.REJECTED, orders.get(1).getOutcome());
+        assertEquals(OrderPreparation.DISCOUNT_NOT_APPLICABLE, orders.get(1).getMessage());
+        assertEquals(PendingOrder.Outcome.BACKORDERED, orders.get(2).getOutcome());
+        assertEquals(PendingOrder.Outcome.PLACED, orders.get(3).getOutcome());
+        verify(inventoryService).reserve(1L, 4);
+    }
+
+    @Test
+    void prepare_StockTakenMeanwhile_ShouldReserveOrderByOrder() {
+        when(inventoryService.reserve(1L, 4)).thenReturn(false);
+        when(inventoryService.reserve(1L, 3)).thenReturn(false);
+        List<PendingOrder> orders = List.of(
+                new PendingOrder(createRequestMock(1L, 1, null)),
+                new PendingOrder(createRequestMock(1L, 3, null)));
+
+        prepare(orders);
+
+        assertEquals(PendingOrder.Outcome.PLACED, orders.get(0).getOutcome());
+        assertEquals(PendingOrder.Outcome.BACKORDERED, orders.get(1).getOutcome());
+    }
+
+    @Test
+    void prepare_CountOutOfDate_ShouldCheckStock() {
+        product.setCount(0);
+        when(inventoryService.currentCount(1L)).thenReturn(3);
+        List<PendingOrder> orders = List.of(new PendingOrder(createRequestMock(1L, 3, null)));
+
+        prepare(orders);
+
+        assertEquals(PendingOrder.Outcome.PLACED, orders.get(0).getOutcome());
+        verify(inventoryService).reserve(1L, 3);
+    }
+
+    @Test
+    void prepare_InvalidOrders_ShouldBeRejected() {
+        List<PendingOrder> orders = List.of(
+                new PendingOrder(createRequestMock(1L, 0, null)),
+                new PendingOrder(createRequestMock(9L, 1, null)),
+                new PendingOrder(createRequestMock(1L, 1, 8L)));
+
+        prepare(orders);
+
+        assertEquals(OrderPreparation.QUANTITY_NOT_POSITIVE, orders.get(0).getMessage());
+        assertEquals("Product not found with Id : 9", orders.get(1).getMessage());
+        assertEquals("Discount not found with Id : 8", orders.get(2).getMessage());
+        verify(inventoryService, never()).reserve(any(), any(Integer.class));
+    }
+
+    @Test
+    void price() {
+        Discount discount = createDiscountMock();
+
+        assertEquals(1050L, orderPreparation.price(product, 1, null));
+        assertNull(orderPreparation.price(product, 1, discount));
+        assertEquals(1050L, orderPreparation.price(product, 2, discount));
+    }
+
+    @Test
+    void fits() {
+        assertTrue(orderPreparation.fits(product, 5));
+        assertFalse(orderPreparation.fits(product, 6));
+        product.setAvailability(false);
+        assertFalse(orderPreparation.fits(product, 1));
+    }
+
+    private void prepare(List<PendingOrder> orders) {
+        orderPreparation.validate(orders);
+        orderPreparation.price(orders);
+        orderPreparation.reserve(orders);
+    }
+
+    private OrderRequestBody createRequestMock(Long productId, int quantity, Long discountId) {
+        OrderRequestBody body = new OrderRequestBody();
+        body.setProductId(productId);
+        body.setCustomerId(1L);
+        body.setQuantity(quantity);
+        body.setDiscountId(discountId);
+        return body;
+    }
+
+    private Product createProductMock(int count) {
+        Product product = new Product();
+        product.setId(1L);
+        product.setName("Sample Product");
+        product.setPrice(BigDecimal.valueOf(10.50));
+        product.setCount(count);
+        product.setAvailability(true);
+        return product;
+    }
+
+    private Customer createCustomerMock() {
+        Customer customer = new Customer();
+        customer.setId(1L);
+        customer.setFullName("Himanshu Kumar");
+        customer.setAddress("Delhi");
+        customer.setContactNumber("1234567890");
+        return customer;
+    }
+
+    private Discount createDiscountMock() {
+        Discount discount = new Discount();
+        discount.setId(3L);
+        discount.setValue(BigDecimal.valueOf(50));
+        discount.setMinPrice(BigDecimal.valueOf(20));
+        return discount;
+    }
+}
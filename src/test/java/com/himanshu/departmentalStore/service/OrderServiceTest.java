@@ -1,12 +1,20 @@
 package com.himanshu.departmentalStore.service;
 
+import com.himanshu.departmentalStore.dto.CursorPage;
+import com.himanshu.departmentalStore.dto.OrderHistoryPage;
+import com.himanshu.departmentalStore.dto.OrderSummary;
 import com.himanshu.departmentalStore.model.*;
+import com.himanshu.departmentalStore.repository.CustomerRepository;
 import com.himanshu.departmentalStore.repository.OrderRepository;
+import com.himanshu.departmentalStore.util.Pagination;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -15,31 +23,58 @@ import java.util.List;
 import java.util.Optional;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.when;
 import static org.mockito.Mockito.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 class OrderServiceTest {
 
     @Mock
     private OrderRepository orderRepository;
 
+    @Spy
+    private Pagination pagination = new Pagination(50, 500);
+
     @InjectMocks
     private OrderService orderService;
 
+    @InjectMocks
+    private OrderPreparation orderPreparation;
+
     @Mock
     private ProductService productService;
 
     @Mock
     private BackorderService backorderService;
 
+    @Mock
+    private BackorderFulfillmentEngine backorderFulfillmentEngine;
+
     @Mock
     private DiscountService discountService;
 
+    @Mock
+    private InventoryService inventoryService;
+
+    @Mock
+    private CustomerRepository customerRepository;
+
+    @Mock
+    private SalesRollupService salesRollupService;
+
     @BeforeEach
     void setUp() {
         MockitoAnnotations.initMocks(this);
+        ReflectionTestUtils.setField(orderService, "orderPreparation", orderPreparation);
+        // stock as loaded with the product, like the default (database) inventory
+        when(inventoryService.count(any(Product.class))).thenAnswer(invocation -> ((Product) invocation.getArgument(0)).getCount());
     }
 
     @Test
@@ -49,13 +84,68 @@ class OrderServiceTest {
                 createOrderMock(1L, createProductMock(), createCustomerMock(), LocalDateTime.now(), createDiscountMock(), 5),
                 createOrderMock(2L, createProductMock(), createCustomerMock(), LocalDateTime.now(), createDiscountMock(), 10)
         );
-        when(orderRepository.findAll()).thenReturn(orders);
+        when(orderRepository.findPage(0L, null, null, Limit.of(51))).thenReturn(orders);
 
         // Test
-        List<Order> result = orderService.getAllOrders();
+        CursorPage<Order> result = orderService.getAllOrders(null, null, null, null);
 
         // Verification
-        assertEquals(orders, result);
+        assertEquals(orders, result.getItems());
+        assertNull(result.getNextCursor());
+    }
+
+    @Test
+    void getAllOrders_NextPage() {
+        // Mocking behavior : limit + 1 rows are read, the extra one means there is a next page
+        List<Order> orders = Arrays.asList(
+                createOrderMock(3L, createProductMock(), createCustomerMock(), LocalDateTime.now(), null, 5),
+                createOrderMock(4L, createProductMock(), createCustomerMock(), LocalDateTime.now(), null, 10),
+                createOrderMock(5L, createProductMock(), createCustomerMock(), LocalDateTime.now(), null, 1)
+        );
+        when(orderRepository.findPage(2L, 1L, null, Limit.of(3))).thenReturn(orders);
+
+        // Test
+        CursorPage<Order> result = orderService.getAllOrders(2L, 2, 1L, null);
+
+        // Verification
+        assertEquals(2, result.getItems().size());
+        assertEquals(4L, result.getNextCursor());
+    }
+
+    @Test
+    void getCustomerOrders() {
+        // Mocking behavior : newest first, limit + 1 rows read
+        LocalDateTime from = LocalDateTime.of(2024, 4, 1, 0, 0);
+        LocalDateTime to = LocalDateTime.of(2024, 5, 1, 0, 0);
+        List<OrderSummary> orders = Arrays.asList(
+                new OrderSummary(9L, LocalDateTime.of(2024, 4, 20, 10, 0), 1L, 2, BigDecimal.valueOf(20.0), null),
+                new OrderSummary(7L, LocalDateTime.of(2024, 4, 10, 10, 0), 1L, 1, BigDecimal.valueOf(10.0), 1L),
+                new OrderSummary(3L, LocalDateTime.of(2024, 4, 2, 10, 0), 1L, 1, BigDecimal.valueOf(10.0), null)
+        );
+        when(orderRepository.findHistory(1L, from, to, to, Long.MAX_VALUE, Limit.of(3))).thenReturn(orders);
+
+        // Test
+        OrderHistoryPage result = orderService.getCustomerOrders(1L, from, to, null, 2);
+
+        // Verification
+        assertEquals(2, result.getItems().size());
+        assertEquals("2024-04-10T10:00_7", result.getNextCursor());
+        verify(customerRepository, never()).existsById(any());
+    }
+
+    @Test
+    void getCustomerOrders_NextPage() {
+        // Mocking behavior : the cursor restarts the scan right after the last order of the previous page
+        when(orderRepository.findHistory(any(), any(), any(), any(), anyLong(), any())).thenReturn(List.of());
+        when(customerRepository.existsById(1L)).thenReturn(true);
+
+        // Test
+        OrderHistoryPage result = orderService.getCustomerOrders(1L, null, null, "2024-04-10T10:00_7", null);
+
+        // Verification
+        assertTrue(result.getItems().isEmpty());
+        assertNull(result.getNextCursor());
+        verify(orderRepository).findHistory(eq(1L), any(), any(), eq(LocalDateTime.of(2024, 4, 10, 10, 0)), eq(7L), eq(Limit.of(51)));
     }
 
     @Test
@@ -77,9 +167,12 @@ class OrderServiceTest {
     void saveOrder() {
         // Mocking behavior
         Order order = createOrderMock(1L, createProductMock(), createCustomerMock(), LocalDateTime.now(), createDiscountMock(), 5);
+        order.getDiscount().setId(1L);
         when(orderRepository.save(order)).thenReturn(order);
         when(discountService.getDiscountById(any())).thenReturn(null);
         when(productService.getProductById(any())).thenReturn(order.getProduct());
+        when(customerRepository.findById(any())).thenReturn(Optional.of(order.getCustomer()));
+        when(inventoryService.reserve(order.getProduct().getId(), order.getQuantity())).thenReturn(true);
 
 
         // Test
@@ -87,6 +180,32 @@ class OrderServiceTest {
 
         // Verification
         assertNotNull(result.getId());
+        verify(inventoryService).reserve(order.getProduct().getId(), order.getQuantity());
+        verify(productService, never()).updateProduct(any(), any());
+        // every referenced entity is loaded exactly once
+        verify(productService, times(1)).getProductById(any());
+        verify(customerRepository, times(1)).findById(any());
+        verify(discountService, times(1)).getDiscountById(any());
+        verify(salesRollupService).addOrder(order);
+    }
+
+    @Test
+    void saveOrder_CatalogCountOutOfDate_ShouldCheckStock() {
+        // Mocking behavior : the catalog product has no count left, but stock was put back since
+        Order order = createOrderMock(1L, createProductMock(), createCustomerMock(), LocalDateTime.now(), null, 5);
+        order.getProduct().setCount(0);
+        when(orderRepository.save(order)).thenReturn(order);
+        when(productService.getProductById(any())).thenReturn(order.getProduct());
+        when(customerRepository.findById(any())).thenReturn(Optional.of(order.getCustomer()));
+        when(inventoryService.currentCount(order.getProduct().getId())).thenReturn(5);
+        when(inventoryService.reserve(order.getProduct().getId(), order.getQuantity())).thenReturn(true);
+
+        // Test
+        Order result = orderService.createOrder(order);
+
+        // Verification : the order is placed, not backordered
+        assertEquals(order, result);
+        verify(backorderService, never()).saveBackorder(any());
     }
 
     @Test
@@ -94,13 +213,14 @@ class OrderServiceTest {
         // Mocking behavior
         Long orderId = 1L;
         Order previousOrder = createOrderMock(orderId, createProductMock(), createCustomerMock(), LocalDateTime.now(), createDiscountMock(), 5);
+        previousOrder.setVersion(2L);
 
         // Set the quantity to a different value for the updated order
         Order updatedOrder = createOrderMock(orderId, previousOrder.getProduct(), previousOrder.getCustomer(), LocalDateTime.now(), previousOrder.getDiscount(), 10);
 
         when(orderRepository.save(updatedOrder)).thenReturn(updatedOrder);
         when(orderRepository.findById(orderId)).thenReturn(Optional.of(previousOrder));
-        when(productService.updateProduct(orderId, updatedOrder.getProduct())).thenReturn(updatedOrder.getProduct());
+        when(inventoryService.reserve(1L, 5)).thenReturn(true);
         when(discountService.getDiscountById(any())).thenReturn(previousOrder.getDiscount());
 
         // Test
@@ -109,6 +229,14 @@ class OrderServiceTest {
         // Verification
         assertEquals(orderId, result.getId());
         assertEquals(10, result.getQuantity());
+        // written only over the version read
+        assertEquals(2L, result.getVersion());
+        // only the extra quantity is reserved, the product row is not rewritten
+        verify(inventoryService).reserve(1L, 5);
+        verify(productService, never()).updateProduct(any(), any());
+        // the order moves out of the rollups with its previous quantity, and back in with the new one
+        verify(salesRollupService).removeOrder(previousOrder);
+        verify(salesRollupService).addOrder(updatedOrder);
     }
 
     @Test
@@ -127,9 +255,7 @@ class OrderServiceTest {
 
 
         Product product = fetchedOrder.getProduct();
-        product.setCount(product.getCount()+fetchedOrder.getQuantity());
-
-        when(productService.updateProduct(product.getId(), product)).thenReturn(product);
+        when(inventoryService.release(product.getId(), fetchedOrder.getQuantity())).thenReturn(105);
         when(backorderService.getAllBackordersByProductId(product.getId())).thenReturn(new ArrayList<>());
 
 
@@ -139,6 +265,10 @@ class OrderServiceTest {
 
         // Verification
         assertTrue(result);
+        // the stock is put back with one update, and the backorders are checked against the new stock
+        verify(productService, never()).updateProduct(any(), any());
+        verify(backorderFulfillmentEngine).fulfill(product.getId(), 105);
+        verify(salesRollupService).removeOrder(fetchedOrder);
     }
 
     private Order createOrderMock(Long id, Product product, Customer customer, LocalDateTime timestamp, Discount discount, int quantity) {
@@ -0,0 +1,113 @@
+package com.himanshu.departmentalStore.service;
+
+import com.himanshu.departmentalStore.model.Product;
+import com.himanshu.departmentalStore.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ProductCatalogServiceTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @InjectMocks
+    private ProductCatalogService productCatalogService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.initMocks(this);
+    }
+
+    @Test
+    void reload() {
+        // Mocking behavior
+        Product product = createProductMock(1L, 10);
+        when(productRepository.findAll()).thenReturn(List.of(product));
+
+        // Test
+        productCatalogService.reload();
+
+        // Verification
+        assertSame(product, productCatalogService.find(1L));
+        assertNull(productCatalogService.find(2L));
+        assertEquals(1L, productCatalogService.getVersion());
+    }
+
+    @Test
+    void productSavedAndDeleted_ShouldChangeVersion() {
+        Product product = createProductMock(1L, 10);
+
+        // Test & Verification
+        productCatalogService.productSaved(product);
+        assertSame(product, productCatalogService.find(1L));
+        assertEquals(1L, productCatalogService.getVersion());
+
+        productCatalogService.productDeleted(1L);
+        assertNull(productCatalogService.find(1L));
+        assertEquals(2L, productCatalogService.getVersion());
+    }
+
+    @Test
+    void productSaved_InTransaction_ShouldWaitForCommit() {
+        Product product = createProductMock(1L, 10);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // Test
+            productCatalogService.productSaved(product);
+            assertNull(productCatalogService.find(1L));
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        // Verification
+        assertSame(product, productCatalogService.find(1L));
+    }
+
+    @Test
+    void refreshStock_OnlyChangedProducts() {
+        // Mocking behavior
+        productCatalogService.productSaved(createProductMock(1L, 10));
+        Product reloaded = createProductMock(1L, 7);
+        when(productRepository.findAllById(List.of(1L))).thenReturn(List.of(reloaded));
+
+        // Test : the same product reserved twice is read once
+        productCatalogService.stockChanged(1L);
+        productCatalogService.stockChanged(1L);
+        productCatalogService.refreshStock();
+
+        // Verification
+        assertSame(reloaded, productCatalogService.find(1L));
+        assertEquals(7, productCatalogService.find(1L).getCount());
+    }
+
+    @Test
+    void refreshStock_NothingChanged_ShouldNotReadDatabase() {
+        productCatalogService.refreshStock();
+
+        verify(productRepository, never()).findAllById(any());
+        assertEquals(0L, productCatalogService.getVersion());
+    }
+
+    private Product createProductMock(Long id, int count) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName("Product " + id);
+        product.setCount(count);
+        product.setAvailability(true);
+        return product;
+    }
+}
@@ -1,34 +1,72 @@
 package com.himanshu.departmentalStore.service;
 
+import com.himanshu.departmentalStore.dto.CursorPage;
 import com.himanshu.departmentalStore.model.Product;
 import com.himanshu.departmentalStore.repository.ProductRepository;
+import com.himanshu.departmentalStore.util.OptimisticRetry;
+import com.himanshu.departmentalStore.util.Pagination;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.data.domain.Limit;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
-import static org.mockito.Mockito.doNothing;
 
 class ProductServiceTest {
 
     @Mock
     private ProductRepository productRepository;
 
+    @Spy
+    private Pagination pagination = new Pagination(50, 500);
+
+    @Mock
+    private InventoryService inventoryService;
+
+    @Mock
+    private ProductCatalogService productCatalogService;
+
+    @Mock
+    private BackorderFulfillmentEngine backorderFulfillmentEngine;
+
+    @Spy
+    private OptimisticRetry optimisticRetry = new OptimisticRetry(3, Duration.ZERO, Duration.ZERO, new SimpleMeterRegistry());
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
     @InjectMocks
     private ProductService productService;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.initMocks(this);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                ((TransactionCallback<?>) invocation.getArgument(0)).doInTransaction(null));
+        when(inventoryService.count(any(Product.class))).thenAnswer(invocation -> ((Product) invocation.getArgument(0)).getCount());
     }
 
     @Test
@@ -40,13 +78,14 @@ class ProductServiceTest {
                 createProductMock(2L, "Product 2", "Description 2", BigDecimal.valueOf(20.99),
                         LocalDate.now().plusMonths(3), 50, false)
         );
-        when(productRepository.findAll()).thenReturn(products);
+        when(productRepository.findPage(0L, null, Limit.of(501))).thenReturn(products);
 
-        // Test
-        List<Product> result = productService.getAllProducts();
+        // Test : the requested limit is capped at the maximum
+        CursorPage<Product> result = productService.getAllProducts(null, 10_000, null);
 
         // Verification
-        assertEquals(products, result);
+        assertEquals(products, result.getItems());
+        assertEquals(500, result.getLimit());
     }
 
     @Test
@@ -65,6 +104,22 @@ class ProductServiceTest {
         assertEquals(productId, result.getId());
     }
 
+    @Test
+    void getProductById_FromCatalog() {
+        // Mocking behavior
+        Long productId = 1L;
+        Product product = createProductMock(productId, "Product 1", "Description 1",
+                BigDecimal.valueOf(10.99), LocalDate.now().plusMonths(6), 100, true);
+        when(productCatalogService.find(productId)).thenReturn(product);
+
+        // Test
+        Product result = productService.getProductById(productId);
+
+        // Verification : the catalog instance, without reading the database
+        assertSame(product, result);
+        verify(productRepository, never()).findById(any());
+    }
+
     @Test
     void saveProduct() {
         // Mocking behavior
@@ -97,20 +152,93 @@ class ProductServiceTest {
         // Verification
         assertEquals(productId, result.getId());
         assertEquals("Updated Product", result.getName());
+        // the count set by hand becomes the stock
+        verify(inventoryService).productSaved(product);
+        verify(productCatalogService).productSaved(product);
+    }
+
+    @Test
+    void updateProduct_StockChangedMeanwhile_ShouldReadAgain() {
+        // Mocking behavior : an order reserved stock between the read and the write of the first attempt
+        Long productId = 1L;
+        Product stale = createProductMock(productId, "Product 1", "Description 1",
+                BigDecimal.valueOf(10.99), LocalDate.now().plusMonths(6), 100, true);
+        stale.setVersion(3L);
+        Product current = createProductMock(productId, "Product 1", "Description 1",
+                BigDecimal.valueOf(10.99), LocalDate.now().plusMonths(6), 99, true);
+        current.setVersion(4L);
+        when(productRepository.findById(productId)).thenReturn(Optional.of(stale), Optional.of(current));
+        Product product = createProductMock(null, "Updated Product", "Description 1",
+                BigDecimal.valueOf(10.99), LocalDate.now().plusMonths(6), 100, true);
+        when(productRepository.save(product))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Product.class, productId))
+                .thenReturn(product);
+
+        // Test
+        Product result = productService.updateProduct(productId, product);
+
+        // Verification : written over the version read by the second attempt, whose count is lower
+        assertSame(product, result);
+        assertEquals(4L, result.getVersion());
+        verify(productRepository, times(2)).save(product);
+        verify(backorderFulfillmentEngine).fulfill(productId, 100);
+        // one transaction per attempt
+        verify(transactionTemplate, times(2)).execute(any());
+    }
+
+    @Test
+    void updateProduct_FulfillmentFails_ShouldFailInTransactionOfRestock() {
+        // Mocking behavior : a restock from 0 to 10, whose backorders can not be turned into orders
+        Long productId = 1L;
+        Product previous = createProductMock(productId, "Product 1", "Description 1",
+                BigDecimal.valueOf(10.99), LocalDate.now().plusMonths(6), 0, true);
+        when(productRepository.findById(productId)).thenReturn(Optional.of(previous));
+        Product product = createProductMock(null, "Product 1", "Description 1",
+                BigDecimal.valueOf(10.99), LocalDate.now().plusMonths(6), 10, true);
+        when(productRepository.save(product)).thenReturn(product);
+        when(backorderFulfillmentEngine.fulfill(productId, 10)).thenThrow(new IllegalStateException("Deadlock found"));
+
+        // Test & Verification : thrown out of the transaction which saved the product, so it is rolled back with it
+        assertThrows(IllegalStateException.class, () -> productService.updateProduct(productId, product));
+        verify(transactionTemplate).execute(any());
+        verify(productRepository).save(product);
+    }
+
+    @Test
+    void updateProduct_WithVersion_ShouldNotRetry() {
+        // Mocking behavior : the client read version 3, the row is at version 4
+        Long productId = 1L;
+        Product current = createProductMock(productId, "Product 1", "Description 1",
+                BigDecimal.valueOf(10.99), LocalDate.now().plusMonths(6), 99, true);
+        current.setVersion(4L);
+        when(productRepository.findById(productId)).thenReturn(Optional.of(current));
+        Product product = createProductMock(null, "Updated Product", "Description 1",
+                BigDecimal.valueOf(10.99), LocalDate.now().plusMonths(6), 100, true);
+        product.setVersion(3L);
+        when(productRepository.save(product)).thenThrow(new ObjectOptimisticLockingFailureException(Product.class, productId));
+
+        // Test & Verification
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> productService.updateProduct(productId, product));
+        verify(productRepository).save(product);
+        verify(backorderFulfillmentEngine, never()).fulfill(any(), anyInt());
+        verify(productCatalogService, never()).productSaved(any());
     }
 
     @Test
     void deleteProduct() {
         // Mocking behavior
         Long productId = 1L;
-        when(productRepository.findById(productId)).thenReturn(Optional.of(new Product()));
-        doNothing().when(productRepository).deleteById(productId);
+        when(productRepository.deleteOneById(productId)).thenReturn(1);
 
         // Test
         Boolean result = productService.deleteProduct(productId);
 
-        // Verification
+        // Verification : one DELETE, no read before it
         assertTrue(result);
+        verify(productRepository).deleteOneById(productId);
+        verifyNoMoreInteractions(productRepository);
+        verify(inventoryService).productDeleted(productId);
+        verify(productCatalogService).productDeleted(productId);
     }
 
     private Product createProductMock(Long id, String name, String description, BigDecimal price,
@@ -0,0 +1,228 @@
+package com.himanshu.departmentalStore.service;
+
+import com.himanshu.departmentalStore.dto.BackfillSummary;
+import com.himanshu.departmentalStore.model.Cart;
+import com.himanshu.departmentalStore.model.Discount;
+import com.himanshu.departmentalStore.model.Order;
+import com.himanshu.departmentalStore.model.OrderLine;
+import com.himanshu.departmentalStore.model.Product;
+import com.himanshu.departmentalStore.model.ProductDailySales;
+import com.himanshu.departmentalStore.repository.DiscountDailySalesRepository;
+import com.himanshu.departmentalStore.repository.DiscountRepository;
+import com.himanshu.departmentalStore.repository.ProductDailySalesRepository;
+import com.himanshu.departmentalStore.repository.ProductHourlySalesRepository;
+import com.himanshu.departmentalStore.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+class SalesRollupServiceTest {
+
+    @Mock
+    private ProductDailySalesRepository productDailySalesRepository;
+
+    @Mock
+    private ProductHourlySalesRepository productHourlySalesRepository;
+
+    @Mock
+    private DiscountDailySalesRepository discountDailySalesRepository;
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private DiscountRepository discountRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @InjectMocks
+    private SalesRollupService salesRollupService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        MockitoAnnotations.initMocks(this);
+        ReflectionTestUtils.setField(salesRollupService, "backfillThreads", 2);
+        ReflectionTestUtils.setField(salesRollupService, "backfillChunkSize", 100);
+        doAnswer(invocation -> ((TransactionCallback<Integer>) invocation.getArgument(0)).doInTransaction(null))
+                .when(transactionTemplate).execute(any());
+    }
+
+    @Test
+    void addOrders() {
+        // two orders of the same product in the same hour, one of them with a discount
+        Discount discount = new Discount();
+        discount.setId(5L);
+        List<Order> orders = List.of(
+                createOrderMock(LocalDateTime.of(2024, 4, 10, 10, 5), null, 2, "20.00"),
+                createOrderMock(LocalDateTime.of(2024, 4, 10, 10, 55), discount, 1, "9.00"));
+
+        // Test
+        salesRollupService.addOrders(orders);
+
+        // Verification : one upsert per rollup row
+        verify(productDailySalesRepository).add(1L, LocalDate.of(2024, 4, 10), 3, new BigDecimal("29.00"), 2);
+        verify(productHourlySalesRepository).add(1L, LocalDateTime.of(2024, 4, 10, 10, 0), 3, new BigDecimal("29.00"), 2);
+        verify(discountDailySalesRepository).add(5L, LocalDate.of(2024, 4, 10), 1, new BigDecimal("9.00"), 1);
+        verifyNoMoreInteractions(productDailySalesRepository, productHourlySalesRepository, discountDailySalesRepository);
+    }
+
+    @Test
+    void removeOrder() {
+        Order order = createOrderMock(LocalDateTime.of(2024, 4, 10, 10, 5), null, 2, "20.00");
+
+        // Test
+        salesRollupService.removeOrder(order);
+
+        // Verification : the delta is negated, orders without a discount leave the discount rollup alone
+        verify(productDailySalesRepository).add(1L, LocalDate.of(2024, 4, 10), -2, new BigDecimal("-20.00"), -1);
+        verify(productHourlySalesRepository).add(1L, LocalDateTime.of(2024, 4, 10, 10, 0), -2, new BigDecimal("-20.00"), -1);
+        verify(discountDailySalesRepository, never()).add(any(), any(), anyLong(), any(), anyLong());
+    }
+
+    @Test
+    void addCart() {
+        // lines of 30.00 and 10.00, 25 % off the cart : 30.00 paid
+        Discount discount = new Discount();
+        discount.setId(5L);
+        Cart cart = new Cart();
+        cart.setTimestamp(LocalDateTime.of(2024, 4, 10, 10, 5));
+        cart.setDiscount(discount);
+        cart.setAmount(new BigDecimal("30.00"));
+        cart.addLine(createLineMock(1L, 3, "30.00"));
+        cart.addLine(createLineMock(2L, 1, "10.00"));
+
+        // Test
+        salesRollupService.addCart(cart);
+
+        // Verification : each line an order of its product with its share of the amount paid, the cart one order of the discount
+        verify(productDailySalesRepository).add(1L, LocalDate.of(2024, 4, 10), 3, new BigDecimal("22.50"), 1);
+        verify(productDailySalesRepository).add(2L, LocalDate.of(2024, 4, 10), 1, new BigDecimal("7.50"), 1);
+        verify(productHourlySalesRepository).add(1L, LocalDateTime.of(2024, 4, 10, 10, 0), 3, new BigDecimal("22.50"), 1);
+        verify(productHourlySalesRepository).add(2L, LocalDateTime.of(2024, 4, 10, 10, 0), 1, new BigDecimal("7.50"), 1);
+        verify(discountDailySalesRepository).add(5L, LocalDate.of(2024, 4, 10), 4, new BigDecimal("30.00"), 1);
+        verifyNoMoreInteractions(productDailySalesRepository, productHourlySalesRepository, discountDailySalesRepository);
+    }
+
+    @Test
+    void addOrder_RoundedLikeTheStoredTimestamp() {
+        // MySQL rounds 23:59:59.6 to the next second, so the order belongs to the next day
+        Order order = createOrderMock(LocalDateTime.of(2024, 4, 10, 23, 59, 59, 600_000_000), null, 1, "10.00");
+
+        // Test
+        salesRollupService.addOrder(order);
+
+        // Verification
+        verify(productDailySalesRepository).add(1L, LocalDate.of(2024, 4, 11), 1, new BigDecimal("10.00"), 1);
+        verify(productHourlySalesRepository).add(1L, LocalDateTime.of(2024, 4, 11, 0, 0), 1, new BigDecimal("10.00"), 1);
+    }
+
+    @Test
+    void getProductDailySales() {
+        List<ProductDailySales> sales = List.of(new ProductDailySales());
+        LocalDate from = LocalDate.of(2024, 4, 1);
+        LocalDate to = LocalDate.of(2024, 4, 30);
+        when(productDailySalesRepository.findReport(from, to, null)).thenReturn(sales);
+
+        // Test
+        List<ProductDailySales> result = salesRollupService.getProductDailySales(from, to, null);
+
+        // Verification
+        assertEquals(sales, result);
+    }
+
+    @Test
+    void getProductHourlySales() {
+        // Test : the start is truncated to the hour, so the hour it falls in is reported
+        salesRollupService.getProductHourlySales(LocalDateTime.of(2024, 4, 10, 10, 30), LocalDateTime.of(2024, 4, 10, 12, 0), 1L);
+
+        // Verification
+        verify(productHourlySalesRepository).findReport(LocalDateTime.of(2024, 4, 10, 10, 0), LocalDateTime.of(2024, 4, 10, 12, 0), 1L);
+    }
+
+    @Test
+    void backfill() {
+        // products 0-99, 100-199 and 200-299, discounts 0-99
+        when(productRepository.findMaxId()).thenReturn(250L);
+        when(discountRepository.findMaxId()).thenReturn(7L);
+        when(productDailySalesRepository.rebuildProducts(anyLong(), anyLong())).thenReturn(10);
+        when(productHourlySalesRepository.rebuildProducts(anyLong(), anyLong())).thenReturn(20);
+        when(discountDailySalesRepository.rebuildDiscounts(0L, 99L)).thenReturn(3);
+
+        // Test
+        BackfillSummary summary = salesRollupService.backfill();
+
+        // Verification
+        assertEquals(4, summary.getChunks());
+        assertEquals(3 * 30 + 3, summary.getRows());
+        verify(productDailySalesRepository).deleteProducts(200L, 299L);
+        verify(productHourlySalesRepository).rebuildProducts(100L, 199L);
+        verify(discountDailySalesRepository).deleteDiscounts(0L, 99L);
+        verify(transactionTemplate, times(4)).execute(any());
+    }
+
+    @Test
+    void backfill_RetriesChunkAfterDeadlock() {
+        when(productRepository.findMaxId()).thenReturn(1L);
+        when(discountRepository.findMaxId()).thenReturn(null);
+        AtomicBoolean failed = new AtomicBoolean();
+        when(productDailySalesRepository.rebuildProducts(0L, 99L)).thenAnswer(invocation -> {
+            if (failed.compareAndSet(false, true)) {
+                throw new CannotAcquireLockException("Deadlock found when trying to get lock");
+            }
+            return 1;
+        });
+
+        // Test
+        BackfillSummary summary = salesRollupService.backfill();
+
+        // Verification
+        assertEquals(1, summary.getChunks());
+        assertEquals(1, summary.getRows());
+        verify(productDailySalesRepository, times(2)).deleteProducts(eq(0L), eq(99L));
+    }
+
+    private OrderLine createLineMock(Long productId, int quantity, String amount) {
+        Product product = new Product();
+        product.setId(productId);
+        OrderLine line = new OrderLine();
+        line.setProduct(product);
+        line.setQuantity(quantity);
+        line.setAmount(new BigDecimal(amount));
+        return line;
+    }
+
+    private Order createOrderMock(LocalDateTime timestamp, Discount discount, int quantity, String amount) {
+        Product product = new Product();
+        product.setId(1L);
+        Order order = new Order();
+        order.setProduct(product);
+        order.setDiscount(discount);
+        order.setTimestamp(timestamp);
+        order.setQuantity(quantity);
+        order.setAmount(new BigDecimal(amount));
+        return order;
+    }
+}
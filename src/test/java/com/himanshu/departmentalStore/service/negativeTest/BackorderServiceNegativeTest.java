@@ -2,8 +2,11 @@ package com.himanshu.departmentalStore.service.negativeTest;
 
 import com.himanshu.departmentalStore.exception.ResourceNotFoundException;
 import com.himanshu.departmentalStore.model.Backorder;
+import com.himanshu.departmentalStore.model.Product;
 import com.himanshu.departmentalStore.repository.BackorderRepository;
+import com.himanshu.departmentalStore.repository.ProductRepository;
 import com.himanshu.departmentalStore.service.BackorderService;
+import com.himanshu.departmentalStore.service.ProductCatalogService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -11,7 +14,9 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
 import java.util.Optional;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.when;
 
@@ -22,6 +27,12 @@ class BackorderServiceNegativeTest {
     @Mock
     private BackorderRepository backorderRepository;
 
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private ProductCatalogService productCatalogService;
+
     @InjectMocks
     private BackorderService backorderService;
     @BeforeEach
@@ -41,11 +52,26 @@ class BackorderServiceNegativeTest {
     void updateBackorder_NonExistentId_ShouldThrowResourceNotFoundException() {
         long nonExistentId = -1;
         Backorder backorderToUpdate = new Backorder();
-        when(backorderRepository.existsById(nonExistentId)).thenReturn(false);
+        when(backorderRepository.updateById(nonExistentId, backorderToUpdate)).thenReturn(0);
 
         assertThrows(ResourceNotFoundException.class, () -> backorderService.updateBackorder(nonExistentId, backorderToUpdate));
     }
 
+    @Test
+    void updateBackorder_NonExistentProduct_ShouldThrowResourceNotFoundException() {
+        Product product = new Product();
+        product.setId(-1L);
+        Backorder backorderToUpdate = new Backorder();
+        backorderToUpdate.setProduct(product);
+        when(backorderRepository.updateById(1L, backorderToUpdate))
+                .thenThrow(new DataIntegrityViolationException("Cannot add or update a child row: a foreign key constraint fails"));
+        when(productRepository.findById(-1L)).thenReturn(Optional.empty());
+
+        ResourceNotFoundException exception = assertThrows(ResourceNotFoundException.class,
+                () -> backorderService.updateBackorder(1L, backorderToUpdate));
+        assertEquals("Product not found with Id : -1", exception.getMessage());
+    }
+
 
 
     @Test
@@ -38,7 +38,7 @@ class CustomerServiceNegativeTest {
     void updateCustomer_NonExistentId_ShouldThrowResourceNotFoundException() {
         long nonExistentId = -1;
         Customer customerToUpdate = new Customer();
-        when(customerRepository.existsById(nonExistentId)).thenReturn(false);
+        when(customerRepository.findById(nonExistentId)).thenReturn(Optional.empty());
 
         assertThrows(ResourceNotFoundException.class, () -> customerService.updateCustomer(nonExistentId, customerToUpdate));
     }
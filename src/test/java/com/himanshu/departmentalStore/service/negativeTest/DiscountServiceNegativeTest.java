@@ -1,15 +1,23 @@
 package com.himanshu.departmentalStore.service.negativeTest;
 
+import com.himanshu.departmentalStore.exception.CustomException;
 import com.himanshu.departmentalStore.exception.ResourceNotFoundException;
 import com.himanshu.departmentalStore.model.Discount;
 import com.himanshu.departmentalStore.repository.DiscountRepository;
 import com.himanshu.departmentalStore.service.DiscountService;
+import org.hibernate.exception.ConstraintViolationException;
+import org.hibernate.exception.DataException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import java.sql.SQLIntegrityConstraintViolationException;
 import java.util.Optional;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.when;
 
@@ -34,11 +42,63 @@ class DiscountServiceNegativeTest {
         assertThrows(ResourceNotFoundException.class, () -> discountService.getDiscountById(nonExistentId));
     }
 
+    @Test
+    void getDiscountByCouponCode_UnknownCode_ShouldThrowCustomException() {
+        when(discountRepository.findByCouponCode("NOPE")).thenReturn(Optional.empty());
+
+        CustomException exception = assertThrows(CustomException.class, () -> discountService.getDiscountByCouponCode("NOPE"));
+        assertEquals(HttpStatus.NOT_FOUND, exception.getExceptionHttpStatus());
+    }
+
+    @Test
+    void saveDiscount_CouponCodeUsed_ShouldThrowCustomException() {
+        Discount discount = new Discount();
+        discount.setCouponCode("FLAT50");
+        when(discountRepository.save(discount)).thenThrow(new DataIntegrityViolationException("could not execute statement",
+                new SQLIntegrityConstraintViolationException("Duplicate entry 'FLAT50' for key 'discount.uk_discount_coupon_code'")));
+
+        CustomException exception = assertThrows(CustomException.class, () -> discountService.saveDiscount(discount));
+        assertEquals(HttpStatus.CONFLICT, exception.getExceptionHttpStatus());
+    }
+
+    @Test
+    void updateDiscount_CouponCodeUsed_ShouldThrowCustomException() {
+        Discount discount = new Discount();
+        discount.setCouponCode("FLAT50");
+        when(discountRepository.updateById(1L, discount)).thenThrow(new DataIntegrityViolationException("could not execute statement",
+                new ConstraintViolationException("could not execute statement", null, "discount.uk_discount_coupon_code")));
+
+        CustomException exception = assertThrows(CustomException.class, () -> discountService.updateDiscount(1L, discount));
+        assertEquals(HttpStatus.CONFLICT, exception.getExceptionHttpStatus());
+    }
+
+    @Test
+    void saveDiscount_OtherConstraintViolated_ShouldNotBeReportedAsCouponCodeUsed() {
+        Discount discount = new Discount();
+        discount.setCouponCode("FLAT50");
+        DataIntegrityViolationException violation = new DataIntegrityViolationException("could not execute statement",
+                new SQLIntegrityConstraintViolationException("Column 'name' cannot be null"));
+        when(discountRepository.save(discount)).thenThrow(violation);
+
+        assertSame(violation, assertThrows(DataIntegrityViolationException.class, () -> discountService.saveDiscount(discount)));
+    }
+
+    @Test
+    void updateDiscount_OtherConstraintViolated_ShouldNotBeReportedAsCouponCodeUsed() {
+        Discount discount = new Discount();
+        discount.setCouponCode("FLAT50");
+        DataIntegrityViolationException violation = new DataIntegrityViolationException("could not execute statement",
+                new DataException("Data too long for column 'coupon_code' at row 1", null));
+        when(discountRepository.updateById(1L, discount)).thenThrow(violation);
+
+        assertSame(violation, assertThrows(DataIntegrityViolationException.class, () -> discountService.updateDiscount(1L, discount)));
+    }
+
     @Test
     void updateDiscount_NonExistentId_ShouldThrowResourceNotFoundException() {
         long nonExistentId = -1;
         Discount discountToUpdate = new Discount();
-        when(discountRepository.existsById(nonExistentId)).thenReturn(false);
+        when(discountRepository.updateById(nonExistentId, discountToUpdate)).thenReturn(0);
 
         assertThrows(ResourceNotFoundException.class, () -> discountService.updateDiscount(nonExistentId, discountToUpdate));
     }
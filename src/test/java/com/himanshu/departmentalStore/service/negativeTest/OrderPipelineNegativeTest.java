@@ -0,0 +1,147 @@
+package com.himanshu.departmentalStore.service.negativeTest;
+
+import com.himanshu.departmentalStore.dto.OrderRequestBody;
+import com.himanshu.departmentalStore.dto.OrderTicket;
+import com.himanshu.departmentalStore.exception.CustomException;
+import com.himanshu.departmentalStore.repository.BackorderRepository;
+import com.himanshu.departmentalStore.repository.CustomerRepository;
+import com.himanshu.departmentalStore.repository.DiscountRepository;
+import com.himanshu.departmentalStore.repository.OrderRepository;
+import com.himanshu.departmentalStore.repository.ProductRepository;
+import com.himanshu.departmentalStore.service.InventoryService;
+import com.himanshu.departmentalStore.service.OrderPipeline;
+import com.himanshu.departmentalStore.service.OrderPreparation;
+import com.himanshu.departmentalStore.service.SalesRollupService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.when;
+
+class OrderPipelineNegativeTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private CustomerRepository customerRepository;
+
+    @Mock
+    private DiscountRepository discountRepository;
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private BackorderRepository backorderRepository;
+
+    @Mock
+    private InventoryService inventoryService;
+
+    @Mock
+    private SalesRollupService salesRollupService;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private OrderPipeline orderPipeline;
+
+    @InjectMocks
+    private OrderPreparation orderPreparation;
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.initMocks(this);
+        ReflectionTestUtils.setField(orderPipeline, "orderPreparation", orderPreparation);
+        ReflectionTestUtils.setField(orderPipeline, "capacity", 1);
+        ReflectionTestUtils.setField(orderPipeline, "batchSize", 1);
+        ReflectionTestUtils.setField(orderPipeline, "ticketTtl", Duration.ofMinutes(15));
+        orderPipeline.start();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        release.countDown();
+        orderPipeline.close();
+    }
+
+    @Test
+    void submit_PipelineFull_ShouldThrowCustomException() throws InterruptedException {
+        CountDownLatch validating = new CountDownLatch(1);
+        when(productRepository.findAllById(any())).thenAnswer(invocation -> {
+            validating.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return List.of();
+        });
+        // one order in the validation stage, one in its queue : the next one does not fit
+        orderPipeline.submit(createRequestMock());
+        assertTrue(validating.await(5, TimeUnit.SECONDS));
+        orderPipeline.submit(createRequestMock());
+
+        CustomException exception = assertThrows(CustomException.class, () -> orderPipeline.submit(createRequestMock()));
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.getExceptionHttpStatus());
+        assertEquals(1.0, meterRegistry.get("orders.pipeline.refused").counter().count());
+    }
+
+    @Test
+    void submit_DatabaseDown_ShouldFailTicket() throws InterruptedException {
+        doThrow(new DataAccessResourceFailureException("Communications link failure")).when(productRepository).findAllById(any());
+
+        String id = orderPipeline.submit(createRequestMock()).getId();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (orderPipeline.getTicket(id).getStatus() == OrderTicket.Status.QUEUED && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertEquals(OrderTicket.Status.FAILED, orderPipeline.getTicket(id).getStatus());
+    }
+
+    @Test
+    void submit_PipelineStopped_ShouldThrowCustomException() throws InterruptedException {
+        orderPipeline.close();
+
+        CustomException exception = assertThrows(CustomException.class, () -> orderPipeline.submit(createRequestMock()));
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.getExceptionHttpStatus());
+    }
+
+    @Test
+    void getTicket_NonExistentTicket_ShouldThrowCustomException() {
+        CustomException exception = assertThrows(CustomException.class, () -> orderPipeline.getTicket("unknown"));
+
+        assertEquals(HttpStatus.NOT_FOUND, exception.getExceptionHttpStatus());
+    }
+
+    private OrderRequestBody createRequestMock() {
+        OrderRequestBody body = new OrderRequestBody();
+        body.setProductId(1L);
+        body.setCustomerId(1L);
+        body.setQuantity(1);
+        return body;
+    }
+}
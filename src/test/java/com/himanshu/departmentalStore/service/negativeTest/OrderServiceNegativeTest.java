@@ -4,20 +4,35 @@ import com.himanshu.departmentalStore.exception.CustomException;
 import com.himanshu.departmentalStore.exception.ResourceNotFoundException;
 import com.himanshu.departmentalStore.model.*;
 import com.himanshu.departmentalStore.repository.BackorderRepository;
+import com.himanshu.departmentalStore.repository.CustomerRepository;
 import com.himanshu.departmentalStore.repository.OrderRepository;
+import com.himanshu.departmentalStore.service.BackorderFulfillmentEngine;
 import com.himanshu.departmentalStore.service.BackorderService;
+import com.himanshu.departmentalStore.service.DiscountService;
+import com.himanshu.departmentalStore.service.InventoryService;
+import com.himanshu.departmentalStore.service.OrderPreparation;
 import com.himanshu.departmentalStore.service.OrderService;
 import com.himanshu.departmentalStore.service.ProductService;
+import com.himanshu.departmentalStore.service.SalesRollupService;
+import com.himanshu.departmentalStore.util.Pagination;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 
@@ -32,15 +47,64 @@ class OrderServiceNegativeTest {
     @Mock
     private BackorderService backorderService;
 
+    @Mock
+    private BackorderFulfillmentEngine backorderFulfillmentEngine;
+
     @Mock
     private BackorderRepository backorderRepository;
 
+    @Mock
+    private InventoryService inventoryService;
+
+    @Mock
+    private CustomerRepository customerRepository;
+
+    @Mock
+    private DiscountService discountService;
+
+    @Mock
+    private SalesRollupService salesRollupService;
+
+    @Spy
+    private Pagination pagination = new Pagination(50, 500);
+
     @InjectMocks
     private OrderService orderService;
 
+    @InjectMocks
+    private OrderPreparation orderPreparation;
+
     @BeforeEach
     void setUp() {
         MockitoAnnotations.initMocks(this);
+        ReflectionTestUtils.setField(orderService, "orderPreparation", orderPreparation);
+        // stock as loaded with the product, like the default (database) inventory
+        when(inventoryService.count(any(Product.class))).thenAnswer(invocation -> ((Product) invocation.getArgument(0)).getCount());
+    }
+
+    @Test
+    void getCustomerOrders_NonExistentCustomer_ShouldThrowResourceNotFoundException() {
+        when(orderRepository.findHistory(any(), any(), any(), any(), anyLong(), any())).thenReturn(List.of());
+        when(customerRepository.existsById(-1L)).thenReturn(false);
+
+        assertThrows(ResourceNotFoundException.class, () -> orderService.getCustomerOrders(-1L, null, null, null, null));
+    }
+
+    @Test
+    void getCustomerOrders_EmptyDateRange_ShouldThrowCustomException() {
+        LocalDateTime date = LocalDateTime.of(2024, 4, 1, 0, 0);
+
+        CustomException exception = assertThrows(CustomException.class,
+                () -> orderService.getCustomerOrders(1L, date, date, null, null));
+
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getExceptionHttpStatus());
+    }
+
+    @Test
+    void getCustomerOrders_MalformedCursor_ShouldThrowCustomException() {
+        assertThrows(CustomException.class, () -> orderService.getCustomerOrders(1L, null, null, "42", null));
+        assertThrows(CustomException.class, () -> orderService.getCustomerOrders(1L, null, null, "yesterday_42", null));
+        assertThrows(CustomException.class, () -> orderService.getCustomerOrders(1L, null, null, "2024-04-10T10:00_x", null));
     }
 
     @Test
@@ -61,12 +125,63 @@ class OrderServiceNegativeTest {
         backorder.setTimestamp(order.getTimestamp());
 
         when(productService.getProductById(1L)).thenReturn(product);
+        when(customerRepository.findById(1L)).thenReturn(Optional.of(order.getCustomer()));
         when(backorderService.saveBackorder(any(Backorder.class))).thenReturn(backorder);
         when(backorderRepository.save(any(Backorder.class))).thenReturn(backorder);
 
         assertThrows(CustomException.class, () -> orderService.createOrder(order));
     }
 
+    @Test
+    void createOrder_StockTakenByConcurrentOrder_ShouldCreateBackorder() {
+        Order order = createOrderMock(null, createProductMock(), createCustomerMock(), LocalDateTime.now(), null, 5);
+
+        Backorder backorder = new Backorder();
+        backorder.setId(1L);
+
+        when(productService.getProductById(1L)).thenReturn(order.getProduct());
+        when(customerRepository.findById(1L)).thenReturn(Optional.of(order.getCustomer()));
+        // the product looked available, but the guarded update found no stock left
+        when(inventoryService.reserve(1L, 5)).thenReturn(false);
+        when(backorderService.saveBackorder(any(Backorder.class))).thenReturn(backorder);
+
+        CustomException exception = assertThrows(CustomException.class, () -> orderService.createOrder(order));
+        assertEquals(HttpStatus.ACCEPTED, exception.getExceptionHttpStatus());
+        verify(orderRepository, never()).save(any(Order.class));
+        verify(salesRollupService, never()).addOrder(any(Order.class));
+    }
+
+    @Test
+    void createOrder_CustomerNotFound_ShouldThrowResourceNotFoundException() {
+        Order order = createOrderMock(null, createProductMock(), createCustomerMock(), LocalDateTime.now(), null, 5);
+
+        when(productService.getProductById(1L)).thenReturn(order.getProduct());
+        when(customerRepository.findById(1L)).thenReturn(Optional.empty());
+
+        assertThrows(ResourceNotFoundException.class, () -> orderService.createOrder(order));
+        verify(inventoryService, never()).reserve(any(), any(Integer.class));
+        verify(backorderService, never()).saveBackorder(any(Backorder.class));
+    }
+
+    @Test
+    void createOrder_QuantityNotPositive_ShouldThrowCustomException() {
+        Order order = createOrderMock(null, createProductMock(), createCustomerMock(), LocalDateTime.now(), null, 0);
+
+        CustomException exception = assertThrows(CustomException.class, () -> orderService.createOrder(order));
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getExceptionHttpStatus());
+        assertEquals("Quantity must be positive", exception.getMessage());
+        verify(inventoryService, never()).reserve(any(), any(Integer.class));
+    }
+
+    @Test
+    void createOrder_CustomerMissing_ShouldThrowCustomException() {
+        Order order = createOrderMock(null, createProductMock(), null, LocalDateTime.now(), null, 5);
+
+        CustomException exception = assertThrows(CustomException.class, () -> orderService.createOrder(order));
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getExceptionHttpStatus());
+        verify(productService, never()).getProductById(any());
+    }
+
     @Test
     void updateOrder_OrderNotFound_ShouldThrowResourceNotFoundException() {
         Order order = new Order();
@@ -87,6 +202,7 @@ class OrderServiceNegativeTest {
         when(orderRepository.findById(1L)).thenReturn(Optional.of(existingOrder));
 
         assertThrows(CustomException.class, () -> orderService.updateOrder(1L, updatedOrder));
+        verify(salesRollupService, never()).removeOrder(any(Order.class));
     }
 
     @Test
@@ -1,16 +1,32 @@
 package com.himanshu.departmentalStore.service.negativeTest;
 
+import com.himanshu.departmentalStore.exception.CustomException;
 import com.himanshu.departmentalStore.exception.ResourceNotFoundException;
 import com.himanshu.departmentalStore.model.Product;
 import com.himanshu.departmentalStore.repository.ProductRepository;
+import com.himanshu.departmentalStore.service.InventoryService;
+import com.himanshu.departmentalStore.service.ProductCatalogService;
 import com.himanshu.departmentalStore.service.ProductService;
+import com.himanshu.departmentalStore.util.OptimisticRetry;
+import com.himanshu.departmentalStore.util.Pagination;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.http.HttpStatus;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.time.Duration;
 import java.util.Optional;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 class ProductServiceNegativeTest {
@@ -19,12 +35,34 @@ class ProductServiceNegativeTest {
     @Mock
     private ProductRepository productRepository;
 
+    @Spy
+    private Pagination pagination = new Pagination(50, 500);
+
+    @Mock
+    private InventoryService inventoryService;
+
+    @Mock
+    private ProductCatalogService productCatalogService;
+
+    @Spy
+    private OptimisticRetry optimisticRetry = new OptimisticRetry(3, Duration.ZERO, Duration.ZERO, new SimpleMeterRegistry());
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
     @InjectMocks
     private ProductService productService;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.initMocks(this);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                ((TransactionCallback<?>) invocation.getArgument(0)).doInTransaction(null));
+    }
+
+    @Test
+    void getAllProducts_ZeroLimit_ShouldThrowCustomException() {
+        assertThrows(CustomException.class, () -> productService.getAllProducts(null, 0, null));
     }
 
     @Test
@@ -44,6 +82,19 @@ class ProductServiceNegativeTest {
         assertThrows(ResourceNotFoundException.class, () -> productService.updateProduct(nonExistentId, productToUpdate));
     }
 
+    @Test
+    void updateProduct_AlwaysConflicting_ShouldThrowConflict() {
+        Product current = new Product();
+        current.setId(1L);
+        current.setVersion(4L);
+        when(productRepository.findById(1L)).thenReturn(Optional.of(current));
+        when(productRepository.save(any(Product.class))).thenThrow(new ObjectOptimisticLockingFailureException(Product.class, 1L));
+
+        CustomException exception = assertThrows(CustomException.class, () -> productService.updateProduct(1L, new Product()));
+        assertEquals(HttpStatus.CONFLICT, exception.getExceptionHttpStatus());
+        verify(productRepository, times(3)).save(any(Product.class));
+    }
+
     @Test
     void saveProduct_NullObject_ShouldThrowNullPointerException() {
         assertThrows(NullPointerException.class, () -> productService.saveProduct(null));
@@ -0,0 +1,87 @@
+package com.himanshu.departmentalStore.service.negativeTest;
+
+import com.himanshu.departmentalStore.exception.CustomException;
+import com.himanshu.departmentalStore.repository.DiscountDailySalesRepository;
+import com.himanshu.departmentalStore.repository.DiscountRepository;
+import com.himanshu.departmentalStore.repository.ProductDailySalesRepository;
+import com.himanshu.departmentalStore.repository.ProductHourlySalesRepository;
+import com.himanshu.departmentalStore.repository.ProductRepository;
+import com.himanshu.departmentalStore.service.SalesRollupService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SalesRollupServiceNegativeTest {
+
+    @Mock
+    private ProductDailySalesRepository productDailySalesRepository;
+
+    @Mock
+    private ProductHourlySalesRepository productHourlySalesRepository;
+
+    @Mock
+    private DiscountDailySalesRepository discountDailySalesRepository;
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private DiscountRepository discountRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @InjectMocks
+    private SalesRollupService salesRollupService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.initMocks(this);
+        ReflectionTestUtils.setField(salesRollupService, "backfillThreads", 2);
+        ReflectionTestUtils.setField(salesRollupService, "backfillChunkSize", 100);
+    }
+
+    @Test
+    void getProductDailySales_FromAfterTo_ShouldThrowCustomException() {
+        CustomException exception = assertThrows(CustomException.class,
+                () -> salesRollupService.getProductDailySales(LocalDate.of(2024, 4, 2), LocalDate.of(2024, 4, 1), null));
+
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getExceptionHttpStatus());
+        verify(productDailySalesRepository, never()).findReport(any(), any(), any());
+    }
+
+    @Test
+    void getDiscountDailySales_RangeTooLong_ShouldThrowCustomException() {
+        assertThrows(CustomException.class,
+                () -> salesRollupService.getDiscountDailySales(LocalDate.of(2023, 1, 1), LocalDate.of(2024, 12, 31), null));
+    }
+
+    @Test
+    void getProductHourlySales_RangeTooLong_ShouldThrowCustomException() {
+        assertThrows(CustomException.class,
+                () -> salesRollupService.getProductHourlySales(LocalDateTime.of(2024, 4, 1, 0, 0), LocalDateTime.of(2024, 5, 15, 0, 0), 1L));
+    }
+
+    @Test
+    void backfill_ChunkFails_ShouldThrowCustomException() {
+        when(productRepository.findMaxId()).thenReturn(1L);
+        when(transactionTemplate.execute(any())).thenThrow(new IllegalStateException("Table 'sales_product_day' doesn't exist"));
+
+        CustomException exception = assertThrows(CustomException.class, () -> salesRollupService.backfill());
+
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, exception.getExceptionHttpStatus());
+    }
+}
@@ -0,0 +1,87 @@
+package com.himanshu.departmentalStore.util;
+
+import com.himanshu.departmentalStore.model.Discount;
+import org.junit.jupiter.api.Test;
+import java.time.LocalDateTime;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ActiveDiscountIndexTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 4, 1, 12, 0);
+
+    @Test
+    void activeAt_WindowsIncludeStartAndEnd() {
+        ActiveDiscountIndex index = ActiveDiscountIndex.build(List.of(
+                createDiscount(1L, NOW.minusDays(2), NOW.plusDays(2)),
+                createDiscount(2L, NOW.plusDays(1), NOW.plusDays(3)),
+                createDiscount(3L, NOW, NOW)), NOW);
+
+        assertEquals(List.of(1L, 3L), ids(index.activeAt(NOW)));
+        assertEquals(List.of(1L), ids(index.activeAt(NOW.plusNanos(1))));
+        assertEquals(List.of(1L, 2L), ids(index.activeAt(NOW.plusDays(1))));
+        assertEquals(List.of(1L, 2L), ids(index.activeAt(NOW.plusDays(2))));
+        assertEquals(List.of(2L), ids(index.activeAt(NOW.plusDays(2).plusNanos(1))));
+        assertEquals(List.of(2L), ids(index.activeAt(NOW.plusDays(3))));
+        assertTrue(index.activeAt(NOW.plusDays(3).plusSeconds(1)).isEmpty());
+        assertTrue(index.activeAt(NOW.minusDays(3)).isEmpty());
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    void activeAt_SameTimeInSameSegment_ReturnsSameList() {
+        ActiveDiscountIndex index = ActiveDiscountIndex.build(List.of(
+                createDiscount(1L, NOW.minusDays(2), NOW.plusDays(2))), NOW);
+
+        // the lists are built once per segment, a lookup does not copy them
+        assertSame(index.activeAt(NOW), index.activeAt(NOW.plusHours(1)));
+    }
+
+    @Test
+    void build_EmptyWindow_IsNeverActive() {
+        ActiveDiscountIndex index = ActiveDiscountIndex.build(List.of(
+                createDiscount(1L, NOW.plusDays(1), NOW.minusDays(1))), NOW);
+
+        assertTrue(index.activeAt(NOW).isEmpty());
+        assertEquals(0, index.size());
+        assertNull(index.nextBoundaryAfter(NOW));
+    }
+
+    @Test
+    void nextBoundaryAfter() {
+        ActiveDiscountIndex index = ActiveDiscountIndex.build(List.of(
+                createDiscount(1L, NOW.minusDays(2), NOW.plusDays(2)),
+                createDiscount(2L, NOW.plusDays(1), NOW.plusDays(3))), NOW);
+
+        assertEquals(NOW.plusDays(1), index.nextBoundaryAfter(NOW));
+        assertEquals(NOW.plusDays(2).plusNanos(1), index.nextBoundaryAfter(NOW.plusDays(1)));
+        assertEquals(NOW.plusDays(3).plusNanos(1), index.nextBoundaryAfter(NOW.plusDays(2).plusNanos(1)));
+        assertNull(index.nextBoundaryAfter(NOW.plusDays(4)));
+    }
+
+    @Test
+    void covers() {
+        ActiveDiscountIndex index = ActiveDiscountIndex.build(List.of(), NOW);
+
+        assertTrue(index.covers(NOW));
+        assertTrue(index.covers(NOW.plusDays(1)));
+        assertFalse(index.covers(NOW.minusNanos(1)));
+    }
+
+    private List<Long> ids(List<Discount> discounts) {
+        return discounts.stream().map(Discount::getId).toList();
+    }
+
+    private Discount createDiscount(Long id, LocalDateTime start, LocalDateTime end) {
+        Discount discount = new Discount();
+        discount.setId(id);
+        discount.setName("Discount " + id);
+        discount.setStartDateTime(start);
+        discount.setEndDateTime(end);
+        return discount;
+    }
+}
@@ -0,0 +1,149 @@
+package com.himanshu.departmentalStore.util;
+
+import com.himanshu.departmentalStore.dto.PendingBackorder;
+import org.junit.jupiter.api.Test;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Random;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BackorderQueuesTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 4, 1, 10, 0);
+
+    @Test
+    void poll_ShouldTakeOldestWhichFit() {
+        BackorderQueues queues = new BackorderQueues();
+        queues.add(new PendingBackorder(3L, 7L, START.plusMinutes(3), 2));
+        queues.add(new PendingBackorder(1L, 7L, START.plusMinutes(1), 4));
+        queues.add(new PendingBackorder(2L, 7L, START.plusMinutes(2), 9));
+        queues.add(new PendingBackorder(4L, 7L, START.plusMinutes(3), 1));
+        queues.add(new PendingBackorder(5L, 8L, START, 1));
+
+        List<PendingBackorder> taken = queues.poll(7L, 7);
+
+        // 9 units do not fit : skipped, the next ones are taken; same timestamp by id
+        assertEquals(List.of(1L, 3L, 4L), taken.stream().map(PendingBackorder::getId).toList());
+        assertEquals(START.plusMinutes(1), taken.get(0).getTimestamp());
+        assertEquals(2, queues.size());
+        assertTrue(queues.hasPending(7L));
+        assertEquals(2L, queues.poll(7L, 9).get(0).getId());
+        assertFalse(queues.hasPending(7L));
+        assertTrue(queues.hasPending(8L));
+        assertEquals(1, queues.productCount());
+    }
+
+    @Test
+    void poll_StockBelowSmallestQuantity_ShouldPopNothing() {
+        BackorderQueues queues = new BackorderQueues();
+        queues.add(new PendingBackorder(1L, 7L, START, 5));
+        queues.add(new PendingBackorder(2L, 7L, null, 3));
+
+        assertTrue(queues.poll(7L, 2).isEmpty());
+        assertTrue(queues.poll(9L, 100).isEmpty());
+        // no timestamp comes first
+        assertEquals(2L, queues.poll(7L, 4).get(0).getId());
+        assertEquals(1, queues.size());
+    }
+
+    @Test
+    void poll_PartialFill_ShouldAllocateStockLeftToOldest() {
+        BackorderQueues queues = new BackorderQueues();
+        queues.add(new PendingBackorder(1L, 7L, START, 3));
+        queues.add(new PendingBackorder(2L, 7L, START.plusMinutes(1), 20));
+        queues.add(new PendingBackorder(3L, 7L, START.plusMinutes(2), 1));
+
+        // 3 units for the first, the 7 left are more than a quarter of the second
+        List<PendingBackorder> taken = queues.poll(7L, 10, 0.25);
+
+        assertEquals(List.of(1L, 2L), taken.stream().map(PendingBackorder::getId).toList());
+        assertFalse(taken.get(0).isPartial());
+        assertTrue(taken.get(1).isPartial());
+        assertEquals(20, taken.get(1).getQuantity());
+        assertEquals(7, taken.get(1).getAllocated());
+        // 4 units are less than a quarter of 20 : the second is skipped, the third fulfilled
+        queues.add(new PendingBackorder(2L, 7L, START.plusMinutes(1), 20));
+        assertEquals(List.of(3L), queues.poll(7L, 4, 0.25).stream().map(PendingBackorder::getId).toList());
+        assertTrue(queues.poll(7L, 4, 0.25).isEmpty());
+        assertEquals(5, queues.poll(7L, 5, 0.25).get(0).getAllocated());
+    }
+
+    @Test
+    void remove_ShouldKeepOthersInOrder() {
+        BackorderQueues queues = new BackorderQueues();
+        for (long id = 1; id <= 10; id++) {
+            queues.add(new PendingBackorder(id, 7L, START.plusMinutes(id), 1));
+        }
+
+        assertTrue(queues.remove(4L));
+        assertFalse(queues.remove(4L));
+        assertFalse(queues.remove(11L));
+
+        assertEquals(List.of(1L, 2L, 3L, 5L, 6L), queues.poll(7L, 5).stream().map(PendingBackorder::getId).toList());
+        assertEquals(4, queues.size());
+    }
+
+    @Test
+    void remove_LastOfProduct_ShouldForgetProduct() {
+        BackorderQueues queues = new BackorderQueues();
+        queues.add(new PendingBackorder(1L, 7L, START, 1));
+        queues.add(new PendingBackorder(2L, 8L, START, 1));
+
+        assertTrue(queues.remove(2L));
+
+        assertFalse(queues.hasPending(8L));
+        assertTrue(queues.hasPending(7L));
+        assertEquals(1, queues.productCount());
+    }
+
+    @Test
+    void manyProducts_ShouldMatchOrderedPolls() {
+        BackorderQueues queues = new BackorderQueues();
+        Random random = new Random(42);
+        int added = 0;
+        for (long id = 1; id <= 20_000; id++) {
+            long productId = 1 + random.nextInt(5_000);
+            queues.add(new PendingBackorder(id, productId, START.plusSeconds(random.nextInt(100_000)), 1 + random.nextInt(3)));
+            added++;
+        }
+        // products emptied in turn, which shifts the slots probed past theirs
+        int taken = 0;
+        for (long productId = 1; productId <= 5_000; productId++) {
+            List<PendingBackorder> polled = queues.poll(productId, Integer.MAX_VALUE);
+            for (int i = 1; i < polled.size(); i++) {
+                assertFalse(polled.get(i).getTimestamp().isBefore(polled.get(i - 1).getTimestamp()));
+            }
+            taken += polled.size();
+            assertFalse(queues.hasPending(productId));
+        }
+        assertEquals(added, taken);
+        assertEquals(0, queues.size());
+        assertEquals(0, queues.productCount());
+    }
+
+    @Test
+    void footprint_ShouldStayUnderFortyBytesPerBackorder() {
+        int pending = 100_000;
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        PendingBackorder[] backorders = new PendingBackorder[pending];
+        for (int i = 0; i < pending; i++) {
+            backorders[i] = new PendingBackorder(i + 1L, 1L + i % 100, START.plusSeconds(i), 1);
+        }
+
+        long before = threads.getCurrentThreadAllocatedBytes();
+        BackorderQueues queues = new BackorderQueues();
+        for (PendingBackorder backorder : backorders) {
+            queues.add(backorder);
+        }
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+
+        // 20 bytes per backorder, up to twice right after the arrays double; each doubling drops the previous arrays
+        long footprint = queues.footprintBytes();
+        assertTrue(footprint < 40L * pending, footprint + " bytes");
+        assertTrue(footprint >= 20L * pending, footprint + " bytes");
+        assertTrue(allocated < 3 * footprint, allocated + " bytes allocated");
+    }
+}
@@ -0,0 +1,68 @@
+package com.himanshu.departmentalStore.util;
+
+import org.junit.jupiter.api.Test;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MoneyTest {
+
+    @Test
+    void toMinor_RoundsHalfUpToHundredths() {
+        assertEquals(1050L, Money.toMinor(BigDecimal.valueOf(10.5)));
+        assertEquals(1050L, Money.toMinor(new BigDecimal("10.50")));
+        assertEquals(1051L, Money.toMinor(new BigDecimal("10.505")));
+        assertEquals(1050L, Money.toMinor(new BigDecimal("10.5049")));
+        assertEquals(5000L, Money.toMinor(new BigDecimal(50)));
+    }
+
+    @Test
+    void toDecimal_AlwaysTwoDecimals() {
+        assertEquals(new BigDecimal("10.50"), Money.toDecimal(1050L));
+        assertEquals(new BigDecimal("0.00"), Money.toDecimal(0L));
+    }
+
+    @Test
+    void percentOff() {
+        assertEquals(1050L, Money.percentOff(2100L, 5000L)); // 21.00 - 50 %
+        assertEquals(2100L, Money.percentOff(2100L, 0L));
+        assertEquals(0L, Money.percentOff(2100L, Money.HUNDRED_PERCENT));
+        // 0.01 - 50 % is half a cent, paid by the customer
+        assertEquals(1L, Money.percentOff(1L, 5000L));
+        // 9.99 - 33.33 % = 6.660333
+        assertEquals(666L, Money.percentOff(999L, 3333L));
+    }
+
+    @Test
+    void percentOff_SameCentsAsBigDecimalStoredInDecimalColumn() {
+        // the previous pricing : total - total * value / 100, rounded by the DECIMAL(10, 2) column (HALF_UP)
+        for (long total = 0; total < 5000; total += 7) {
+            for (long percent = 0; percent <= Money.HUNDRED_PERCENT; percent += 133) {
+                BigDecimal decimalTotal = Money.toDecimal(total);
+                BigDecimal expected = decimalTotal.subtract(decimalTotal.multiply(
+                        Money.toDecimal(percent).divide(BigDecimal.valueOf(100)))).setScale(2, RoundingMode.HALF_UP);
+                assertEquals(expected, Money.toDecimal(Money.percentOff(total, percent)), total + " - " + percent);
+            }
+        }
+    }
+
+    @Test
+    void share() {
+        // a cart of 30.00 + 10.00 paid 30.00 : three quarters of it for the first line
+        assertEquals(2250L, Money.share(3000L, 3000L, 4000L));
+        assertEquals(750L, Money.share(3000L, 1000L, 4000L));
+        // 10.00 for one line of three equal ones is 3.333... : 3.33
+        assertEquals(333L, Money.share(1000L, 500L, 1500L));
+        // 0.05 for one line of two equal ones is 0.025 : 0.03
+        assertEquals(3L, Money.share(5L, 100L, 200L));
+        assertEquals(0L, Money.share(0L, 0L, 0L));
+    }
+
+    @Test
+    void lineTotal_Overflow_ShouldThrowArithmeticException() {
+        assertEquals(6300L, Money.lineTotal(2100L, 3));
+        assertThrows(ArithmeticException.class, () -> Money.lineTotal(Long.MAX_VALUE / 2, 3));
+        assertThrows(ArithmeticException.class, () -> Money.percentOff(Long.MAX_VALUE / 2, 5000L));
+    }
+}
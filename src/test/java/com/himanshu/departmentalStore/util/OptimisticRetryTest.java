@@ -0,0 +1,80 @@
+package com.himanshu.departmentalStore.util;
+
+import com.himanshu.departmentalStore.exception.CustomException;
+import com.himanshu.departmentalStore.model.Product;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OptimisticRetryTest {
+
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void run_ConflictThenSuccess_ShouldReturnSecondAttempt() {
+        OptimisticRetry retry = new OptimisticRetry(3, Duration.ZERO, Duration.ZERO, meterRegistry);
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = retry.run("create", () -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new ObjectOptimisticLockingFailureException(Product.class, 1L);
+            }
+            return "placed";
+        });
+
+        assertEquals("placed", result);
+        assertEquals(2, attempts.get());
+        assertEquals(1.0, meterRegistry.get("orders.retry.conflicts").tag("operation", "create").counter().count());
+        assertTrue(meterRegistry.find("orders.retry.exhausted").counters().isEmpty());
+    }
+
+    @Test
+    void run_AlwaysConflicting_ShouldThrowConflictAfterLastAttempt() {
+        OptimisticRetry retry = new OptimisticRetry(4, Duration.ZERO, Duration.ZERO, meterRegistry);
+        AtomicInteger attempts = new AtomicInteger();
+
+        CustomException exception = assertThrows(CustomException.class, () -> retry.run("update", () -> {
+            attempts.incrementAndGet();
+            throw new ObjectOptimisticLockingFailureException(Product.class, 1L);
+        }));
+
+        assertEquals(HttpStatus.CONFLICT, exception.getExceptionHttpStatus());
+        assertEquals(4, attempts.get());
+        assertEquals(3.0, meterRegistry.get("orders.retry.conflicts").tag("operation", "update").counter().count());
+        assertEquals(1.0, meterRegistry.get("orders.retry.exhausted").tag("operation", "update").counter().count());
+    }
+
+    @Test
+    void run_OtherFailure_ShouldNotRetry() {
+        OptimisticRetry retry = new OptimisticRetry(3, Duration.ZERO, Duration.ZERO, meterRegistry);
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(IllegalStateException.class, () -> retry.run("delete", () -> {
+            attempts.incrementAndGet();
+            throw new IllegalStateException("not a conflict");
+        }));
+
+        assertEquals(1, attempts.get());
+        assertTrue(meterRegistry.find("orders.retry.conflicts").counters().isEmpty());
+    }
+
+    @Test
+    void backoff_ShouldStayUnderExponentialBound() {
+        OptimisticRetry retry = new OptimisticRetry(10, Duration.ofMillis(5), Duration.ofMillis(200), meterRegistry);
+
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(retry.backoff(1).compareTo(Duration.ofMillis(5)) <= 0);
+            assertTrue(retry.backoff(3).compareTo(Duration.ofMillis(20)) <= 0);
+            assertTrue(retry.backoff(60).compareTo(Duration.ofMillis(200)) <= 0);
+        }
+        // jittered : not every retry waits the same time
+        assertTrue(retry.backoff(7).compareTo(retry.backoff(7)) != 0 || retry.backoff(7).compareTo(retry.backoff(7)) != 0);
+    }
+}
@@ -0,0 +1,77 @@
+package com.himanshu.departmentalStore.util;
+
+import com.himanshu.departmentalStore.model.Product;
+import org.junit.jupiter.api.Test;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProductCatalogTest {
+
+    @Test
+    void changes_NeverTouchPublishedSnapshot() {
+        Product first = createProduct(1L);
+        Product second = createProduct(2L);
+        ProductCatalog loaded = ProductCatalog.EMPTY.reload(List.of(first, second));
+        Product updated = createProduct(1L);
+
+        ProductCatalog changed = loaded.with(List.of(updated));
+        ProductCatalog deleted = changed.without(2L);
+
+        assertEquals(1L, loaded.getVersion());
+        assertEquals(2L, changed.getVersion());
+        assertEquals(3L, deleted.getVersion());
+        assertSame(first, loaded.get(1L));
+        assertSame(updated, changed.get(1L));
+        assertSame(second, changed.get(2L));
+        assertNull(deleted.get(2L));
+        assertEquals(1, deleted.size());
+        assertEquals(0, ProductCatalog.EMPTY.size());
+    }
+
+    @Test
+    void get_DoesNotAllocate() {
+        List<Product> products = new ArrayList<>();
+        for (long id = 1; id <= 1000; id++) {
+            products.add(createProduct(id));
+        }
+        ProductCatalog catalog = ProductCatalog.EMPTY.reload(products);
+        Long[] ids = products.stream().map(Product::getId).toArray(Long[]::new);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        lookUp(catalog, ids);
+
+        long before = threads.getCurrentThreadAllocatedBytes();
+        int found = lookUp(catalog, ids);
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+
+        assertEquals(100 * ids.length, found);
+        // a few hundred bytes at most for the measurement itself, against 100 000 lookups
+        assertTrue(allocated < 10_000, allocated + " bytes allocated");
+    }
+
+    private int lookUp(ProductCatalog catalog, Long[] ids) {
+        int found = 0;
+        for (int round = 0; round < 100; round++) {
+            for (Long id : ids) {
+                if (catalog.get(id) != null) {
+                    found++;
+                }
+            }
+        }
+        return found;
+    }
+
+    private Product createProduct(Long id) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName("Product " + id);
+        product.setPriceMinor(1000L);
+        product.setCount(10);
+        product.setAvailability(true);
+        return product;
+    }
+}